@@ -22,11 +22,10 @@ import io.r2dbc.postgresql.client.ExtendedQueryMessageFlow;
 import io.r2dbc.postgresql.util.Assert;
 import reactor.core.publisher.Mono;
 import reactor.util.annotation.Nullable;
-import reactor.util.function.Tuple2;
-import reactor.util.function.Tuples;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -38,7 +37,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 final class BoundedStatementCache implements StatementCache {
 
-    private final Map<Tuple2<String, List<Integer>>, String> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, StatementDescription> cache = new LinkedHashMap<>(16, 0.75f, true);
 
     private final Client client;
 
@@ -55,13 +54,12 @@ final class BoundedStatementCache implements StatementCache {
     }
 
     @Override
-    public Mono<String> getName(Binding binding, String sql) {
+    public Mono<StatementDescription> getStatement(Binding binding, String sql) {
         Assert.requireNonNull(binding, "binding must not be null");
         Assert.requireNonNull(sql, "sql must not be null");
-        Tuple2<String, List<Integer>> key = Tuples.of(sql, binding.getParameterTypes());
-        String name = get(key);
-        if (name != null) {
-            return Mono.just(name);
+        StatementDescription statement = get(sql);
+        if (statement != null) {
+            return Mono.just(statement);
         }
 
         Mono<Void> closeLastStatement = Mono.defer(() -> {
@@ -76,10 +74,36 @@ final class BoundedStatementCache implements StatementCache {
                 .then();
         });
 
-        return closeLastStatement.then(this.parse(sql, binding.getParameterTypes()))
-            .doOnNext(preparedName -> put(key, preparedName));
+        return closeLastStatement.then(this.prepare(sql, binding))
+            .doOnNext(prepared -> put(sql, prepared));
     }
 
+    @Override
+    public Mono<Void> evict(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        return Mono.defer(() -> {
+            StatementDescription statement = remove(sql);
+            if (statement == null) {
+                return Mono.empty();
+            }
+
+            ExceptionFactory factory = ExceptionFactory.withSql(statement.getName());
+            return ExtendedQueryMessageFlow
+                .closeStatement(this.client, statement.getName())
+                .handle(factory::handleErrorResponse)
+                .then();
+        });
+    }
+
+    @Override
+    public boolean contains(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        synchronized (this.cache) {
+            return this.cache.containsKey(sql);
+        }
+    }
 
     /**
      * Synchronized cache access: Return all statement names.
@@ -89,19 +113,21 @@ final class BoundedStatementCache implements StatementCache {
     Collection<String> getCachedStatementNames() {
         synchronized (this.cache) {
             List<String> names = new ArrayList<>(this.cache.size());
-            names.addAll(cache.values());
+            for (StatementDescription statement : this.cache.values()) {
+                names.add(statement.getName());
+            }
             return names;
         }
     }
 
     /**
-     * Synchronized cache access: Retrieve statement name by key.
+     * Synchronized cache access: Retrieve statement by key.
      *
      * @param key
-     * @return statement name by key
+     * @return statement by key
      */
     @Nullable
-    private String get(Tuple2<String, List<Integer>> key) {
+    private StatementDescription get(String key) {
         synchronized (this.cache) {
             return this.cache.get(key);
         }
@@ -114,19 +140,32 @@ final class BoundedStatementCache implements StatementCache {
      */
     private String getAndRemoveEldest() {
         synchronized (this.cache) {
-            Iterator<Map.Entry<Tuple2<String, List<Integer>>, String>> iterator = this.cache.entrySet().iterator();
-            String entry = iterator.next().getValue();
+            Iterator<Map.Entry<String, StatementDescription>> iterator = this.cache.entrySet().iterator();
+            String entry = iterator.next().getValue().getName();
             iterator.remove();
             return entry;
         }
     }
 
+    /**
+     * Synchronized cache access: Remove statement by key.
+     *
+     * @param key
+     * @return the removed statement
+     */
+    @Nullable
+    private StatementDescription remove(String key) {
+        synchronized (this.cache) {
+            return this.cache.remove(key);
+        }
+    }
+
     /**
      * Synchronized cache access: Store prepared statement.
      */
-    private void put(Tuple2<String, List<Integer>> key, String preparedName) {
+    private void put(String key, StatementDescription statement) {
         synchronized (this.cache) {
-            this.cache.put(key, preparedName);
+            this.cache.put(key, statement);
         }
     }
 
@@ -151,14 +190,9 @@ final class BoundedStatementCache implements StatementCache {
             '}';
     }
 
-    private Mono<String> parse(String sql, List<Integer> types) {
+    private Mono<StatementDescription> prepare(String sql, Binding binding) {
         String name = String.format("S_%d", this.counter.getAndIncrement());
 
-        ExceptionFactory factory = ExceptionFactory.withSql(name);
-        return ExtendedQueryMessageFlow
-            .parse(this.client, name, sql, types)
-            .handle(factory::handleErrorResponse)
-            .then(Mono.just(name))
-            .cache();
+        return StatementCache.prepare(this.client, name, sql, binding, Collections.emptyList()).cache();
     }
 }
@@ -18,10 +18,14 @@ package io.r2dbc.postgresql;
 
 import io.r2dbc.postgresql.api.PostgresqlConnection;
 import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.DrainLimit;
 import io.r2dbc.postgresql.codec.Codecs;
 
+import java.time.Duration;
+
 /**
- * Value object capturing contextual connection resources such as {@link Client}, {@link Codecs} and the {@link PostgresqlConnection connection facade}.
+ * Value object capturing contextual connection resources such as {@link Client}, {@link Codecs}, the {@link PostgresqlConnection connection facade} and the factory-wide
+ * {@link DefaultPostgresqlMetrics metrics} and the {@link DrainLimit} applied to cancelled results.
  */
 final class ConnectionContext {
 
@@ -31,10 +35,16 @@ final class ConnectionContext {
 
     private final PostgresqlConnection connection;
 
-    ConnectionContext(Client client, Codecs codecs, PostgresqlConnection connection) {
+    private final DefaultPostgresqlMetrics metrics;
+
+    private final DrainLimit drainLimit;
+
+    ConnectionContext(Client client, Codecs codecs, PostgresqlConnection connection, DefaultPostgresqlMetrics metrics, DrainLimit drainLimit) {
         this.client = client;
         this.codecs = codecs;
         this.connection = connection;
+        this.metrics = metrics;
+        this.drainLimit = drainLimit;
     }
 
     public Client getClient() {
@@ -49,12 +59,31 @@ final class ConnectionContext {
         return this.connection;
     }
 
+    public DefaultPostgresqlMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    public DrainLimit getDrainLimit() {
+        return this.drainLimit;
+    }
+
+    /**
+     * Returns the statement timeout of the {@link PostgresqlConnection connection} or {@link Duration#ZERO} if the context is not associated with a connection.
+     *
+     * @return the statement timeout
+     */
+    public Duration getStatementTimeout() {
+        return this.connection != null ? this.connection.getStatementTimeout() : Duration.ZERO;
+    }
+
     @Override
     public String toString() {
         return "ConnectionContext{" +
             "client=" + this.client +
             ", codecs=" + this.codecs +
             ", connection=" + this.connection +
+            ", metrics=" + this.metrics +
+            ", drainLimit=" + this.drainLimit +
             '}';
     }
 }
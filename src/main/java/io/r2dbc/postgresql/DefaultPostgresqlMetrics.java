@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.api.PostgresqlMetrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link PostgresqlMetrics} implementation backed by {@link LongAdder counters}. Instances are shared between all connections of a connection factory.
+ */
+final class DefaultPostgresqlMetrics implements PostgresqlMetrics {
+
+    private final LongAdder statementReprepareCount = new LongAdder();
+
+    @Override
+    public long getStatementReprepareCount() {
+        return this.statementReprepareCount.sum();
+    }
+
+    void incrementStatementReprepareCount() {
+        this.statementReprepareCount.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultPostgresqlMetrics{" +
+            "statementReprepareCount=" + this.statementReprepareCount +
+            '}';
+    }
+
+}
@@ -18,10 +18,11 @@ package io.r2dbc.postgresql;
 
 import io.r2dbc.postgresql.client.Binding;
 import io.r2dbc.postgresql.client.Client;
-import io.r2dbc.postgresql.client.ExtendedQueryMessageFlow;
 import io.r2dbc.postgresql.util.Assert;
 import reactor.core.publisher.Mono;
 
+import java.util.Collections;
+
 class DisabledStatementCache implements StatementCache {
 
     private static final String UNNAMED_STATEMENT_NAME = "";
@@ -33,16 +34,26 @@ class DisabledStatementCache implements StatementCache {
     }
 
     @Override
-    public Mono<String> getName(Binding binding, String sql) {
+    public Mono<StatementDescription> getStatement(Binding binding, String sql) {
         Assert.requireNonNull(binding, "binding must not be null");
         Assert.requireNonNull(sql, "sql must not be null");
         String name = UNNAMED_STATEMENT_NAME;
 
-        ExceptionFactory factory = ExceptionFactory.withSql(name);
-        return ExtendedQueryMessageFlow
-            .parse(this.client, name, sql, binding.getParameterTypes())
-            .handle(factory::handleErrorResponse)
-            .then(Mono.just(name));
+        return StatementCache.prepare(this.client, name, sql, binding, Collections.emptyList());
+    }
+
+    @Override
+    public Mono<Void> evict(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        return Mono.empty();
+    }
+
+    @Override
+    public boolean contains(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        return false;
     }
 
     @Override
@@ -26,20 +26,28 @@ import io.r2dbc.spi.R2dbcException;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
 import io.r2dbc.spi.R2dbcPermissionDeniedException;
 import io.r2dbc.spi.R2dbcRollbackException;
+import io.r2dbc.spi.R2dbcTimeoutException;
 import io.r2dbc.spi.R2dbcTransientException;
 import reactor.core.publisher.SynchronousSink;
 
+import java.util.function.BooleanSupplier;
+
 /**
  * Factory for Postgres-specific {@link R2dbcException}s.
  */
 final class ExceptionFactory {
 
-    public static final ExceptionFactory INSTANCE = new ExceptionFactory("");
+    public static final ExceptionFactory INSTANCE = new ExceptionFactory("", () -> false);
+
+    private static final String QUERY_CANCELED = "57014";
 
     private final String sql;
 
-    private ExceptionFactory(String sql) {
+    private final BooleanSupplier timedOut;
+
+    private ExceptionFactory(String sql, BooleanSupplier timedOut) {
         this.sql = sql;
+        this.timedOut = timedOut;
     }
 
     /**
@@ -49,7 +57,19 @@ final class ExceptionFactory {
      * @return
      */
     static ExceptionFactory withSql(String sql) {
-        return new ExceptionFactory(sql);
+        return new ExceptionFactory(sql, () -> false);
+    }
+
+    /**
+     * Creates a {@link ExceptionFactory} associated with a SQL query that is subject to a driver-side timeout. A {@code query_canceled} error is reported as {@link R2dbcTimeoutException} only
+     * if {@code timedOut} indicates that the driver cancelled the query because its timeout expired.
+     *
+     * @param sql      underlying SQL.
+     * @param timedOut indicates whether the timeout of the query expired.
+     * @return the {@link ExceptionFactory}.
+     */
+    static ExceptionFactory withTimeout(String sql, BooleanSupplier timedOut) {
+        return new ExceptionFactory(sql, timedOut);
     }
 
     /**
@@ -57,13 +77,18 @@ final class ExceptionFactory {
      *
      * @param response the response that contains the error details.
      * @param sql      underlying SQL.
+     * @param timedOut whether the driver cancelled the query because its timeout expired.
      * @return the {@link R2dbcException}.
      * @see ErrorResponse
      */
-    private static R2dbcException createException(ErrorResponse response, String sql) {
+    private static R2dbcException createException(ErrorResponse response, String sql, boolean timedOut) {
 
         ErrorDetails errorDetails = new ErrorDetails(response.getFields());
 
+        if (timedOut && QUERY_CANCELED.equals(errorDetails.getCode())) {
+            return new PostgresqlTimeoutException(errorDetails);
+        }
+
         switch (errorDetails.getCode()) {
             case "42501":
                 return new PostgresqlPermissionDeniedException(errorDetails);
@@ -107,7 +132,7 @@ final class ExceptionFactory {
     void handleErrorResponse(BackendMessage message, SynchronousSink<BackendMessage> sink) {
 
         if (message instanceof ErrorResponse) {
-            sink.error(createException((ErrorResponse) message, this.sql));
+            sink.error(createException((ErrorResponse) message, this.sql, this.timedOut.getAsBoolean()));
         } else {
             sink.next(message);
         }
@@ -167,6 +192,24 @@ final class ExceptionFactory {
         }
     }
 
+    /**
+     * Postgres-specific {@link R2dbcTimeoutException}.
+     */
+    static final class PostgresqlTimeoutException extends R2dbcTimeoutException implements PostgresqlException {
+
+        private final ErrorDetails errorDetails;
+
+        PostgresqlTimeoutException(ErrorDetails errorDetails) {
+            super(errorDetails.getMessage(), errorDetails.getCode());
+            this.errorDetails = errorDetails;
+        }
+
+        @Override
+        public ErrorDetails getErrorDetails() {
+            return this.errorDetails;
+        }
+    }
+
     /**
      * Postgres-specific {@link R2dbcPermissionDeniedException}.
      */
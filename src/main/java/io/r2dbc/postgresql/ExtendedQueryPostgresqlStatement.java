@@ -18,26 +18,35 @@ package io.r2dbc.postgresql;
 
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ReferenceCounted;
+import io.r2dbc.postgresql.api.ErrorDetails;
 import io.r2dbc.postgresql.api.PostgresqlStatement;
 import io.r2dbc.postgresql.client.Binding;
+import io.r2dbc.postgresql.client.CancelRequestMessageFlow;
+import io.r2dbc.postgresql.client.DrainLimit;
 import io.r2dbc.postgresql.client.ExtendedQueryMessageFlow;
+import io.r2dbc.postgresql.client.Parameter;
 import io.r2dbc.postgresql.client.PortalNameSupplier;
+import io.r2dbc.postgresql.client.ResultBuffer;
+import io.r2dbc.postgresql.client.ResultDrain;
+import io.r2dbc.postgresql.client.TransactionStatus;
+import io.r2dbc.postgresql.codec.Codecs;
 import io.r2dbc.postgresql.message.backend.BackendMessage;
 import io.r2dbc.postgresql.message.backend.BindComplete;
 import io.r2dbc.postgresql.message.backend.CloseComplete;
+import io.r2dbc.postgresql.message.backend.ErrorResponse;
 import io.r2dbc.postgresql.message.backend.NoData;
 import io.r2dbc.postgresql.util.Assert;
 import io.r2dbc.postgresql.util.GeneratedValuesUtils;
 import io.r2dbc.postgresql.util.Operators;
 import reactor.core.publisher.Flux;
+import reactor.util.annotation.Nullable;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
-import java.util.regex.Matcher;
 
 import static io.r2dbc.postgresql.client.ExtendedQueryMessageFlow.PARAMETER_SYMBOL;
 import static io.r2dbc.postgresql.util.PredicateUtils.not;
@@ -45,6 +54,12 @@ import static io.r2dbc.postgresql.util.PredicateUtils.or;
 
 final class ExtendedQueryPostgresqlStatement implements PostgresqlStatement {
 
+    private static final long UNBUFFERED = -1;
+
+    private static final String UNNAMED_STATEMENT_NAME = "";
+
+    private static final String FEATURE_NOT_SUPPORTED = "0A000";
+
     private static final Predicate<BackendMessage> RESULT_FRAME_FILTER = not(or(BindComplete.class::isInstance, NoData.class::isInstance));
 
     private final Bindings bindings;
@@ -55,21 +70,34 @@ final class ExtendedQueryPostgresqlStatement implements PostgresqlStatement {
 
     private final PortalNameSupplier portalNameSupplier;
 
+    private final ParsedSql parsedSql;
+
     private final String sql;
 
     private final StatementCache statementCache;
 
     private String[] generatedColumns;
 
+    private Duration timeout;
+
+    private long memoryThreshold = UNBUFFERED;
+
     ExtendedQueryPostgresqlStatement(ConnectionContext context, PortalNameSupplier portalNameSupplier, String sql, StatementCache statementCache,
                                      boolean forceBinary) {
+        this(context, portalNameSupplier, PostgresqlSqlParser.parse(sql), statementCache, forceBinary);
+    }
+
+    ExtendedQueryPostgresqlStatement(ConnectionContext context, PortalNameSupplier portalNameSupplier, ParsedSql parsedSql, StatementCache statementCache,
+                                     boolean forceBinary) {
         this.context = Assert.requireNonNull(context, "context must not be null");
         this.portalNameSupplier = Assert.requireNonNull(portalNameSupplier, "portalNameSupplier must not be null");
-        this.sql = Assert.requireNonNull(sql, "sql must not be null");
+        this.parsedSql = Assert.requireNonNull(parsedSql, "parsedSql must not be null");
+        this.sql = parsedSql.getSql();
         this.statementCache = Assert.requireNonNull(statementCache, "statementCache must not be null");
         this.forceBinary = forceBinary;
+        this.timeout = context.getStatementTimeout();
 
-        this.bindings = new Bindings(expectedSize(sql));
+        this.bindings = new Bindings(parsedSql.getParameterCount());
     }
 
     @Override
@@ -90,7 +118,7 @@ final class ExtendedQueryPostgresqlStatement implements PostgresqlStatement {
     public ExtendedQueryPostgresqlStatement bind(int index, Object value) {
         Assert.requireNonNull(value, "value must not be null");
 
-        this.bindings.getCurrent().add(index, this.context.getCodecs().encode(value));
+        this.bindings.add(index, this.context.getCodecs().encode(value), value);
 
         return this;
     }
@@ -109,7 +137,17 @@ final class ExtendedQueryPostgresqlStatement implements PostgresqlStatement {
     public ExtendedQueryPostgresqlStatement bindNull(int index, Class<?> type) {
         Assert.requireNonNull(type, "type must not be null");
 
-        this.bindings.getCurrent().add(index, this.context.getCodecs().encodeNull(type));
+        this.bindings.add(index, this.context.getCodecs().encodeNull(type), null);
+        return this;
+    }
+
+    @Override
+    public ExtendedQueryPostgresqlStatement bufferResult(long memoryThreshold) {
+        if (memoryThreshold < 0) {
+            throw new IllegalArgumentException("memoryThreshold must be greater or equal to zero");
+        }
+
+        this.memoryThreshold = memoryThreshold;
         return this;
     }
 
@@ -126,11 +164,11 @@ final class ExtendedQueryPostgresqlStatement implements PostgresqlStatement {
     public ExtendedQueryPostgresqlStatement returnGeneratedValues(String... columns) {
         Assert.requireNonNull(columns, "columns must not be null");
 
-        if (GeneratedValuesUtils.hasReturningClause(this.sql)) {
+        if (this.parsedSql.hasReturningClause()) {
             throw new IllegalStateException("Statement already includes RETURNING clause");
         }
 
-        if (!GeneratedValuesUtils.isSupportedCommand(this.sql)) {
+        if (!this.parsedSql.isModifyingCommand()) {
             throw new IllegalStateException("Statement is not a DELETE, INSERT, or UPDATE command");
         }
 
@@ -138,6 +176,18 @@ final class ExtendedQueryPostgresqlStatement implements PostgresqlStatement {
         return this;
     }
 
+    @Override
+    public ExtendedQueryPostgresqlStatement timeout(Duration timeout) {
+        Assert.requireNonNull(timeout, "timeout must not be null");
+
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+
+        this.timeout = timeout;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "ExtendedQueryPostgresqlStatement{" +
@@ -148,64 +198,132 @@ final class ExtendedQueryPostgresqlStatement implements PostgresqlStatement {
             ", sql='" + this.sql + '\'' +
             ", statementCache=" + this.statementCache +
             ", generatedColumns=" + Arrays.toString(this.generatedColumns) +
+            ", timeout=" + this.timeout +
+            ", memoryThreshold=" + this.memoryThreshold +
             '}';
     }
 
     static boolean supports(String sql) {
         Assert.requireNonNull(sql, "sql must not be null");
 
-        return !sql.trim().isEmpty() && !sql.contains(";") && sql.contains("$1");
+        return supports(PostgresqlSqlParser.parse(sql));
+    }
+
+    static boolean supports(ParsedSql parsedSql) {
+        Assert.requireNonNull(parsedSql, "parsedSql must not be null");
+
+        return parsedSql.getStatementCount() == 1 && parsedSql.getParameterCount() > 0;
     }
 
     Binding getCurrentBinding() {
         return this.bindings.getCurrent();
     }
 
-    private static int expectedSize(String sql) {
-        Matcher m = PARAMETER_SYMBOL.matcher(sql);
-        Set<String> paramNames = new HashSet<>();
+    private Flux<io.r2dbc.postgresql.api.PostgresqlResult> execute(String sql) {
+        this.bindings.finish();
+
+        ExceptionFactory factory = ExceptionFactory.withSql(sql);
+        Binding first = this.bindings.first();
+
+        Flux<BackendMessage> responses = Flux.defer(() -> {
+
+            // a failed statement aborts an explicit transaction so we can only retry in auto-commit mode
+            boolean retryable = this.context.getClient().getTransactionStatus() == TransactionStatus.IDLE;
+
+            return executeCached(sql, first, factory)
+                .switchOnFirst((signal, received) -> {
+
+                    if (retryable && signal.hasValue() && isStalePlan(signal.get())) {
+                        this.context.getMetrics().incrementStatementReprepareCount();
+                        return received.then(this.statementCache.evict(sql)).thenMany(executeCached(sql, first, factory));
+                    }
+
+                    return received;
+                });
+        });
+
+        return Flux.defer(() -> {
+
+            // a buffered result is received completely so there is nothing to cancel on the server; cancelling a write or a statement list would lose work
+            boolean buffered = this.memoryThreshold != UNBUFFERED;
+            boolean cancellable = !buffered && this.parsedSql.isSingleReadOnlyStatement();
+            ResultDrain drain = ResultDrain.create(this.context.getClient(), cancellable ? this.context.getDrainLimit() : DrainLimit.UNLIMITED);
+
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ExceptionFactory resultFactory = ExceptionFactory.withTimeout(sql, timedOut::get);
 
-        int count = 0;
-        while (m.find()) {
-            if (paramNames.add(m.group())) {
-                count++;
+            Flux<BackendMessage> received = CancelRequestMessageFlow.timeout(this.context.getClient(), responses, this.timeout, () -> timedOut.set(true))
+                .transform(drain::messages);
+
+            if (buffered) {
+                received = ResultBuffer.buffer(received, this.context.getClient().getByteBufAllocator(), this.memoryThreshold);
             }
-        }
 
-        return count;
+            return received
+                .filter(RESULT_FRAME_FILTER)
+                .windowUntil(CloseComplete.class::isInstance)
+                .map(messages -> PostgresqlResult.toResult(this.context, drain.result(messages), resultFactory))
+                .cast(io.r2dbc.postgresql.api.PostgresqlResult.class)
+                .as(results -> Operators.discardOnCancel(results, drain::cancel));
+        }).doOnDiscard(ReferenceCounted.class, ReferenceCountUtil::release);
     }
 
-    private Flux<io.r2dbc.postgresql.api.PostgresqlResult> execute(String sql) {
-        this.bindings.finish();
+    private Flux<BackendMessage> executeCached(String sql, Binding first, ExceptionFactory factory) {
 
-        ExceptionFactory factory = ExceptionFactory.withSql(sql);
-        return this.statementCache.getName(this.bindings.first(), sql)
-            .flatMapMany(name -> {
-                return ExtendedQueryMessageFlow
-                    .execute(Flux.fromIterable(this.bindings.bindings), this.context.getClient(), this.portalNameSupplier, name, sql, this.forceBinary);
-            })
-            .filter(RESULT_FRAME_FILTER)
-            .windowUntil(CloseComplete.class::isInstance)
-            .map(messages -> PostgresqlResult.toResult(this.context, messages, factory))
-            .cast(io.r2dbc.postgresql.api.PostgresqlResult.class)
-            .as(Operators::discardOnCancel)
-            .doOnDiscard(ReferenceCounted.class, ReferenceCountUtil::release);
+        return this.statementCache.getStatement(first, sql)
+            .flatMapMany(statement -> {
+
+                List<Binding> aligned = this.bindings.alignTo(statement.getParameterTypes(), this.context.getCodecs());
+                if (aligned != null) {
+                    return ExtendedQueryMessageFlow
+                        .execute(Flux.fromIterable(aligned), this.context.getClient(), this.portalNameSupplier, statement.getName(), sql, this.forceBinary);
+                }
+
+                // last resort: bound values cannot be encoded for the cached statement, prepare the unnamed statement using the client-side parameter types
+                return ExtendedQueryMessageFlow.parse(this.context.getClient(), UNNAMED_STATEMENT_NAME, sql, first.getParameterTypes())
+                    .handle(factory::handleErrorResponse)
+                    .thenMany(Flux.defer(() -> ExtendedQueryMessageFlow
+                        .execute(Flux.fromIterable(this.bindings.bindings), this.context.getClient(), this.portalNameSupplier, UNNAMED_STATEMENT_NAME, sql, this.forceBinary)));
+            });
+    }
+
+    /**
+     * Check whether {@code message} reports that the plan of a cached statement is no longer valid because a schema change altered the statement's result type.
+     */
+    private static boolean isStalePlan(BackendMessage message) {
+
+        if (!(message instanceof ErrorResponse)) {
+            return false;
+        }
+
+        ErrorDetails details = new ErrorDetails(((ErrorResponse) message).getFields());
+
+        if (!FEATURE_NOT_SUPPORTED.equals(details.getCode())) {
+            return false;
+        }
+
+        return details.getRoutine().filter("RevalidateCachedQuery"::equals).isPresent()
+            || (details.getMessage() != null && details.getMessage().contains("cached plan must not change result type"));
     }
 
     private int getIndex(String identifier) {
-        Matcher matcher = PARAMETER_SYMBOL.matcher(identifier);
+        int index = PostgresqlSqlParser.parseParameterIndex(identifier);
 
-        if (!matcher.find()) {
+        if (index < 0) {
             throw new IllegalArgumentException(String.format("Identifier '%s' is not a valid identifier. Should be of the pattern '%s'.", identifier, PARAMETER_SYMBOL.pattern()));
         }
 
-        return Integer.parseInt(matcher.group(1)) - 1;
+        return index;
     }
 
     private static final class Bindings {
 
         private final List<Binding> bindings = new ArrayList<>();
 
+        private final List<Parameter[]> parameters = new ArrayList<>();
+
+        private final List<Object[]> values = new ArrayList<>();
+
         private final int expectedSize;
 
         private Binding current;
@@ -222,6 +340,76 @@ final class ExtendedQueryPostgresqlStatement implements PostgresqlStatement {
                 '}';
         }
 
+        private void add(int index, Parameter parameter, @Nullable Object value) {
+            getCurrent().add(index, parameter);
+
+            int position = this.bindings.size() - 1;
+            this.parameters.get(position)[index] = parameter;
+            this.values.get(position)[index] = value;
+        }
+
+        /**
+         * Align all bindings with the server-described {@code parameterTypes}.
+         *
+         * @return the aligned bindings or {@code null} if a bound value cannot be encoded for its server-side parameter type
+         */
+        @Nullable
+        private List<Binding> alignTo(List<Integer> parameterTypes, Codecs codecs) {
+
+            if (parameterTypes.size() != this.expectedSize) {
+                return this.bindings;
+            }
+
+            ParameterEncoder encoder = null;
+            List<Binding> aligned = this.bindings;
+
+            for (int i = 0; i < this.bindings.size(); i++) {
+
+                Parameter[] parameters = this.parameters.get(i);
+                Parameter[] alignedParameters = null;
+
+                for (int j = 0; j < parameters.length; j++) {
+
+                    if (parameters[j].getType() == parameterTypes.get(j)) {
+                        continue;
+                    }
+
+                    if (encoder == null) {
+                        encoder = new ParameterEncoder(codecs, parameterTypes);
+                    }
+
+                    Parameter parameter;
+                    try {
+                        parameter = encoder.align(j, parameters[j], this.values.get(i)[j]);
+                    } catch (IllegalArgumentException e) {
+                        return null;
+                    }
+
+                    if (parameter != parameters[j]) {
+                        if (alignedParameters == null) {
+                            alignedParameters = parameters.clone();
+                        }
+                        alignedParameters[j] = parameter;
+                    }
+                }
+
+                if (alignedParameters != null) {
+
+                    if (aligned == this.bindings) {
+                        aligned = new ArrayList<>(this.bindings);
+                    }
+
+                    Binding binding = new Binding(alignedParameters.length);
+                    for (int j = 0; j < alignedParameters.length; j++) {
+                        binding.add(j, alignedParameters[j]);
+                    }
+                    aligned.set(i, binding);
+                }
+            }
+
+            return aligned;
+        }
+
         private void finish() {
             if (this.current != null) {
                 this.current.validate();
@@ -241,6 +429,8 @@ final class ExtendedQueryPostgresqlStatement implements PostgresqlStatement {
             if (this.current == null) {
                 this.current = new Binding(this.expectedSize);
                 this.bindings.add(this.current);
+                this.parameters.add(new Parameter[this.expectedSize]);
+                this.values.add(new Object[this.expectedSize]);
             }
 
             return this.current;
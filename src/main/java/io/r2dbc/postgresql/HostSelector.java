@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.util.Assert;
+import reactor.util.annotation.Nullable;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Orders the hosts of a connection factory for connection attempts. Hosts are ranked by their health, their last known server type and a moving average of the latency to connect to and
+ * initialize a connection. Connection attempts therefore go to the fastest healthy host and fail over to the next host in order. A host that failed to connect is ranked last until
+ * the retry interval has elapsed.
+ */
+final class HostSelector {
+
+    static final Duration DEFAULT_RETRY_INTERVAL = Duration.ofSeconds(10);
+
+    /**
+     * Weight of a new latency sample in the exponentially weighted moving average.
+     */
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final List<Host> hosts;
+
+    private final long retryIntervalNanos;
+
+    private final LongSupplier nanoClock;
+
+    HostSelector(List<? extends SocketAddress> addresses) {
+        this(addresses, DEFAULT_RETRY_INTERVAL, System::nanoTime);
+    }
+
+    HostSelector(List<? extends SocketAddress> addresses, Duration retryInterval, LongSupplier nanoClock) {
+        Assert.requireNonNull(addresses, "addresses must not be null");
+        Assert.requireNonNull(retryInterval, "retryInterval must not be null");
+
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("addresses must not be empty");
+        }
+
+        List<Host> hosts = new ArrayList<>(addresses.size());
+        for (SocketAddress address : addresses) {
+            hosts.add(new Host(Assert.requireNonNull(address, "address must not be null")));
+        }
+
+        this.hosts = Collections.unmodifiableList(hosts);
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.nanoClock = Assert.requireNonNull(nanoClock, "nanoClock must not be null");
+    }
+
+    List<Host> getHosts() {
+        return this.hosts;
+    }
+
+    /**
+     * Returns all hosts in the order in which connections to a server of {@code targetServerType} should be attempted.
+     *
+     * @param targetServerType the type of server to connect to
+     * @return the ordered hosts
+     */
+    List<Host> select(TargetServerType targetServerType) {
+        Assert.requireNonNull(targetServerType, "targetServerType must not be null");
+
+        if (this.hosts.size() == 1) {
+            return this.hosts;
+        }
+
+        long now = this.nanoClock.getAsLong();
+        List<Host> candidates = new ArrayList<>(this.hosts);
+
+        candidates.sort(Comparator.comparingInt((Host host) -> host.isHealthy(now, this.retryIntervalNanos) ? 0 : 1)
+            .thenComparingInt(host -> host.rank(targetServerType))
+            .thenComparingLong(host -> Math.max(host.latency, 0)));
+
+        return candidates;
+    }
+
+    long nanoTime() {
+        return this.nanoClock.getAsLong();
+    }
+
+    /**
+     * Record a successful connection to {@code host} that took {@code latencyNanos} to connect and initialize.
+     */
+    void connected(Host host, long latencyNanos) {
+        host.connected(latencyNanos);
+    }
+
+    /**
+     * Record a failed connection attempt to {@code host}.
+     */
+    void failed(Host host) {
+        host.failed(this.nanoClock.getAsLong());
+    }
+
+    @Override
+    public String toString() {
+        return "HostSelector{" +
+            "hosts=" + this.hosts +
+            '}';
+    }
+
+    static final class Host {
+
+        private final SocketAddress address;
+
+        private volatile long latency = -1;
+
+        private volatile boolean failed;
+
+        private volatile long failedAt;
+
+        @Nullable
+        private volatile Boolean standby;
+
+        Host(SocketAddress address) {
+            this.address = address;
+        }
+
+        SocketAddress getAddress() {
+            return this.address;
+        }
+
+        /**
+         * Returns the moving average of the connect latency in nanoseconds or {@code -1} if no connection has been established yet.
+         */
+        long getLatency() {
+            return this.latency;
+        }
+
+        /**
+         * Returns whether the server was a standby when last connected or {@code null} if the server type has not been determined.
+         */
+        @Nullable
+        Boolean isStandby() {
+            return this.standby;
+        }
+
+        void setStandby(boolean standby) {
+            this.standby = standby;
+        }
+
+        boolean isHealthy(long now, long retryIntervalNanos) {
+            return !this.failed || now - this.failedAt >= retryIntervalNanos;
+        }
+
+        synchronized void connected(long latencyNanos) {
+            long latency = this.latency;
+            this.latency = latency < 0 ? latencyNanos : (long) (LATENCY_WEIGHT * latencyNanos + (1 - LATENCY_WEIGHT) * latency);
+            this.failed = false;
+        }
+
+        void failed(long now) {
+            this.failedAt = now;
+            this.failed = true;
+        }
+
+        /**
+         * Rank hosts whose last known server type matches {@code targetServerType} before hosts of unknown type and hosts of a different type last.
+         */
+        int rank(TargetServerType targetServerType) {
+            Boolean standby = this.standby;
+
+            if (targetServerType == TargetServerType.ANY) {
+                return 0;
+            }
+
+            if (standby == null) {
+                return 1;
+            }
+
+            return targetServerType.matches(standby) ? 0 : 2;
+        }
+
+        @Override
+        public String toString() {
+            return "Host{" +
+                "address=" + this.address +
+                ", latency=" + this.latency +
+                ", failed=" + this.failed +
+                ", standby=" + this.standby +
+                '}';
+        }
+
+    }
+
+}
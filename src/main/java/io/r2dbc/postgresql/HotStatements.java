@@ -0,0 +1,353 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.client.Binding;
+import io.r2dbc.postgresql.client.Parameter;
+import io.r2dbc.postgresql.message.Format;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution counts of cached statements across all connections created from the same {@link PostgresqlConnectionFactory}. Statements are identified by their SQL and retain the parameter types
+ * described by the server. New connections {@link #prewarm prepare} the most frequently executed statements upfront.
+ * <p>The tracker holds up to {@code limit} statements plus an admission window of {@code limit / 8} (at least one) statements. Once the window is full, the least executed statements are evicted
+ * in a single pass so that the cost of eviction is amortized over the statements admitted in the meantime. The most recently admitted statements of the size of the window are evicted last so
+ * that a new statement gets time to accumulate executions instead of displacing the previous newcomer. All execution counts are halved after {@code 10 * limit} recorded executions so that
+ * statements that were hot in the past give way to the current workload.
+ */
+final class HotStatements {
+
+    /**
+     * Default number of tracked SQL strings.
+     */
+    static final int DEFAULT_LIMIT = 512;
+
+    private static final int AGING_FACTOR = 10;
+
+    private static final int WINDOW_DIVISOR = 8;
+
+    private final Logger logger = Loggers.getLogger(this.getClass());
+
+    private final Map<String, Entry> statements = new ConcurrentHashMap<>();
+
+    private final AtomicLong admissions = new AtomicLong();
+
+    private final AtomicLong executions = new AtomicLong();
+
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    private final int limit;
+
+    private final int window;
+
+    private final long agingPeriod;
+
+    HotStatements() {
+        this(DEFAULT_LIMIT);
+    }
+
+    HotStatements(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("hot statement limit must be greater than zero");
+        }
+        this.limit = limit;
+        this.window = Math.max(1, limit / WINDOW_DIVISOR);
+        this.agingPeriod = (long) limit * AGING_FACTOR;
+    }
+
+    /**
+     * Record an execution of {@code sql}.
+     *
+     * @param sql            the executed SQL
+     * @param parameterTypes the parameter types described by the server
+     * @throws IllegalArgumentException if {@code sql} or {@code parameterTypes} is {@code null}
+     */
+    void record(String sql, List<Integer> parameterTypes) {
+        Assert.requireNonNull(sql, "sql must not be null");
+        Assert.requireNonNull(parameterTypes, "parameterTypes must not be null");
+
+        Entry entry = this.statements.get(sql);
+        boolean admitted = false;
+
+        if (entry == null) {
+            entry = this.statements.computeIfAbsent(sql, key -> new Entry(key, parameterTypes, this.admissions.incrementAndGet()));
+            admitted = true;
+        }
+
+        entry.parameterTypes = parameterTypes;
+        entry.executions.incrementAndGet();
+
+        if (admitted && this.statements.size() >= this.limit + this.window) {
+            trim();
+        }
+
+        if (this.executions.incrementAndGet() % this.agingPeriod == 0) {
+            age();
+        }
+    }
+
+    /**
+     * Return the {@code count} most frequently executed statements, most frequent first.
+     *
+     * @param count the maximum number of statements to return
+     * @return the most frequently executed statements
+     */
+    List<Entry> top(int count) {
+
+        List<Entry> entries = new ArrayList<>(this.statements.values());
+        entries.sort(Comparator.comparingLong(Entry::getExecutions).reversed());
+
+        return entries.size() > count ? new ArrayList<>(entries.subList(0, count)) : entries;
+    }
+
+    /**
+     * Prepare {@code statements} and the {@code count} most frequently executed statements through {@code statementCache}. All statements are prepared at once so that their messages are
+     * pipelined. A statement that fails to prepare is evicted from the cache and does not fail the returned {@link Mono}.
+     * <p>Pass the undecorated cache of a connection so that prewarming is not counted as execution.
+     *
+     * @param statementCache the statement cache of a new connection
+     * @param statements     statements to prepare with parameter types inferred by the server
+     * @param count          the number of most frequently executed statements to prepare
+     * @param limit          the statement cache limit, {@code -1} for no limit or {@code 0} if the cache is disabled
+     * @return a {@link Mono} that completes once all statements are prepared
+     */
+    Mono<Void> prewarm(StatementCache statementCache, List<String> statements, int count, int limit) {
+        Assert.requireNonNull(statementCache, "statementCache must not be null");
+        Assert.requireNonNull(statements, "statements must not be null");
+
+        if (limit == 0 || (statements.isEmpty() && count == 0)) {
+            return Mono.empty();
+        }
+
+        Map<String, Binding> bindings = new LinkedHashMap<>();
+
+        for (String sql : statements) {
+            bindings.putIfAbsent(sql, new Binding(0));
+        }
+
+        if (count > 0) {
+            for (Entry entry : top(count)) {
+                bindings.putIfAbsent(entry.getSql(), entry.toBinding());
+            }
+        }
+
+        List<Mono<StatementDescription>> prepared = new ArrayList<>(bindings.size());
+
+        for (Map.Entry<String, Binding> binding : bindings.entrySet()) {
+
+            // preparing more statements than the cache holds would evict them right away
+            if (limit > 0 && prepared.size() == limit) {
+                break;
+            }
+
+            String sql = binding.getKey();
+            prepared.add(statementCache.getStatement(binding.getValue(), sql).onErrorResume(e -> {
+                this.logger.debug("Cannot prewarm statement {}", sql, e);
+                return statementCache.evict(sql).onErrorResume(evictError -> Mono.empty()).then(Mono.empty());
+            }));
+        }
+
+        return Flux.merge(prepared).then();
+    }
+
+    int size() {
+        return this.statements.size();
+    }
+
+    /**
+     * Decorate {@code statementCache} to record each statement lookup, i.e. each execution of a cached statement, in this tracker.
+     *
+     * @param statementCache the statement cache of a connection
+     * @return the decorated {@link StatementCache}
+     */
+    StatementCache track(StatementCache statementCache) {
+        return new TrackingStatementCache(Assert.requireNonNull(statementCache, "statementCache must not be null"));
+    }
+
+    @Override
+    public String toString() {
+        return "HotStatements{" +
+            "size=" + this.statements.size() +
+            ", limit=" + this.limit +
+            '}';
+    }
+
+    /**
+     * Halve all execution counts.
+     */
+    private void age() {
+        for (Entry entry : this.statements.values()) {
+            entry.executions.updateAndGet(executions -> executions >> 1);
+        }
+    }
+
+    /**
+     * Evict the least executed statements until {@code limit} statements remain. Statements within the admission window are evicted last. Concurrent callers skip trimming while another thread
+     * trims.
+     */
+    private void trim() {
+
+        if (!this.trimming.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long windowStart = this.admissions.get() - this.window;
+
+            // snapshot execution counts as concurrent executions would break the sort order
+            List<Candidate> candidates = new ArrayList<>(this.statements.size());
+            for (Entry entry : this.statements.values()) {
+                candidates.add(new Candidate(entry, entry.admission > windowStart));
+            }
+
+            candidates.sort(Comparator.comparing((Candidate candidate) -> candidate.inWindow)
+                .thenComparingLong(candidate -> candidate.executions)
+                .thenComparingLong(candidate -> candidate.entry.admission));
+
+            for (int i = 0; i < candidates.size() - this.limit; i++) {
+                Entry entry = candidates.get(i).entry;
+                this.statements.remove(entry.getSql(), entry);
+            }
+        } finally {
+            this.trimming.set(false);
+        }
+    }
+
+    /**
+     * A tracked statement.
+     */
+    static final class Entry {
+
+        private final String sql;
+
+        private final long admission;
+
+        private final AtomicLong executions = new AtomicLong();
+
+        private volatile List<Integer> parameterTypes;
+
+        Entry(String sql, List<Integer> parameterTypes, long admission) {
+            this.sql = sql;
+            this.parameterTypes = parameterTypes;
+            this.admission = admission;
+        }
+
+        String getSql() {
+            return this.sql;
+        }
+
+        long getExecutions() {
+            return this.executions.get();
+        }
+
+        List<Integer> getParameterTypes() {
+            return this.parameterTypes;
+        }
+
+        /**
+         * Create a {@link Binding} that carries the parameter types of this statement to prepare it through {@link StatementCache#getStatement(Binding, String)}.
+         *
+         * @return a {@link Binding} without values
+         */
+        Binding toBinding() {
+
+            List<Integer> types = this.parameterTypes;
+            Binding binding = new Binding(types.size());
+            for (int i = 0; i < types.size(); i++) {
+                // not Parameter.NULL_VALUE so that the described types are declared rather than inferred again
+                binding.add(i, new Parameter(Format.FORMAT_TEXT, types.get(i), Mono.empty()));
+            }
+
+            return binding;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                "sql='" + this.sql + '\'' +
+                ", executions=" + this.executions +
+                ", parameterTypes=" + this.parameterTypes +
+                '}';
+        }
+
+    }
+
+    /**
+     * An {@link Entry} with its execution count at the time of trimming.
+     */
+    private static final class Candidate {
+
+        private final Entry entry;
+
+        private final boolean inWindow;
+
+        private final long executions;
+
+        Candidate(Entry entry, boolean inWindow) {
+            this.entry = entry;
+            this.inWindow = inWindow;
+            this.executions = entry.getExecutions();
+        }
+
+    }
+
+    private final class TrackingStatementCache implements StatementCache {
+
+        private final StatementCache delegate;
+
+        TrackingStatementCache(StatementCache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Mono<StatementDescription> getStatement(Binding binding, String sql) {
+            return this.delegate.getStatement(binding, sql).doOnNext(statement -> record(sql, statement.getParameterTypes()));
+        }
+
+        @Override
+        public Mono<Void> evict(String sql) {
+            return this.delegate.evict(sql);
+        }
+
+        @Override
+        public boolean contains(String sql) {
+            return this.delegate.contains(sql);
+        }
+
+        @Override
+        public String toString() {
+            return "TrackingStatementCache{" +
+                "delegate=" + this.delegate +
+                '}';
+        }
+
+    }
+
+}
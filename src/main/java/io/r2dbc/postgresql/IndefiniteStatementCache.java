@@ -21,17 +21,16 @@ import io.r2dbc.postgresql.client.Client;
 import io.r2dbc.postgresql.client.ExtendedQueryMessageFlow;
 import io.r2dbc.postgresql.util.Assert;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuple2;
-import reactor.util.function.Tuples;
 
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 final class IndefiniteStatementCache implements StatementCache {
 
-    private final Map<Tuple2<String, List<Integer>>, Mono<String>> cache = new HashMap<>();
+    private final Map<String, Mono<StatementDescription>> cache = new HashMap<>();
 
     private final Client client;
 
@@ -42,13 +41,47 @@ final class IndefiniteStatementCache implements StatementCache {
     }
 
     @Override
-    public Mono<String> getName(Binding binding, String sql) {
+    public Mono<StatementDescription> getStatement(Binding binding, String sql) {
         Assert.requireNonNull(binding, "binding must not be null");
         Assert.requireNonNull(sql, "sql must not be null");
 
         synchronized (this.cache) {
-            return this.cache.computeIfAbsent(Tuples.of(sql, binding.getParameterTypes()),
-                tuple -> this.parse(tuple.getT1(), tuple.getT2()));
+            return this.cache.computeIfAbsent(sql, key -> this.prepare(key, binding));
+        }
+    }
+
+    @Override
+    public Mono<Void> evict(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        return Mono.defer(() -> {
+            Mono<StatementDescription> statement;
+            synchronized (this.cache) {
+                statement = this.cache.remove(sql);
+            }
+
+            if (statement == null) {
+                return Mono.empty();
+            }
+
+            // a statement that failed to prepare does not exist on the server
+            return statement.onErrorResume(e -> Mono.empty())
+                .flatMap(it -> {
+                    ExceptionFactory factory = ExceptionFactory.withSql(it.getName());
+                    return ExtendedQueryMessageFlow
+                        .closeStatement(this.client, it.getName())
+                        .handle(factory::handleErrorResponse)
+                        .then();
+                });
+        });
+    }
+
+    @Override
+    public boolean contains(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        synchronized (this.cache) {
+            return this.cache.containsKey(sql);
         }
     }
 
@@ -61,15 +94,23 @@ final class IndefiniteStatementCache implements StatementCache {
             '}';
     }
 
-    private Mono<String> parse(String sql, List<Integer> types) {
+    /**
+     * Prepare {@code sql}. A statement that fails to prepare is removed from the cache so that a subsequent {@link #getStatement(Binding, String)} call prepares it again.
+     */
+    private Mono<StatementDescription> prepare(String sql, Binding binding) {
         String name = String.format("S_%d", this.counter.getAndIncrement());
 
-        ExceptionFactory factory = ExceptionFactory.withSql(name);
-        return ExtendedQueryMessageFlow
-            .parse(this.client, name, sql, types)
-            .handle(factory::handleErrorResponse)
-            .then(Mono.just(name))
+        AtomicReference<Mono<StatementDescription>> self = new AtomicReference<>();
+        Mono<StatementDescription> statement = StatementCache.prepare(this.client, name, sql, binding, Collections.emptyList())
+            .doOnError(e -> {
+                synchronized (this.cache) {
+                    this.cache.remove(sql, self.get());
+                }
+            })
             .cache();
+
+        self.set(statement);
+        return statement;
     }
 
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.client.Binding;
+import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link StatementCache} bounded by the estimated server-side memory of the cached statements. Entries are weighed by their SQL length and parameter count. Least recently used statements are
+ * evicted until a new statement fits into the budget. Statements that exceed the budget on their own are prepared as unnamed statement and are not cached.
+ * <p>{@code Close} messages for evicted statements are not sent in a dedicated round trip but along with the next statement that gets prepared.
+ */
+final class MemoryBoundedStatementCache implements StatementCache {
+
+    /**
+     * Estimated per-statement overhead in bytes.
+     */
+    static final int STATEMENT_OVERHEAD = 100;
+
+    /**
+     * Estimated per-parameter overhead in bytes.
+     */
+    static final int PARAMETER_OVERHEAD = 32;
+
+    private static final String UNNAMED_STATEMENT_NAME = "";
+
+    private final Map<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final List<String> pendingClose = new ArrayList<>();
+
+    private final Client client;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final int limit;
+
+    private final long maxSize;
+
+    private long size;
+
+    MemoryBoundedStatementCache(Client client, int limit, long maxSize) {
+        this.client = Assert.requireNonNull(client, "client must not be null");
+        if (limit <= 0) {
+            throw new IllegalArgumentException("statement cache limit must be greater than zero");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("statement cache size must be greater than zero");
+        }
+        this.limit = limit;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public Mono<StatementDescription> getStatement(Binding binding, String sql) {
+        Assert.requireNonNull(binding, "binding must not be null");
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        StatementDescription statement = get(sql);
+        if (statement != null) {
+            return Mono.just(statement);
+        }
+
+        long weight = weigh(sql, binding.getParameterTypes().size());
+
+        if (weight > this.maxSize) {
+            return Mono.defer(() -> StatementCache.prepare(this.client, UNNAMED_STATEMENT_NAME, sql, binding, evict(0)));
+        }
+
+        String name = String.format("S_%d", this.counter.getAndIncrement());
+
+        return Mono.defer(() -> StatementCache.prepare(this.client, name, sql, binding, evict(weight)))
+            .doOnNext(prepared -> put(sql, prepared, weight));
+    }
+
+    @Override
+    public Mono<Void> evict(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        synchronized (this.cache) {
+            Entry entry = this.cache.remove(sql);
+            if (entry != null) {
+                this.size -= entry.weight;
+                this.pendingClose.add(entry.statement.getName());
+            }
+        }
+
+        return Mono.empty();
+    }
+
+    @Override
+    public boolean contains(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        synchronized (this.cache) {
+            return this.cache.containsKey(sql);
+        }
+    }
+
+    /**
+     * Synchronized cache access: Return all statement names.
+     *
+     * @return statement names.
+     */
+    Collection<String> getCachedStatementNames() {
+        synchronized (this.cache) {
+            List<String> names = new ArrayList<>(this.cache.size());
+            for (Entry entry : this.cache.values()) {
+                names.add(entry.statement.getName());
+            }
+            return names;
+        }
+    }
+
+    /**
+     * Synchronized cache access: Return the estimated size of all cached statements in bytes.
+     *
+     * @return the estimated size in bytes.
+     */
+    long getSize() {
+        synchronized (this.cache) {
+            return this.size;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryBoundedStatementCache{" +
+            "cache=" + this.cache +
+            ", client=" + this.client +
+            ", counter=" + this.counter +
+            ", limit=" + this.limit +
+            ", maxSize=" + this.maxSize +
+            ", size=" + this.size +
+            '}';
+    }
+
+    /**
+     * Estimate the server-side memory of a prepared statement. Parse and plan trees grow with the statement text and its parameters, so the SQL length (two bytes per character) and the parameter
+     * count serve as proxy for the actual backend memory.
+     *
+     * @param sql            the SQL of the statement
+     * @param parameterCount the number of parameters
+     * @return the estimated size in bytes
+     */
+    static long weigh(String sql, int parameterCount) {
+        return STATEMENT_OVERHEAD + 2L * sql.length() + (long) PARAMETER_OVERHEAD * parameterCount;
+    }
+
+    /**
+     * Synchronized cache access: Retrieve statement by key.
+     *
+     * @param key
+     * @return statement by key
+     */
+    @Nullable
+    private StatementDescription get(String key) {
+        synchronized (this.cache) {
+            Entry entry = this.cache.get(key);
+            return entry != null ? entry.statement : null;
+        }
+    }
+
+    /**
+     * Synchronized cache access: Evict least recently used entries until an entry of {@code weight} fits into the cache and drain the names of all statements that need to be closed.
+     *
+     * @param weight the weight of the entry to add
+     * @return names of statements to close
+     */
+    private List<String> evict(long weight) {
+        synchronized (this.cache) {
+            Iterator<Entry> iterator = this.cache.values().iterator();
+            while (iterator.hasNext() && weight > 0 && (this.cache.size() >= this.limit || this.size + weight > this.maxSize)) {
+                Entry entry = iterator.next();
+                iterator.remove();
+                this.size -= entry.weight;
+                this.pendingClose.add(entry.statement.getName());
+            }
+
+            if (this.pendingClose.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            List<String> names = new ArrayList<>(this.pendingClose);
+            this.pendingClose.clear();
+            return names;
+        }
+    }
+
+    /**
+     * Synchronized cache access: Store prepared statement.
+     */
+    private void put(String key, StatementDescription statement, long weight) {
+        synchronized (this.cache) {
+            Entry previous = this.cache.put(key, new Entry(statement, weight));
+            this.size += weight;
+
+            if (previous != null) {
+                this.size -= previous.weight;
+                this.pendingClose.add(previous.statement.getName());
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final StatementDescription statement;
+
+        private final long weight;
+
+        private Entry(StatementDescription statement, long weight) {
+            this.statement = statement;
+            this.weight = weight;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                "statement=" + this.statement +
+                ", weight=" + this.weight +
+                '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.client.Parameter;
+import io.r2dbc.postgresql.codec.Codec;
+import io.r2dbc.postgresql.codec.Codecs;
+import io.r2dbc.postgresql.message.Format;
+import io.r2dbc.postgresql.type.PostgresqlObjectId;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.util.annotation.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static io.r2dbc.postgresql.client.Parameter.NULL_VALUE;
+
+/**
+ * Encodes bind values for a statement whose parameter types were described by the server. The {@link Codec} for each parameter is resolved once through {@link Codecs#findEncoder(Object)} and
+ * reused as long as subsequent values have the same Java type. A {@link ParameterEncoder} can be used by multiple threads concurrently. Numbers whose encoded type does not match the server-side parameter type are converted to the server-side numeric type or sent in text format so the server can coerce them.
+ */
+final class ParameterEncoder {
+
+    private final Codecs codecs;
+
+    private final int[] parameterTypes;
+
+    private final AtomicReferenceArray<ResolvedCodec> resolvedCodecs;
+
+    ParameterEncoder(Codecs codecs, List<Integer> parameterTypes) {
+        this.codecs = Assert.requireNonNull(codecs, "codecs must not be null");
+        Assert.requireNonNull(parameterTypes, "parameterTypes must not be null");
+
+        this.parameterTypes = new int[parameterTypes.size()];
+        for (int i = 0; i < this.parameterTypes.length; i++) {
+            this.parameterTypes[i] = parameterTypes.get(i);
+        }
+        this.resolvedCodecs = new AtomicReferenceArray<>(this.parameterTypes.length);
+    }
+
+    /**
+     * Encode {@code value} for the parameter at {@code index}.
+     *
+     * @param index the zero-based parameter index
+     * @param value the value to encode, can be {@code null}
+     * @return the encoded {@link Parameter}
+     * @throws IndexOutOfBoundsException if {@code index} does not refer to a parameter of the statement
+     * @throws IllegalArgumentException  if {@code value} cannot be encoded for the server-side parameter type
+     */
+    Parameter encode(int index, @Nullable Object value) {
+        int parameterType = getParameterType(index);
+
+        if (value == null) {
+            return new Parameter(Format.FORMAT_TEXT, parameterType, NULL_VALUE);
+        }
+
+        return align(index, doEncode(index, value), value);
+    }
+
+    /**
+     * Align an already encoded {@link Parameter} with the server-side type of the parameter at {@code index}. {@code null} values, values encoded for the server-side type and text values that do
+     * not represent a number are retained as-is. Numbers are converted to the server-side type, preferably in binary format.
+     *
+     * @param index     the zero-based parameter index
+     * @param parameter the encoded parameter
+     * @param value     the value that was encoded to {@code parameter}, can be {@code null}
+     * @return the aligned {@link Parameter}
+     * @throws IndexOutOfBoundsException if {@code index} does not refer to a parameter of the statement
+     * @throws IllegalArgumentException  if {@code value} is binary-encoded and cannot be converted to the server-side parameter type
+     */
+    Parameter align(int index, Parameter parameter, @Nullable Object value) {
+        int parameterType = getParameterType(index);
+
+        if (value == null || parameter.getType() == parameterType || parameterType == 0) {
+            return parameter;
+        }
+
+        if (value instanceof Number) {
+
+            Object converted = convertNumber((Number) value, parameterType);
+            if (converted != null) {
+                return doEncode(index, converted);
+            }
+
+            return parameter.getFormat() == Format.FORMAT_TEXT ? parameter : this.codecs.encode(value.toString());
+        }
+
+        if (parameter.getFormat() == Format.FORMAT_TEXT) {
+            return parameter;
+        }
+
+        throw new IllegalArgumentException(String.format("Cannot encode parameter $%d of type %s for server-side type %d", index + 1, value.getClass().getName(), parameterType));
+    }
+
+    /**
+     * Returns the number of parameters.
+     *
+     * @return the number of parameters
+     */
+    int getParameterCount() {
+        return this.parameterTypes.length;
+    }
+
+    /**
+     * Returns the server-side type of the parameter at {@code index}.
+     *
+     * @param index the zero-based parameter index
+     * @return the server-side type OID
+     * @throws IndexOutOfBoundsException if {@code index} does not refer to a parameter of the statement
+     */
+    int getParameterType(int index) {
+        if (index < 0 || index >= this.parameterTypes.length) {
+            throw new IndexOutOfBoundsException(String.format("Binding index %d when only %d parameters are expected", index, this.parameterTypes.length));
+        }
+
+        return this.parameterTypes[index];
+    }
+
+    @Override
+    public String toString() {
+        return "ParameterEncoder{" +
+            "codecs=" + this.codecs +
+            ", parameterTypes=" + Arrays.toString(this.parameterTypes) +
+            '}';
+    }
+
+    private Parameter doEncode(int index, Object value) {
+
+        ResolvedCodec resolved = this.resolvedCodecs.get(index);
+        if (resolved != null && resolved.type == value.getClass()) {
+            return resolved.codec.encode(value);
+        }
+
+        Codec<?> codec = this.codecs.findEncoder(value);
+        if (codec == null) {
+            return this.codecs.encode(value);
+        }
+
+        this.resolvedCodecs.set(index, new ResolvedCodec(value.getClass(), codec));
+        return codec.encode(value);
+    }
+
+    @Nullable
+    private static Object convertNumber(Number number, int parameterType) {
+
+        if (!PostgresqlObjectId.isValid(parameterType)) {
+            return null;
+        }
+
+        switch (PostgresqlObjectId.valueOf(parameterType)) {
+            case INT2:
+                Long int2 = toLong(number);
+                return int2 != null && int2 == int2.shortValue() ? int2.shortValue() : null;
+            case INT4:
+                Long int4 = toLong(number);
+                return int4 != null && int4 == int4.intValue() ? int4.intValue() : null;
+            case INT8:
+                return toLong(number);
+            case FLOAT4:
+                return number.floatValue();
+            case FLOAT8:
+                return number.doubleValue();
+            case NUMERIC:
+                return number instanceof BigDecimal ? number : new BigDecimal(number.toString());
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static Long toLong(Number number) {
+
+        if (number instanceof Byte || number instanceof Short || number instanceof Integer || number instanceof Long) {
+            return number.longValue();
+        }
+
+        if (number instanceof BigInteger) {
+            return ((BigInteger) number).bitLength() < 64 ? number.longValue() : null;
+        }
+
+        if (number instanceof BigDecimal) {
+            try {
+                return ((BigDecimal) number).longValueExact();
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    private static final class ResolvedCodec {
+
+        private final Class<?> type;
+
+        private final Codec<?> codec;
+
+        private ResolvedCodec(Class<?> type, Codec<?> codec) {
+            this.type = type;
+            this.codec = codec;
+        }
+
+    }
+
+}
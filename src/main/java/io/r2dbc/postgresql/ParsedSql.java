@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.util.Assert;
+
+/**
+ * Immutable result of analyzing a SQL string with {@link PostgresqlSqlParser}. Captures the number of statements, bind parameters, the leading command keyword and whether the
+ * SQL contains a {@code RETURNING} clause. String constants, quoted identifiers, comments and dollar-quoted strings are not considered during analysis.
+ */
+final class ParsedSql {
+
+    private final String sql;
+
+    private final int statementCount;
+
+    private final int parameterCount;
+
+    private final String command;
+
+    private final boolean returningClause;
+
+    private final boolean modifyingCommand;
+
+    ParsedSql(String sql, int statementCount, int parameterCount, String command, boolean returningClause, boolean modifyingCommand) {
+        this.sql = Assert.requireNonNull(sql, "sql must not be null");
+        this.statementCount = statementCount;
+        this.parameterCount = parameterCount;
+        this.command = Assert.requireNonNull(command, "command must not be null");
+        this.returningClause = returningClause;
+        this.modifyingCommand = modifyingCommand;
+    }
+
+    /**
+     * Returns the analyzed SQL.
+     *
+     * @return the analyzed SQL
+     */
+    String getSql() {
+        return this.sql;
+    }
+
+    /**
+     * Returns the number of non-empty statements separated by {@code ;}.
+     *
+     * @return the number of statements
+     */
+    int getStatementCount() {
+        return this.statementCount;
+    }
+
+    /**
+     * Returns the number of distinct bind parameters ({@code $1}, {@code $2}, …).
+     *
+     * @return the number of distinct bind parameters
+     */
+    int getParameterCount() {
+        return this.parameterCount;
+    }
+
+    /**
+     * Returns the upper-cased leading keyword of the first statement, for example {@code SELECT} or {@code INSERT}. Returns an empty {@link String} if the SQL does not contain any keyword.
+     *
+     * @return the upper-cased leading keyword of the first statement
+     */
+    String getCommand() {
+        return this.command;
+    }
+
+    /**
+     * Returns whether the SQL is empty, i.e. it consists only of whitespace, comments or statement separators.
+     *
+     * @return {@code true} if the SQL does not contain any statement
+     */
+    boolean isEmpty() {
+        return this.statementCount == 0;
+    }
+
+    /**
+     * Returns whether the SQL contains a {@code RETURNING} keyword.
+     *
+     * @return {@code true} if the SQL contains a {@code RETURNING} keyword
+     */
+    boolean hasReturningClause() {
+        return this.returningClause;
+    }
+
+    /**
+     * Returns whether the SQL contains a {@code DELETE}, {@code INSERT}, or {@code UPDATE} keyword.
+     *
+     * @return {@code true} if the SQL contains a {@code DELETE}, {@code INSERT}, or {@code UPDATE} keyword
+     */
+    boolean isModifyingCommand() {
+        return this.modifyingCommand;
+    }
+
+    /**
+     * Returns whether the SQL consists of a single statement that does not contain a {@code DELETE}, {@code INSERT}, or {@code UPDATE} keyword. Cancelling such a statement outside of a
+     * transaction does not roll back writes, unless it calls functions that modify data.
+     *
+     * @return {@code true} if the SQL is a single statement that does not modify data
+     */
+    boolean isSingleReadOnlyStatement() {
+        return this.statementCount == 1 && !this.modifyingCommand;
+    }
+
+    @Override
+    public String toString() {
+        return "ParsedSql{" +
+            "sql='" + this.sql + '\'' +
+            ", statementCount=" + this.statementCount +
+            ", parameterCount=" + this.parameterCount +
+            ", command='" + this.command + '\'' +
+            ", returningClause=" + this.returningClause +
+            ", modifyingCommand=" + this.modifyingCommand +
+            '}';
+    }
+
+}
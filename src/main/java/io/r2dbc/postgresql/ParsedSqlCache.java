@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.util.Assert;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of {@link ParsedSql} keyed by SQL text. A single cache instance is shared by all connections created from the same {@link PostgresqlConnectionFactory}. When the cache is full,
+ * the least recently used entry is evicted to make room for a new one. SQL is parsed outside of the cache lock.
+ */
+final class ParsedSqlCache {
+
+    /**
+     * Default number of cached SQL strings.
+     */
+    static final int DEFAULT_LIMIT = 512;
+
+    private final Map<String, ParsedSql> cache;
+
+    private final int limit;
+
+    ParsedSqlCache() {
+        this(DEFAULT_LIMIT);
+    }
+
+    ParsedSqlCache(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("parsed SQL cache limit must be greater than zero");
+        }
+        this.limit = limit;
+        this.cache = new LinkedHashMap<String, ParsedSql>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
+                return size() > ParsedSqlCache.this.limit;
+            }
+        };
+    }
+
+    /**
+     * Return the {@link ParsedSql} for {@code sql}. Parses and caches {@code sql} if it was not yet cached.
+     *
+     * @param sql the SQL to analyze
+     * @return the {@link ParsedSql}
+     * @throws IllegalArgumentException if {@code sql} is {@code null}
+     */
+    ParsedSql get(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        ParsedSql parsedSql;
+        synchronized (this.cache) {
+            parsedSql = this.cache.get(sql);
+        }
+
+        if (parsedSql != null) {
+            return parsedSql;
+        }
+
+        parsedSql = PostgresqlSqlParser.parse(sql);
+
+        synchronized (this.cache) {
+            ParsedSql existing = this.cache.putIfAbsent(sql, parsedSql);
+            return existing != null ? existing : parsedSql;
+        }
+    }
+
+    int size() {
+        synchronized (this.cache) {
+            return this.cache.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ParsedSqlCache{" +
+            "size=" + size() +
+            ", limit=" + this.limit +
+            '}';
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.api.LargeObjectManager;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlBatch;
+import io.r2dbc.postgresql.api.PostgresqlConnectionMetadata;
+import io.r2dbc.postgresql.api.PostgresqlStatement;
+import io.r2dbc.postgresql.util.Assert;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.ValidationDepth;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link io.r2dbc.postgresql.api.PostgresqlConnection} borrowed from a {@link PostgresqlConnectionPool}. {@link #close() Closing} the connection returns it to the pool.
+ */
+final class PooledPostgresqlConnection implements io.r2dbc.postgresql.api.PostgresqlConnection {
+
+    private final PostgresqlConnectionPool pool;
+
+    private final PostgresqlConnection delegate;
+
+    private final Duration statementTimeout;
+
+    private final IsolationLevel isolationLevel;
+
+    private final Queue<io.r2dbc.postgresql.api.PostgresqlPreparedStatement> preparedStatements = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PooledPostgresqlConnection(PostgresqlConnectionPool pool, PostgresqlConnection delegate) {
+        this.pool = Assert.requireNonNull(pool, "pool must not be null");
+        this.delegate = Assert.requireNonNull(delegate, "delegate must not be null");
+        this.statementTimeout = delegate.getStatementTimeout();
+        this.isolationLevel = delegate.getTransactionIsolationLevel();
+    }
+
+    @Override
+    public Mono<Void> beginTransaction() {
+        return Mono.defer(() -> delegate().beginTransaction());
+    }
+
+    /**
+     * Return the connection to the pool. Statements prepared through {@link #prepare(String)} are closed so their server-side resources do not accumulate across borrowers. Subsequent calls have
+     * no effect. Other methods fail with {@link IllegalStateException} once the connection was returned.
+     *
+     * @return a {@link Mono} that completes once the connection was returned to the pool
+     */
+    @Override
+    public Mono<Void> close() {
+        return Mono.defer(() -> {
+
+            if (!this.released.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+
+            Mono<Void> reset = this.delegate.getStatementTimeout().equals(this.statementTimeout) ? Mono.empty() : this.delegate.setStatementTimeout(this.statementTimeout);
+
+            Mono<Void> closePreparedStatements = Flux.fromIterable(this.preparedStatements)
+                .flatMap(io.r2dbc.postgresql.api.PostgresqlPreparedStatement::close)
+                .then();
+
+            return reset.onErrorResume(e -> Mono.empty()).then(this.pool.release(this.delegate, this.isolationLevel, closePreparedStatements));
+        });
+    }
+
+    @Override
+    public Mono<Void> commitTransaction() {
+        return Mono.defer(() -> delegate().commitTransaction());
+    }
+
+    @Override
+    public PostgresqlBatch createBatch() {
+        return delegate().createBatch();
+    }
+
+    @Override
+    public Mono<Void> createSavepoint(String name) {
+        return Mono.defer(() -> delegate().createSavepoint(name));
+    }
+
+    @Override
+    public PostgresqlStatement createStatement(String sql) {
+        return delegate().createStatement(sql);
+    }
+
+    @Override
+    public Flux<Notification> getNotifications() {
+        return Flux.defer(() -> delegate().getNotifications());
+    }
+
+    @Override
+    public LargeObjectManager getLargeObjectManager() {
+        return delegate().getLargeObjectManager();
+    }
+
+    @Override
+    public PostgresqlConnectionMetadata getMetadata() {
+        return delegate().getMetadata();
+    }
+
+    @Override
+    public Duration getStatementTimeout() {
+        return delegate().getStatementTimeout();
+    }
+
+    @Override
+    public IsolationLevel getTransactionIsolationLevel() {
+        return delegate().getTransactionIsolationLevel();
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+        return delegate().isAutoCommit();
+    }
+
+    @Override
+    public Mono<io.r2dbc.postgresql.api.PostgresqlPreparedStatement> prepare(String sql) {
+        return Mono.defer(() -> delegate().prepare(sql))
+            .doOnNext(this.preparedStatements::add);
+    }
+
+    @Override
+    public Mono<Void> releaseSavepoint(String name) {
+        return Mono.defer(() -> delegate().releaseSavepoint(name));
+    }
+
+    @Override
+    public Mono<Void> rollbackTransaction() {
+        return Mono.defer(() -> delegate().rollbackTransaction());
+    }
+
+    @Override
+    public Mono<Void> rollbackTransactionToSavepoint(String name) {
+        return Mono.defer(() -> delegate().rollbackTransactionToSavepoint(name));
+    }
+
+    @Override
+    public Mono<Void> setAutoCommit(boolean autoCommit) {
+        return Mono.defer(() -> delegate().setAutoCommit(autoCommit));
+    }
+
+    @Override
+    public Mono<Void> setStatementTimeout(Duration timeout) {
+        return Mono.defer(() -> delegate().setStatementTimeout(timeout));
+    }
+
+    @Override
+    public Mono<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+        return Mono.defer(() -> delegate().setTransactionIsolationLevel(isolationLevel));
+    }
+
+    @Override
+    public String toString() {
+        return "PooledPostgresqlConnection{" +
+            "delegate=" + this.delegate +
+            ", released=" + this.released +
+            '}';
+    }
+
+    @Override
+    public Mono<Boolean> validate(ValidationDepth depth) {
+        return Mono.defer(() -> delegate().validate(depth));
+    }
+
+    PostgresqlConnection getDelegate() {
+        return this.delegate;
+    }
+
+    private PostgresqlConnection delegate() {
+
+        if (this.released.get()) {
+            throw new IllegalStateException("Connection was returned to the pool");
+        }
+
+        return this.delegate;
+    }
+
+}
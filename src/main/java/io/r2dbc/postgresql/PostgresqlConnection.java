@@ -16,10 +16,12 @@
 
 package io.r2dbc.postgresql;
 
+import io.r2dbc.postgresql.api.LargeObjectManager;
 import io.r2dbc.postgresql.api.Notification;
 import io.r2dbc.postgresql.api.PostgresqlResult;
 import io.r2dbc.postgresql.api.PostgresqlStatement;
 import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.DrainLimit;
 import io.r2dbc.postgresql.client.PortalNameSupplier;
 import io.r2dbc.postgresql.client.SimpleQueryMessageFlow;
 import io.r2dbc.postgresql.client.TransactionStatus;
@@ -43,6 +45,8 @@ import reactor.util.Logger;
 import reactor.util.Loggers;
 import reactor.util.annotation.Nullable;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
@@ -68,20 +72,31 @@ final class PostgresqlConnection implements io.r2dbc.postgresql.api.PostgresqlCo
 
     private final StatementCache statementCache;
 
+    private final ParsedSqlCache parsedSqlCache;
+
+    private final PostgresqlLargeObjectManager largeObjectManager;
+
     private final Flux<Integer> validationQuery;
 
     private final AtomicReference<NotificationAdapter> notificationAdapter = new AtomicReference<>();
 
+    private final AtomicInteger preparedStatementCounter = new AtomicInteger();
+
     private volatile IsolationLevel isolationLevel;
 
-    PostgresqlConnection(Client client, Codecs codecs, PortalNameSupplier portalNameSupplier, StatementCache statementCache, IsolationLevel isolationLevel, boolean forceBinary) {
-        this.context = new ConnectionContext(client, codecs, this);
+    private volatile Duration statementTimeout = Duration.ZERO;
+
+    PostgresqlConnection(Client client, Codecs codecs, PortalNameSupplier portalNameSupplier, StatementCache statementCache, ParsedSqlCache parsedSqlCache,
+                         DefaultPostgresqlMetrics metrics, DrainLimit drainLimit, IsolationLevel isolationLevel, boolean forceBinary) {
+        this.context = new ConnectionContext(client, codecs, this, Assert.requireNonNull(metrics, "metrics must not be null"), Assert.requireNonNull(drainLimit, "drainLimit must not be null"));
         this.client = Assert.requireNonNull(client, "client must not be null");
         this.codecs = Assert.requireNonNull(codecs, "codecs must not be null");
         this.portalNameSupplier = Assert.requireNonNull(portalNameSupplier, "portalNameSupplier must not be null");
         this.statementCache = Assert.requireNonNull(statementCache, "statementCache must not be null");
+        this.parsedSqlCache = Assert.requireNonNull(parsedSqlCache, "parsedSqlCache must not be null");
         this.forceBinary = forceBinary;
         this.isolationLevel = Assert.requireNonNull(isolationLevel, "isolationLevel must not be null");
+        this.largeObjectManager = new PostgresqlLargeObjectManager(client);
         this.validationQuery = new SimpleQueryPostgresqlStatement(this.context, "SELECT 1").fetchSize(0).execute().flatMap(PostgresqlResult::getRowsUpdated);
     }
 
@@ -89,6 +104,16 @@ final class PostgresqlConnection implements io.r2dbc.postgresql.api.PostgresqlCo
         return this.client;
     }
 
+    /**
+     * Return whether the statement cache of this connection holds a prepared statement for {@code sql}.
+     *
+     * @param sql the SQL to look up
+     * @return {@code true} if {@code sql} is prepared on this connection
+     */
+    boolean isStatementCached(String sql) {
+        return this.statementCache.contains(sql);
+    }
+
     @Override
     public Mono<Void> beginTransaction() {
         return useTransactionStatus(transactionStatus -> {
@@ -149,10 +174,12 @@ final class PostgresqlConnection implements io.r2dbc.postgresql.api.PostgresqlCo
     public PostgresqlStatement createStatement(String sql) {
         Assert.requireNonNull(sql, "sql must not be null");
 
-        if (SimpleQueryPostgresqlStatement.supports(sql)) {
-            return new SimpleQueryPostgresqlStatement(this.context, sql);
-        } else if (ExtendedQueryPostgresqlStatement.supports(sql)) {
-            return new ExtendedQueryPostgresqlStatement(this.context, this.portalNameSupplier, sql, this.statementCache, this.forceBinary);
+        ParsedSql parsedSql = this.parsedSqlCache.get(sql);
+
+        if (SimpleQueryPostgresqlStatement.supports(parsedSql)) {
+            return new SimpleQueryPostgresqlStatement(this.context, parsedSql);
+        } else if (ExtendedQueryPostgresqlStatement.supports(parsedSql)) {
+            return new ExtendedQueryPostgresqlStatement(this.context, this.portalNameSupplier, parsedSql, this.statementCache, this.forceBinary);
         } else {
             throw new IllegalArgumentException(String.format("Statement '%s' cannot be created. This is often due to the presence of both multiple statements and parameters at the same time.", sql));
         }
@@ -183,11 +210,21 @@ final class PostgresqlConnection implements io.r2dbc.postgresql.api.PostgresqlCo
         return notifications.getEvents();
     }
 
+    @Override
+    public LargeObjectManager getLargeObjectManager() {
+        return this.largeObjectManager;
+    }
+
     @Override
     public PostgresqlConnectionMetadata getMetadata() {
         return new PostgresqlConnectionMetadata(this.client.getVersion());
     }
 
+    @Override
+    public Duration getStatementTimeout() {
+        return this.statementTimeout;
+    }
+
     @Override
     public IsolationLevel getTransactionIsolationLevel() {
         return this.isolationLevel;
@@ -203,6 +240,20 @@ final class PostgresqlConnection implements io.r2dbc.postgresql.api.PostgresqlCo
         return false;
     }
 
+    @Override
+    public Mono<io.r2dbc.postgresql.api.PostgresqlPreparedStatement> prepare(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        ParsedSql parsedSql = this.parsedSqlCache.get(sql);
+
+        if (parsedSql.getStatementCount() != 1) {
+            throw new IllegalArgumentException(String.format("Statement '%s' cannot be prepared. Prepared statements must consist of exactly one statement.", sql));
+        }
+
+        String name = String.format("P_%d", this.preparedStatementCounter.getAndIncrement());
+        return PostgresqlPreparedStatement.prepare(this.context, name, parsedSql, this.forceBinary).cast(io.r2dbc.postgresql.api.PostgresqlPreparedStatement.class);
+    }
+
     @Override
     public Mono<Void> releaseSavepoint(String name) {
         Assert.requireNonNull(name, "name must not be null");
@@ -267,6 +318,17 @@ final class PostgresqlConnection implements io.r2dbc.postgresql.api.PostgresqlCo
         });
     }
 
+    @Override
+    public Mono<Void> setStatementTimeout(Duration timeout) {
+        Assert.requireNonNull(timeout, "timeout must not be null");
+
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+
+        return Mono.fromRunnable(() -> this.statementTimeout = timeout);
+    }
+
     @Override
     public Mono<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
         Assert.requireNonNull(isolationLevel, "isolationLevel must not be null");
@@ -285,6 +347,7 @@ final class PostgresqlConnection implements io.r2dbc.postgresql.api.PostgresqlCo
             ", forceBinary=" + this.forceBinary +
             ", portalNameSupplier=" + this.portalNameSupplier +
             ", statementCache=" + this.statementCache +
+            ", statementTimeout=" + this.statementTimeout +
             '}';
     }
 
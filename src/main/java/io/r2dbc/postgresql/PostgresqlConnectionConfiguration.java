@@ -21,17 +21,22 @@ import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import io.r2dbc.postgresql.client.DefaultHostnameVerifier;
 import io.r2dbc.postgresql.client.SSLConfig;
 import io.r2dbc.postgresql.client.SSLMode;
+import io.r2dbc.postgresql.client.SocketOptions;
+import io.r2dbc.postgresql.client.Transport;
 import io.r2dbc.postgresql.codec.Codec;
 import io.r2dbc.postgresql.extension.CodecRegistrar;
 import io.r2dbc.postgresql.extension.Extension;
 import io.r2dbc.postgresql.util.Assert;
+import reactor.netty.resources.LoopResources;
 import reactor.netty.tcp.SslProvider;
 import reactor.util.annotation.Nullable;
 
 import javax.net.ssl.HostnameVerifier;
 import java.io.File;
+import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
@@ -80,10 +85,33 @@ public final class PostgresqlConnectionConfiguration {
 
     private final int preparedStatementCacheQueries;
 
+    private final int preparedStatementCacheSizeMiB;
+
+    private final Duration statementTimeout;
+
+    private final long cancelAfterDrainedRows;
+
+    private final long cancelAfterDrainedBytes;
+
+    private final int columnStreamingThreshold;
+
+    private final SocketOptions socketOptions;
+
+    private final List<InetSocketAddress> hosts;
+
+    private final TargetServerType targetServerType;
+
+    private final int prewarmHotStatements;
+
+    private final List<String> prewarmStatements;
+
     private PostgresqlConnectionConfiguration(String applicationName, boolean autodetectExtensions,
                                               @Nullable Duration connectTimeout, @Nullable String database, List<Extension> extensions, boolean forceBinary, @Nullable String host,
                                               @Nullable Map<String, String> options, @Nullable CharSequence password, int port, @Nullable String schema, @Nullable String socket, String username,
-                                              SSLConfig sslConfig, int preparedStatementCacheQueries) {
+                                              SSLConfig sslConfig, int preparedStatementCacheQueries, int preparedStatementCacheSizeMiB,
+                                              Duration statementTimeout, long cancelAfterDrainedRows, long cancelAfterDrainedBytes, int columnStreamingThreshold,
+                                              SocketOptions socketOptions, List<InetSocketAddress> hosts, TargetServerType targetServerType, int prewarmHotStatements,
+                                              List<String> prewarmStatements) {
         this.applicationName = Assert.requireNonNull(applicationName, "applicationName must not be null");
         this.autodetectExtensions = autodetectExtensions;
         this.connectTimeout = connectTimeout;
@@ -99,6 +127,16 @@ public final class PostgresqlConnectionConfiguration {
         this.username = Assert.requireNonNull(username, "username must not be null");
         this.sslConfig = sslConfig;
         this.preparedStatementCacheQueries = preparedStatementCacheQueries;
+        this.preparedStatementCacheSizeMiB = preparedStatementCacheSizeMiB;
+        this.statementTimeout = Assert.requireNonNull(statementTimeout, "statementTimeout must not be null");
+        this.cancelAfterDrainedRows = cancelAfterDrainedRows;
+        this.cancelAfterDrainedBytes = cancelAfterDrainedBytes;
+        this.columnStreamingThreshold = columnStreamingThreshold;
+        this.socketOptions = Assert.requireNonNull(socketOptions, "socketOptions must not be null");
+        this.hosts = Assert.requireNonNull(hosts, "hosts must not be null");
+        this.targetServerType = Assert.requireNonNull(targetServerType, "targetServerType must not be null");
+        this.prewarmHotStatements = prewarmHotStatements;
+        this.prewarmStatements = Assert.requireNonNull(prewarmStatements, "prewarmStatements must not be null");
     }
 
     /**
@@ -121,10 +159,15 @@ public final class PostgresqlConnectionConfiguration {
             ", extensions=" + this.extensions +
             ", forceBinary='" + this.forceBinary + '\'' +
             ", host='" + this.host + '\'' +
+            ", hosts=" + this.hosts +
             ", options='" + this.options + '\'' +
             ", password='" + obfuscate(this.password != null ? this.password.length() : 0) + '\'' +
             ", port=" + this.port +
+            ", prewarmHotStatements=" + this.prewarmHotStatements +
+            ", prewarmStatements=" + this.prewarmStatements +
             ", schema='" + this.schema + '\'' +
+            ", socketOptions=" + this.socketOptions +
+            ", targetServerType=" + this.targetServerType +
             ", username='" + this.username + '\'' +
             '}';
     }
@@ -163,6 +206,15 @@ public final class PostgresqlConnectionConfiguration {
         return host;
     }
 
+    /**
+     * Returns the addresses of all configured hosts in configuration order.
+     *
+     * @return the host addresses, empty if the connection is configured for socket usage
+     */
+    List<InetSocketAddress> getHosts() {
+        return this.hosts;
+    }
+
     @Nullable
     Map<String, String> getOptions() {
         return this.options;
@@ -222,6 +274,56 @@ public final class PostgresqlConnectionConfiguration {
         return this.preparedStatementCacheQueries;
     }
 
+    int getPreparedStatementCacheSizeMiB() {
+        return this.preparedStatementCacheSizeMiB;
+    }
+
+    int getPrewarmHotStatements() {
+        return this.prewarmHotStatements;
+    }
+
+    List<String> getPrewarmStatements() {
+        return this.prewarmStatements;
+    }
+
+    Duration getStatementTimeout() {
+        return this.statementTimeout;
+    }
+
+    long getCancelAfterDrainedRows() {
+        return this.cancelAfterDrainedRows;
+    }
+
+    long getCancelAfterDrainedBytes() {
+        return this.cancelAfterDrainedBytes;
+    }
+
+    int getColumnStreamingThreshold() {
+        return this.columnStreamingThreshold;
+    }
+
+    SocketOptions getSocketOptions() {
+        return this.socketOptions;
+    }
+
+    TargetServerType getTargetServerType() {
+        return this.targetServerType;
+    }
+
+    /**
+     * Returns a copy of this configuration that connects to {@code hosts} with {@code targetServerType}.
+     *
+     * @param hosts            the host addresses
+     * @param targetServerType the type of server to connect to
+     * @return the derived configuration
+     */
+    PostgresqlConnectionConfiguration withHosts(List<InetSocketAddress> hosts, TargetServerType targetServerType) {
+        return new PostgresqlConnectionConfiguration(this.applicationName, this.autodetectExtensions, this.connectTimeout, this.database, this.extensions, this.forceBinary, this.host,
+            this.options, this.password, this.port, this.schema, this.socket, this.username, this.sslConfig, this.preparedStatementCacheQueries, this.preparedStatementCacheSizeMiB,
+            this.statementTimeout, this.cancelAfterDrainedRows, this.cancelAfterDrainedBytes, this.columnStreamingThreshold, this.socketOptions,
+            Collections.unmodifiableList(new ArrayList<>(hosts)), targetServerType, this.prewarmHotStatements, this.prewarmStatements);
+    }
+
     private static String obfuscate(int length) {
 
         StringBuilder builder = new StringBuilder();
@@ -288,11 +390,44 @@ public final class PostgresqlConnectionConfiguration {
 
         private Function<SslContextBuilder, SslContextBuilder> sslContextBuilderCustomizer = Function.identity();
 
+        private io.netty.handler.ssl.SslProvider sslProvider = io.netty.handler.ssl.SslProvider.JDK;
+
         @Nullable
         private String username;
 
         private int preparedStatementCacheQueries = -1;
 
+        private int preparedStatementCacheSizeMiB = 0;
+
+        private Duration statementTimeout = Duration.ZERO;
+
+        private long cancelAfterDrainedRows = 0;
+
+        private long cancelAfterDrainedBytes = 0;
+
+        private int columnStreamingThreshold = 0;
+
+        private Transport transport = Transport.AUTO;
+
+        @Nullable
+        private LoopResources loopResources;
+
+        private boolean tcpNoDelay = true;
+
+        private int receiveBufferSize = 0;
+
+        private int sendBufferSize = 0;
+
+        private int busyPollMicros = 0;
+
+        private final List<InetSocketAddress> additionalHosts = new ArrayList<>();
+
+        private TargetServerType targetServerType = TargetServerType.ANY;
+
+        private int prewarmHotStatements = 0;
+
+        private final List<String> prewarmStatements = new ArrayList<>();
+
         private Builder() {
         }
 
@@ -319,6 +454,38 @@ public final class PostgresqlConnectionConfiguration {
             return this;
         }
 
+        /**
+         * Add a host to connect to. Connections are created to one of the configured hosts, see {@link #targetServerType(TargetServerType)}. Hosts added through this method are tried in
+         * addition to the host configured through {@link #host(String)}.
+         *
+         * @param host the host
+         * @param port the port
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code host} is {@code null}
+         */
+        public Builder addHost(String host, int port) {
+            Assert.requireNonNull(host, "host must not be null");
+
+            this.additionalHosts.add(InetSocketAddress.createUnresolved(host, port));
+            return this;
+        }
+
+        /**
+         * Add a statement to prepare on each new connection before the connection is emitted. Prewarmed statements are held in the prepared statement cache so that their first execution
+         * does not require a {@code Parse} round trip. Parameter types are inferred by the server. Statements that fail to prepare are ignored.
+         *
+         * @param sql the SQL of the statement to prepare
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code sql} is {@code null}
+         * @see #prewarmHotStatements(int)
+         */
+        public Builder addPrewarmStatement(String sql) {
+            Assert.requireNonNull(sql, "sql must not be null");
+
+            this.prewarmStatements.add(sql);
+            return this;
+        }
+
         /**
          * Returns a configured {@link PostgresqlConnectionConfiguration}.
          *
@@ -326,11 +493,11 @@ public final class PostgresqlConnectionConfiguration {
          */
         public PostgresqlConnectionConfiguration build() {
 
-            if (this.host == null && this.socket == null) {
+            if (this.host == null && this.socket == null && this.additionalHosts.isEmpty()) {
                 throw new IllegalArgumentException("host or socket must not be null");
             }
 
-            if (this.host != null && this.socket != null) {
+            if ((this.host != null || !this.additionalHosts.isEmpty()) && this.socket != null) {
                 throw new IllegalArgumentException("Connection must be configured for either host/port or socket usage but not both");
             }
 
@@ -339,7 +506,80 @@ public final class PostgresqlConnectionConfiguration {
             }
 
             return new PostgresqlConnectionConfiguration(this.applicationName, this.autodetectExtensions, this.connectTimeout, this.database, this.extensions, this.forceBinary, this.host,
-                this.options, this.password, this.port, this.schema, this.socket, this.username, this.createSslConfig(), this.preparedStatementCacheQueries);
+                this.options, this.password, this.port, this.schema, this.socket, this.username, this.createSslConfig(), this.preparedStatementCacheQueries,
+                this.preparedStatementCacheSizeMiB, this.statementTimeout, this.cancelAfterDrainedRows, this.cancelAfterDrainedBytes,
+                this.columnStreamingThreshold, new SocketOptions(this.transport, this.loopResources, this.tcpNoDelay, this.receiveBufferSize, this.sendBufferSize, this.busyPollMicros),
+                createHosts(), this.targetServerType, this.prewarmHotStatements, Collections.unmodifiableList(new ArrayList<>(this.prewarmStatements)));
+        }
+
+        /**
+         * Configure the time in microseconds to busy poll the socket for new data before blocking ({@code SO_BUSY_POLL}). Busy polling trades CPU time for lower latency and applies to the
+         * {@link Transport#EPOLL epoll} transport only. The default is {@code 0}, meaning busy polling is disabled.
+         *
+         * @param busyPollMicros the busy poll time in microseconds
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code busyPollMicros} is negative
+         */
+        public Builder busyPollMicros(int busyPollMicros) {
+            if (busyPollMicros < 0) {
+                throw new IllegalArgumentException("busyPollMicros must not be negative");
+            }
+
+            this.busyPollMicros = busyPollMicros;
+            return this;
+        }
+
+        /**
+         * Configure the number of bytes that are drained from a result after its subscriber has cancelled before the query is cancelled on the server. Cancelling a query sends a
+         * {@code CancelRequest} and discards the remaining result frames instead of receiving the entire result. Only single statements that do not modify data are cancelled. Queries running
+         * within a transaction are not cancelled as cancellation aborts the transaction. The default is {@code 0}, meaning results are always drained entirely.
+         *
+         * @param cancelAfterDrainedBytes the number of drained bytes
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code cancelAfterDrainedBytes} is negative
+         */
+        public Builder cancelAfterDrainedBytes(long cancelAfterDrainedBytes) {
+            if (cancelAfterDrainedBytes < 0) {
+                throw new IllegalArgumentException("cancelAfterDrainedBytes must not be negative");
+            }
+
+            this.cancelAfterDrainedBytes = cancelAfterDrainedBytes;
+            return this;
+        }
+
+        /**
+         * Configure the number of rows that are drained from a result after its subscriber has cancelled before the query is cancelled on the server. Cancelling a query sends a
+         * {@code CancelRequest} and discards the remaining result frames instead of receiving the entire result. Only single statements that do not modify data are cancelled. Queries running
+         * within a transaction are not cancelled as cancellation aborts the transaction. The default is {@code 0}, meaning results are always drained entirely.
+         *
+         * @param cancelAfterDrainedRows the number of drained rows
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code cancelAfterDrainedRows} is negative
+         */
+        public Builder cancelAfterDrainedRows(long cancelAfterDrainedRows) {
+            if (cancelAfterDrainedRows < 0) {
+                throw new IllegalArgumentException("cancelAfterDrainedRows must not be negative");
+            }
+
+            this.cancelAfterDrainedRows = cancelAfterDrainedRows;
+            return this;
+        }
+
+        /**
+         * Configure the column length in bytes from which the value of the last column of a row is streamed while it is received. The row is emitted before the value is complete and the
+         * column can be consumed only as {@link io.r2dbc.spi.Blob} or {@link io.r2dbc.spi.Clob}. The default is {@code 0}, meaning column values are always received completely.
+         *
+         * @param columnStreamingThreshold the column length in bytes
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code columnStreamingThreshold} is negative
+         */
+        public Builder columnStreamingThreshold(int columnStreamingThreshold) {
+            if (columnStreamingThreshold < 0) {
+                throw new IllegalArgumentException("columnStreamingThreshold must not be negative");
+            }
+
+            this.columnStreamingThreshold = columnStreamingThreshold;
+            return this;
         }
 
         /**
@@ -417,6 +657,19 @@ public final class PostgresqlConnectionConfiguration {
             return this;
         }
 
+        /**
+         * Configure the {@link LoopResources} to run connections on. Sharing {@link LoopResources} between connection factories shares their event loops. Defaults to the shared
+         * {@link reactor.netty.tcp.TcpResources}.
+         *
+         * @param loopResources the event loop resources
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code loopResources} is {@code null}
+         */
+        public Builder loopResources(LoopResources loopResources) {
+            this.loopResources = Assert.requireNonNull(loopResources, "loopResources must not be null");
+            return this;
+        }
+
         /**
          * Configure connection initialization parameters.
          * <p>
@@ -463,7 +716,23 @@ public final class PostgresqlConnectionConfiguration {
         }
 
         /**
-         * Configure the schema.
+         * Configure the socket receive buffer size in bytes ({@code SO_RCVBUF}) of TCP connections. The default is {@code 0}, meaning the operating system default is used.
+         *
+         * @param receiveBufferSize the receive buffer size in bytes
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code receiveBufferSize} is negative
+         */
+        public Builder receiveBufferSize(int receiveBufferSize) {
+            if (receiveBufferSize < 0) {
+                throw new IllegalArgumentException("receiveBufferSize must not be negative");
+            }
+
+            this.receiveBufferSize = receiveBufferSize;
+            return this;
+        }
+
+        /**
+         * Configure the schema. The schema is sent as {@code search_path} run-time parameter with the startup message.
          *
          * @param schema the schema
          * @return this {@link Builder}
@@ -473,6 +742,22 @@ public final class PostgresqlConnectionConfiguration {
             return this;
         }
 
+        /**
+         * Configure the socket send buffer size in bytes ({@code SO_SNDBUF}) of TCP connections. The default is {@code 0}, meaning the operating system default is used.
+         *
+         * @param sendBufferSize the send buffer size in bytes
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code sendBufferSize} is negative
+         */
+        public Builder sendBufferSize(int sendBufferSize) {
+            if (sendBufferSize < 0) {
+                throw new IllegalArgumentException("sendBufferSize must not be negative");
+            }
+
+            this.sendBufferSize = sendBufferSize;
+            return this;
+        }
+
         /**
          * Configure the unix domain socket to connect to.
          *
@@ -487,9 +772,9 @@ public final class PostgresqlConnectionConfiguration {
         }
 
         /**
-         * Configure a {@link SslContextBuilder} customizer. The customizer gets applied on each SSL connection attempt to allow for just-in-time configuration updates. The {@link Function} gets
-         * called with the prepared {@link SslContextBuilder} that has all configuration options applied. The customizer may return the same builder or return a new builder instance to be used to
-         * build the SSL context.
+         * Configure a {@link SslContextBuilder} customizer. The customizer gets applied when the SSL context is built. The context is built once per connection factory and rebuilt after
+         * {@link PostgresqlConnectionFactory#refreshSslContext()} to allow for configuration updates. The {@link Function} gets called with the prepared {@link SslContextBuilder} that has all
+         * configuration options applied. The customizer may return the same builder or return a new builder instance to be used to build the SSL context.
          *
          * @param sslContextBuilderCustomizer customizer function
          * @return this {@link Builder}
@@ -511,6 +796,19 @@ public final class PostgresqlConnectionConfiguration {
             return this;
         }
 
+        /**
+         * Configure the SSL engine implementation. {@link io.netty.handler.ssl.SslProvider#OPENSSL} and {@link io.netty.handler.ssl.SslProvider#OPENSSL_REFCNT} require netty-tcnative on the
+         * class path and fall back to {@link io.netty.handler.ssl.SslProvider#JDK} if OpenSSL is not available. Defaults to {@link io.netty.handler.ssl.SslProvider#JDK}.
+         *
+         * @param sslProvider the SSL engine implementation
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code sslProvider} is {@code null}
+         */
+        public Builder sslProvider(io.netty.handler.ssl.SslProvider sslProvider) {
+            this.sslProvider = Assert.requireNonNull(sslProvider, "sslProvider must not be null");
+            return this;
+        }
+
         /**
          * Configure ssl HostnameVerifier.
          *
@@ -591,16 +889,112 @@ public final class PostgresqlConnectionConfiguration {
             return this;
         }
 
+        /**
+         * Configure the number of most frequently executed statements to prepare on each new connection. Executions of cached statements are counted across all connections of a connection
+         * factory, new connections prepare the top statements with their server-described parameter types in a single pipelined exchange, in addition to statements configured through
+         * {@link #addPrewarmStatement(String)}. Prewarming requires the prepared statement cache and never prepares more statements than the cache holds. The default is {@code 0}, meaning
+         * executions are not tracked.
+         *
+         * @param prewarmHotStatements the number of most frequently executed statements to prepare
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code prewarmHotStatements} is negative
+         */
+        public Builder prewarmHotStatements(int prewarmHotStatements) {
+            if (prewarmHotStatements < 0) {
+                throw new IllegalArgumentException("prewarmHotStatements must not be negative");
+            }
+
+            this.prewarmHotStatements = prewarmHotStatements;
+            return this;
+        }
+
+        /**
+         * Configure the preparedStatementCacheSizeMiB. Limits the prepared statement cache by the estimated server-side memory of the cached statements, estimated from their SQL length and
+         * parameter count. The default is {@code 0}, meaning the cache is limited by {@link #preparedStatementCacheQueries(int)} only.
+         *
+         * @param preparedStatementCacheSizeMiB the preparedStatementCacheSizeMiB
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code preparedStatementCacheSizeMiB} is negative
+         */
+        public Builder preparedStatementCacheSizeMiB(int preparedStatementCacheSizeMiB) {
+            if (preparedStatementCacheSizeMiB < 0) {
+                throw new IllegalArgumentException("preparedStatementCacheSizeMiB must not be negative");
+            }
+
+            this.preparedStatementCacheSizeMiB = preparedStatementCacheSizeMiB;
+            return this;
+        }
+
+        /**
+         * Configure the default statement timeout. Statements that do not complete within the timeout are cancelled on the server and fail with a {@link io.r2dbc.spi.R2dbcTimeoutException}.
+         * The default is {@link Duration#ZERO}, meaning statements do not time out.
+         *
+         * @param statementTimeout the statement timeout
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code statementTimeout} is {@code null} or negative
+         */
+        public Builder statementTimeout(Duration statementTimeout) {
+            Assert.requireNonNull(statementTimeout, "statementTimeout must not be null");
+
+            if (statementTimeout.isNegative()) {
+                throw new IllegalArgumentException("statementTimeout must not be negative");
+            }
+
+            this.statementTimeout = statementTimeout;
+            return this;
+        }
+
+        /**
+         * Configure the type of server to connect to. When multiple hosts are configured, hosts are tried in order of their health and connect latency until a connection to a server of the
+         * requested type is established. Defaults to {@link TargetServerType#ANY}.
+         *
+         * @param targetServerType the type of server to connect to
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code targetServerType} is {@code null}
+         */
+        public Builder targetServerType(TargetServerType targetServerType) {
+            this.targetServerType = Assert.requireNonNull(targetServerType, "targetServerType must not be null");
+            return this;
+        }
+
+        /**
+         * Configure whether to disable Nagle's algorithm ({@code TCP_NODELAY}) on TCP connections. Defaults to {@code true}.
+         *
+         * @param tcpNoDelay whether to enable {@code TCP_NODELAY}
+         * @return this {@link Builder}
+         */
+        public Builder tcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        /**
+         * Configure the {@link Transport} for TCP connections. Defaults to {@link Transport#AUTO} which uses epoll or kqueue if available. A native transport that is not available falls
+         * back to {@link Transport#NIO}. Unix domain socket connections always use the native transport.
+         *
+         * @param transport the transport
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code transport} is {@code null}
+         */
+        public Builder transport(Transport transport) {
+            this.transport = Assert.requireNonNull(transport, "transport must not be null");
+            return this;
+        }
+
         @Override
         public String toString() {
             return "Builder{" +
                 "applicationName='" + this.applicationName + '\'' +
                 ", autodetectExtensions='" + this.autodetectExtensions + '\'' +
+                ", cancelAfterDrainedBytes='" + this.cancelAfterDrainedBytes + '\'' +
+                ", cancelAfterDrainedRows='" + this.cancelAfterDrainedRows + '\'' +
+                ", columnStreamingThreshold='" + this.columnStreamingThreshold + '\'' +
                 ", connectTimeout='" + this.connectTimeout + '\'' +
                 ", database='" + this.database + '\'' +
                 ", extensions='" + this.extensions + '\'' +
                 ", forceBinary='" + this.forceBinary + '\'' +
                 ", host='" + this.host + '\'' +
+                ", additionalHosts='" + this.additionalHosts + '\'' +
                 ", parameters='" + this.options + '\'' +
                 ", password='" + obfuscate(this.password != null ? this.password.length() : 0) + '\'' +
                 ", port=" + this.port +
@@ -613,10 +1007,35 @@ public final class PostgresqlConnectionConfiguration {
                 ", sslCert='" + this.sslCert + '\'' +
                 ", sslKey='" + this.sslKey + '\'' +
                 ", sslHostnameVerifier='" + this.sslHostnameVerifier + '\'' +
+                ", sslProvider='" + this.sslProvider + '\'' +
                 ", preparedStatementCacheQueries='" + this.preparedStatementCacheQueries + '\'' +
+                ", preparedStatementCacheSizeMiB='" + this.preparedStatementCacheSizeMiB + '\'' +
+                ", statementTimeout='" + this.statementTimeout + '\'' +
+                ", transport='" + this.transport + '\'' +
+                ", loopResources='" + this.loopResources + '\'' +
+                ", tcpNoDelay='" + this.tcpNoDelay + '\'' +
+                ", receiveBufferSize='" + this.receiveBufferSize + '\'' +
+                ", sendBufferSize='" + this.sendBufferSize + '\'' +
+                ", busyPollMicros='" + this.busyPollMicros + '\'' +
+                ", targetServerType='" + this.targetServerType + '\'' +
+                ", prewarmHotStatements='" + this.prewarmHotStatements + '\'' +
+                ", prewarmStatements='" + this.prewarmStatements + '\'' +
                 '}';
         }
 
+        private List<InetSocketAddress> createHosts() {
+
+            List<InetSocketAddress> hosts = new ArrayList<>(this.additionalHosts.size() + 1);
+
+            if (this.host != null) {
+                hosts.add(InetSocketAddress.createUnresolved(this.host, this.port));
+            }
+
+            hosts.addAll(this.additionalHosts);
+
+            return Collections.unmodifiableList(hosts);
+        }
+
         private SSLConfig createSslConfig() {
             if (this.socket != null || this.sslMode == SSLMode.DISABLE) {
                 return SSLConfig.disabled();
@@ -627,7 +1046,7 @@ public final class PostgresqlConnectionConfiguration {
         }
 
         private Supplier<SslProvider> createSslProvider() {
-            SslContextBuilder sslContextBuilder = SslContextBuilder.forClient();
+            SslContextBuilder sslContextBuilder = SslContextBuilder.forClient().sslProvider(SSLConfig.resolveEngineProvider(this.sslProvider));
             if (this.sslMode.verifyCertificate()) {
                 if (this.sslRootCert != null) {
                     sslContextBuilder.trustManager(new File(this.sslRootCert));
@@ -18,10 +18,13 @@ package io.r2dbc.postgresql;
 
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.unix.DomainSocketAddress;
+import io.r2dbc.postgresql.api.PostgresqlMetrics;
 import io.r2dbc.postgresql.authentication.AuthenticationHandler;
 import io.r2dbc.postgresql.authentication.PasswordAuthenticationHandler;
 import io.r2dbc.postgresql.authentication.SASLAuthenticationHandler;
+import io.r2dbc.postgresql.authentication.ScramKeyCache;
 import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.DrainLimit;
 import io.r2dbc.postgresql.client.ReactorNettyClient;
 import io.r2dbc.postgresql.client.SSLConfig;
 import io.r2dbc.postgresql.client.SSLMode;
@@ -44,10 +47,14 @@ import reactor.util.annotation.Nullable;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -60,14 +67,28 @@ public final class PostgresqlConnectionFactory implements ConnectionFactory {
 
     private static final String REPLICATION_DATABASE = "database";
 
-    private final Function<SSLConfig, Mono<? extends Client>> clientFactory;
+    private static final String SEARCH_PATH_OPTION = "search_path";
+
+    private static final String IN_HOT_STANDBY = "in_hot_standby";
+
+    private static final String DEFAULT_TRANSACTION_READ_ONLY = "default_transaction_read_only";
+
+    private final BiFunction<SocketAddress, SSLConfig, Mono<? extends Client>> clientFactory;
 
     private final PostgresqlConnectionConfiguration configuration;
 
-    private final SocketAddress endpoint;
+    private final HostSelector hostSelector;
 
     private final Extensions extensions;
 
+    private final ParsedSqlCache parsedSqlCache = new ParsedSqlCache();
+
+    private final DefaultPostgresqlMetrics metrics = new DefaultPostgresqlMetrics();
+
+    private final ScramKeyCache scramKeyCache = new ScramKeyCache();
+
+    private final HotStatements hotStatements = new HotStatements();
+
     /**
      * Creates a new connection factory.
      *
@@ -75,30 +96,28 @@ public final class PostgresqlConnectionFactory implements ConnectionFactory {
      * @throws IllegalArgumentException if {@code configuration} is {@code null}
      */
     public PostgresqlConnectionFactory(PostgresqlConnectionConfiguration configuration) {
-        this.configuration = Assert.requireNonNull(configuration, "configuration must not be null");
-        this.endpoint = createSocketAddress(configuration);
-        this.clientFactory = sslConfig -> ReactorNettyClient.connect(ConnectionProvider.newConnection(), this.endpoint, configuration.getConnectTimeout(), sslConfig).cast(Client.class);
-        this.extensions = getExtensions(configuration);
+        this(configuration, (endpoint, sslConfig) -> ReactorNettyClient.connect(ConnectionProvider.newConnection(), endpoint, configuration.getConnectTimeout(), sslConfig,
+            configuration.getColumnStreamingThreshold(), configuration.getSocketOptions()));
     }
 
     PostgresqlConnectionFactory(Function<SSLConfig, Mono<? extends Client>> clientFactory, PostgresqlConnectionConfiguration configuration) {
+        this(configuration, clientFactory == null ? null : (endpoint, sslConfig) -> clientFactory.apply(sslConfig));
+    }
+
+    PostgresqlConnectionFactory(PostgresqlConnectionConfiguration configuration, @Nullable BiFunction<SocketAddress, SSLConfig, Mono<? extends Client>> clientFactory) {
         this.configuration = Assert.requireNonNull(configuration, "configuration must not be null");
-        this.endpoint = createSocketAddress(configuration);
         this.clientFactory = Assert.requireNonNull(clientFactory, "clientFactory must not be null");
+        this.hostSelector = new HostSelector(createSocketAddresses(configuration));
         this.extensions = getExtensions(configuration);
     }
 
-    private static SocketAddress createSocketAddress(PostgresqlConnectionConfiguration configuration) {
-
-        if (!configuration.isUseSocket()) {
-            return InetSocketAddress.createUnresolved(configuration.getRequiredHost(), configuration.getPort());
-        }
+    private static List<? extends SocketAddress> createSocketAddresses(PostgresqlConnectionConfiguration configuration) {
 
         if (configuration.isUseSocket()) {
-            return new DomainSocketAddress(configuration.getRequiredSocket());
+            return Collections.singletonList(new DomainSocketAddress(configuration.getRequiredSocket()));
         }
 
-        throw new IllegalArgumentException("Cannot create SocketAddress for " + configuration);
+        return configuration.getHosts();
     }
 
     private static Extensions getExtensions(PostgresqlConnectionConfiguration configuration) {
@@ -140,14 +159,172 @@ public final class PostgresqlConnectionFactory implements ConnectionFactory {
         return doCreateConnection(true, options).map(DefaultPostgresqlReplicationConnection::new);
     }
 
+    /**
+     * Connect to one of the configured hosts. Hosts are tried in the order determined by the {@link HostSelector} until a connection to a server of the configured
+     * {@link TargetServerType} is established. {@link TargetServerType#PREFER_STANDBY} skips hosts known to be primary servers and falls back to these if no standby is available.
+     */
     private Mono<PostgresqlConnection> doCreateConnection(boolean forReplication, @Nullable Map<String, String> options) {
 
+        TargetServerType targetServerType = this.configuration.getTargetServerType();
+
+        if (targetServerType != TargetServerType.PREFER_STANDBY) {
+            return Mono.defer(() -> connectToAny(this.hostSelector.select(targetServerType), targetServerType, forReplication, options));
+        }
+
+        return Mono.defer(() -> {
+
+            List<HostSelector.Host> candidates = new ArrayList<>();
+            for (HostSelector.Host host : this.hostSelector.select(targetServerType)) {
+                if (!Boolean.FALSE.equals(host.isStandby())) {
+                    candidates.add(host);
+                }
+            }
+
+            if (candidates.isEmpty()) {
+                return connectToAny(getPrimaries(), TargetServerType.ANY, forReplication, options);
+            }
+
+            return connectToAny(candidates, targetServerType, forReplication, options).onErrorResume(e -> Mono.defer(() -> {
+
+                List<HostSelector.Host> primaries = getPrimaries();
+
+                if (primaries.isEmpty()) {
+                    return Mono.error(e);
+                }
+
+                return connectToAny(primaries, TargetServerType.ANY, forReplication, options).onErrorResume(primaryError -> {
+                    e.addSuppressed(primaryError);
+                    return Mono.error(e);
+                });
+            }));
+        });
+    }
+
+    /**
+     * Returns the hosts known to be primary servers in the order in which connections should be attempted.
+     */
+    private List<HostSelector.Host> getPrimaries() {
+
+        List<HostSelector.Host> primaries = new ArrayList<>();
+        for (HostSelector.Host host : this.hostSelector.select(TargetServerType.PRIMARY)) {
+            if (Boolean.FALSE.equals(host.isStandby())) {
+                primaries.add(host);
+            }
+        }
+
+        return primaries;
+    }
+
+    private Mono<PostgresqlConnection> connectToAny(List<HostSelector.Host> hosts, TargetServerType targetServerType, boolean forReplication, @Nullable Map<String, String> options) {
+
+        if (hosts.size() == 1) {
+            return connectTo(hosts.get(0), targetServerType, forReplication, options);
+        }
+
+        List<Throwable> errors = new ArrayList<>();
+
+        return Flux.fromIterable(hosts)
+            .concatMap(host -> connectTo(host, targetServerType, forReplication, options).onErrorResume(e -> {
+                errors.add(e);
+                return Mono.empty();
+            }), 1)
+            .next()
+            .switchIfEmpty(Mono.defer(() -> {
+
+                List<String> addresses = new ArrayList<>(hosts.size());
+                for (HostSelector.Host host : hosts) {
+                    addresses.add(describe(host.getAddress()));
+                }
+
+                PostgresConnectionException exception = new PostgresConnectionException(String.format("Cannot connect to a %s server at any of %s", targetServerType.getValue(), addresses),
+                    errors.isEmpty() ? null : errors.get(errors.size() - 1));
+                for (int i = 0; i < errors.size() - 1; i++) {
+                    exception.addSuppressed(errors.get(i));
+                }
+
+                return Mono.error(exception);
+            }));
+    }
+
+    /**
+     * Connect to {@code host} and verify that the server matches {@code targetServerType}. The latency to connect, initialize the connection and determine the server type is recorded with
+     * the {@link HostSelector}.
+     */
+    private Mono<PostgresqlConnection> connectTo(HostSelector.Host host, TargetServerType targetServerType, boolean forReplication, @Nullable Map<String, String> options) {
+
+        return Mono.defer(() -> {
+
+            long start = this.hostSelector.nanoTime();
+
+            Mono<PostgresqlConnection> connection = doCreateConnection(host.getAddress(), forReplication, options)
+                .doOnError(e -> this.hostSelector.failed(host));
+
+            if (targetServerType == TargetServerType.ANY) {
+                return connection.doOnNext(it -> this.hostSelector.connected(host, this.hostSelector.nanoTime() - start));
+            }
+
+            return connection.flatMap(it -> isStandby(it)
+                .onErrorResume(e -> it.close().then(Mono.error(e)))
+                .flatMap(standby -> {
+
+                    host.setStandby(standby);
+                    this.hostSelector.connected(host, this.hostSelector.nanoTime() - start);
+
+                    if (targetServerType.matches(standby)) {
+                        return Mono.just(it);
+                    }
+
+                    return it.close().then(Mono.error(new PostgresConnectionException(String.format("Server at %s is not a %s server", describe(host.getAddress()),
+                        targetServerType.getValue()), null)));
+                }));
+        });
+    }
+
+    /**
+     * Determine whether the connected server is a read-only standby. Servers reporting {@code in_hot_standby} (PostgreSQL 14 and later) are checked without a round trip, older servers
+     * are queried for {@code transaction_read_only}.
+     */
+    private static Mono<Boolean> isStandby(PostgresqlConnection connection) {
+
+        Client client = connection.getClient();
+        Optional<String> inHotStandby = client.getParameterStatus(IN_HOT_STANDBY);
+
+        if (inHotStandby.isPresent()) {
+            return Mono.just(isOn(inHotStandby.get()) || client.getParameterStatus(DEFAULT_TRANSACTION_READ_ONLY).map(PostgresqlConnectionFactory::isOn).orElse(false));
+        }
+
+        return connection.createStatement("SHOW transaction_read_only")
+            .execute()
+            .flatMap(it -> it.map((row, rowMetadata) -> isOn(row.get(0, String.class))))
+            .defaultIfEmpty(false)
+            .last();
+    }
+
+    /**
+     * Render {@code address} as {@code host:port}. {@link InetSocketAddress#toString()} varies across Java versions for unresolved addresses.
+     */
+    private static String describe(SocketAddress address) {
+
+        if (address instanceof InetSocketAddress) {
+            InetSocketAddress inetAddress = (InetSocketAddress) address;
+            return inetAddress.getHostString() + ":" + inetAddress.getPort();
+        }
+
+        return address.toString();
+    }
+
+    private static boolean isOn(@Nullable String value) {
+        return "on".equalsIgnoreCase(value);
+    }
+
+    private Mono<PostgresqlConnection> doCreateConnection(SocketAddress endpoint, boolean forReplication, @Nullable Map<String, String> options) {
+
         SSLConfig sslConfig = this.configuration.getSslConfig();
         Predicate<Throwable> isAuthSpecificationError = e -> e instanceof ExceptionFactory.PostgresqlAuthenticationFailure;
-        return this.tryConnectWithConfig(sslConfig, options)
+        return this.tryConnectWithConfig(endpoint, sslConfig, options)
             .onErrorResume(
                 isAuthSpecificationError.and(e -> sslConfig.getSslMode() == SSLMode.ALLOW),
-                e -> this.tryConnectWithConfig(sslConfig.mutateMode(SSLMode.REQUIRE), options)
+                e -> this.tryConnectWithConfig(endpoint, sslConfig.mutateMode(SSLMode.REQUIRE), options)
                     .onErrorResume(sslAuthError -> {
                         e.addSuppressed(sslAuthError);
                         return Mono.error(e);
@@ -155,7 +332,7 @@ public final class PostgresqlConnectionFactory implements ConnectionFactory {
             )
             .onErrorResume(
                 isAuthSpecificationError.and(e -> sslConfig.getSslMode() == SSLMode.PREFER),
-                e -> this.tryConnectWithConfig(sslConfig.mutateMode(SSLMode.DISABLE), options)
+                e -> this.tryConnectWithConfig(endpoint, sslConfig.mutateMode(SSLMode.DISABLE), options)
                     .onErrorResume(sslAuthError -> {
                         e.addSuppressed(sslAuthError);
                         return Mono.error(e);
@@ -164,24 +341,32 @@ public final class PostgresqlConnectionFactory implements ConnectionFactory {
             .flatMap(client -> {
 
                 DefaultCodecs codecs = new DefaultCodecs(client.getByteBufAllocator());
-                StatementCache statementCache = StatementCache.fromPreparedStatementCacheQueries(client, this.configuration.getPreparedStatementCacheQueries());
+                StatementCache statementCache = StatementCache.fromPreparedStatementCacheQueries(client, this.configuration.getPreparedStatementCacheQueries(),
+                    this.configuration.getPreparedStatementCacheSizeMiB());
+                // prewarming uses the untracked cache so that it does not count as execution
+                StatementCache connectionStatementCache = this.configuration.getPrewarmHotStatements() > 0 ? this.hotStatements.track(statementCache) : statementCache;
+                Mono<Void> prewarm = forReplication ? Mono.empty() : this.hotStatements.prewarm(statementCache, this.configuration.getPrewarmStatements(),
+                    this.configuration.getPrewarmHotStatements(), this.configuration.getPreparedStatementCacheQueries());
+                DrainLimit drainLimit = DrainLimit.of(this.configuration.getCancelAfterDrainedRows(), this.configuration.getCancelAfterDrainedBytes());
 
                 // early connection object to retrieve initialization details
-                PostgresqlConnection earlyConnection = new PostgresqlConnection(client, codecs, DefaultPortalNameSupplier.INSTANCE, statementCache, IsolationLevel.READ_COMMITTED,
-                    this.configuration.isForceBinary());
+                PostgresqlConnection earlyConnection = new PostgresqlConnection(client, codecs, DefaultPortalNameSupplier.INSTANCE, connectionStatementCache, this.parsedSqlCache, this.metrics, drainLimit,
+                    IsolationLevel.READ_COMMITTED, this.configuration.isForceBinary());
 
                 Mono<IsolationLevel> isolationLevelMono = Mono.just(IsolationLevel.READ_COMMITTED);
                 if (!forReplication) {
                     isolationLevelMono = getIsolationLevel(earlyConnection);
                 }
-                return isolationLevelMono
+
+                // subscribing to all initialization queries at once pipelines them into a single round trip
+                return Mono.zip(isolationLevelMono, Mono.when(initialize(earlyConnection, client.getByteBufAllocator(), codecs), prewarm).thenReturn(true),
+                    (isolationLevel, ignore) -> isolationLevel)
                     // actual connection to be used
-                    .map(isolationLevel -> new PostgresqlConnection(client, codecs, DefaultPortalNameSupplier.INSTANCE, statementCache, isolationLevel, this.configuration.isForceBinary()))
-                    .delayUntil(connection -> {
-                        return prepareConnection(connection, client.getByteBufAllocator(), codecs);
-                    })
+                    .map(isolationLevel -> new PostgresqlConnection(client, codecs, DefaultPortalNameSupplier.INSTANCE, connectionStatementCache, this.parsedSqlCache, this.metrics,
+                        drainLimit, isolationLevel, this.configuration.isForceBinary()))
+                    .delayUntil(connection -> connection.setStatementTimeout(this.configuration.getStatementTimeout()))
                     .onErrorResume(throwable -> this.closeWithError(client, throwable));
-            }).onErrorMap(this::cannotConnect);
+            }).onErrorMap(e -> cannotConnect(endpoint, e));
     }
 
     private boolean isReplicationConnection() {
@@ -189,39 +374,61 @@ public final class PostgresqlConnectionFactory implements ConnectionFactory {
         return options != null && REPLICATION_DATABASE.equalsIgnoreCase(options.get(REPLICATION_OPTION));
     }
 
-    private Mono<Client> tryConnectWithConfig(SSLConfig sslConfig, @Nullable Map<String, String> options) {
-        return this.clientFactory.apply(sslConfig)
+    private Mono<Client> tryConnectWithConfig(SocketAddress endpoint, SSLConfig sslConfig, @Nullable Map<String, String> options) {
+
+        Map<String, String> startupOptions = getStartupOptions(options);
+
+        return this.clientFactory.apply(endpoint, sslConfig)
             .delayUntil(client -> StartupMessageFlow
                 .exchange(this.configuration.getApplicationName(), this::getAuthenticationHandler, client, this.configuration.getDatabase(), this.configuration.getUsername(),
-                    options)
+                    startupOptions)
                 .handle(ExceptionFactory.INSTANCE::handleErrorResponse))
             .cast(Client.class);
     }
 
-    private Publisher<?> prepareConnection(PostgresqlConnection connection, ByteBufAllocator byteBufAllocator, DefaultCodecs codecs) {
+    /**
+     * Run the {@link CodecRegistrar codec registrars}. Registrars are subscribed to eagerly so that their queries are written to the connection without awaiting each other's responses.
+     */
+    private Mono<Boolean> initialize(PostgresqlConnection connection, ByteBufAllocator byteBufAllocator, DefaultCodecs codecs) {
 
         List<Publisher<?>> publishers = new ArrayList<>();
-        publishers.add(setSchema(connection));
 
         this.extensions.forEach(CodecRegistrar.class, it -> {
             publishers.add(it.register(connection, byteBufAllocator, codecs));
         });
 
-        return Flux.concat(publishers).then();
+        return Flux.merge(publishers).then(Mono.just(true));
+    }
+
+    /**
+     * Settings that can be applied as run-time parameters of the {@link io.r2dbc.postgresql.message.frontend.StartupMessage} do not require a round trip after authentication. The configured schema
+     * takes precedence over a {@code search_path} option. It is quoted to retain the semantics of {@code SET SCHEMA}.
+     */
+    @Nullable
+    private Map<String, String> getStartupOptions(@Nullable Map<String, String> options) {
+
+        if (this.configuration.getSchema() == null) {
+            return options;
+        }
+
+        Map<String, String> startupOptions = options == null ? new LinkedHashMap<>() : new LinkedHashMap<>(options);
+        startupOptions.put(SEARCH_PATH_OPTION, '"' + this.configuration.getSchema().replace("\"", "\"\"") + '"');
+
+        return startupOptions;
     }
 
     private Mono<PostgresqlConnection> closeWithError(Client client, Throwable throwable) {
         return client.close().then(Mono.error(throwable));
     }
 
-    private Throwable cannotConnect(Throwable throwable) {
+    private static Throwable cannotConnect(SocketAddress endpoint, Throwable throwable) {
 
         if (throwable instanceof R2dbcException) {
             return throwable;
         }
 
         return new PostgresConnectionException(
-            String.format("Cannot connect to %s", this.endpoint), throwable
+            String.format("Cannot connect to %s", describe(endpoint)), throwable
         );
     }
 
@@ -230,6 +437,23 @@ public final class PostgresqlConnectionFactory implements ConnectionFactory {
         return PostgresqlConnectionFactoryMetadata.INSTANCE;
     }
 
+    /**
+     * Returns the {@link PostgresqlMetrics} aggregated across all connections created by this factory.
+     *
+     * @return the {@link PostgresqlMetrics} of this factory
+     */
+    public PostgresqlMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Discard the cached {@link io.netty.handler.ssl.SslContext} so that subsequently created connections re-read the configured certificates and keys. Use this method after rotating
+     * certificates. Existing connections are not affected.
+     */
+    public void refreshSslContext() {
+        this.configuration.getSslConfig().refreshSslProvider();
+    }
+
     PostgresqlConnectionConfiguration getConfiguration() {
         return this.configuration;
     }
@@ -239,6 +463,7 @@ public final class PostgresqlConnectionFactory implements ConnectionFactory {
         return "PostgresqlConnectionFactory{" +
             "clientFactory=" + this.clientFactory +
             ", configuration=" + this.configuration +
+            ", hostSelector=" + this.hostSelector +
             ", extensions=" + this.extensions +
             '}';
     }
@@ -249,7 +474,7 @@ public final class PostgresqlConnectionFactory implements ConnectionFactory {
             return new PasswordAuthenticationHandler(password, this.configuration.getUsername());
         } else if (SASLAuthenticationHandler.supports(message)) {
             CharSequence password = Assert.requireNonNull(this.configuration.getPassword(), "Password must not be null");
-            return new SASLAuthenticationHandler(password, this.configuration.getUsername());
+            return new SASLAuthenticationHandler(password, this.configuration.getUsername(), this.scramKeyCache);
         } else {
             throw new IllegalStateException(String.format("Unable to provide AuthenticationHandler capable of handling %s", message));
         }
@@ -269,16 +494,6 @@ public final class PostgresqlConnectionFactory implements ConnectionFactory {
             })).defaultIfEmpty(IsolationLevel.READ_COMMITTED).last();
     }
 
-    private Mono<Void> setSchema(PostgresqlConnection connection) {
-        if (this.configuration.getSchema() == null) {
-            return Mono.empty();
-        }
-
-        return connection.createStatement(String.format("SET SCHEMA '%s'", this.configuration.getSchema()))
-            .execute()
-            .then();
-    }
-
     static class PostgresConnectionException extends R2dbcNonTransientResourceException {
 
         public PostgresConnectionException(String msg, @Nullable Throwable cause) {
@@ -19,12 +19,16 @@ package io.r2dbc.postgresql;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.r2dbc.postgresql.client.DefaultHostnameVerifier;
 import io.r2dbc.postgresql.client.SSLMode;
+import io.r2dbc.postgresql.client.Transport;
 import io.r2dbc.postgresql.util.Assert;
 import io.r2dbc.spi.ConnectionFactoryOptions;
 import io.r2dbc.spi.ConnectionFactoryProvider;
 import io.r2dbc.spi.Option;
+import reactor.netty.resources.LoopResources;
 
 import javax.net.ssl.HostnameVerifier;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -107,6 +111,11 @@ public final class PostgresqlConnectionFactoryProvider implements ConnectionFact
      */
     public static final Option<String> SSL_PASSWORD = Option.valueOf("sslPassword");
 
+    /**
+     * SSL engine implementation ({@code JDK}, {@code OPENSSL} or {@code OPENSSL_REFCNT}). OpenSSL requires netty-tcnative on the class path. Default: JDK
+     */
+    public static final Option<io.netty.handler.ssl.SslProvider> SSL_PROVIDER = Option.valueOf("sslProvider");
+
     /**
      * File name of the SSL root certificate.
      */
@@ -118,11 +127,78 @@ public final class PostgresqlConnectionFactoryProvider implements ConnectionFact
      */
     public static final Option<Integer> PREPARED_STATEMENT_CACHE_QUERIES = Option.valueOf("preparedStatementCacheQueries");
 
+    /**
+     * Limit the prepared statement cache of each connection by the estimated server-side memory of the cached statements in MiB.
+     * The default is {@code 0}, meaning the cache is limited by {@link #PREPARED_STATEMENT_CACHE_QUERIES} only.
+     */
+    public static final Option<Integer> PREPARED_STATEMENT_CACHE_SIZE_MIB = Option.valueOf("preparedStatementCacheSizeMiB");
+
+    /**
+     * Number of most frequently executed statements of the connection factory to prepare on each new connection. The default is {@code 0}, meaning no statements are prepared upfront.
+     */
+    public static final Option<Integer> PREWARM_HOT_STATEMENTS = Option.valueOf("prewarmHotStatements");
+
+    /**
+     * Default statement timeout as {@link Duration} or ISO-8601 duration {@link String}. Statements that do not complete within the timeout are cancelled on the server.
+     */
+    public static final Option<Duration> STATEMENT_TIMEOUT = Option.valueOf("statementTimeout");
+
+    /**
+     * Number of rows drained from a cancelled result before the query is cancelled on the server. The default is {@code 0}, meaning results are always drained entirely.
+     */
+    public static final Option<Long> CANCEL_AFTER_DRAINED_ROWS = Option.valueOf("cancelAfterDrainedRows");
+
+    /**
+     * Number of bytes drained from a cancelled result before the query is cancelled on the server. The default is {@code 0}, meaning results are always drained entirely.
+     */
+    public static final Option<Long> CANCEL_AFTER_DRAINED_BYTES = Option.valueOf("cancelAfterDrainedBytes");
+
+    /**
+     * Column length in bytes from which the value of the last column of a row is streamed while it is received. The default is {@code 0}, meaning column values are always received completely.
+     */
+    public static final Option<Integer> COLUMN_STREAMING_THRESHOLD = Option.valueOf("columnStreamingThreshold");
+
     /**
      * Connection options which are applied once after the connection has been created.
      */
     public static final Option<Map<String, String>> OPTIONS = Option.valueOf("options");
 
+    /**
+     * Type of server to connect to ({@code any}, {@code primary}, {@code standby} or {@code preferStandby}) when connecting to multiple hosts. Multiple hosts are configured as comma-separated
+     * {@link ConnectionFactoryOptions#HOST} list of {@code host[:port]} entries. Default: any
+     */
+    public static final Option<TargetServerType> TARGET_SERVER_TYPE = Option.valueOf("targetServerType");
+
+    /**
+     * Transport for TCP connections ({@code AUTO}, {@code NIO}, {@code EPOLL} or {@code KQUEUE}). Default: AUTO
+     */
+    public static final Option<Transport> TRANSPORT = Option.valueOf("transport");
+
+    /**
+     * {@link LoopResources} to run connections on. Default: the shared {@link reactor.netty.tcp.TcpResources}
+     */
+    public static final Option<LoopResources> LOOP_RESOURCES = Option.valueOf("loopResources");
+
+    /**
+     * Whether to enable {@code TCP_NODELAY} on TCP connections. Default: true
+     */
+    public static final Option<Boolean> TCP_NO_DELAY = Option.valueOf("tcpNoDelay");
+
+    /**
+     * Socket receive buffer size in bytes. The default is {@code 0}, meaning the operating system default is used.
+     */
+    public static final Option<Integer> RECEIVE_BUFFER_SIZE = Option.valueOf("receiveBufferSize");
+
+    /**
+     * Socket send buffer size in bytes. The default is {@code 0}, meaning the operating system default is used.
+     */
+    public static final Option<Integer> SEND_BUFFER_SIZE = Option.valueOf("sendBufferSize");
+
+    /**
+     * Time in microseconds to busy poll the socket, applies to the epoll transport only. The default is {@code 0}, meaning busy polling is disabled.
+     */
+    public static final Option<Integer> BUSY_POLL_MICROS = Option.valueOf("busyPollMicros");
+
     /**
      * Returns a new {@link PostgresqlConnectionConfiguration.Builder} configured with the given {@link ConnectionFactoryOptions}.
      *
@@ -156,6 +232,10 @@ public final class PostgresqlConnectionFactoryProvider implements ConnectionFact
         return value instanceof Integer ? (int) value : Integer.parseInt(value.toString());
     }
 
+    private static long convertToLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+    }
+
     private static void setupSsl(PostgresqlConnectionConfiguration.Builder builder, ConnectionFactoryOptions connectionFactoryOptions) {
         Boolean ssl = connectionFactoryOptions.getValue(SSL);
         if (ssl != null && ssl) {
@@ -191,6 +271,15 @@ public final class PostgresqlConnectionFactoryProvider implements ConnectionFact
             builder.sslPassword(sslPassword);
         }
 
+        Object sslProvider = connectionFactoryOptions.getValue(SSL_PROVIDER);
+        if (sslProvider != null) {
+            if (sslProvider instanceof String) {
+                builder.sslProvider(io.netty.handler.ssl.SslProvider.valueOf(((String) sslProvider).toUpperCase(Locale.ROOT)));
+            } else {
+                builder.sslProvider((io.netty.handler.ssl.SslProvider) sslProvider);
+            }
+        }
+
         if (connectionFactoryOptions.hasOption(SSL_CONTEXT_BUILDER_CUSTOMIZER)) {
             builder.sslContextBuilderCustomizer(connectionFactoryOptions.getRequiredValue(SSL_CONTEXT_BUILDER_CUSTOMIZER));
         }
@@ -218,6 +307,72 @@ public final class PostgresqlConnectionFactoryProvider implements ConnectionFact
         }
     }
 
+    private static void setupTransport(PostgresqlConnectionConfiguration.Builder builder, ConnectionFactoryOptions connectionFactoryOptions) {
+
+        Object transport = connectionFactoryOptions.getValue(TRANSPORT);
+        if (transport != null) {
+            builder.transport(transport instanceof String ? Transport.valueOf(((String) transport).toUpperCase(Locale.ROOT)) : (Transport) transport);
+        }
+
+        LoopResources loopResources = connectionFactoryOptions.getValue(LOOP_RESOURCES);
+        if (loopResources != null) {
+            builder.loopResources(loopResources);
+        }
+
+        Object tcpNoDelay = connectionFactoryOptions.getValue(TCP_NO_DELAY);
+        if (tcpNoDelay != null) {
+            builder.tcpNoDelay(convertToBoolean(tcpNoDelay));
+        }
+
+        Object receiveBufferSize = connectionFactoryOptions.getValue(RECEIVE_BUFFER_SIZE);
+        if (receiveBufferSize != null) {
+            builder.receiveBufferSize(convertToInt(receiveBufferSize));
+        }
+
+        Object sendBufferSize = connectionFactoryOptions.getValue(SEND_BUFFER_SIZE);
+        if (sendBufferSize != null) {
+            builder.sendBufferSize(convertToInt(sendBufferSize));
+        }
+
+        Object busyPollMicros = connectionFactoryOptions.getValue(BUSY_POLL_MICROS);
+        if (busyPollMicros != null) {
+            builder.busyPollMicros(convertToInt(busyPollMicros));
+        }
+    }
+
+    /**
+     * Configure a single host or a comma-separated list of {@code host[:port]} entries. IPv6 addresses in a list must be enclosed in brackets ({@code [::1]:5432}).
+     */
+    private static void setupHosts(PostgresqlConnectionConfiguration.Builder builder, String hosts, int defaultPort) {
+
+        if (hosts.indexOf(',') == -1) {
+            builder.host(hosts);
+            return;
+        }
+
+        for (String entry : hosts.split(",")) {
+
+            String host = entry.trim();
+            int port = defaultPort;
+
+            int portSeparator = host.lastIndexOf(':');
+            if (portSeparator != -1 && portSeparator > host.lastIndexOf(']')) {
+                port = Integer.parseInt(host.substring(portSeparator + 1));
+                host = host.substring(0, portSeparator);
+            }
+
+            if (host.startsWith("[") && host.endsWith("]")) {
+                host = host.substring(1, host.length() - 1);
+            }
+
+            if (host.isEmpty()) {
+                throw new IllegalArgumentException(String.format("Invalid host list '%s'", hosts));
+            }
+
+            builder.addHost(host, port);
+        }
+    }
+
     private static boolean isUsingTcp(ConnectionFactoryOptions connectionFactoryOptions) {
         return !connectionFactoryOptions.hasOption(SOCKET);
     }
@@ -270,13 +425,50 @@ public final class PostgresqlConnectionFactoryProvider implements ConnectionFact
             builder.preparedStatementCacheQueries(convertToInt(preparedStatementCacheQueries));
         }
 
+        Object preparedStatementCacheSizeMiB = connectionFactoryOptions.getValue(PREPARED_STATEMENT_CACHE_SIZE_MIB);
+        if (preparedStatementCacheSizeMiB != null) {
+            builder.preparedStatementCacheSizeMiB(convertToInt(preparedStatementCacheSizeMiB));
+        }
+
+        Object prewarmHotStatements = connectionFactoryOptions.getValue(PREWARM_HOT_STATEMENTS);
+        if (prewarmHotStatements != null) {
+            builder.prewarmHotStatements(convertToInt(prewarmHotStatements));
+        }
+
+        Object statementTimeout = connectionFactoryOptions.getValue(STATEMENT_TIMEOUT);
+        if (statementTimeout != null) {
+            builder.statementTimeout(statementTimeout instanceof Duration ? (Duration) statementTimeout : Duration.parse(statementTimeout.toString()));
+        }
+
+        Object cancelAfterDrainedRows = connectionFactoryOptions.getValue(CANCEL_AFTER_DRAINED_ROWS);
+        if (cancelAfterDrainedRows != null) {
+            builder.cancelAfterDrainedRows(convertToLong(cancelAfterDrainedRows));
+        }
+
+        Object cancelAfterDrainedBytes = connectionFactoryOptions.getValue(CANCEL_AFTER_DRAINED_BYTES);
+        if (cancelAfterDrainedBytes != null) {
+            builder.cancelAfterDrainedBytes(convertToLong(cancelAfterDrainedBytes));
+        }
+
+        Object columnStreamingThreshold = connectionFactoryOptions.getValue(COLUMN_STREAMING_THRESHOLD);
+        if (columnStreamingThreshold != null) {
+            builder.columnStreamingThreshold(convertToInt(columnStreamingThreshold));
+        }
+
         Map<String, String> options = connectionFactoryOptions.getValue(OPTIONS);
         if (options != null) {
             builder.options(options);
         }
 
+        setupTransport(builder, connectionFactoryOptions);
+
+        Object targetServerType = connectionFactoryOptions.getValue(TARGET_SERVER_TYPE);
+        if (targetServerType != null) {
+            builder.targetServerType(targetServerType instanceof String ? TargetServerType.fromValue((String) targetServerType) : (TargetServerType) targetServerType);
+        }
+
         if (isUsingTcp(connectionFactoryOptions)) {
-            builder.host(connectionFactoryOptions.getRequiredValue(HOST));
+            setupHosts(builder, connectionFactoryOptions.getRequiredValue(HOST), port != null ? port : PostgresqlConnectionConfiguration.DEFAULT_PORT);
             setupSsl(builder, connectionFactoryOptions);
         } else {
             builder.socket(connectionFactoryOptions.getRequiredValue(SOCKET));
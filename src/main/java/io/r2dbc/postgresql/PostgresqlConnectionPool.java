@@ -0,0 +1,575 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.client.SimpleQueryMessageFlow;
+import io.r2dbc.postgresql.util.Assert;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A pooling {@link ConnectionFactory} that keeps connections created by a {@link PostgresqlConnectionFactory} open for reuse. Closing a connection obtained from the pool rolls back an open
+ * transaction, restores the statement timeout and isolation level, closes statements prepared through {@link io.r2dbc.postgresql.api.PostgresqlConnection#prepare(String)}, runs the
+ * {@link Builder#resetQuery(String) reset query} and returns the connection to the pool. Other session state such as {@code LISTEN} registrations, {@code SET} values or temporary tables is
+ * only cleared by the reset query.
+ * <p>Idle connections are tracked in lock-free queues. Connections are validated locally (without a server round-trip) when borrowed. A background task evicts broken idle connections and
+ * replenishes the pool to {@link Builder#minIdle(int) minIdle} connections. {@link #create(String)} prefers an idle connection that has already prepared the given SQL in its statement cache.
+ */
+public final class PostgresqlConnectionPool implements ConnectionFactory, Closeable {
+
+    private final Logger logger = Loggers.getLogger(this.getClass());
+
+    private final Supplier<Mono<PostgresqlConnection>> connectionFactory;
+
+    private final int maxSize;
+
+    private final int minIdle;
+
+    private final Duration acquireTimeout;
+
+    @Nullable
+    private final String resetQuery;
+
+    private final Scheduler scheduler;
+
+    private final Deque<PostgresqlConnection> idle = new ConcurrentLinkedDeque<>();
+
+    private final Deque<Borrower> borrowers = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    private final AtomicInteger replenishing = new AtomicInteger();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final Disposable maintenance;
+
+    private volatile boolean closed;
+
+    PostgresqlConnectionPool(Supplier<Mono<PostgresqlConnection>> connectionFactory, int maxSize, int minIdle, Duration maintenanceInterval, Duration acquireTimeout,
+                             @Nullable String resetQuery, Scheduler scheduler) {
+        this.connectionFactory = Assert.requireNonNull(connectionFactory, "connectionFactory must not be null");
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.acquireTimeout = Assert.requireNonNull(acquireTimeout, "acquireTimeout must not be null");
+        this.resetQuery = resetQuery;
+        this.scheduler = Assert.requireNonNull(scheduler, "scheduler must not be null");
+        this.maintenance = scheduler.schedulePeriodically(this::maintain, 0, maintenanceInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns a new {@link Builder} to configure a {@link PostgresqlConnectionPool} for {@code connectionFactory}.
+     *
+     * @param connectionFactory the factory to create pooled connections with
+     * @return a new {@link Builder}
+     * @throws IllegalArgumentException if {@code connectionFactory} is {@code null}
+     */
+    public static Builder builder(PostgresqlConnectionFactory connectionFactory) {
+        return new Builder(Assert.requireNonNull(connectionFactory, "connectionFactory must not be null"));
+    }
+
+    /**
+     * Borrow a connection from the pool. The returned connection must be {@link io.r2dbc.postgresql.api.PostgresqlConnection#close() closed} to return it to the pool.
+     *
+     * @return a {@link Mono} emitting a pooled connection or failing with {@link R2dbcTimeoutException} if no connection becomes available within the {@link Builder#acquireTimeout(Duration)
+     * acquire timeout}
+     */
+    @Override
+    public Mono<io.r2dbc.postgresql.api.PostgresqlConnection> create() {
+        return create(null);
+    }
+
+    /**
+     * Borrow a connection from the pool preferring an idle connection that has {@code sql} already prepared in its statement cache. Falls back to any idle connection if no such connection is
+     * idle.
+     *
+     * @param sql the SQL that is going to be executed on the borrowed connection, can be {@code null}
+     * @return a {@link Mono} emitting a pooled connection or failing with {@link R2dbcTimeoutException} if no connection becomes available within the {@link Builder#acquireTimeout(Duration)
+     * acquire timeout}
+     */
+    public Mono<io.r2dbc.postgresql.api.PostgresqlConnection> create(@Nullable String sql) {
+        return Mono.create(sink -> {
+
+            Borrower borrower = new Borrower(sql, sink);
+            sink.onCancel(borrower::cancel);
+
+            if (!this.acquireTimeout.isZero()) {
+                borrower.timeout = this.scheduler.schedule(() -> borrower.error(new R2dbcTimeoutException(String.format("No connection available within %d ms", this.acquireTimeout.toMillis()))),
+                    this.acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            this.borrowers.offer(borrower);
+            drain();
+        });
+    }
+
+    /**
+     * Close the pool and all idle connections. Connections that are borrowed get closed when they are returned to the pool. Pending and subsequent borrow attempts fail with
+     * {@link IllegalStateException}.
+     *
+     * @return a {@link Mono} that completes once all idle connections are closed
+     */
+    @Override
+    public Mono<Void> close() {
+        return Mono.defer(() -> {
+
+            this.closed = true;
+            this.maintenance.dispose();
+            drain();
+
+            List<Mono<Void>> closing = new ArrayList<>();
+            PostgresqlConnection connection;
+            while ((connection = this.idle.pollFirst()) != null) {
+                closing.add(discard(connection));
+            }
+
+            return Flux.merge(closing).then();
+        });
+    }
+
+    /**
+     * Returns the number of connections that are currently open, including borrowed and idle connections.
+     *
+     * @return the number of open connections
+     */
+    public int getAllocatedSize() {
+        return this.allocated.get();
+    }
+
+    /**
+     * Returns the number of idle connections.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleSize() {
+        return this.idle.size();
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return PostgresqlConnectionFactoryMetadata.INSTANCE;
+    }
+
+    @Override
+    public String toString() {
+        return "PostgresqlConnectionPool{" +
+            "maxSize=" + this.maxSize +
+            ", minIdle=" + this.minIdle +
+            ", acquireTimeout=" + this.acquireTimeout +
+            ", resetQuery='" + this.resetQuery + '\'' +
+            ", allocated=" + this.allocated +
+            ", idle=" + this.idle.size() +
+            ", closed=" + this.closed +
+            '}';
+    }
+
+    /**
+     * Return a connection to the pool after a {@link PooledPostgresqlConnection} was closed. Connections with an open transaction are rolled back first. A session isolation level that differs
+     * from {@code isolationLevel} (the level at the time the connection was borrowed) is reset so the next borrower does not inherit it. {@code cleanup} and the reset query run afterwards,
+     * outside of a transaction. Connections that cannot be reset are discarded.
+     */
+    Mono<Void> release(PostgresqlConnection connection, IsolationLevel isolationLevel, Mono<Void> cleanup) {
+
+        Mono<Void> rollback = connection.isAutoCommit() ? Mono.empty() : connection.rollbackTransaction();
+        Mono<Void> reset = Mono.defer(() -> connection.getTransactionIsolationLevel().equals(isolationLevel) ? Mono.empty() : connection.setTransactionIsolationLevel(isolationLevel));
+        Mono<Void> resetQuery = this.resetQuery == null ? Mono.empty() : resetSession(connection, this.resetQuery);
+
+        return rollback.then(reset).then(cleanup).then(resetQuery).then(Mono.fromRunnable(() -> offer(connection)))
+            .onErrorResume(e -> {
+                this.logger.debug("Discarding connection that could not be reset", e);
+                return discard(connection);
+            }).then();
+    }
+
+    private static Mono<Void> resetSession(PostgresqlConnection connection, String sql) {
+        ExceptionFactory exceptionFactory = ExceptionFactory.withSql(sql);
+
+        return SimpleQueryMessageFlow.exchange(connection.getClient(), sql)
+            .handle(exceptionFactory::handleErrorResponse)
+            .then();
+    }
+
+    private void offer(PostgresqlConnection connection) {
+
+        if (this.closed || !isValid(connection)) {
+            discard(connection).subscribe();
+            return;
+        }
+
+        // LIFO keeps recently used connections (and their statement caches) warm
+        this.idle.offerFirst(connection);
+        drain();
+    }
+
+    /**
+     * Hand idle connections to waiting borrowers or create new connections while there is capacity. Concurrent callers are serialized through {@code wip}: only one thread drains at a time and
+     * additional calls cause another drain round.
+     */
+    private void drain() {
+
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            for (; ; ) {
+
+                Borrower borrower = this.borrowers.peek();
+                if (borrower == null) {
+                    break;
+                }
+
+                if (borrower.isDone()) {
+                    this.borrowers.poll();
+                    continue;
+                }
+
+                if (this.closed) {
+                    this.borrowers.poll();
+                    borrower.error(new IllegalStateException("Connection pool is closed"));
+                    continue;
+                }
+
+                PostgresqlConnection connection = pollIdle(borrower.sql);
+
+                if (connection != null) {
+
+                    if (!isValid(connection)) {
+                        discard(connection).subscribe();
+                        continue;
+                    }
+
+                    this.borrowers.poll();
+                    if (!borrower.offer(connection)) {
+                        this.idle.offerFirst(connection);
+                    }
+                    continue;
+                }
+
+                if (!tryAllocate()) {
+                    break;
+                }
+
+                this.borrowers.poll();
+                allocate(borrower);
+            }
+
+            missed = this.wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    @Nullable
+    private PostgresqlConnection pollIdle(@Nullable String sql) {
+
+        if (sql != null) {
+            for (PostgresqlConnection connection : this.idle) {
+                if (connection.isStatementCached(sql) && this.idle.removeFirstOccurrence(connection)) {
+                    return connection;
+                }
+            }
+        }
+
+        return this.idle.pollFirst();
+    }
+
+    private boolean tryAllocate() {
+
+        for (; ; ) {
+
+            int current = this.allocated.get();
+            if (current >= this.maxSize) {
+                return false;
+            }
+
+            if (this.allocated.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void allocate(Borrower borrower) {
+
+        this.connectionFactory.get().subscribe(connection -> {
+
+            if (!borrower.offer(connection)) {
+                offer(connection);
+            }
+        }, e -> {
+
+            this.allocated.decrementAndGet();
+            borrower.error(e);
+            drain();
+        });
+    }
+
+    private Mono<Void> discard(PostgresqlConnection connection) {
+        return connection.close()
+            .onErrorResume(e -> {
+                this.logger.debug("Cannot close connection", e);
+                return Mono.empty();
+            })
+            .doFinally(signal -> {
+                this.allocated.decrementAndGet();
+                drain();
+            });
+    }
+
+    /**
+     * Evict broken idle connections and create connections until {@code minIdle} connections are idle.
+     */
+    private void maintain() {
+
+        for (PostgresqlConnection connection : this.idle) {
+            if (!isValid(connection) && this.idle.removeFirstOccurrence(connection)) {
+                discard(connection).subscribe();
+            }
+        }
+
+        int missing = this.minIdle - this.idle.size() - this.replenishing.get();
+        for (int i = 0; i < missing && !this.closed && tryAllocate(); i++) {
+
+            this.replenishing.incrementAndGet();
+            this.connectionFactory.get()
+                .doFinally(signal -> this.replenishing.decrementAndGet())
+                .subscribe(this::offer, e -> {
+                    this.allocated.decrementAndGet();
+                    this.logger.debug("Cannot replenish connection pool", e);
+                });
+        }
+    }
+
+    private static boolean isValid(PostgresqlConnection connection) {
+        return connection.getClient().isConnected();
+    }
+
+    /**
+     * A pending borrow request. A borrower is completed exactly once, either with a connection, an error or by cancellation.
+     */
+    final class Borrower {
+
+        @Nullable
+        final String sql;
+
+        private final MonoSink<io.r2dbc.postgresql.api.PostgresqlConnection> sink;
+
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        @Nullable
+        volatile Disposable timeout;
+
+        Borrower(@Nullable String sql, MonoSink<io.r2dbc.postgresql.api.PostgresqlConnection> sink) {
+            this.sql = sql;
+            this.sink = sink;
+        }
+
+        boolean isDone() {
+            return this.done.get();
+        }
+
+        boolean offer(PostgresqlConnection connection) {
+
+            if (!this.done.compareAndSet(false, true)) {
+                return false;
+            }
+
+            disposeTimeout();
+            this.sink.success(new PooledPostgresqlConnection(PostgresqlConnectionPool.this, connection));
+            return true;
+        }
+
+        void error(Throwable throwable) {
+            if (this.done.compareAndSet(false, true)) {
+                disposeTimeout();
+                this.sink.error(throwable);
+            }
+        }
+
+        void cancel() {
+            this.done.set(true);
+            disposeTimeout();
+        }
+
+        private void disposeTimeout() {
+
+            Disposable timeout = this.timeout;
+            if (timeout != null) {
+                timeout.dispose();
+            }
+        }
+
+    }
+
+    /**
+     * Builder for {@link PostgresqlConnectionPool}.
+     */
+    public static final class Builder {
+
+        private final PostgresqlConnectionFactory connectionFactory;
+
+        private int maxSize = 10;
+
+        private int minIdle = 0;
+
+        private Duration maintenanceInterval = Duration.ofSeconds(30);
+
+        private Duration acquireTimeout = Duration.ZERO;
+
+        @Nullable
+        private String resetQuery;
+
+        private Builder(PostgresqlConnectionFactory connectionFactory) {
+            this.connectionFactory = connectionFactory;
+        }
+
+        /**
+         * Returns a configured {@link PostgresqlConnectionPool}. Building the pool starts background maintenance which creates {@link #minIdle(int) minIdle} connections.
+         *
+         * @return a configured {@link PostgresqlConnectionPool}
+         * @throws IllegalArgumentException if {@code minIdle} exceeds {@code maxSize}
+         */
+        public PostgresqlConnectionPool build() {
+
+            if (this.minIdle > this.maxSize) {
+                throw new IllegalArgumentException("minIdle must not be greater than maxSize");
+            }
+
+            return new PostgresqlConnectionPool(() -> this.connectionFactory.create().cast(PostgresqlConnection.class), this.maxSize, this.minIdle, this.maintenanceInterval,
+                this.acquireTimeout, this.resetQuery, Schedulers.parallel());
+        }
+
+        /**
+         * Configure how long {@link PostgresqlConnectionPool#create()} waits for a connection before failing with {@link R2dbcTimeoutException}. {@link Duration#ZERO} waits indefinitely.
+         * Defaults to {@link Duration#ZERO}.
+         *
+         * @param acquireTimeout the acquire timeout
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code acquireTimeout} is {@code null} or negative
+         */
+        public Builder acquireTimeout(Duration acquireTimeout) {
+            Assert.requireNonNull(acquireTimeout, "acquireTimeout must not be null");
+
+            if (acquireTimeout.isNegative()) {
+                throw new IllegalArgumentException("acquireTimeout must not be negative");
+            }
+
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        /**
+         * Configure the interval in which idle connections are checked and the pool is replenished. Defaults to 30 seconds.
+         *
+         * @param maintenanceInterval the maintenance interval
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maintenanceInterval} is {@code null} or not positive
+         */
+        public Builder maintenanceInterval(Duration maintenanceInterval) {
+            Assert.requireNonNull(maintenanceInterval, "maintenanceInterval must not be null");
+
+            if (maintenanceInterval.isZero() || maintenanceInterval.isNegative()) {
+                throw new IllegalArgumentException("maintenanceInterval must be positive");
+            }
+
+            this.maintenanceInterval = maintenanceInterval;
+            return this;
+        }
+
+        /**
+         * Configure the maximum number of open connections. Defaults to {@code 10}.
+         *
+         * @param maxSize the maximum number of open connections
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxSize} is not positive
+         */
+        public Builder maxSize(int maxSize) {
+
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be greater than zero");
+            }
+
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Configure the number of idle connections that the pool maintains in the background. Defaults to {@code 0}.
+         *
+         * @param minIdle the minimum number of idle connections
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code minIdle} is negative
+         */
+        public Builder minIdle(int minIdle) {
+
+            if (minIdle < 0) {
+                throw new IllegalArgumentException("minIdle must be greater or equal to zero");
+            }
+
+            this.minIdle = minIdle;
+            return this;
+        }
+
+        /**
+         * Configure SQL that is run when a connection is returned to the pool to clear session state of the previous borrower, e.g. {@code UNLISTEN *; RESET ALL; DISCARD TEMP}. Connections for
+         * which the query fails are discarded. {@code DISCARD ALL} and {@code DEALLOCATE ALL} must not be used as they drop the statements held in the statement cache of the connection. Note that
+         * {@code RESET ALL} also resets session settings that were configured on the {@link PostgresqlConnectionFactory}. Defaults to none.
+         *
+         * @param resetQuery the SQL to run on return, can be {@code null}
+         * @return this {@link Builder}
+         */
+        public Builder resetQuery(@Nullable String resetQuery) {
+            this.resetQuery = resetQuery;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "connectionFactory=" + this.connectionFactory +
+                ", maxSize=" + this.maxSize +
+                ", minIdle=" + this.minIdle +
+                ", maintenanceInterval=" + this.maintenanceInterval +
+                ", acquireTimeout=" + this.acquireTimeout +
+                ", resetQuery='" + this.resetQuery + '\'' +
+                '}';
+        }
+
+    }
+
+}
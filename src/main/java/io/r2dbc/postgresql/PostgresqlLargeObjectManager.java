@@ -0,0 +1,247 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+import io.r2dbc.postgresql.api.LargeObject;
+import io.r2dbc.postgresql.api.LargeObjectManager;
+import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.FunctionCallMessageFlow;
+import io.r2dbc.postgresql.client.SimpleQueryMessageFlow;
+import io.r2dbc.postgresql.message.backend.DataRow;
+import io.r2dbc.postgresql.message.backend.FunctionCallResponse;
+import io.r2dbc.postgresql.util.Assert;
+import io.r2dbc.postgresql.util.ByteBufUtils;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link LargeObjectManager} calling the server-side large object functions through the fast-path function call protocol. Function OIDs are resolved once per connection.
+ */
+final class PostgresqlLargeObjectManager implements LargeObjectManager {
+
+    static final String LO_CLOSE = "lo_close";
+
+    static final String LO_CREATE = "lo_create";
+
+    static final String LO_LSEEK64 = "lo_lseek64";
+
+    static final String LO_OPEN = "lo_open";
+
+    static final String LO_TELL64 = "lo_tell64";
+
+    static final String LO_UNLINK = "lo_unlink";
+
+    static final String LOREAD = "loread";
+
+    static final String LOWRITE = "lowrite";
+
+    static final String FUNCTION_QUERY = "SELECT p.proname, p.oid FROM pg_catalog.pg_proc p JOIN pg_catalog.pg_namespace n ON p.pronamespace = n.oid WHERE n.nspname = 'pg_catalog' AND p.proname IN " +
+        "('lo_close', 'lo_create', 'lo_lseek64', 'lo_open', 'lo_tell64', 'lo_unlink', 'loread', 'lowrite')";
+
+    private final Client client;
+
+    @Nullable
+    private volatile Map<String, Integer> functions;
+
+    PostgresqlLargeObjectManager(Client client) {
+        this.client = Assert.requireNonNull(client, "client must not be null");
+    }
+
+    @Override
+    public Mono<Long> create() {
+        return call(LO_CREATE, oid(0)).map(PostgresqlLargeObjectManager::toOid);
+    }
+
+    @Override
+    public Mono<LargeObject> open(long oid) {
+        return open(oid, Mode.READ_WRITE);
+    }
+
+    @Override
+    public Mono<LargeObject> open(long oid, Mode mode) {
+        Assert.requireNonNull(mode, "mode must not be null");
+
+        return call(LO_OPEN, oid(oid), Unpooled.copyInt(mode.getFlags())).map(result -> new PostgresqlLargeObject(oid, result.getInt()));
+    }
+
+    @Override
+    public Mono<Void> unlink(long oid) {
+        return call(LO_UNLINK, oid(oid)).then();
+    }
+
+    @Override
+    public String toString() {
+        return "PostgresqlLargeObjectManager{" +
+            "client=" + this.client +
+            ", functions=" + this.functions +
+            '}';
+    }
+
+    private Mono<ByteBuffer> call(String function, ByteBuf... arguments) {
+        return getFunctionId(function)
+            .flatMapMany(functionId -> FunctionCallMessageFlow.exchange(this.client, functionId, duplicate(arguments)))
+            .handle(ExceptionFactory.INSTANCE::handleErrorResponse)
+            .ofType(FunctionCallResponse.class)
+            .<ByteBuffer>handle((response, sink) -> {
+                if (response.getValue() != null) {
+                    sink.next(response.getValue());
+                }
+            })
+            .singleOrEmpty();
+    }
+
+    private Mono<Integer> getFunctionId(String function) {
+        return Mono.defer(() -> {
+
+            Map<String, Integer> functions = this.functions;
+            Mono<Map<String, Integer>> lookup = functions != null ? Mono.just(functions) : resolveFunctions();
+
+            return lookup.handle((resolved, sink) -> {
+
+                Integer functionId = resolved.get(function);
+                if (functionId == null) {
+                    sink.error(new IllegalStateException(String.format("Function %s does not exist", function)));
+                } else {
+                    sink.next(functionId);
+                }
+            });
+        });
+    }
+
+    private Mono<Map<String, Integer>> resolveFunctions() {
+        return SimpleQueryMessageFlow.exchange(this.client, FUNCTION_QUERY)
+            .handle(ExceptionFactory.INSTANCE::handleErrorResponse)
+            .<Map.Entry<String, Integer>>handle((message, sink) -> {
+
+                try {
+                    if (message instanceof DataRow) {
+                        ByteBuf[] columns = ((DataRow) message).getColumns();
+                        sink.next(new HashMap.SimpleImmutableEntry<>(ByteBufUtils.decode(columns[0]), Integer.parseInt(ByteBufUtils.decode(columns[1]))));
+                    }
+                } finally {
+                    ReferenceCountUtil.release(message);
+                }
+            })
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+            .map(Collections::unmodifiableMap)
+            .doOnNext(functions -> this.functions = functions);
+    }
+
+    /**
+     * Encoding the function call consumes the arguments. Use duplicates to allow re-subscription.
+     */
+    private static List<ByteBuf> duplicate(ByteBuf... arguments) {
+
+        List<ByteBuf> duplicates = new ArrayList<>(arguments.length);
+        for (ByteBuf argument : arguments) {
+            duplicates.add(argument.duplicate());
+        }
+
+        return duplicates;
+    }
+
+    private static ByteBuf oid(long oid) {
+        return Unpooled.copyInt((int) oid);
+    }
+
+    private static long toOid(ByteBuffer value) {
+        return value.getInt() & 0xFFFFFFFFL;
+    }
+
+    /**
+     * {@link LargeObject} identified by a large object descriptor.
+     */
+    final class PostgresqlLargeObject implements LargeObject {
+
+        private final long oid;
+
+        private final int descriptor;
+
+        PostgresqlLargeObject(long oid, int descriptor) {
+            this.oid = oid;
+            this.descriptor = descriptor;
+        }
+
+        @Override
+        public long getOid() {
+            return this.oid;
+        }
+
+        @Override
+        public Flux<ByteBuf> read(int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize must be greater than zero");
+            }
+
+            return Mono.defer(() -> call(LOREAD, Unpooled.copyInt(this.descriptor), Unpooled.copyInt(chunkSize)))
+                .map(Unpooled::wrappedBuffer)
+                .repeat()
+                .takeUntil(chunk -> chunk.readableBytes() < chunkSize)
+                .filter(ByteBuf::isReadable);
+        }
+
+        @Override
+        public Mono<Long> write(Publisher<ByteBuf> data) {
+            Assert.requireNonNull(data, "data must not be null");
+
+            return Flux.from(data)
+                .concatMap(chunk -> call(LOWRITE, Unpooled.copyInt(this.descriptor), chunk)
+                    .map(result -> (long) result.getInt())
+                    .doFinally(ignore -> ReferenceCountUtil.release(chunk)))
+                .doOnDiscard(ByteBuf.class, ReferenceCountUtil::release)
+                .reduce(0L, Long::sum);
+        }
+
+        @Override
+        public Mono<Long> seek(long offset, Whence whence) {
+            Assert.requireNonNull(whence, "whence must not be null");
+
+            return call(LO_LSEEK64, Unpooled.copyInt(this.descriptor), Unpooled.copyLong(offset), Unpooled.copyInt(whence.ordinal())).map(ByteBuffer::getLong);
+        }
+
+        @Override
+        public Mono<Long> tell() {
+            return call(LO_TELL64, Unpooled.copyInt(this.descriptor)).map(ByteBuffer::getLong);
+        }
+
+        @Override
+        public Mono<Void> close() {
+            return call(LO_CLOSE, Unpooled.copyInt(this.descriptor)).then();
+        }
+
+        @Override
+        public String toString() {
+            return "PostgresqlLargeObject{" +
+                "oid=" + this.oid +
+                ", descriptor=" + this.descriptor +
+                '}';
+        }
+    }
+
+}
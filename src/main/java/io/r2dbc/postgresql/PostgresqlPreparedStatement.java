@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.api.PostgresqlStatement;
+import io.r2dbc.postgresql.client.ExtendedQueryMessageFlow;
+import io.r2dbc.postgresql.message.Format;
+import io.r2dbc.postgresql.message.backend.BackendMessage;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
+import io.r2dbc.postgresql.message.backend.RowDescription;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An implementation of {@link io.r2dbc.postgresql.api.PostgresqlPreparedStatement} that retains the {@link ParameterDescription} and {@link RowDescription} of a named server-side statement.
+ */
+final class PostgresqlPreparedStatement implements io.r2dbc.postgresql.api.PostgresqlPreparedStatement {
+
+    private final ConnectionContext context;
+
+    private final String name;
+
+    private final ParsedSql parsedSql;
+
+    private final List<Integer> parameterTypes;
+
+    private final ParameterEncoder parameterEncoder;
+
+    @Nullable
+    private final RowDescription rowDescription;
+
+    private final boolean forceBinary;
+
+    PostgresqlPreparedStatement(ConnectionContext context, String name, ParsedSql parsedSql, List<Integer> parameterTypes, @Nullable RowDescription rowDescription, boolean forceBinary) {
+        this.context = Assert.requireNonNull(context, "context must not be null");
+        this.name = Assert.requireNonNull(name, "name must not be null");
+        this.parsedSql = Assert.requireNonNull(parsedSql, "parsedSql must not be null");
+        this.parameterTypes = Collections.unmodifiableList(new ArrayList<>(Assert.requireNonNull(parameterTypes, "parameterTypes must not be null")));
+        this.parameterEncoder = new ParameterEncoder(context.getCodecs(), this.parameterTypes);
+        this.rowDescription = rowDescription == null ? null : withFormat(rowDescription, forceBinary ? Format.FORMAT_BINARY : Format.FORMAT_TEXT);
+        this.forceBinary = forceBinary;
+    }
+
+    @Override
+    public PostgresqlStatement bind(Object... values) {
+        Assert.requireNonNull(values, "values must not be null");
+
+        if (values.length != this.parameterTypes.size()) {
+            throw new IllegalArgumentException(String.format("Statement expects %d parameters but %d values were given", this.parameterTypes.size(), values.length));
+        }
+
+        PreparedQueryPostgresqlStatement statement = createStatement();
+        for (int i = 0; i < values.length; i++) {
+            statement.bindValue(i, values[i]);
+        }
+
+        return statement;
+    }
+
+    @Override
+    public Mono<Void> close() {
+        ExceptionFactory factory = ExceptionFactory.withSql(this.name);
+
+        return ExtendedQueryMessageFlow.closeStatement(this.context.getClient(), this.name)
+            .handle(factory::handleErrorResponse)
+            .then();
+    }
+
+    @Override
+    public PreparedQueryPostgresqlStatement createStatement() {
+        return new PreparedQueryPostgresqlStatement(this.context, this);
+    }
+
+    @Override
+    public List<Integer> getParameterTypes() {
+        return this.parameterTypes;
+    }
+
+    @Override
+    public String getSql() {
+        return this.parsedSql.getSql();
+    }
+
+    ParsedSql getParsedSql() {
+        return this.parsedSql;
+    }
+
+    @Override
+    public String toString() {
+        return "PostgresqlPreparedStatement{" +
+            "name='" + this.name + '\'' +
+            ", sql='" + this.parsedSql.getSql() + '\'' +
+            ", parameterTypes=" + this.parameterTypes +
+            ", forceBinary=" + this.forceBinary +
+            '}';
+    }
+
+    String getName() {
+        return this.name;
+    }
+
+    ParameterEncoder getParameterEncoder() {
+        return this.parameterEncoder;
+    }
+
+    /**
+     * Returns the {@link RowDescription} with result formats applied or {@code null} if the statement does not return rows.
+     *
+     * @return the {@link RowDescription} or {@code null}
+     */
+    @Nullable
+    RowDescription getRowDescription() {
+        return this.rowDescription;
+    }
+
+    boolean isForceBinary() {
+        return this.forceBinary;
+    }
+
+    /**
+     * Prepare and describe {@code parsedSql} as server-side statement {@code name}.
+     *
+     * @param context     the connection context
+     * @param name        the statement name
+     * @param parsedSql   the SQL to prepare
+     * @param forceBinary whether to request binary results for all columns
+     * @return the prepared statement
+     */
+    static Mono<PostgresqlPreparedStatement> prepare(ConnectionContext context, String name, ParsedSql parsedSql, boolean forceBinary) {
+        Assert.requireNonNull(context, "context must not be null");
+        Assert.requireNonNull(name, "name must not be null");
+        Assert.requireNonNull(parsedSql, "parsedSql must not be null");
+
+        ExceptionFactory factory = ExceptionFactory.withSql(parsedSql.getSql());
+
+        return ExtendedQueryMessageFlow.prepare(context.getClient(), name, parsedSql.getSql(), Collections.emptyList())
+            .handle(factory::handleErrorResponse)
+            .collectList()
+            .map(messages -> {
+
+                List<Integer> parameterTypes = Collections.emptyList();
+                RowDescription rowDescription = null;
+
+                for (BackendMessage message : messages) {
+
+                    if (message instanceof ParameterDescription) {
+                        parameterTypes = ((ParameterDescription) message).getParameters();
+                    }
+
+                    if (message instanceof RowDescription) {
+                        rowDescription = (RowDescription) message;
+                    }
+                }
+
+                return new PostgresqlPreparedStatement(context, name, parsedSql, parameterTypes, rowDescription, forceBinary);
+            });
+    }
+
+    /**
+     * A statement-level {@link RowDescription} does not know the result formats yet. Apply {@code format} to all fields as requested by the bind message.
+     */
+    private static RowDescription withFormat(RowDescription rowDescription, Format format) {
+
+        List<RowDescription.Field> fields = new ArrayList<>(rowDescription.getFields().size());
+        for (RowDescription.Field field : rowDescription.getFields()) {
+            fields.add(new RowDescription.Field(field.getColumn(), field.getDataType(), field.getDataTypeModifier(), field.getDataTypeSize(), format, field.getName(), field.getTable()));
+        }
+
+        return new RowDescription(fields);
+    }
+
+}
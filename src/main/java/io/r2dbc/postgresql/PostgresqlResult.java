@@ -31,7 +31,12 @@ import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 
@@ -44,6 +49,11 @@ final class PostgresqlResult extends AbstractReferenceCounted implements io.r2db
 
     private static final Predicate<BackendMessage> TAKE_UNTIL = or(CommandComplete.class::isInstance, EmptyQueryResponse.class::isInstance, PortalSuspended.class::isInstance);
 
+    /**
+     * Number of rows that are mapped as one unit of work when mapping on a {@link Scheduler}.
+     */
+    static final int BATCH_SIZE = 64;
+
     private final ConnectionContext context;
 
     private final Flux<BackendMessage> messages;
@@ -106,6 +116,36 @@ final class PostgresqlResult extends AbstractReferenceCounted implements io.r2db
             });
     }
 
+    @Override
+    public <T> Flux<T> map(BiFunction<Row, RowMetadata, ? extends T> f, Scheduler scheduler) {
+        Assert.requireNonNull(f, "f must not be null");
+        Assert.requireNonNull(scheduler, "scheduler must not be null");
+
+        return this.messages.takeUntil(TAKE_UNTIL)
+            .handle(this.factory::handleErrorResponse)
+            .<DataRow>handle((message, sink) -> {
+
+                if (message instanceof DataRow) {
+                    sink.next((DataRow) message);
+                    return;
+                }
+
+                try {
+                    if (message instanceof RowDescription) {
+                        this.rowDescription = (RowDescription) message;
+                        this.metadata = PostgresqlRowMetadata.toRowMetadata(this.context.getCodecs(), (RowDescription) message);
+                    }
+                } finally {
+                    ReferenceCountUtil.release(message);
+                }
+            })
+            .buffer(BATCH_SIZE)
+            .map(rows -> new RowBatch(rows, this.rowDescription, this.metadata))
+            .doOnDiscard(ReferenceCounted.class, ReferenceCountUtil::release)
+            .flatMapSequential(batch -> Mono.fromCallable(() -> batch.<T>map(this.context, f)).subscribeOn(scheduler).doOnCancel(batch::cancel), Schedulers.DEFAULT_POOL_SIZE, 1)
+            .flatMapIterable(mapped -> mapped);
+    }
+
     @Override
     protected void deallocate() {
 
@@ -130,4 +170,62 @@ final class PostgresqlResult extends AbstractReferenceCounted implements io.r2db
         return new PostgresqlResult(context, messages, factory);
     }
 
+    /**
+     * A batch of {@link DataRow data rows} that is handed off to a different thread. Rows are released exactly once, either by the thread that maps the batch or by cancellation if mapping has not
+     * started yet.
+     */
+    static final class RowBatch {
+
+        private static final int PENDING = 0;
+
+        private static final int MAPPING = 1;
+
+        private static final int RELEASED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private final List<DataRow> rows;
+
+        private final RowDescription rowDescription;
+
+        private final PostgresqlRowMetadata metadata;
+
+        RowBatch(List<DataRow> rows, RowDescription rowDescription, PostgresqlRowMetadata metadata) {
+            this.rows = rows;
+            this.rowDescription = rowDescription;
+            this.metadata = metadata;
+        }
+
+        <T> List<T> map(ConnectionContext context, BiFunction<Row, RowMetadata, ? extends T> f) {
+
+            if (!this.state.compareAndSet(PENDING, MAPPING)) {
+                return new ArrayList<>();
+            }
+
+            try {
+                List<T> mapped = new ArrayList<>(this.rows.size());
+
+                for (DataRow row : this.rows) {
+                    mapped.add(f.apply(PostgresqlRow.toRow(context, row, this.rowDescription), this.metadata));
+                }
+
+                return mapped;
+            } finally {
+                this.state.set(RELEASED);
+                release();
+            }
+        }
+
+        void cancel() {
+            if (this.state.compareAndSet(PENDING, RELEASED)) {
+                release();
+            }
+        }
+
+        private void release() {
+            this.rows.forEach(ReferenceCountUtil::release);
+        }
+
+    }
+
 }
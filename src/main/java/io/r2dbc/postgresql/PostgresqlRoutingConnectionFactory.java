@@ -0,0 +1,576 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.replication.LogSequenceNumber;
+import io.r2dbc.postgresql.util.Assert;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ConnectionFactory} that routes read-only work to standby servers and everything else to the primary server of a multi-host configuration. {@link #create()} connects to the
+ * primary unless the subscriber {@link reactor.util.context.Context} contains {@link #READ_ONLY} set to {@code true}, {@link #createReadOnly()} connects to a standby.
+ * <p>The replay lag of each standby is checked periodically by comparing {@code pg_last_wal_replay_lsn()} on the standby with {@code pg_current_wal_lsn()} on the primary (PostgreSQL 10 and
+ * later). Read-only connections are distributed across standbys whose lag is known and does not exceed {@link Builder#maxReplayLag(long) maxReplayLag}. Read-only connections fall back to
+ * the primary if no standby qualifies.
+ * <p>Reads that must observe a preceding write capture the WAL position of the primary with {@link #getWritePosition(io.r2dbc.postgresql.api.PostgresqlConnection)} after committing and pass it to
+ * {@link #createReadOnly(LogSequenceNumber)}. The standby connection is emitted once the standby has replayed that position, otherwise the connection falls back to the primary after
+ * {@link Builder#replayWaitTimeout(Duration) replayWaitTimeout}.
+ */
+public final class PostgresqlRoutingConnectionFactory implements ConnectionFactory, Closeable {
+
+    /**
+     * Subscriber {@link reactor.util.context.Context} key that routes {@link #create()} to a standby when set to {@code true}.
+     */
+    public static final String READ_ONLY = PostgresqlRoutingConnectionFactory.class.getName() + ".READ_ONLY";
+
+    /**
+     * Subscriber {@link reactor.util.context.Context} key holding a {@link LogSequenceNumber} that a standby must have replayed before {@link #create()} emits a read-only connection. Only
+     * considered in combination with {@link #READ_ONLY}.
+     */
+    public static final String MIN_REPLAY_POSITION = PostgresqlRoutingConnectionFactory.class.getName() + ".MIN_REPLAY_POSITION";
+
+    static final long UNKNOWN_LAG = -1;
+
+    private static final String PRIMARY_POSITION = "SELECT pg_current_wal_lsn()::text";
+
+    private static final String STANDBY_POSITION = "SELECT CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn()::text END";
+
+    private static final String WRITE_POSITION = "SELECT pg_current_wal_insert_lsn()::text";
+
+    static final Duration REPLAY_POLL_INTERVAL = Duration.ofMillis(10);
+
+    private final Logger logger = Loggers.getLogger(this.getClass());
+
+    private final Node primary;
+
+    private final List<Node> standbys;
+
+    private final long maxReplayLag;
+
+    private final Duration replayWaitTimeout;
+
+    private final Scheduler scheduler;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicBoolean checking = new AtomicBoolean();
+
+    private final Disposable lagCheck;
+
+    PostgresqlRoutingConnectionFactory(Node primary, List<Node> standbys, long maxReplayLag, Duration lagCheckInterval, Duration replayWaitTimeout, Scheduler scheduler) {
+        this.primary = Assert.requireNonNull(primary, "primary must not be null");
+        this.standbys = Assert.requireNonNull(standbys, "standbys must not be null");
+        this.maxReplayLag = maxReplayLag;
+        this.replayWaitTimeout = Assert.requireNonNull(replayWaitTimeout, "replayWaitTimeout must not be null");
+        this.scheduler = Assert.requireNonNull(scheduler, "scheduler must not be null");
+        this.lagCheck = scheduler.schedulePeriodically(this::checkLag, 0, lagCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns a new {@link Builder} to configure a {@link PostgresqlRoutingConnectionFactory} for the hosts of {@code configuration}.
+     *
+     * @param configuration the multi-host configuration
+     * @return a new {@link Builder}
+     * @throws IllegalArgumentException if {@code configuration} is {@code null}
+     */
+    public static Builder builder(PostgresqlConnectionConfiguration configuration) {
+        return new Builder(Assert.requireNonNull(configuration, "configuration must not be null"));
+    }
+
+    /**
+     * Returns the current WAL insert position of the server {@code connection} is connected to. Obtained from the primary after a transaction has been committed, the position serves as token
+     * for {@link #createReadOnly(LogSequenceNumber)} to read the committed data from a standby.
+     *
+     * @param connection the connection to the primary
+     * @return a {@link Mono} emitting the current WAL insert position
+     * @throws IllegalArgumentException if {@code connection} is {@code null}
+     */
+    public static Mono<LogSequenceNumber> getWritePosition(io.r2dbc.postgresql.api.PostgresqlConnection connection) {
+        Assert.requireNonNull(connection, "connection must not be null");
+
+        return queryPosition(connection, WRITE_POSITION);
+    }
+
+    /**
+     * Connect to the primary or, if the subscriber {@link reactor.util.context.Context} contains {@link #READ_ONLY} set to {@code true}, to a standby. A {@link LogSequenceNumber} stored under
+     * {@link #MIN_REPLAY_POSITION} is applied as with {@link #createReadOnly(LogSequenceNumber)}.
+     *
+     * @return a {@link Mono} emitting the connection
+     */
+    @Override
+    public Mono<io.r2dbc.postgresql.api.PostgresqlConnection> create() {
+        return Mono.subscriberContext().flatMap(context -> {
+
+            if (!context.getOrDefault(READ_ONLY, false)) {
+                return this.primary.connect();
+            }
+
+            return context.<LogSequenceNumber>getOrEmpty(MIN_REPLAY_POSITION).map(this::createReadOnly).orElseGet(this::createReadOnly);
+        });
+    }
+
+    /**
+     * Connect to a standby whose replay lag does not exceed the configured maximum. Standbys are used in turn, a standby that cannot be connected to is skipped. Falls back to the primary if no
+     * standby qualifies.
+     *
+     * @return a {@link Mono} emitting the connection
+     */
+    public Mono<io.r2dbc.postgresql.api.PostgresqlConnection> createReadOnly() {
+        return Mono.defer(() -> {
+
+            List<Node> candidates = getEligibleStandbys();
+
+            if (candidates.isEmpty()) {
+                return this.primary.connect();
+            }
+
+            return connectStandby(rotate(candidates)).switchIfEmpty(this.primary.connect());
+        });
+    }
+
+    /**
+     * Connect to a standby as {@link #createReadOnly()} does and wait until the standby has replayed WAL up to {@code position}. Standbys that already reported the position during the last lag
+     * check are preferred. Falls back to the primary if the standby does not reach {@code position} within {@link Builder#replayWaitTimeout(Duration) replayWaitTimeout}.
+     *
+     * @param position the WAL position to read from, typically obtained through {@link #getWritePosition(io.r2dbc.postgresql.api.PostgresqlConnection)}
+     * @return a {@link Mono} emitting the connection
+     * @throws IllegalArgumentException if {@code position} is {@code null}
+     */
+    public Mono<io.r2dbc.postgresql.api.PostgresqlConnection> createReadOnly(LogSequenceNumber position) {
+        Assert.requireNonNull(position, "position must not be null");
+
+        return Mono.defer(() -> {
+
+            List<Node> candidates = getEligibleStandbys();
+
+            if (candidates.isEmpty()) {
+                return this.primary.connect();
+            }
+
+            List<Node> ordered = new ArrayList<>(candidates.size());
+            List<Node> behind = new ArrayList<>(candidates.size());
+            for (Node standby : rotate(candidates)) {
+                LogSequenceNumber replayed = standby.getReplayPosition();
+                (replayed != null && replayed.compareTo(position) >= 0 ? ordered : behind).add(standby);
+            }
+            ordered.addAll(behind);
+
+            return connectStandby(ordered)
+                .flatMap(connection -> awaitReplay(connection, position)
+                    .onErrorResume(e -> {
+                        this.logger.debug("Cannot determine replay position of standby", e);
+                        return Mono.empty();
+                    })
+                    .switchIfEmpty(Mono.defer(() -> {
+                        this.logger.debug("Standby did not replay {} in time, falling back to the primary", position);
+                        return connection.close().onErrorResume(e -> Mono.empty()).then(Mono.empty());
+                    })))
+                .switchIfEmpty(this.primary.connect());
+        });
+    }
+
+    /**
+     * Stop checking the replay lag and close the monitoring connections. Connections created by this factory are not affected.
+     *
+     * @return a {@link Mono} that completes once the monitoring connections are closed
+     */
+    @Override
+    public Mono<Void> close() {
+        return Mono.defer(() -> {
+
+            this.lagCheck.dispose();
+
+            List<Mono<Void>> closing = new ArrayList<>();
+            closing.add(this.primary.close());
+            for (Node standby : this.standbys) {
+                closing.add(standby.close());
+            }
+
+            return Flux.merge(closing).then();
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return PostgresqlConnectionFactoryMetadata.INSTANCE;
+    }
+
+    /**
+     * Returns the replay lag in bytes of each standby as of the last check. {@code -1} indicates an unknown lag, for example if the standby could not be reached.
+     *
+     * @return the replay lag by standby name
+     */
+    public Map<String, Long> getReplayLags() {
+
+        Map<String, Long> lags = new LinkedHashMap<>();
+        for (Node standby : this.standbys) {
+            lags.put(standby.getName(), standby.getLag());
+        }
+
+        return lags;
+    }
+
+    @Override
+    public String toString() {
+        return "PostgresqlRoutingConnectionFactory{" +
+            "primary=" + this.primary +
+            ", standbys=" + this.standbys +
+            ", maxReplayLag=" + this.maxReplayLag +
+            '}';
+    }
+
+    List<Node> getStandbys() {
+        return this.standbys;
+    }
+
+    /**
+     * Emit {@code connection} once its server reports a replay position of at least {@code position}. Completes empty if the position is not reached within {@link #replayWaitTimeout}.
+     */
+    private Mono<io.r2dbc.postgresql.api.PostgresqlConnection> awaitReplay(io.r2dbc.postgresql.api.PostgresqlConnection connection, LogSequenceNumber position) {
+
+        Mono<LogSequenceNumber> replayed = queryPosition(connection, STANDBY_POSITION).filter(it -> it.compareTo(position) >= 0);
+
+        if (!this.replayWaitTimeout.isZero()) {
+            replayed = replayed
+                .repeatWhenEmpty(attempts -> attempts.concatMap(attempt -> Mono.delay(REPLAY_POLL_INTERVAL, this.scheduler)))
+                .timeout(this.replayWaitTimeout, Mono.empty(), this.scheduler);
+        }
+
+        return replayed.map(it -> connection);
+    }
+
+    private Mono<io.r2dbc.postgresql.api.PostgresqlConnection> connectStandby(List<Node> standbys) {
+        return Flux.fromIterable(standbys)
+            .concatMap(standby -> standby.connect().onErrorResume(e -> {
+                this.logger.debug("Cannot connect to standby {}, excluding it until its replay lag is known again", standby.getName(), e);
+                standby.setLag(UNKNOWN_LAG);
+                return Mono.empty();
+            }), 1)
+            .next();
+    }
+
+    private List<Node> rotate(List<Node> candidates) {
+
+        int offset = Math.floorMod(this.next.getAndIncrement(), candidates.size());
+        List<Node> ordered = new ArrayList<>(candidates.size());
+        ordered.addAll(candidates.subList(offset, candidates.size()));
+        ordered.addAll(candidates.subList(0, offset));
+
+        return ordered;
+    }
+
+    private List<Node> getEligibleStandbys() {
+
+        List<Node> eligible = new ArrayList<>(this.standbys.size());
+        for (Node standby : this.standbys) {
+            long lag = standby.getLag();
+            if (lag != UNKNOWN_LAG && lag <= this.maxReplayLag) {
+                eligible.add(standby);
+            }
+        }
+
+        return eligible;
+    }
+
+    /**
+     * Determine the replay lag of all standbys. The primary position is read first so that a lag is never overestimated. If the primary cannot be reached, the previously determined lags are
+     * retained so that read-only work continues on the standbys.
+     */
+    void checkLag() {
+
+        if (!this.checking.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.primary.position()
+            .flatMapMany(primaryPosition -> Flux.fromIterable(this.standbys)
+                .flatMap(standby -> standby.position()
+                    .doOnNext(position -> {
+                        standby.setReplayPosition(position);
+                        standby.setLag(Math.max(0, primaryPosition.asLong() - position.asLong()));
+                    })
+                    .switchIfEmpty(Mono.fromRunnable(() -> standby.setLag(UNKNOWN_LAG)))
+                    .onErrorResume(e -> {
+                        this.logger.debug("Cannot determine replay position of standby {}", standby.getName(), e);
+                        standby.setLag(UNKNOWN_LAG);
+                        return Mono.empty();
+                    })))
+            .doFinally(signal -> this.checking.set(false))
+            .subscribe(null, e -> this.logger.warn("Cannot determine WAL position of the primary", e));
+    }
+
+    /**
+     * Run {@code sql} returning a single {@code pg_lsn} as text. The statement is executed again on each subscription. Completes empty if the query returns {@code NULL}.
+     */
+    static Mono<LogSequenceNumber> queryPosition(io.r2dbc.postgresql.api.PostgresqlConnection connection, String sql) {
+        return Mono.defer(() -> connection.createStatement(sql)
+            .execute()
+            .flatMap(result -> result.map((row, rowMetadata) -> Optional.ofNullable(row.get(0, String.class))))
+            .next()
+            .flatMap(value -> value.map(LogSequenceNumber::valueOf).map(Mono::just).orElse(Mono.empty())));
+    }
+
+    /**
+     * A server to route connections to. The position is the current WAL position for the primary and the replay position for a standby.
+     */
+    static final class Node {
+
+        private final String name;
+
+        private final Supplier<Mono<io.r2dbc.postgresql.api.PostgresqlConnection>> connectionFactory;
+
+        private final Supplier<Mono<LogSequenceNumber>> position;
+
+        private final Mono<Void> close;
+
+        private volatile long lag = UNKNOWN_LAG;
+
+        @Nullable
+        private volatile LogSequenceNumber replayPosition;
+
+        Node(String name, Supplier<Mono<io.r2dbc.postgresql.api.PostgresqlConnection>> connectionFactory, Supplier<Mono<LogSequenceNumber>> position, Mono<Void> close) {
+            this.name = Assert.requireNonNull(name, "name must not be null");
+            this.connectionFactory = Assert.requireNonNull(connectionFactory, "connectionFactory must not be null");
+            this.position = Assert.requireNonNull(position, "position must not be null");
+            this.close = Assert.requireNonNull(close, "close must not be null");
+        }
+
+        static Node create(String name, PostgresqlConnectionFactory connectionFactory, PostgresqlConnectionFactory monitorConnectionFactory, String positionQuery) {
+            Monitor monitor = new Monitor(monitorConnectionFactory, positionQuery);
+            return new Node(name, connectionFactory::create, monitor::position, Mono.defer(monitor::close));
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        long getLag() {
+            return this.lag;
+        }
+
+        void setLag(long lag) {
+            this.lag = lag;
+        }
+
+        /**
+         * Returns the position reported by the last lag check or {@code null} if not yet known.
+         */
+        @Nullable
+        LogSequenceNumber getReplayPosition() {
+            return this.replayPosition;
+        }
+
+        void setReplayPosition(LogSequenceNumber replayPosition) {
+            this.replayPosition = replayPosition;
+        }
+
+        Mono<io.r2dbc.postgresql.api.PostgresqlConnection> connect() {
+            return this.connectionFactory.get();
+        }
+
+        Mono<LogSequenceNumber> position() {
+            return this.position.get();
+        }
+
+        Mono<Void> close() {
+            return this.close;
+        }
+
+        @Override
+        public String toString() {
+            return "Node{" +
+                "name='" + this.name + '\'' +
+                ", lag=" + this.lag +
+                '}';
+        }
+
+    }
+
+    /**
+     * Queries the WAL position of a server through a connection that is kept open between checks and recreated after a failure.
+     */
+    static final class Monitor {
+
+        private final PostgresqlConnectionFactory connectionFactory;
+
+        private final String sql;
+
+        private final AtomicReference<io.r2dbc.postgresql.api.PostgresqlConnection> connection = new AtomicReference<>();
+
+        Monitor(PostgresqlConnectionFactory connectionFactory, String sql) {
+            this.connectionFactory = connectionFactory;
+            this.sql = sql;
+        }
+
+        Mono<LogSequenceNumber> position() {
+            return Mono.defer(() -> {
+
+                io.r2dbc.postgresql.api.PostgresqlConnection current = this.connection.get();
+                Mono<io.r2dbc.postgresql.api.PostgresqlConnection> connection = current != null ? Mono.just(current) : this.connectionFactory.create().doOnNext(this.connection::set);
+
+                return connection.flatMap(it -> queryPosition(it, this.sql).onErrorResume(e -> close().then(Mono.error(e))));
+            });
+        }
+
+        Mono<Void> close() {
+            io.r2dbc.postgresql.api.PostgresqlConnection current = this.connection.getAndSet(null);
+            return current == null ? Mono.empty() : current.close().onErrorResume(e -> Mono.empty());
+        }
+
+    }
+
+    /**
+     * Builder for {@link PostgresqlRoutingConnectionFactory}.
+     */
+    public static final class Builder {
+
+        private final PostgresqlConnectionConfiguration configuration;
+
+        private long maxReplayLag = 16 * 1024 * 1024;
+
+        private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+        private Duration replayWaitTimeout = Duration.ofSeconds(1);
+
+        private Builder(PostgresqlConnectionConfiguration configuration) {
+            this.configuration = configuration;
+        }
+
+        /**
+         * Returns a configured {@link PostgresqlRoutingConnectionFactory}. Primary connections are created with {@link TargetServerType#PRIMARY} across all configured hosts, standby
+         * connections with {@link TargetServerType#STANDBY} to each individual host. The current primary never qualifies as standby as it does not report a replay position. Building the
+         * factory starts checking the replay lag in the background.
+         *
+         * @return a configured {@link PostgresqlRoutingConnectionFactory}
+         * @throws IllegalArgumentException if the configuration does not contain at least two hosts
+         */
+        public PostgresqlRoutingConnectionFactory build() {
+
+            List<InetSocketAddress> hosts = this.configuration.getHosts();
+
+            if (hosts.size() < 2) {
+                throw new IllegalArgumentException("Routing requires a configuration with at least two hosts");
+            }
+
+            PostgresqlConnectionFactory primaryFactory = new PostgresqlConnectionFactory(this.configuration.withHosts(hosts, TargetServerType.PRIMARY));
+            Node primary = Node.create("primary", primaryFactory, primaryFactory, PRIMARY_POSITION);
+
+            List<Node> standbys = new ArrayList<>(hosts.size());
+            for (InetSocketAddress host : hosts) {
+
+                List<InetSocketAddress> standbyHost = Collections.singletonList(host);
+
+                // monitoring connects to any server type so that the current primary reports no replay position instead of failing to connect on every check
+                standbys.add(Node.create(host.getHostString() + ":" + host.getPort(), new PostgresqlConnectionFactory(this.configuration.withHosts(standbyHost, TargetServerType.STANDBY)),
+                    new PostgresqlConnectionFactory(this.configuration.withHosts(standbyHost, TargetServerType.ANY)), STANDBY_POSITION));
+            }
+
+            return new PostgresqlRoutingConnectionFactory(primary, Collections.unmodifiableList(standbys), this.maxReplayLag, this.lagCheckInterval, this.replayWaitTimeout,
+                Schedulers.parallel());
+        }
+
+        /**
+         * Configure the interval in which the replay lag of the standbys is checked. Defaults to 5 seconds.
+         *
+         * @param lagCheckInterval the check interval
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code lagCheckInterval} is {@code null} or not positive
+         */
+        public Builder lagCheckInterval(Duration lagCheckInterval) {
+            Assert.requireNonNull(lagCheckInterval, "lagCheckInterval must not be null");
+
+            if (lagCheckInterval.isZero() || lagCheckInterval.isNegative()) {
+                throw new IllegalArgumentException("lagCheckInterval must be positive");
+            }
+
+            this.lagCheckInterval = lagCheckInterval;
+            return this;
+        }
+
+        /**
+         * Configure the maximum replay lag in bytes of WAL for a standby to receive read-only connections. Defaults to 16 MiB (one WAL segment).
+         *
+         * @param maxReplayLag the maximum replay lag in bytes
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxReplayLag} is negative
+         */
+        public Builder maxReplayLag(long maxReplayLag) {
+
+            if (maxReplayLag < 0) {
+                throw new IllegalArgumentException("maxReplayLag must be greater or equal to zero");
+            }
+
+            this.maxReplayLag = maxReplayLag;
+            return this;
+        }
+
+        /**
+         * Configure how long {@link #createReadOnly(LogSequenceNumber)} waits for a standby to replay the requested position before falling back to the primary. Defaults to 1 second.
+         * {@link Duration#ZERO} checks the standby once without waiting.
+         *
+         * @param replayWaitTimeout the maximum time to wait for replay
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code replayWaitTimeout} is {@code null} or negative
+         */
+        public Builder replayWaitTimeout(Duration replayWaitTimeout) {
+            Assert.requireNonNull(replayWaitTimeout, "replayWaitTimeout must not be null");
+
+            if (replayWaitTimeout.isNegative()) {
+                throw new IllegalArgumentException("replayWaitTimeout must not be negative");
+            }
+
+            this.replayWaitTimeout = replayWaitTimeout;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "configuration=" + this.configuration +
+                ", maxReplayLag=" + this.maxReplayLag +
+                ", lagCheckInterval=" + this.lagCheckInterval +
+                ", replayWaitTimeout=" + this.replayWaitTimeout +
+                '}';
+        }
+
+    }
+
+}
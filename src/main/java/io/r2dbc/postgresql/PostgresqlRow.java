@@ -19,16 +19,26 @@ package io.r2dbc.postgresql;
 import io.netty.buffer.ByteBuf;
 import io.r2dbc.postgresql.api.PostgresqlResult;
 import io.r2dbc.postgresql.api.RefCursor;
+import io.r2dbc.postgresql.codec.StreamedLobs;
 import io.r2dbc.postgresql.message.backend.DataRow;
 import io.r2dbc.postgresql.message.backend.RowDescription;
+import io.r2dbc.postgresql.message.backend.StreamedColumn;
 import io.r2dbc.postgresql.util.Assert;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 import reactor.util.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 
 /**
  * An implementation of {@link Row} for a PostgreSQL database.
@@ -41,12 +51,20 @@ final class PostgresqlRow implements io.r2dbc.postgresql.api.PostgresqlRow {
 
     private final ByteBuf[] data;
 
+    @Nullable
+    private final DataRow dataRow;
+
     private volatile boolean isReleased = false;
 
     PostgresqlRow(ConnectionContext context, List<RowDescription.Field> fields, ByteBuf[] data) {
+        this(context, fields, data, null);
+    }
+
+    private PostgresqlRow(ConnectionContext context, List<RowDescription.Field> fields, ByteBuf[] data, @Nullable DataRow dataRow) {
         this.context = Assert.requireNonNull(context, "context must not be null");
         this.fields = Assert.requireNonNull(fields, "fields must not be null");
         this.data = Assert.requireNonNull(data, "data must not be null");
+        this.dataRow = dataRow;
     }
 
     @Override
@@ -82,6 +100,13 @@ final class PostgresqlRow implements io.r2dbc.postgresql.api.PostgresqlRow {
 
     @Nullable
     private <T> T decode(int index, Class<T> type) {
+
+        StreamedColumn streamedColumn = this.dataRow != null ? this.dataRow.getStreamedColumn(index) : null;
+        if (streamedColumn != null) {
+            RowDescription.Field field = this.fields.get(index);
+            return StreamedLobs.decode(streamedColumn, field.getDataType(), field.getFormat(), type);
+        }
+
         ByteBuf data = this.data[index];
         if (data == null) {
             return null;
@@ -132,7 +157,7 @@ final class PostgresqlRow implements io.r2dbc.postgresql.api.PostgresqlRow {
         Assert.requireNonNull(dataRow, "dataRow must not be null");
         Assert.requireNonNull(rowDescription, "rowDescription must not be null");
 
-        return new PostgresqlRow(context, rowDescription.getFields(), dataRow.getColumns());
+        return new PostgresqlRow(context, rowDescription.getFields(), dataRow.getColumns(), dataRow.hasStreamedColumns() ? dataRow : null);
     }
 
     void release() {
@@ -205,6 +230,21 @@ final class PostgresqlRow implements io.r2dbc.postgresql.api.PostgresqlRow {
             return Mono.fromDirect(this.context.getConnection().createStatement("FETCH ALL IN \"" + getCursorName() + "\"").execute());
         }
 
+        @Override
+        public <T> Flux<T> fetch(int batchSize, BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+            Assert.requireNonNull(mappingFunction, "mappingFunction must not be null");
+
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize must be greater than zero");
+            }
+
+            String sql = String.format("FETCH %d IN \"%s\"", batchSize, getCursorName());
+
+            return Flux.usingWhen(this.context.getConnection().prepare(sql),
+                statement -> Flux.<T>create(sink -> new BatchedFetch<>(sink, statement, batchSize, mappingFunction)),
+                statement -> Mono.whenDelayError(close(), statement.close()));
+        }
+
         @Override
         public Mono<Void> close() {
             return this.context.getConnection().createStatement("CLOSE \"" + getCursorName() + "\"").execute().flatMap(PostgresqlResult::getRowsUpdated).then();
@@ -219,4 +259,64 @@ final class PostgresqlRow implements io.r2dbc.postgresql.api.PostgresqlRow {
         }
     }
 
+    /**
+     * Executes a prepared {@code FETCH} statement repeatedly until a batch returns less than {@code batchSize} rows. The next batch is executed only once the previous batch completed and the
+     * subscriber signals outstanding demand.
+     */
+    static final class BatchedFetch<T> {
+
+        private final FluxSink<T> sink;
+
+        private final io.r2dbc.postgresql.api.PostgresqlPreparedStatement statement;
+
+        private final int batchSize;
+
+        private final BiFunction<Row, RowMetadata, ? extends T> mappingFunction;
+
+        private final Disposable.Swap current = Disposables.swap();
+
+        private final AtomicBoolean active = new AtomicBoolean();
+
+        private volatile boolean exhausted;
+
+        BatchedFetch(FluxSink<T> sink, io.r2dbc.postgresql.api.PostgresqlPreparedStatement statement, int batchSize, BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+            this.sink = sink;
+            this.statement = statement;
+            this.batchSize = batchSize;
+            this.mappingFunction = mappingFunction;
+
+            sink.onDispose(this.current);
+            sink.onRequest(ignore -> fetchIfDemanded());
+        }
+
+        private void fetchIfDemanded() {
+            if (!this.exhausted && this.sink.requestedFromDownstream() > 0 && !this.sink.isCancelled() && this.active.compareAndSet(false, true)) {
+                fetch();
+            }
+        }
+
+        private void fetch() {
+
+            AtomicLong rows = new AtomicLong();
+
+            this.current.update(this.statement.createStatement().execute()
+                .concatMap(result -> result.<T>map(this.mappingFunction))
+                .subscribe(row -> {
+                    rows.incrementAndGet();
+                    this.sink.next(row);
+                }, this.sink::error, () -> {
+
+                    if (rows.get() < this.batchSize) {
+                        this.exhausted = true;
+                        this.sink.complete();
+                        return;
+                    }
+
+                    this.active.set(false);
+                    fetchIfDemanded();
+                }));
+        }
+
+    }
+
 }
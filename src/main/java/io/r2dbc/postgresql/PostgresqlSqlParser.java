@@ -0,0 +1,311 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.util.Assert;
+
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Single-pass tokenizer for PostgreSQL SQL. Understands string constants (including {@code E'…'} escape strings), quoted identifiers, line and (nested) block comments, dollar-quoted strings
+ * and bind parameter markers ({@code $1}, {@code $2}, …).
+ */
+final class PostgresqlSqlParser {
+
+    /**
+     * Highest bind parameter number accepted by the server.
+     */
+    static final int MAX_PARAMETER_NUMBER = 65535;
+
+    private PostgresqlSqlParser() {
+    }
+
+    /**
+     * Analyze {@code sql} and return its {@link ParsedSql} representation.
+     *
+     * @param sql the SQL to analyze
+     * @return the {@link ParsedSql}
+     * @throws IllegalArgumentException if {@code sql} is {@code null} or contains a bind parameter beyond {@link #MAX_PARAMETER_NUMBER}
+     */
+    static ParsedSql parse(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        int length = sql.length();
+        int statementCount = 0;
+        boolean inStatement = false;
+
+        BitSet parameters = new BitSet();
+
+        String command = null;
+        boolean returningClause = false;
+        boolean modifyingCommand = false;
+
+        int i = 0;
+        while (i < length) {
+
+            char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            if (c == '-' && peek(sql, i + 1) == '-') {
+                i = skipLineComment(sql, i + 2);
+                continue;
+            }
+
+            if (c == '/' && peek(sql, i + 1) == '*') {
+                i = skipBlockComment(sql, i + 2);
+                continue;
+            }
+
+            if (c == ';') {
+                if (inStatement) {
+                    statementCount++;
+                    inStatement = false;
+                }
+                i++;
+                continue;
+            }
+
+            inStatement = true;
+
+            if (c == '\'') {
+                i = skipQuoted(sql, i + 1, '\'', false);
+                continue;
+            }
+
+            if (c == '"') {
+                i = skipQuoted(sql, i + 1, '"', false);
+                continue;
+            }
+
+            if (c == '$') {
+
+                if (isDigit(peek(sql, i + 1))) {
+
+                    int end = i + 1;
+                    int index = 0;
+                    while (end < length && isDigit(sql.charAt(end))) {
+                        if (index <= MAX_PARAMETER_NUMBER) {
+                            index = index * 10 + (sql.charAt(end) - '0');
+                        }
+                        end++;
+                    }
+
+                    if (index > MAX_PARAMETER_NUMBER) {
+                        throw new IllegalArgumentException(String.format("Bind parameter %s exceeds the maximum of %d parameters", sql.substring(i, end), MAX_PARAMETER_NUMBER));
+                    }
+
+                    parameters.set(index);
+                    i = end;
+                    continue;
+                }
+
+                int tagEnd = findDollarTagEnd(sql, i);
+                if (tagEnd != -1) {
+                    String tag = sql.substring(i, tagEnd + 1);
+                    int closing = sql.indexOf(tag, tagEnd + 1);
+                    i = closing == -1 ? length : closing + tag.length();
+                    continue;
+                }
+
+                i++;
+                continue;
+            }
+
+            if (isIdentifierStart(c)) {
+
+                int end = i + 1;
+                while (end < length && isIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+
+                if (end - i == 1 && (c == 'E' || c == 'e') && peek(sql, end) == '\'') {
+                    i = skipQuoted(sql, end + 1, '\'', true);
+                    continue;
+                }
+
+                String word = sql.substring(i, end);
+                if (command == null) {
+                    command = word.toUpperCase(Locale.ROOT);
+                }
+
+                if (!returningClause && word.equalsIgnoreCase("RETURNING")) {
+                    returningClause = true;
+                }
+
+                if (!modifyingCommand && (word.equalsIgnoreCase("INSERT") || word.equalsIgnoreCase("UPDATE") || word.equalsIgnoreCase("DELETE"))) {
+                    modifyingCommand = true;
+                }
+
+                i = end;
+                continue;
+            }
+
+            if (isDigit(c)) {
+
+                i++;
+                while (i < length && isIdentifierPart(sql.charAt(i)) && sql.charAt(i) != '$') {
+                    i++;
+                }
+                continue;
+            }
+
+            i++;
+        }
+
+        if (inStatement) {
+            statementCount++;
+        }
+
+        return new ParsedSql(sql, statementCount, parameters.cardinality(), command == null ? "" : command, returningClause, modifyingCommand);
+    }
+
+    /**
+     * Parse a bind parameter identifier such as {@code $1} into its zero-based index.
+     *
+     * @param identifier the identifier
+     * @return the zero-based index or {@code -1} if {@code identifier} is not a valid bind parameter identifier or exceeds {@link #MAX_PARAMETER_NUMBER}
+     */
+    static int parseParameterIndex(String identifier) {
+
+        int length = identifier.length();
+        if (length < 2 || identifier.charAt(0) != '$') {
+            return -1;
+        }
+
+        int index = 0;
+        for (int i = 1; i < length; i++) {
+
+            char c = identifier.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+
+            index = index * 10 + (c - '0');
+            if (index > MAX_PARAMETER_NUMBER) {
+                return -1;
+            }
+        }
+
+        return index - 1;
+    }
+
+    private static char peek(String sql, int index) {
+        return index < sql.length() ? sql.charAt(index) : 0;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static int skipLineComment(String sql, int from) {
+        int end = sql.indexOf('\n', from);
+        return end == -1 ? sql.length() : end + 1;
+    }
+
+    private static int skipBlockComment(String sql, int from) {
+
+        int depth = 1;
+        int i = from;
+        int length = sql.length();
+
+        while (i < length) {
+
+            char c = sql.charAt(i);
+            if (c == '*' && peek(sql, i + 1) == '/') {
+                i += 2;
+                if (--depth == 0) {
+                    return i;
+                }
+                continue;
+            }
+
+            if (c == '/' && peek(sql, i + 1) == '*') {
+                depth++;
+                i += 2;
+                continue;
+            }
+
+            i++;
+        }
+
+        return length;
+    }
+
+    private static int skipQuoted(String sql, int from, char quote, boolean backslashEscapes) {
+
+        int i = from;
+        int length = sql.length();
+
+        while (i < length) {
+
+            char c = sql.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+                continue;
+            }
+
+            if (c == quote) {
+                if (peek(sql, i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+
+            i++;
+        }
+
+        return length;
+    }
+
+    /**
+     * Find the closing {@code $} of a dollar-quote tag ({@code $$} or {@code $tag$}) starting at {@code from}.
+     *
+     * @return the index of the closing {@code $} or {@code -1} if {@code from} does not start a dollar-quote tag
+     */
+    private static int findDollarTagEnd(String sql, int from) {
+
+        int length = sql.length();
+        for (int i = from + 1; i < length; i++) {
+
+            char c = sql.charAt(i);
+            if (c == '$') {
+                return i;
+            }
+
+            if (i == from + 1 ? !isIdentifierStart(c) : !(Character.isLetterOrDigit(c) || c == '_')) {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+}
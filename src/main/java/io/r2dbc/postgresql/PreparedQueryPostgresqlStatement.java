@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+import io.r2dbc.postgresql.api.PostgresqlStatement;
+import io.r2dbc.postgresql.client.Binding;
+import io.r2dbc.postgresql.client.CancelRequestMessageFlow;
+import io.r2dbc.postgresql.client.DrainLimit;
+import io.r2dbc.postgresql.client.ExtendedQueryMessageFlow;
+import io.r2dbc.postgresql.client.ResultBuffer;
+import io.r2dbc.postgresql.client.ResultDrain;
+import io.r2dbc.postgresql.message.backend.BackendMessage;
+import io.r2dbc.postgresql.message.backend.BindComplete;
+import io.r2dbc.postgresql.message.backend.CommandComplete;
+import io.r2dbc.postgresql.message.backend.EmptyQueryResponse;
+import io.r2dbc.postgresql.message.backend.RowDescription;
+import io.r2dbc.postgresql.util.Assert;
+import io.r2dbc.postgresql.util.Operators;
+import reactor.core.publisher.Flux;
+import reactor.util.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static io.r2dbc.postgresql.client.ExtendedQueryMessageFlow.PARAMETER_SYMBOL;
+import static io.r2dbc.postgresql.util.PredicateUtils.not;
+import static io.r2dbc.postgresql.util.PredicateUtils.or;
+
+/**
+ * {@link PostgresqlStatement} executing a {@link PostgresqlPreparedStatement}. Parameters are encoded with the pre-resolved {@link ParameterEncoder} of the prepared statement and bindings are
+ * executed through the unnamed portal.
+ */
+final class PreparedQueryPostgresqlStatement implements PostgresqlStatement {
+
+    private static final long UNBUFFERED = -1;
+
+    private static final Predicate<BackendMessage> RESULT_FRAME_FILTER = not(BindComplete.class::isInstance);
+
+    private static final Predicate<BackendMessage> WINDOW_UNTIL = or(CommandComplete.class::isInstance, EmptyQueryResponse.class::isInstance);
+
+    private final List<Binding> bindings = new ArrayList<>();
+
+    private final ConnectionContext context;
+
+    private final PostgresqlPreparedStatement preparedStatement;
+
+    private final ParameterEncoder parameterEncoder;
+
+    @Nullable
+    private Binding current;
+
+    private Duration timeout;
+
+    private long memoryThreshold = UNBUFFERED;
+
+    PreparedQueryPostgresqlStatement(ConnectionContext context, PostgresqlPreparedStatement preparedStatement) {
+        this.context = Assert.requireNonNull(context, "context must not be null");
+        this.preparedStatement = Assert.requireNonNull(preparedStatement, "preparedStatement must not be null");
+        this.parameterEncoder = preparedStatement.getParameterEncoder();
+        this.timeout = context.getStatementTimeout();
+    }
+
+    @Override
+    public PreparedQueryPostgresqlStatement add() {
+        finish();
+        return this;
+    }
+
+    @Override
+    public PreparedQueryPostgresqlStatement bind(String identifier, Object value) {
+        Assert.requireNonNull(identifier, "identifier must not be null");
+        Assert.requireType(identifier, String.class, "identifier must be a String");
+
+        return bind(getIndex(identifier), value);
+    }
+
+    @Override
+    public PreparedQueryPostgresqlStatement bind(int index, Object value) {
+        Assert.requireNonNull(value, "value must not be null");
+
+        return bindValue(index, value);
+    }
+
+    @Override
+    public PreparedQueryPostgresqlStatement bindNull(String identifier, Class<?> type) {
+        Assert.requireNonNull(identifier, "identifier must not be null");
+        Assert.requireType(identifier, String.class, "identifier must be a String");
+        Assert.requireNonNull(type, "type must not be null");
+
+        return bindNull(getIndex(identifier), type);
+    }
+
+    @Override
+    public PreparedQueryPostgresqlStatement bindNull(int index, Class<?> type) {
+        Assert.requireNonNull(type, "type must not be null");
+
+        return bindValue(index, null);
+    }
+
+    @Override
+    public PreparedQueryPostgresqlStatement bufferResult(long memoryThreshold) {
+        if (memoryThreshold < 0) {
+            throw new IllegalArgumentException("memoryThreshold must be greater or equal to zero");
+        }
+
+        this.memoryThreshold = memoryThreshold;
+        return this;
+    }
+
+    @Override
+    public Flux<io.r2dbc.postgresql.api.PostgresqlResult> execute() {
+        finish();
+
+        if (this.bindings.isEmpty()) {
+            if (this.parameterEncoder.getParameterCount() != 0) {
+                throw new IllegalStateException("No parameters have been bound");
+            }
+
+            this.bindings.add(new Binding(0));
+        }
+
+        String sql = this.preparedStatement.getSql();
+        RowDescription rowDescription = this.preparedStatement.getRowDescription();
+        Flux<BackendMessage> responses = ExtendedQueryMessageFlow
+            .executePrepared(Flux.fromIterable(this.bindings), this.context.getClient(), this.preparedStatement.getName(), sql, this.preparedStatement.isForceBinary());
+
+        return Flux.defer(() -> {
+
+            // a buffered result is received completely so there is nothing to cancel on the server; cancelling a write or a statement list would lose work
+            boolean buffered = this.memoryThreshold != UNBUFFERED;
+            boolean cancellable = !buffered && this.preparedStatement.getParsedSql().isSingleReadOnlyStatement();
+            ResultDrain drain = ResultDrain.create(this.context.getClient(), cancellable ? this.context.getDrainLimit() : DrainLimit.UNLIMITED);
+
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ExceptionFactory factory = ExceptionFactory.withTimeout(sql, timedOut::get);
+
+            Flux<BackendMessage> received = CancelRequestMessageFlow.timeout(this.context.getClient(), responses, this.timeout, () -> timedOut.set(true))
+                .transform(drain::messages);
+
+            if (buffered) {
+                received = ResultBuffer.buffer(received, this.context.getClient().getByteBufAllocator(), this.memoryThreshold);
+            }
+
+            return received
+                .filter(RESULT_FRAME_FILTER)
+                .windowUntil(WINDOW_UNTIL)
+                .map(messages -> PostgresqlResult.toResult(this.context, drain.result(rowDescription == null ? messages : messages.startWith(rowDescription)), factory))
+                .cast(io.r2dbc.postgresql.api.PostgresqlResult.class)
+                .as(results -> Operators.discardOnCancel(results, drain::cancel));
+        }).doOnDiscard(ReferenceCounted.class, ReferenceCountUtil::release);
+    }
+
+    /**
+     * Prepared statements cannot be augmented with a {@code RETURNING} clause as the SQL is already parsed on the server.
+     *
+     * @throws IllegalStateException always
+     */
+    @Override
+    public PreparedQueryPostgresqlStatement returnGeneratedValues(String... columns) {
+        Assert.requireNonNull(columns, "columns must not be null");
+
+        throw new IllegalStateException("Cannot return generated values from a prepared statement. Include a RETURNING clause when preparing the statement");
+    }
+
+    @Override
+    public PreparedQueryPostgresqlStatement timeout(Duration timeout) {
+        Assert.requireNonNull(timeout, "timeout must not be null");
+
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+
+        this.timeout = timeout;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedQueryPostgresqlStatement{" +
+            "bindings=" + this.bindings +
+            ", context=" + this.context +
+            ", preparedStatement=" + this.preparedStatement +
+            ", timeout=" + this.timeout +
+            ", memoryThreshold=" + this.memoryThreshold +
+            '}';
+    }
+
+    PreparedQueryPostgresqlStatement bindValue(int index, @Nullable Object value) {
+        getCurrent().add(index, this.parameterEncoder.encode(index, value));
+        return this;
+    }
+
+    @Nullable
+    Binding getCurrentBinding() {
+        return this.current;
+    }
+
+    private void finish() {
+        if (this.current != null) {
+            this.current.validate();
+        }
+
+        this.current = null;
+    }
+
+    private Binding getCurrent() {
+        if (this.current == null) {
+            this.current = new Binding(this.parameterEncoder.getParameterCount());
+            this.bindings.add(this.current);
+        }
+
+        return this.current;
+    }
+
+    private static int getIndex(String identifier) {
+        int index = PostgresqlSqlParser.parseParameterIndex(identifier);
+
+        if (index < 0) {
+            throw new IllegalArgumentException(String.format("Identifier '%s' is not a valid identifier. Should be of the pattern '%s'.", identifier, PARAMETER_SYMBOL.pattern()));
+        }
+
+        return index;
+    }
+
+}
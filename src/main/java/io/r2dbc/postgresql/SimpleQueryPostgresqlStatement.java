@@ -19,6 +19,10 @@ package io.r2dbc.postgresql;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ReferenceCounted;
 import io.r2dbc.postgresql.api.PostgresqlStatement;
+import io.r2dbc.postgresql.client.CancelRequestMessageFlow;
+import io.r2dbc.postgresql.client.DrainLimit;
+import io.r2dbc.postgresql.client.ResultBuffer;
+import io.r2dbc.postgresql.client.ResultDrain;
 import io.r2dbc.postgresql.client.SimpleQueryMessageFlow;
 import io.r2dbc.postgresql.message.backend.BackendMessage;
 import io.r2dbc.postgresql.message.backend.CommandComplete;
@@ -30,23 +34,39 @@ import io.r2dbc.postgresql.util.Operators;
 import reactor.core.publisher.Flux;
 import reactor.util.annotation.Nullable;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 
 import static io.r2dbc.postgresql.util.PredicateUtils.or;
 
 final class SimpleQueryPostgresqlStatement implements PostgresqlStatement {
 
+    private static final long UNBUFFERED = -1;
+
     private static final Predicate<BackendMessage> WINDOW_UNTIL = or(CommandComplete.class::isInstance, EmptyQueryResponse.class::isInstance, ErrorResponse.class::isInstance);
 
     private final ConnectionContext context;
 
+    private final ParsedSql parsedSql;
+
     private final String sql;
 
     private String[] generatedColumns;
 
+    private Duration timeout;
+
+    private long memoryThreshold = UNBUFFERED;
+
     SimpleQueryPostgresqlStatement(ConnectionContext context, String sql) {
+        this(context, PostgresqlSqlParser.parse(sql));
+    }
+
+    SimpleQueryPostgresqlStatement(ConnectionContext context, ParsedSql parsedSql) {
         this.context = Assert.requireNonNull(context, "context must not be null");
-        this.sql = Assert.requireNonNull(sql, "sql must not be null");
+        this.parsedSql = Assert.requireNonNull(parsedSql, "parsedSql must not be null");
+        this.sql = parsedSql.getSql();
+        this.timeout = context.getStatementTimeout();
     }
 
     @Override
@@ -74,6 +94,16 @@ final class SimpleQueryPostgresqlStatement implements PostgresqlStatement {
         throw new UnsupportedOperationException(String.format("Binding parameters is not supported for the statement '%s'", this.sql));
     }
 
+    @Override
+    public SimpleQueryPostgresqlStatement bufferResult(long memoryThreshold) {
+        if (memoryThreshold < 0) {
+            throw new IllegalArgumentException("memoryThreshold must be greater or equal to zero");
+        }
+
+        this.memoryThreshold = memoryThreshold;
+        return this;
+    }
+
     @Override
     public Flux<io.r2dbc.postgresql.api.PostgresqlResult> execute() {
         if (this.generatedColumns == null) {
@@ -92,11 +122,11 @@ final class SimpleQueryPostgresqlStatement implements PostgresqlStatement {
     public SimpleQueryPostgresqlStatement returnGeneratedValues(String... columns) {
         Assert.requireNonNull(columns, "columns must not be null");
 
-        if (GeneratedValuesUtils.hasReturningClause(this.sql)) {
+        if (this.parsedSql.hasReturningClause()) {
             throw new IllegalStateException("Statement already includes RETURNING clause");
         }
 
-        if (!GeneratedValuesUtils.isSupportedCommand(this.sql)) {
+        if (!this.parsedSql.isModifyingCommand()) {
             throw new IllegalStateException("Statement is not a DELETE, INSERT, or UPDATE command");
         }
 
@@ -104,29 +134,66 @@ final class SimpleQueryPostgresqlStatement implements PostgresqlStatement {
         return this;
     }
 
+    @Override
+    public SimpleQueryPostgresqlStatement timeout(Duration timeout) {
+        Assert.requireNonNull(timeout, "timeout must not be null");
+
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+
+        this.timeout = timeout;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "SimpleQueryPostgresqlStatement{" +
             "context=" + this.context +
             ", sql='" + this.sql + '\'' +
+            ", timeout=" + this.timeout +
+            ", memoryThreshold=" + this.memoryThreshold +
             '}';
     }
 
     static boolean supports(String sql) {
         Assert.requireNonNull(sql, "sql must not be null");
 
-        return sql.trim().isEmpty() || !sql.contains("$1");
+        return supports(PostgresqlSqlParser.parse(sql));
+    }
+
+    static boolean supports(ParsedSql parsedSql) {
+        Assert.requireNonNull(parsedSql, "parsedSql must not be null");
+
+        return parsedSql.getParameterCount() == 0;
     }
 
     private Flux<io.r2dbc.postgresql.api.PostgresqlResult> execute(String sql) {
-        ExceptionFactory factory = ExceptionFactory.withSql(sql);
-        return SimpleQueryMessageFlow
-            .exchange(this.context.getClient(), sql)
-            .windowUntil(WINDOW_UNTIL)
-            .map(dataRow -> PostgresqlResult.toResult(this.context, dataRow, factory))
-            .cast(io.r2dbc.postgresql.api.PostgresqlResult.class)
-            .as(Operators::discardOnCancel)
-            .doOnDiscard(ReferenceCounted.class, ReferenceCountUtil::release);
+
+        return Flux.defer(() -> {
+
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ExceptionFactory factory = ExceptionFactory.withTimeout(sql, timedOut::get);
+
+            // a buffered result is received completely so there is nothing to cancel on the server; cancelling a write or a statement list would lose work
+            boolean buffered = this.memoryThreshold != UNBUFFERED;
+            boolean cancellable = !buffered && this.parsedSql.isSingleReadOnlyStatement();
+            ResultDrain drain = ResultDrain.create(this.context.getClient(), cancellable ? this.context.getDrainLimit() : DrainLimit.UNLIMITED);
+
+            Flux<BackendMessage> responses = CancelRequestMessageFlow
+                .timeout(this.context.getClient(), SimpleQueryMessageFlow.exchange(this.context.getClient(), sql), this.timeout, () -> timedOut.set(true))
+                .transform(drain::messages);
+
+            if (buffered) {
+                responses = ResultBuffer.buffer(responses, this.context.getClient().getByteBufAllocator(), this.memoryThreshold);
+            }
+
+            return responses
+                .windowUntil(WINDOW_UNTIL)
+                .map(dataRow -> PostgresqlResult.toResult(this.context, drain.result(dataRow), factory))
+                .cast(io.r2dbc.postgresql.api.PostgresqlResult.class)
+                .as(results -> Operators.discardOnCancel(results, drain::cancel));
+        }).doOnDiscard(ReferenceCounted.class, ReferenceCountUtil::release);
     }
 
 }
@@ -16,15 +16,115 @@
 
 package io.r2dbc.postgresql;
 
+import io.netty.buffer.ByteBuf;
 import io.r2dbc.postgresql.client.Binding;
 import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.ExtendedQueryMessageFlow;
+import io.r2dbc.postgresql.client.Parameter;
+import io.r2dbc.postgresql.message.frontend.Parse;
+import io.r2dbc.spi.R2dbcException;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.List;
+
 interface StatementCache {
 
-    Mono<String> getName(Binding binding, String sql);
+    /**
+     * SQLSTATE reported when the server cannot determine the type of a parameter.
+     */
+    String INDETERMINATE_DATATYPE = "42P18";
+
+    /**
+     * Return the {@link StatementDescription} of the prepared statement for {@code sql}, preparing and describing the statement if it is not cached yet. Statements are cached by their SQL only and
+     * are prepared with the parameter types of {@code binding}, see {@link #prepare(Client, String, String, Binding, List)}. Later bindings are expected to be aligned with the described parameter
+     * types.
+     *
+     * @param binding the binding providing the parameter types
+     * @param sql     the SQL to prepare
+     * @return the {@link StatementDescription} of the prepared statement
+     * @throws IllegalArgumentException if {@code binding} or {@code sql} is {@code null}
+     */
+    Mono<StatementDescription> getStatement(Binding binding, String sql);
+
+    /**
+     * Remove the statement for {@code sql} from the cache and close it on the server. A subsequent {@link #getStatement(Binding, String)} call prepares the statement again.
+     *
+     * @param sql the SQL of the statement to evict
+     * @return a {@link Mono} that completes once the statement is closed or scheduled to be closed along with the next statement that gets prepared
+     * @throws IllegalArgumentException if {@code sql} is {@code null}
+     */
+    Mono<Void> evict(String sql);
+
+    /**
+     * Return whether a prepared statement for {@code sql} is cached. Querying the cache does not affect its eviction order.
+     *
+     * @param sql the SQL to look up
+     * @return {@code true} if a prepared statement for {@code sql} is cached
+     * @throws IllegalArgumentException if {@code sql} is {@code null}
+     */
+    boolean contains(String sql);
+
+    /**
+     * Prepare and describe {@code sql} as statement {@code name}. Parameters bound to a value are declared with the type of their codec so that the statement keeps the meaning of the bound
+     * values, e.g. {@code SELECT $1} bound to an {@link Integer} returns an {@code int4}. The types of parameters bound to {@code null} are left unspecified so that the server infers them from
+     * the statement. If the server cannot determine the type of such a parameter, the statement is prepared again with all parameter types of {@code binding}.
+     *
+     * @param client          the client to prepare the statement with
+     * @param name            the statement name
+     * @param sql             the SQL to prepare
+     * @param binding         the binding providing the parameter types
+     * @param closeStatements names of statements to close along with the first attempt
+     * @return the {@link StatementDescription} of the prepared statement
+     */
+    static Mono<StatementDescription> prepare(Client client, String name, String sql, Binding binding, List<String> closeStatements) {
+        ExceptionFactory factory = ExceptionFactory.withSql(name);
+
+        List<Integer> types = binding.getParameterTypes();
+        List<Integer> declaredTypes = getDeclaredTypes(types, binding.getParameterValues());
+
+        return ExtendedQueryMessageFlow
+            .prepare(client, name, sql, declaredTypes, closeStatements)
+            .handle(factory::handleErrorResponse)
+            .collectList()
+            .onErrorResume(e -> !declaredTypes.equals(types) && e instanceof R2dbcException && INDETERMINATE_DATATYPE.equals(((R2dbcException) e).getSqlState()), e -> ExtendedQueryMessageFlow
+                .prepare(client, name, sql, types)
+                .handle(factory::handleErrorResponse)
+                .collectList())
+            .map(messages -> StatementDescription.of(name, messages));
+    }
+
+    /**
+     * Returns {@code types} with the types of {@code null} values replaced by {@link Parse#UNSPECIFIED}.
+     */
+    static List<Integer> getDeclaredTypes(List<Integer> types, List<Publisher<? extends ByteBuf>> values) {
+
+        List<Integer> declaredTypes = new ArrayList<>(types.size());
+        for (int i = 0; i < types.size(); i++) {
+            declaredTypes.add(values.get(i) == Parameter.NULL_VALUE ? Parse.UNSPECIFIED : types.get(i));
+        }
+
+        return declaredTypes;
+    }
 
     static StatementCache fromPreparedStatementCacheQueries(Client client, int preparedStatementCacheQueries) {
+        return fromPreparedStatementCacheQueries(client, preparedStatementCacheQueries, 0);
+    }
+
+    /**
+     * Create a {@link StatementCache} for the given limits.
+     *
+     * @param client                        the client to prepare statements with
+     * @param preparedStatementCacheQueries the maximum number of cached statements, {@code -1} for no limit or {@code 0} to disable the cache
+     * @param preparedStatementCacheSizeMiB the maximum estimated server-side size of cached statements in MiB or {@code 0} to not limit the cache by size
+     * @return the {@link StatementCache}
+     */
+    static StatementCache fromPreparedStatementCacheQueries(Client client, int preparedStatementCacheQueries, int preparedStatementCacheSizeMiB) {
+        if (preparedStatementCacheQueries != 0 && preparedStatementCacheSizeMiB > 0) {
+            return new MemoryBoundedStatementCache(client, preparedStatementCacheQueries < 0 ? Integer.MAX_VALUE : preparedStatementCacheQueries,
+                preparedStatementCacheSizeMiB * 1024L * 1024L);
+        }
         if (preparedStatementCacheQueries < 0) {
             return new IndefiniteStatementCache(client);
         }
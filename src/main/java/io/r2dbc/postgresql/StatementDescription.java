@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.message.backend.BackendMessage;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
+import io.r2dbc.postgresql.util.Assert;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Name and server-described parameter types of a prepared statement held by a {@link StatementCache}.
+ */
+final class StatementDescription {
+
+    private final String name;
+
+    private final List<Integer> parameterTypes;
+
+    StatementDescription(String name, List<Integer> parameterTypes) {
+        this.name = Assert.requireNonNull(name, "name must not be null");
+        this.parameterTypes = Assert.requireNonNull(parameterTypes, "parameterTypes must not be null");
+    }
+
+    /**
+     * Returns the statement name.
+     *
+     * @return the statement name
+     */
+    String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the parameter type OIDs as described by the server.
+     *
+     * @return the parameter type OIDs
+     */
+    List<Integer> getParameterTypes() {
+        return this.parameterTypes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        StatementDescription that = (StatementDescription) o;
+        return this.name.equals(that.name) &&
+            this.parameterTypes.equals(that.parameterTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.name, this.parameterTypes);
+    }
+
+    @Override
+    public String toString() {
+        return "StatementDescription{" +
+            "name='" + this.name + '\'' +
+            ", parameterTypes=" + this.parameterTypes +
+            '}';
+    }
+
+    /**
+     * Create a {@link StatementDescription} from the messages received in response to preparing statement {@code name}.
+     *
+     * @param name     the statement name
+     * @param messages the received messages
+     * @return the {@link StatementDescription}
+     */
+    static StatementDescription of(String name, List<BackendMessage> messages) {
+
+        for (BackendMessage message : messages) {
+            if (message instanceof ParameterDescription) {
+                return new StatementDescription(name, ((ParameterDescription) message).getParameters());
+            }
+        }
+
+        return new StatementDescription(name, Collections.emptyList());
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.util.Assert;
+
+/**
+ * The type of server to connect to when a connection is configured with multiple hosts. The server type is determined after connecting from the {@code in_hot_standby} and
+ * {@code default_transaction_read_only} run-time parameters or, for servers that do not report these, by querying {@code transaction_read_only}.
+ */
+public enum TargetServerType {
+
+    /**
+     * Connect to any server.
+     */
+    ANY("any"),
+
+    /**
+     * Connect to a primary server that accepts writes.
+     */
+    PRIMARY("primary"),
+
+    /**
+     * Connect to a read-only standby server.
+     */
+    STANDBY("standby"),
+
+    /**
+     * Connect to a standby server if one is available and to a primary server otherwise.
+     */
+    PREFER_STANDBY("preferStandby");
+
+    private final String value;
+
+    TargetServerType(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the {@link TargetServerType} for a configuration value. Both the configuration value (e.g. {@code preferStandby}) and the enum name (e.g. {@code PREFER_STANDBY}) are
+     * accepted, ignoring case.
+     *
+     * @param value the configuration value
+     * @return the matching {@link TargetServerType}
+     * @throws IllegalArgumentException if {@code value} is {@code null} or does not denote a {@link TargetServerType}
+     */
+    public static TargetServerType fromValue(String value) {
+        Assert.requireNonNull(value, "value must not be null");
+
+        for (TargetServerType type : values()) {
+            if (type.value.equalsIgnoreCase(value) || type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Invalid target server type '%s'", value));
+    }
+
+    /**
+     * Returns the configuration value of this {@link TargetServerType}.
+     *
+     * @return the configuration value
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Returns whether a server matches this {@link TargetServerType}. {@link #PREFER_STANDBY} matches standby servers only, primary servers are accepted as fallback.
+     *
+     * @param standby whether the server is a read-only standby
+     * @return {@code true} if the server matches
+     */
+    boolean matches(boolean standby) {
+        switch (this) {
+            case PRIMARY:
+                return !standby;
+            case STANDBY:
+            case PREFER_STANDBY:
+                return standby;
+            default:
+                return true;
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.api;
+
+import io.netty.buffer.ByteBuf;
+import io.r2dbc.spi.Closeable;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * An opened large object. A large object is read and written at its current position which is advanced by each read and write. Large objects are stateful resources that are bound to the
+ * transaction in which they were opened and should be {@link #close() closed} when no longer required.
+ */
+public interface LargeObject extends Closeable {
+
+    /**
+     * Returns the OID of the large object.
+     *
+     * @return the OID of the large object
+     */
+    long getOid();
+
+    /**
+     * Read the large object from its current position until its end. Each chunk is read with a separate call once it is requested.
+     *
+     * @param chunkSize the maximum number of bytes per chunk
+     * @return a {@link Flux} of chunks
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive
+     */
+    Flux<ByteBuf> read(int chunkSize);
+
+    /**
+     * Write {@code data} at the current position. Each buffer is written with a separate call and released afterwards.
+     *
+     * @param data the data to write
+     * @return a {@link Mono} emitting the number of bytes written
+     * @throws IllegalArgumentException if {@code data} is {@code null}
+     */
+    Mono<Long> write(Publisher<ByteBuf> data);
+
+    /**
+     * Change the current position of the large object.
+     *
+     * @param offset the offset
+     * @param whence the reference point for {@code offset}
+     * @return a {@link Mono} emitting the new position
+     * @throws IllegalArgumentException if {@code whence} is {@code null}
+     */
+    Mono<Long> seek(long offset, Whence whence);
+
+    /**
+     * Returns the current position of the large object.
+     *
+     * @return a {@link Mono} emitting the current position
+     */
+    Mono<Long> tell();
+
+    /**
+     * Close the large object descriptor.
+     *
+     * @return a {@link Mono} that indicates that the large object has been closed
+     */
+    @Override
+    Mono<Void> close();
+
+    /**
+     * Reference point of a {@link #seek(long, Whence) seek} operation.
+     */
+    enum Whence {
+
+        /**
+         * Seek from the start of the large object.
+         */
+        SET,
+
+        /**
+         * Seek from the current position.
+         */
+        CURRENT,
+
+        /**
+         * Seek from the end of the large object.
+         */
+        END
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.api;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Manager for large objects stored in {@code pg_largeobject}. Large object functions are called through the fast-path function call protocol. Large object descriptors are only valid within a
+ * transaction so large objects must be {@link #open(long) opened} and used within the same transaction.
+ */
+public interface LargeObjectManager {
+
+    /**
+     * Create a new, empty large object.
+     *
+     * @return a {@link Mono} emitting the OID of the created large object
+     */
+    Mono<Long> create();
+
+    /**
+     * Open the large object identified by {@code oid} for reading and writing.
+     *
+     * @param oid the OID of the large object
+     * @return a {@link Mono} emitting the opened {@link LargeObject}
+     */
+    Mono<LargeObject> open(long oid);
+
+    /**
+     * Open the large object identified by {@code oid} using {@code mode}.
+     *
+     * @param oid  the OID of the large object
+     * @param mode the access mode
+     * @return a {@link Mono} emitting the opened {@link LargeObject}
+     * @throws IllegalArgumentException if {@code mode} is {@code null}
+     */
+    Mono<LargeObject> open(long oid, Mode mode);
+
+    /**
+     * Remove the large object identified by {@code oid}.
+     *
+     * @param oid the OID of the large object
+     * @return a {@link Mono} that indicates that the large object has been removed
+     */
+    Mono<Void> unlink(long oid);
+
+    /**
+     * Access mode of an opened {@link LargeObject}.
+     */
+    enum Mode {
+
+        READ(0x00040000),
+
+        WRITE(0x00020000),
+
+        READ_WRITE(0x00040000 | 0x00020000);
+
+        private final int flags;
+
+        Mode(int flags) {
+            this.flags = flags;
+        }
+
+        /**
+         * Returns the mode flags as used by {@code lo_open}.
+         *
+         * @return the mode flags
+         */
+        public int getFlags() {
+            return this.flags;
+        }
+    }
+
+}
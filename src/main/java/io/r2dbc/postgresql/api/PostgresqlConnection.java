@@ -24,6 +24,8 @@ import org.reactivestreams.Subscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+
 /**
  * A {@link Connection} for connecting to a PostgreSQL database.
  */
@@ -74,12 +76,26 @@ public interface PostgresqlConnection extends Connection {
      */
     Flux<Notification> getNotifications();
 
+    /**
+     * Returns the {@link LargeObjectManager} to create, read, write and remove large objects. Large objects must be accessed within a transaction.
+     *
+     * @return the {@link LargeObjectManager} for this connection
+     */
+    LargeObjectManager getLargeObjectManager();
+
     /**
      * {@inheritDoc}
      */
     @Override
     PostgresqlConnectionMetadata getMetadata();
 
+    /**
+     * Returns the timeout that is applied to statements created by this connection. {@link Duration#ZERO} indicates no timeout.
+     *
+     * @return the statement timeout
+     */
+    Duration getStatementTimeout();
+
     /**
      * {@inheritDoc}
      */
@@ -92,6 +108,16 @@ public interface PostgresqlConnection extends Connection {
     @Override
     boolean isAutoCommit();
 
+    /**
+     * Prepare a single SQL statement on the server and return a {@link PostgresqlPreparedStatement} handle for repeated execution. The statement is bound to this connection and can be executed
+     * without the per-execution overhead of {@link #createStatement(String)}.
+     *
+     * @param sql the SQL of the statement to prepare
+     * @return a {@link Mono} emitting the {@link PostgresqlPreparedStatement} once the statement has been prepared
+     * @throws IllegalArgumentException if {@code sql} is {@code null} or does not contain exactly one statement
+     */
+    Mono<PostgresqlPreparedStatement> prepare(String sql);
+
     /**
      * {@inheritDoc}
      */
@@ -116,6 +142,16 @@ public interface PostgresqlConnection extends Connection {
     @Override
     Mono<Void> setAutoCommit(boolean autoCommit);
 
+    /**
+     * Configure the timeout that is applied to statements created by this connection. Statements that do not complete within {@code timeout} are cancelled on the server and fail with a
+     * {@link io.r2dbc.spi.R2dbcTimeoutException}. {@link Duration#ZERO} disables the timeout. The timeout can be overridden per statement through {@link PostgresqlStatement#timeout(Duration)}.
+     *
+     * @param timeout the statement timeout
+     * @return a {@link Mono} that indicates that the timeout has been applied
+     * @throws IllegalArgumentException if {@code timeout} is {@code null} or negative
+     */
+    Mono<Void> setStatementTimeout(Duration timeout);
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.api;
+
+/**
+ * Driver metrics aggregated across all connections that were created by a {@code PostgresqlConnectionFactory}.
+ */
+public interface PostgresqlMetrics {
+
+    /**
+     * Returns the number of cached prepared statements that were transparently re-prepared because the server reported their cached plan as stale (for example after a schema change altered the
+     * result type of the statement).
+     *
+     * @return the number of re-prepared statements
+     */
+    long getStatementReprepareCount();
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.api;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * A server-side prepared statement pinned to the {@link PostgresqlConnection} that {@link PostgresqlConnection#prepare(String) prepared} it. The statement is parsed and described once; executing it
+ * only sends bind and execute messages without analyzing the SQL, consulting the statement cache, or discovering the parameter and row descriptions again.
+ * <p>A prepared statement remains valid until it gets {@link #close() closed} or its connection is closed.
+ */
+public interface PostgresqlPreparedStatement {
+
+    /**
+     * Create a new {@link PostgresqlStatement} for this prepared statement with the given values bound to the parameters {@code $1}, {@code $2}, etc. in the order of {@code values}. {@code null}
+     * values are bound as {@code NULL} using the parameter type described by the server.
+     *
+     * @param values the values to bind
+     * @return a new {@link PostgresqlStatement} with the {@code values} bound
+     * @throws IllegalArgumentException if {@code values} is {@code null} or the number of {@code values} does not match the number of parameters
+     */
+    PostgresqlStatement bind(Object... values);
+
+    /**
+     * Close this prepared statement and release the server-side resources.
+     *
+     * @return a {@link Mono} that indicates that the statement has been closed
+     */
+    Mono<Void> close();
+
+    /**
+     * Create a new {@link PostgresqlStatement} for this prepared statement. Parameters are bound through the {@link PostgresqlStatement} methods.
+     *
+     * @return a new {@link PostgresqlStatement}
+     */
+    PostgresqlStatement createStatement();
+
+    /**
+     * Returns the parameter type OIDs as described by the server.
+     *
+     * @return the parameter type OIDs
+     */
+    List<Integer> getParameterTypes();
+
+    /**
+     * Returns the prepared SQL.
+     *
+     * @return the prepared SQL
+     */
+    String getSql();
+
+}
@@ -21,6 +21,7 @@ import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.util.function.BiFunction;
 
@@ -40,4 +41,17 @@ public interface PostgresqlResult extends Result {
      */
     @Override
     <T> Flux<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction);
+
+    /**
+     * Returns a mapping of the rows that are the results of a query against a database. Rows are decoded and mapped in micro-batches on {@code scheduler} instead of the I/O thread that receives
+     * them. Batches are mapped in parallel while the emitted values retain the order of the rows. Use this method for expensive mapping functions that would otherwise stall the I/O thread.
+     *
+     * @param mappingFunction the {@link BiFunction} that maps a {@link Row} and {@link RowMetadata} to a value
+     * @param scheduler       the {@link Scheduler} to decode and map rows on
+     * @param <T>             the type of the mapped value
+     * @return a mapping of the rows that are the results of a query against a database
+     * @throws IllegalArgumentException if {@code mappingFunction} or {@code scheduler} is {@code null}
+     */
+    <T> Flux<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction, Scheduler scheduler);
+
 }
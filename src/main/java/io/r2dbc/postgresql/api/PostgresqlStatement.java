@@ -19,6 +19,8 @@ package io.r2dbc.postgresql.api;
 import io.r2dbc.spi.Statement;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
+
 /**
  * A strongly typed implementation of {@link Statement} for a PostgreSQL database.
  */
@@ -58,6 +60,17 @@ public interface PostgresqlStatement extends Statement {
     @Override
     PostgresqlStatement bindNull(int index, Class<?> type);
 
+    /**
+     * Buffer the result of this statement. The complete result is received from the server as fast as the network allows, independent of the pace of the result subscriber, so that the
+     * connection becomes available for subsequent statements once the server response is complete. Rows exceeding {@code memoryThreshold} bytes are spilled to a temporary file and read back
+     * as requested by the subscriber. Results are not buffered by default.
+     *
+     * @param memoryThreshold the number of row bytes to keep in memory before spilling rows to disk
+     * @return this {@link Statement}
+     * @throws IllegalArgumentException if {@code memoryThreshold} is negative
+     */
+    PostgresqlStatement bufferResult(long memoryThreshold);
+
     /**
      * {@inheritDoc}
      */
@@ -80,4 +93,14 @@ public interface PostgresqlStatement extends Statement {
     @Override
     PostgresqlStatement returnGeneratedValues(String... columns);
 
+    /**
+     * Configure a timeout for the execution of this statement. If the execution does not complete within {@code timeout}, the driver sends a cancel request to the server and the result fails
+     * with a {@link io.r2dbc.spi.R2dbcTimeoutException}. {@link Duration#ZERO} disables the timeout. Defaults to the {@link PostgresqlConnection#getStatementTimeout() connection statement timeout}.
+     *
+     * @param timeout the statement timeout
+     * @return this {@link Statement}
+     * @throws IllegalArgumentException if {@code timeout} is {@code null} or negative
+     */
+    PostgresqlStatement timeout(Duration timeout);
+
 }
@@ -17,8 +17,13 @@
 package io.r2dbc.postgresql.api;
 
 import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.function.BiFunction;
+
 /**
  * A ref cursor value object. Cursor objects can be attached to a {@link PostgresqlConnection} which allows interaction with the cursor object by {@link #fetch() fetching the cursor} and
  * {@link #close() closing} it.
@@ -42,6 +47,18 @@ public interface RefCursor extends Closeable {
      */
     Mono<PostgresqlResult> fetch();
 
+    /**
+     * Fetch the contents of the cursor in batches of {@code batchSize} rows using a prepared {@code FETCH} statement. The next batch is fetched once the previous batch was consumed and
+     * more rows are requested. The cursor is {@link #close() closed} when the returned {@link Flux} completes, fails or gets cancelled.
+     *
+     * @param batchSize       the number of rows to fetch per batch
+     * @param mappingFunction the function that maps a {@link Row} and {@link RowMetadata} to a value
+     * @param <T>             the type of the mapped value
+     * @return a {@link Flux} of mapped rows
+     * @throws IllegalArgumentException if {@code batchSize} is not positive or {@code mappingFunction} is {@code null}
+     */
+    <T> Flux<T> fetch(int batchSize, BiFunction<Row, RowMetadata, ? extends T> mappingFunction);
+
     /**
      * Close the cursor.
      *
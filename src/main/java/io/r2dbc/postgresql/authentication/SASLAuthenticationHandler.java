@@ -2,6 +2,7 @@ package io.r2dbc.postgresql.authentication;
 
 import com.ongres.scram.client.ScramClient;
 import com.ongres.scram.client.ScramSession;
+import com.ongres.scram.common.ScramMechanism;
 import com.ongres.scram.common.exception.ScramInvalidServerSignatureException;
 import com.ongres.scram.common.exception.ScramParseException;
 import com.ongres.scram.common.exception.ScramServerErrorException;
@@ -26,10 +27,15 @@ public class SASLAuthenticationHandler implements AuthenticationHandler {
 
     private final String username;
 
+    @Nullable
+    private final ScramKeyCache keyCache;
+
     private ScramSession.ClientFinalProcessor clientFinalProcessor;
 
     private ScramSession scramSession;
 
+    private ScramMechanism scramMechanism;
+
     /**
      * Creates a new handler.
      *
@@ -38,8 +44,21 @@ public class SASLAuthenticationHandler implements AuthenticationHandler {
      * @throws IllegalArgumentException if {@code password} or {@code user} is {@code null}
      */
     public SASLAuthenticationHandler(CharSequence password, String username) {
+        this(password, username, null);
+    }
+
+    /**
+     * Creates a new handler that obtains the derived SCRAM keys from {@code keyCache}.
+     *
+     * @param password the password to use for authentication
+     * @param username the username to use for authentication
+     * @param keyCache the cache for derived keys, can be {@code null} to derive keys for each authentication
+     * @throws IllegalArgumentException if {@code password} or {@code user} is {@code null}
+     */
+    public SASLAuthenticationHandler(CharSequence password, String username, @Nullable ScramKeyCache keyCache) {
         this.password = Assert.requireNonNull(password, "password must not be null");
         this.username = Assert.requireNonNull(username, "username must not be null");
+        this.keyCache = keyCache;
     }
 
 
@@ -81,15 +100,21 @@ public class SASLAuthenticationHandler implements AuthenticationHandler {
             .setup();
 
         this.scramSession = scramClient.scramSession(this.username);
+        this.scramMechanism = scramClient.getScramMechanism();
 
         return new SASLInitialResponse(ByteBufferUtils.encode(this.scramSession.clientFirstMessage()), scramClient.getScramMechanism().getName());
     }
 
     private FrontendMessage handleAuthenticationSASLContinue(AuthenticationSASLContinue message) {
         try {
-            this.clientFinalProcessor = this.scramSession
-                .receiveServerFirstMessage(ByteBufferUtils.decode(message.getData()))
-                .clientFinalProcessor(this.password.toString());
+            ScramSession.ServerFirstProcessor serverFirstProcessor = this.scramSession.receiveServerFirstMessage(ByteBufferUtils.decode(message.getData()));
+
+            if (this.keyCache != null) {
+                ScramKeyCache.ScramKeys keys = this.keyCache.getKeys(this.scramMechanism, this.username, this.password, serverFirstProcessor.getSalt(), serverFirstProcessor.getIteration());
+                this.clientFinalProcessor = serverFirstProcessor.clientFinalProcessor(keys.getClientKey(), keys.getServerKey());
+            } else {
+                this.clientFinalProcessor = serverFirstProcessor.clientFinalProcessor(this.password.toString());
+            }
 
             return new SASLResponse(ByteBufferUtils.encode(clientFinalProcessor.clientFinalMessage()));
         } catch (ScramParseException e) {
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.authentication;
+
+import com.ongres.scram.common.ScramFunctions;
+import com.ongres.scram.common.ScramMechanism;
+import io.r2dbc.postgresql.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.ongres.scram.common.stringprep.StringPreparations.NO_PREPARATION;
+
+/**
+ * Cache for SCRAM {@code ClientKey} and {@code ServerKey} values. Deriving the keys requires the salted password ({@code Hi()} with the server-provided iteration count) which is CPU-intensive.
+ * Keys are cached by mechanism, username, salt, iteration count and an HMAC of the password, so repeated authentications against the same server skip the key derivation. The password itself
+ * is not retained and the HMAC is keyed with a random secret per cache so that it cannot be attacked as a plain password hash. The cache is bounded and evicts the least recently used entry.
+ */
+public final class ScramKeyCache {
+
+    static final int DEFAULT_SIZE = 16;
+
+    private static final int SECRET_LENGTH = 32;
+
+    private final Map<Key, ScramKeys> cache;
+
+    private final byte[] secret;
+
+    /**
+     * Creates a new {@link ScramKeyCache} holding up to {@value #DEFAULT_SIZE} entries.
+     */
+    public ScramKeyCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    ScramKeyCache(int maxSize) {
+        this.cache = new LinkedHashMap<Key, ScramKeys>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ScramKeys> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.secret = new byte[SECRET_LENGTH];
+        new SecureRandom().nextBytes(this.secret);
+    }
+
+    /**
+     * Return the keys for the given parameters, deriving and caching them if they are not cached yet. Derivation happens outside of the cache lock.
+     *
+     * @param mechanism  the SCRAM mechanism
+     * @param username   the username
+     * @param password   the password
+     * @param salt       the Base64-encoded salt sent by the server
+     * @param iterations the iteration count sent by the server
+     * @return the client and server keys
+     */
+    ScramKeys getKeys(ScramMechanism mechanism, String username, CharSequence password, String salt, int iterations) {
+        Assert.requireNonNull(mechanism, "mechanism must not be null");
+        Assert.requireNonNull(username, "username must not be null");
+        Assert.requireNonNull(password, "password must not be null");
+        Assert.requireNonNull(salt, "salt must not be null");
+
+        String passwordMac = Base64.getEncoder().encodeToString(mechanism.hmac(this.secret, password.toString().getBytes(StandardCharsets.UTF_8)));
+        Key key = new Key(mechanism.getName(), username, salt, iterations, passwordMac);
+
+        synchronized (this.cache) {
+            ScramKeys keys = this.cache.get(key);
+            if (keys != null) {
+                return keys;
+            }
+        }
+
+        byte[] saltedPassword = ScramFunctions.saltedPassword(mechanism, NO_PREPARATION, password.toString(), Base64.getDecoder().decode(salt), iterations);
+        ScramKeys keys = new ScramKeys(ScramFunctions.clientKey(mechanism, saltedPassword), ScramFunctions.serverKey(mechanism, saltedPassword));
+
+        synchronized (this.cache) {
+            this.cache.put(key, keys);
+        }
+
+        return keys;
+    }
+
+    int size() {
+        synchronized (this.cache) {
+            return this.cache.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ScramKeyCache{" +
+            "size=" + size() +
+            '}';
+    }
+
+    /**
+     * Derived {@code ClientKey} and {@code ServerKey}.
+     */
+    static final class ScramKeys {
+
+        private final byte[] clientKey;
+
+        private final byte[] serverKey;
+
+        ScramKeys(byte[] clientKey, byte[] serverKey) {
+            this.clientKey = clientKey;
+            this.serverKey = serverKey;
+        }
+
+        byte[] getClientKey() {
+            return Arrays.copyOf(this.clientKey, this.clientKey.length);
+        }
+
+        byte[] getServerKey() {
+            return Arrays.copyOf(this.serverKey, this.serverKey.length);
+        }
+
+    }
+
+    private static final class Key {
+
+        private final String mechanism;
+
+        private final String username;
+
+        private final String salt;
+
+        private final int iterations;
+
+        private final String passwordMac;
+
+        Key(String mechanism, String username, String salt, int iterations, String passwordMac) {
+            this.mechanism = mechanism;
+            this.username = username;
+            this.salt = salt;
+            this.iterations = iterations;
+            this.passwordMac = passwordMac;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.iterations == key.iterations &&
+                this.mechanism.equals(key.mechanism) &&
+                this.username.equals(key.username) &&
+                this.salt.equals(key.salt) &&
+                this.passwordMac.equals(key.passwordMac);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.mechanism, this.username, this.salt, this.iterations, this.passwordMac);
+        }
+
+    }
+
+}
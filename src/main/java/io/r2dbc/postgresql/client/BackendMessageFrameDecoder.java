@@ -0,0 +1,369 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.r2dbc.postgresql.message.backend.BackendMessage;
+import io.r2dbc.postgresql.message.backend.BackendMessageDecoder;
+import io.r2dbc.postgresql.message.backend.DataRow;
+import io.r2dbc.postgresql.message.backend.StreamedColumn;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.util.annotation.Nullable;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Netty decoder that frames the backend protocol and decodes {@link BackendMessage}s directly from the cumulation buffer. A frame consists of a message type byte followed by the message
+ * length including the length field itself.
+ * <p>
+ * Messages are decoded in place without slicing each frame first. Decoded messages may retain slices of the cumulation buffer (e.g. {@code DataRow} columns). Frames larger than
+ * {@link #COMPOSITE_THRESHOLD} are cumulated into a composite buffer to avoid repeated copying while the frame is received.
+ * <p>
+ * {@link DataRow} frames larger than {@link #COMPOSITE_THRESHOLD} are not cumulated at all. Their columns are assembled incrementally from the received chunks so the frame is never held twice
+ * in memory. If a column streaming threshold is configured, a trailing column whose value exceeds the threshold is published as {@link StreamedColumn} and the {@link DataRow} is emitted
+ * before the column value is received. Reading from the transport is suspended through the {@code autoRead} callback while too many chunks of a streamed column are buffered.
+ */
+final class BackendMessageFrameDecoder extends ByteToMessageDecoder {
+
+    /**
+     * Frame length from which incoming data is cumulated into a composite buffer.
+     */
+    static final int COMPOSITE_THRESHOLD = 256 * 1024;
+
+    /**
+     * Column streaming threshold that disables streaming of column values.
+     */
+    static final int NO_STREAMING = 0;
+
+    private static final byte DATA_ROW = 'D';
+
+    private static final int HEADER_LENGTH = 5;
+
+    private final int streamingThreshold;
+
+    private final Consumer<Boolean> autoRead;
+
+    private boolean composite;
+
+    @Nullable
+    private IncrementalDataRow incremental;
+
+    BackendMessageFrameDecoder() {
+        this(NO_STREAMING);
+    }
+
+    BackendMessageFrameDecoder(int streamingThreshold) {
+        this(streamingThreshold, autoRead -> {
+        });
+    }
+
+    /**
+     * Create a new decoder.
+     *
+     * @param streamingThreshold column length in bytes from which trailing column values are streamed. {@link #NO_STREAMING} to disable streaming.
+     * @param autoRead           callback to suspend ({@code false}) and resume ({@code true}) reading from the transport while streamed column values are buffered
+     * @throws IllegalArgumentException if {@code streamingThreshold} is negative or {@code autoRead} is {@code null}
+     */
+    BackendMessageFrameDecoder(int streamingThreshold, Consumer<Boolean> autoRead) {
+
+        if (streamingThreshold < 0) {
+            throw new IllegalArgumentException("streamingThreshold must be greater or equal to zero");
+        }
+
+        this.streamingThreshold = streamingThreshold;
+        this.autoRead = Assert.requireNonNull(autoRead, "autoRead must not be null");
+        setCumulator(MERGE_CUMULATOR);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+
+        while (this.incremental != null ? in.isReadable() : in.readableBytes() >= HEADER_LENGTH) {
+
+            if (this.incremental != null) {
+
+                if (!this.incremental.decode(in, out)) {
+                    return;
+                }
+
+                this.incremental = null;
+                continue;
+            }
+
+            int start = in.readerIndex();
+            int frameLength = in.getInt(start + 1) + 1;
+
+            if (frameLength < HEADER_LENGTH) {
+                throw new CorruptedFrameException(String.format("Invalid frame length %d", frameLength));
+            }
+
+            if (in.readableBytes() < frameLength) {
+
+                if (in.getByte(start) == DATA_ROW && frameLength >= COMPOSITE_THRESHOLD) {
+                    in.skipBytes(HEADER_LENGTH);
+                    this.incremental = new IncrementalDataRow(ctx.alloc(), frameLength - HEADER_LENGTH, this.streamingThreshold, this.autoRead);
+                    continue;
+                }
+
+                useComposite(frameLength >= COMPOSITE_THRESHOLD);
+                return;
+            }
+
+            int end = start + frameLength;
+            int writerIndex = in.writerIndex();
+
+            // limit the buffer to the current frame so message decoders cannot read beyond the frame boundary
+            in.writerIndex(end);
+
+            try {
+                out.add(BackendMessageDecoder.decode(in));
+            } finally {
+                in.writerIndex(writerIndex);
+                in.readerIndex(end);
+            }
+        }
+
+        useComposite(false);
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) {
+
+        if (this.incremental != null) {
+            this.incremental.release();
+            this.incremental = null;
+        }
+    }
+
+    boolean isComposite() {
+        return this.composite;
+    }
+
+    boolean isIncremental() {
+        return this.incremental != null;
+    }
+
+    private void useComposite(boolean composite) {
+
+        if (this.composite != composite) {
+            this.composite = composite;
+            setCumulator(composite ? COMPOSITE_CUMULATOR : MERGE_CUMULATOR);
+        }
+    }
+
+    /**
+     * State of a {@link DataRow} frame that is decoded while its bytes are received. Column values are retained slices of the received buffers.
+     */
+    private static final class IncrementalDataRow {
+
+        private static final int NULL = -1;
+
+        private static final int NO_COLUMN = -2;
+
+        private final ByteBufAllocator allocator;
+
+        private final int streamingThreshold;
+
+        private final Consumer<Boolean> autoRead;
+
+        private int remaining;
+
+        @Nullable
+        private ByteBuf[] columns;
+
+        @Nullable
+        private StreamedColumn[] streamedColumns;
+
+        private int index;
+
+        private int columnRemaining = NO_COLUMN;
+
+        @Nullable
+        private CompositeByteBuf column;
+
+        @Nullable
+        private StreamedColumn streamedColumn;
+
+        private boolean emitted;
+
+        IncrementalDataRow(ByteBufAllocator allocator, int remaining, int streamingThreshold, Consumer<Boolean> autoRead) {
+            this.allocator = allocator;
+            this.remaining = remaining;
+            this.streamingThreshold = streamingThreshold;
+            this.autoRead = autoRead;
+        }
+
+        /**
+         * Decode the readable bytes of {@code in}.
+         *
+         * @return {@code true} if the frame was decoded completely
+         */
+        boolean decode(ByteBuf in, List<Object> out) {
+
+            while (true) {
+
+                if (this.columns == null) {
+
+                    if (in.readableBytes() < 2) {
+                        return false;
+                    }
+
+                    this.columns = new ByteBuf[in.readShort()];
+                    this.remaining -= 2;
+                }
+
+                if (this.columnRemaining == NO_COLUMN) {
+
+                    if (this.index == this.columns.length) {
+
+                        if (this.remaining != 0) {
+                            throw new CorruptedFrameException(String.format("DataRow frame contains %d unexpected bytes", this.remaining));
+                        }
+
+                        if (!this.emitted) {
+                            out.add(createRow());
+                        }
+
+                        return true;
+                    }
+
+                    if (in.readableBytes() < 4) {
+                        return false;
+                    }
+
+                    int length = in.readInt();
+                    this.remaining -= 4;
+
+                    if (length == NULL) {
+                        this.index++;
+                        continue;
+                    }
+
+                    if (length < 0 || length > this.remaining) {
+                        throw new CorruptedFrameException(String.format("Invalid column length %d", length));
+                    }
+
+                    if (in.readableBytes() >= length) {
+                        this.columns[this.index++] = in.readRetainedSlice(length);
+                        this.remaining -= length;
+                        continue;
+                    }
+
+                    startColumn(length, out);
+                }
+
+                if (!readColumn(in)) {
+                    return false;
+                }
+            }
+        }
+
+        void release() {
+
+            if (this.column != null) {
+                this.column.release();
+                this.column = null;
+            }
+
+            if (this.streamedColumn != null) {
+                this.streamedColumn.fail(new ReactorNettyClient.PostgresConnectionClosedException("Connection closed while receiving a streamed column"));
+                this.streamedColumn = null;
+            }
+
+            if (this.columns != null && !this.emitted) {
+                for (ByteBuf column : this.columns) {
+                    if (column != null) {
+                        column.release();
+                    }
+                }
+            }
+        }
+
+        private void startColumn(int length, List<Object> out) {
+
+            this.columnRemaining = length;
+
+            // only a trailing column can be streamed as subsequent columns would be received after the row was emitted
+            boolean trailing = this.index == this.columns.length - 1;
+            if (this.streamingThreshold != NO_STREAMING && trailing && length >= this.streamingThreshold) {
+
+                this.streamedColumn = new StreamedColumn(length, this.autoRead);
+                this.streamedColumns = new StreamedColumn[this.columns.length];
+                this.streamedColumns[this.index] = this.streamedColumn;
+                this.columns[this.index] = Unpooled.EMPTY_BUFFER;
+
+                out.add(createRow());
+                this.emitted = true;
+                return;
+            }
+
+            this.column = this.allocator.compositeBuffer(Integer.MAX_VALUE);
+        }
+
+        /**
+         * Read the available bytes of the current column.
+         *
+         * @return {@code true} if the column was read completely
+         */
+        private boolean readColumn(ByteBuf in) {
+
+            int length = Math.min(in.readableBytes(), this.columnRemaining);
+
+            if (length > 0) {
+
+                ByteBuf chunk = in.readRetainedSlice(length);
+                this.columnRemaining -= length;
+                this.remaining -= length;
+
+                if (this.streamedColumn != null) {
+                    this.streamedColumn.publish(chunk);
+                } else {
+                    this.column.addComponent(true, chunk);
+                }
+            }
+
+            if (this.columnRemaining != 0) {
+                return false;
+            }
+
+            if (this.streamedColumn != null) {
+                this.streamedColumn.complete();
+                this.streamedColumn = null;
+            } else {
+                this.columns[this.index] = this.column;
+                this.column = null;
+            }
+
+            this.index++;
+            this.columnRemaining = NO_COLUMN;
+            return true;
+        }
+
+        private DataRow createRow() {
+            return this.streamedColumns == null ? new DataRow(this.columns) : new DataRow(this.columns, this.streamedColumns);
+        }
+
+    }
+
+}
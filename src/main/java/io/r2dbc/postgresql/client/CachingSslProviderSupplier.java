@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.ReferenceCountUtil;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.netty.tcp.SslProvider;
+import reactor.util.annotation.Nullable;
+
+import java.util.function.Supplier;
+
+/**
+ * {@link Supplier} that builds the {@link SslProvider} (and its {@link io.netty.handler.ssl.SslContext}) once and returns the cached instance until {@link #refresh() refreshed}. Sharing a single
+ * {@link io.netty.handler.ssl.SslContext} avoids re-reading certificate and key files for each connection and allows the TLS session cache of the context to resume sessions.
+ */
+final class CachingSslProviderSupplier implements Supplier<SslProvider> {
+
+    private final Supplier<SslProvider> delegate;
+
+    @Nullable
+    private volatile SslProvider sslProvider;
+
+    private CachingSslProviderSupplier(Supplier<SslProvider> delegate) {
+        this.delegate = Assert.requireNonNull(delegate, "delegate must not be null");
+    }
+
+    static CachingSslProviderSupplier of(Supplier<SslProvider> delegate) {
+
+        if (delegate instanceof CachingSslProviderSupplier) {
+            return (CachingSslProviderSupplier) delegate;
+        }
+
+        return new CachingSslProviderSupplier(delegate);
+    }
+
+    @Override
+    public SslProvider get() {
+
+        SslProvider sslProvider = this.sslProvider;
+        if (sslProvider != null) {
+            return sslProvider;
+        }
+
+        synchronized (this) {
+
+            if (this.sslProvider == null) {
+                this.sslProvider = this.delegate.get();
+            }
+
+            return this.sslProvider;
+        }
+    }
+
+    /**
+     * Returns the {@link SslContext} of the cached {@link SslProvider}, retained so that a concurrent {@link #refresh()} cannot release it while an engine is created. The caller must release the
+     * context once the engine is created.
+     *
+     * @return the retained {@link SslContext}
+     */
+    SslContext retainSslContext() {
+
+        synchronized (this) {
+            return ReferenceCountUtil.retain(get().getSslContext());
+        }
+    }
+
+    /**
+     * Discard the cached {@link SslProvider}. The next call to {@link #get()} builds a new one. A reference-counted (OpenSSL) context is released; engines of open connections and engines that
+     * are being created through {@link #retainSslContext()} retain the context until they are closed.
+     */
+    void refresh() {
+
+        SslProvider sslProvider;
+        synchronized (this) {
+            sslProvider = this.sslProvider;
+            this.sslProvider = null;
+        }
+
+        if (sslProvider != null) {
+            ReferenceCountUtil.release(sslProvider.getSslContext());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachingSslProviderSupplier{" +
+            "delegate=" + this.delegate +
+            ", cached=" + (this.sslProvider != null) +
+            '}';
+    }
+
+}
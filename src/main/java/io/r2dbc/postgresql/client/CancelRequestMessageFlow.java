@@ -19,14 +19,24 @@ package io.r2dbc.postgresql.client;
 import io.r2dbc.postgresql.message.backend.BackendMessage;
 import io.r2dbc.postgresql.message.frontend.CancelRequest;
 import io.r2dbc.postgresql.util.Assert;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
+import reactor.util.context.Context;
+
+import java.time.Duration;
 
 /**
  * A utility class that encapsulates the <a href="https://www.postgresql.org/docs/10/static/protocol-flow.html#idm46428663888448">Cancel Request</a> message flow.
  */
 public final class CancelRequestMessageFlow {
 
+    private static final Logger logger = Loggers.getLogger(CancelRequestMessageFlow.class);
+
     private CancelRequestMessageFlow() {
     }
 
@@ -46,4 +56,99 @@ public final class CancelRequestMessageFlow {
         return client.exchange(Mono.just(new CancelRequest(processId, secretKey)));
     }
 
+    /**
+     * Apply a query {@code timeout} to {@code messages}. A {@link Client#cancelRequest() cancel request} is sent for the query running on {@code client} if an exchange within {@code messages}
+     * does not complete within {@code timeout} after it became active on the connection, that is after its request was written and all previous exchanges have completed. Time spent queued
+     * behind other exchanges does not count towards the timeout. An effective cancellation lets the query fail with SQLSTATE {@code 57014}.
+     *
+     * @param client   the {@link Client} that executes the query
+     * @param messages the messages received in response to the query
+     * @param timeout  the query timeout, {@code null} or {@link Duration#ZERO} to not apply a timeout
+     * @param <T>      the message type
+     * @return {@code messages} with the timeout applied
+     * @throws IllegalArgumentException if {@code client} or {@code messages} is {@code null}
+     */
+    public static <T> Flux<T> timeout(Client client, Flux<T> messages, @Nullable Duration timeout) {
+        return timeout(client, messages, timeout, () -> {
+        });
+    }
+
+    /**
+     * Apply a query {@code timeout} to {@code messages}. {@code onCancel} is invoked right before the cancel request is sent so that the caller can attribute a subsequent
+     * {@code query_canceled} error to the timeout.
+     *
+     * @param client   the {@link Client} that executes the query
+     * @param messages the messages received in response to the query
+     * @param timeout  the query timeout, {@code null} or {@link Duration#ZERO} to not apply a timeout
+     * @param onCancel callback invoked when the timeout expired
+     * @param <T>      the message type
+     * @return {@code messages} with the timeout applied
+     * @throws IllegalArgumentException if {@code client}, {@code messages}, or {@code onCancel} is {@code null}
+     * @see #timeout(Client, Flux, Duration)
+     */
+    public static <T> Flux<T> timeout(Client client, Flux<T> messages, @Nullable Duration timeout, Runnable onCancel) {
+        Assert.requireNonNull(client, "client must not be null");
+        Assert.requireNonNull(messages, "messages must not be null");
+        Assert.requireNonNull(onCancel, "onCancel must not be null");
+
+        if (timeout == null || timeout.isZero()) {
+            return messages;
+        }
+
+        return Flux.defer(() -> {
+
+            Timer timer = new Timer(client, timeout, onCancel);
+
+            return messages
+                .doFinally(ignore -> timer.dispose())
+                .subscriberContext(Context.of(Timer.class, timer));
+        });
+    }
+
+    /**
+     * Query timer propagated through the subscriber {@link Context} to the {@link Client}. The client {@link #start() starts} the timer once an exchange becomes active on the connection and
+     * {@link #stop() stops} it when the exchange completes.
+     */
+    static final class Timer implements Disposable {
+
+        private final Client client;
+
+        private final Duration timeout;
+
+        private final Runnable onCancel;
+
+        private final Disposable.Swap pending = Disposables.swap();
+
+        Timer(Client client, Duration timeout, Runnable onCancel) {
+            this.client = client;
+            this.timeout = timeout;
+            this.onCancel = onCancel;
+        }
+
+        void start() {
+            this.pending.update(Mono.delay(this.timeout)
+                .flatMap(it -> {
+                    logger.debug("Query timed out after {}, sending cancel request", this.timeout);
+                    this.onCancel.run();
+                    return this.client.cancelRequest();
+                })
+                .subscribe(null, e -> logger.debug("Cannot send cancel request", e)));
+        }
+
+        void stop() {
+            this.pending.update(Disposables.disposed());
+        }
+
+        @Override
+        public void dispose() {
+            this.pending.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return this.pending.isDisposed();
+        }
+
+    }
+
 }
@@ -65,6 +65,14 @@ public interface Client {
      */
     Mono<Void> close();
 
+    /**
+     * Request cancellation of the query that is currently executed on this connection. The cancel request is sent through a separate, out-of-band connection using the process id and secret key
+     * of this connection. Cancellation is best-effort: the server may have completed the query already. If the cancellation is effective, the query fails with SQLSTATE {@code 57014}.
+     *
+     * @return a {@link Mono} that completes once the server has processed the cancel request and closed the out-of-band connection
+     */
+    Mono<Void> cancelRequest();
+
     /**
      * Perform an exchange of messages.
      *
@@ -102,6 +110,14 @@ public interface Client {
      */
     ByteBufAllocator getByteBufAllocator();
 
+    /**
+     * Returns the value of a run-time parameter as reported by the server through {@code ParameterStatus} messages.
+     *
+     * @param name the name of the run-time parameter
+     * @return the last reported value or {@link Optional#empty()} if the server has not reported the parameter
+     */
+    Optional<String> getParameterStatus(String name);
+
     /**
      * Returns the connected process id if it has been communicated.
      *
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+/**
+ * Limit for the amount of data that is drained from the server after a subscriber cancelled the consumption of a result. Once the limit is exceeded, the query is cancelled on the server
+ * through a {@link Client#cancelRequest() cancel request} instead of receiving the remaining result.
+ */
+public final class DrainLimit {
+
+    /**
+     * Limit that never cancels a query but drains the entire result.
+     */
+    public static final DrainLimit UNLIMITED = new DrainLimit(0, 0);
+
+    private final long rows;
+
+    private final long bytes;
+
+    private DrainLimit(long rows, long bytes) {
+        this.rows = rows;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Create a new {@link DrainLimit}.
+     *
+     * @param rows  number of rows to drain before cancelling the query, {@code 0} to not limit the number of rows
+     * @param bytes number of bytes to drain before cancelling the query, {@code 0} to not limit the number of bytes
+     * @return the drain limit
+     * @throws IllegalArgumentException if {@code rows} or {@code bytes} is negative
+     */
+    public static DrainLimit of(long rows, long bytes) {
+
+        if (rows < 0) {
+            throw new IllegalArgumentException("rows must be greater or equal to zero");
+        }
+
+        if (bytes < 0) {
+            throw new IllegalArgumentException("bytes must be greater or equal to zero");
+        }
+
+        return rows == 0 && bytes == 0 ? UNLIMITED : new DrainLimit(rows, bytes);
+    }
+
+    public long getRows() {
+        return this.rows;
+    }
+
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Returns whether the limit never cancels a query.
+     *
+     * @return {@code true} if results are always drained entirely
+     */
+    public boolean isUnlimited() {
+        return this.rows == 0 && this.bytes == 0;
+    }
+
+    boolean isExceeded(long rows, long bytes) {
+        return (this.rows != 0 && rows > this.rows) || (this.bytes != 0 && bytes > this.bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "DrainLimit{" +
+            "rows=" + this.rows +
+            ", bytes=" + this.bytes +
+            '}';
+    }
+
+}
@@ -21,8 +21,11 @@ import io.r2dbc.postgresql.message.Format;
 import io.r2dbc.postgresql.message.backend.BackendMessage;
 import io.r2dbc.postgresql.message.backend.CloseComplete;
 import io.r2dbc.postgresql.message.backend.ErrorResponse;
+import io.r2dbc.postgresql.message.backend.NoData;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
 import io.r2dbc.postgresql.message.backend.ParseComplete;
 import io.r2dbc.postgresql.message.backend.ReadyForQuery;
+import io.r2dbc.postgresql.message.backend.RowDescription;
 import io.r2dbc.postgresql.message.frontend.Bind;
 import io.r2dbc.postgresql.message.frontend.Close;
 import io.r2dbc.postgresql.message.frontend.Describe;
@@ -55,6 +58,8 @@ public final class ExtendedQueryMessageFlow {
      */
     public static final Pattern PARAMETER_SYMBOL = Pattern.compile("\\$([\\d]+)", Pattern.DOTALL);
 
+    private static final String UNNAMED_PORTAL = "";
+
     private ExtendedQueryMessageFlow() {
     }
 
@@ -81,6 +86,31 @@ public final class ExtendedQueryMessageFlow {
             .concatWith(Mono.just(Sync.INSTANCE)));
     }
 
+    /**
+     * Execute the bind and execute portion of the <a href="https://www.postgresql.org/docs/current/static/protocol-flow.html#PROTOCOL-FLOW-EXT-QUERY">Extended query</a> message flow for a statement
+     * that was {@link #prepare(Client, String, String, List) prepared and described} upfront. Bindings are executed through the unnamed portal, so neither {@link Describe} nor {@link Close}
+     * messages are sent for the portal.
+     *
+     * @param bindings      the {@link Binding}s to bind
+     * @param client        the {@link Client} to exchange messages with
+     * @param statementName the name of the statementName to execute
+     * @param query         the query to execute
+     * @param forceBinary   force backend to return column data values in binary format for all columns
+     * @return the messages received in response to the exchange
+     * @throws IllegalArgumentException if {@code bindings}, {@code client}, or {@code statementName} is {@code null}
+     */
+    public static Flux<BackendMessage> executePrepared(Publisher<Binding> bindings, Client client, String statementName, String query, boolean forceBinary) {
+        Assert.requireNonNull(bindings, "bindings must not be null");
+        Assert.requireNonNull(client, "client must not be null");
+        Assert.requireNonNull(statementName, "statementName must not be null");
+
+        return client.exchange(Flux.from(bindings)
+            .concatMap(binding -> toBind(binding, UNNAMED_PORTAL, statementName, forceBinary)
+                .flatMapMany(bind -> Flux.just(bind, new Execute(UNNAMED_PORTAL, NO_LIMIT))))
+            .doOnSubscribe(ignore -> QueryLogger.logQuery(query))
+            .concatWith(Mono.just(Sync.INSTANCE)));
+    }
+
     /**
      * Execute the parse portion of the <a href="https://www.postgresql.org/docs/current/static/protocol-flow.html#PROTOCOL-FLOW-EXT-QUERY">Extended query</a> message flow.
      *
@@ -113,6 +143,52 @@ public final class ExtendedQueryMessageFlow {
             });
     }
 
+    /**
+     * Execute the parse and describe portion of the <a href="https://www.postgresql.org/docs/current/static/protocol-flow.html#PROTOCOL-FLOW-EXT-QUERY">Extended query</a> message flow. The
+     * response contains the {@link ParameterDescription} and either the {@link RowDescription} or {@link NoData} of the prepared statement.
+     *
+     * @param client the {@link Client} to exchange messages with
+     * @param name   the name of the statement to prepare
+     * @param query  the query to prepare
+     * @param types  the parameter types for the query
+     * @return the messages received in response to this exchange
+     * @throws IllegalArgumentException if {@code client}, {@code name}, {@code query}, or {@code types} is {@code null}
+     */
+    public static Flux<BackendMessage> prepare(Client client, String name, String query, List<Integer> types) {
+        return prepare(client, name, query, types, Collections.emptyList());
+    }
+
+    /**
+     * Execute the parse and describe portion of the <a href="https://www.postgresql.org/docs/current/static/protocol-flow.html#PROTOCOL-FLOW-EXT-QUERY">Extended query</a> message flow and close
+     * {@code closeStatements} within the same exchange. The response starts with a {@link CloseComplete} for each closed statement followed by the {@link ParameterDescription} and either the
+     * {@link RowDescription} or {@link NoData} of the prepared statement.
+     *
+     * @param client          the {@link Client} to exchange messages with
+     * @param name            the name of the statement to prepare
+     * @param query           the query to prepare
+     * @param types           the parameter types for the query
+     * @param closeStatements the names of statements to close before preparing the statement
+     * @return the messages received in response to this exchange
+     * @throws IllegalArgumentException if {@code client}, {@code name}, {@code query}, {@code types}, or {@code closeStatements} is {@code null}
+     */
+    public static Flux<BackendMessage> prepare(Client client, String name, String query, List<Integer> types, Collection<String> closeStatements) {
+        Assert.requireNonNull(client, "client must not be null");
+        Assert.requireNonNull(name, "name must not be null");
+        Assert.requireNonNull(query, "query must not be null");
+        Assert.requireNonNull(types, "types must not be null");
+        Assert.requireNonNull(closeStatements, "closeStatements must not be null");
+
+        Flux<FrontendMessage> prepare = Flux.just(new Parse(name, types, query), new Describe(name, ExecutionType.STATEMENT), Sync.INSTANCE);
+
+        if (closeStatements.isEmpty()) {
+            return client.exchange(prepare);
+        }
+
+        return client.exchange(Flux.fromIterable(closeStatements)
+            .<FrontendMessage>map(statement -> new Close(statement, ExecutionType.STATEMENT))
+            .concatWith(prepare));
+    }
+
     /**
      * Execute the close portion of the <a href="https://www.postgresql.org/docs/current/static/protocol-flow.html#PROTOCOL-FLOW-EXT-QUERY">Extended query</a> message flow.
      *
@@ -140,21 +216,23 @@ public final class ExtendedQueryMessageFlow {
     private static Flux<FrontendMessage> toBindFlow(Binding binding, PortalNameSupplier portalNameSupplier, String statementName, String query, boolean forceBinary) {
         String portal = portalNameSupplier.get();
 
+        return toBind(binding, portal, statementName, forceBinary)
+            .flatMapMany(bind -> Flux.just(bind, new Describe(portal, PORTAL), new Execute(portal, NO_LIMIT), new Close(portal, PORTAL)))
+            .doOnSubscribe(ignore -> QueryLogger.logQuery(query));
+    }
+
+    private static Mono<Bind> toBind(Binding binding, String portal, String statementName, boolean forceBinary) {
         return Flux.fromIterable(binding.getParameterValues())
-            .flatMap(f -> {
+            .concatMap(f -> {
                 if (f == Parameter.NULL_VALUE) {
                     return Flux.just(Bind.NULL_VALUE);
                 } else {
                     return Flux.from(f)
-                        .reduce(Unpooled.compositeBuffer(), (c, b) -> c.addComponent(true, b));
+                        .reduceWith(() -> Unpooled.compositeBuffer(Integer.MAX_VALUE), (c, b) -> c.addComponent(true, b));
                 }
             })
             .collectList()
-            .flatMapMany(values -> {
-                Bind bind = new Bind(portal, binding.getParameterFormats(), values, resultFormat(forceBinary), statementName);
-
-                return Flux.just(bind, new Describe(portal, PORTAL), new Execute(portal, NO_LIMIT), new Close(portal, PORTAL));
-            }).doOnSubscribe(ignore -> QueryLogger.logQuery(query));
+            .map(values -> new Bind(portal, binding.getParameterFormats(), values, resultFormat(forceBinary), statementName));
     }
 
 }
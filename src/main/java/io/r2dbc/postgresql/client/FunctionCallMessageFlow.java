@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.buffer.ByteBuf;
+import io.r2dbc.postgresql.message.backend.BackendMessage;
+import io.r2dbc.postgresql.message.frontend.FrontendMessage;
+import io.r2dbc.postgresql.message.frontend.FunctionCall;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+
+import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
+
+/**
+ * A utility class that encapsulates the <a href="https://www.postgresql.org/docs/current/protocol-flow.html">Function Call</a> message flow.
+ */
+public final class FunctionCallMessageFlow {
+
+    private FunctionCallMessageFlow() {
+    }
+
+    /**
+     * Execute the <a href="https://www.postgresql.org/docs/current/protocol-flow.html">Function Call</a> message flow. Arguments and the result use the binary format.
+     *
+     * @param client     the {@link Client} to exchange messages with
+     * @param functionId the object ID of the function to call
+     * @param arguments  the binary encoded arguments. {@code null} elements represent {@code NULL} arguments.
+     * @return the messages received in response to this exchange
+     * @throws IllegalArgumentException if {@code client} or {@code arguments} is {@code null}
+     */
+    public static Flux<BackendMessage> exchange(Client client, int functionId, List<ByteBuf> arguments) {
+        Assert.requireNonNull(client, "client must not be null");
+        Assert.requireNonNull(arguments, "arguments must not be null");
+
+        return client.exchange(Mono.<FrontendMessage>fromSupplier(() -> new FunctionCall(Collections.singletonList(FORMAT_BINARY), arguments, functionId, FORMAT_BINARY)));
+    }
+
+}
@@ -84,7 +84,7 @@ public final class Parameter {
      *
      * @return the format of the parameter
      */
-    Format getFormat() {
+    public Format getFormat() {
         return this.format;
     }
 
@@ -93,7 +93,7 @@ public final class Parameter {
      *
      * @return the type of the parameter
      */
-    int getType() {
+    public int getType() {
         return this.type;
     }
 
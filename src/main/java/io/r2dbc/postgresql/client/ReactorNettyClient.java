@@ -24,9 +24,7 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
-import io.netty.channel.epoll.Epoll;
 import io.netty.channel.socket.DatagramChannel;
-import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.util.ReferenceCountUtil;
@@ -34,13 +32,13 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import io.r2dbc.postgresql.message.backend.BackendKeyData;
 import io.r2dbc.postgresql.message.backend.BackendMessage;
-import io.r2dbc.postgresql.message.backend.BackendMessageDecoder;
 import io.r2dbc.postgresql.message.backend.ErrorResponse;
 import io.r2dbc.postgresql.message.backend.Field;
 import io.r2dbc.postgresql.message.backend.NoticeResponse;
 import io.r2dbc.postgresql.message.backend.NotificationResponse;
 import io.r2dbc.postgresql.message.backend.ParameterStatus;
 import io.r2dbc.postgresql.message.backend.ReadyForQuery;
+import io.r2dbc.postgresql.message.frontend.CancelRequest;
 import io.r2dbc.postgresql.message.frontend.FrontendMessage;
 import io.r2dbc.postgresql.message.frontend.Terminate;
 import io.r2dbc.postgresql.util.Assert;
@@ -53,12 +51,12 @@ import reactor.core.publisher.EmitterProcessor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
 import reactor.core.publisher.SynchronousSink;
 import reactor.netty.Connection;
 import reactor.netty.resources.ConnectionProvider;
 import reactor.netty.resources.LoopResources;
 import reactor.netty.tcp.TcpClient;
-import reactor.netty.tcp.TcpResources;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 import reactor.util.annotation.Nullable;
@@ -69,13 +67,15 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
-import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -100,12 +100,33 @@ public final class ReactorNettyClient implements Client {
 
     private final Connection connection;
 
+    private final SocketOptions socketOptions;
+
     private final EmitterProcessor<Publisher<FrontendMessage>> requestProcessor = EmitterProcessor.create(false);
 
     private final FluxSink<Publisher<FrontendMessage>> requests = this.requestProcessor.sink();
 
     private final Queue<Conversation> conversations = Queues.<Conversation>unbounded().get();
 
+    /**
+     * Number of conversations started, guarded by {@code this}.
+     */
+    private long conversationCount;
+
+    private final AtomicLong completedConversations = new AtomicLong();
+
+    /**
+     * Completes once the server has processed the most recent cancel request. Requests are written only after the cancel request was processed so that it cannot cancel a later query.
+     */
+    private volatile Mono<Void> pendingCancelRequest = Mono.empty();
+
+    private final Object readSuspensionsLock = new Object();
+
+    /**
+     * Number of suspensions of reading from the transport, guarded by {@link #readSuspensionsLock}.
+     */
+    private int readSuspensions;
+
     private final DirectProcessor<NotificationResponse> notificationProcessor = DirectProcessor.create();
 
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
@@ -118,23 +139,28 @@ public final class ReactorNettyClient implements Client {
 
     private volatile Version version = new Version("", 0);
 
+    private final Map<String, String> parameterStatus = new ConcurrentHashMap<>();
+
     /**
      * Creates a new frame processor connected to a given TCP connection.
      *
-     * @param connection the TCP connection
+     * @param connection         the TCP connection
+     * @param streamingThreshold column length in bytes from which trailing column values are streamed
      * @throws IllegalArgumentException if {@code connection} is {@code null}
      */
-    private ReactorNettyClient(Connection connection) {
+    private ReactorNettyClient(Connection connection, int streamingThreshold, SocketOptions socketOptions) {
         Assert.requireNonNull(connection, "Connection must not be null");
 
-        connection.addHandler(new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE - 5, 1, 4, -4, 0));
+        connection.addHandler(new BackendMessageFrameDecoder(streamingThreshold, this::setAutoRead));
         connection.addHandler(new EnsureSubscribersCompleteChannelHandler(this.requestProcessor));
         this.connection = connection;
+        this.socketOptions = socketOptions;
         this.byteBufAllocator = connection.outbound().alloc();
 
         AtomicReference<Throwable> receiveError = new AtomicReference<>();
-        Mono<Void> receive = connection.inbound().receive()
-            .map(BackendMessageDecoder::decode)
+        Mono<Void> receive = connection.inbound().receiveObject()
+            // the inbound releases received objects after emission, retain messages for asynchronous consumption
+            .map(message -> (BackendMessage) ReferenceCountUtil.retain(message))
             .handle(this::handleResponse)
             .doOnError(throwable -> {
                 receiveError.set(throwable);
@@ -144,13 +170,20 @@ public final class ReactorNettyClient implements Client {
                 Conversation receiver = this.conversations.peek();
                 if (receiver != null) {
                     if (receiver.takeUntil.test(message)) {
-                        receiver.sink.complete();
+                        receiver.complete();
                         this.conversations.poll();
+                        this.completedConversations.incrementAndGet();
+
+                        Conversation next = this.conversations.peek();
+                        if (next != null && next.written) {
+                            next.activate();
+                        }
                     } else {
 
                         if (receiver.sink.isCancelled()) {
                             ReferenceCountUtil.release(message);
                         } else {
+                            receiver.backpressure.onNext(receiver.sink, message);
                             receiver.sink.next(message);
                         }
                     }
@@ -160,7 +193,7 @@ public final class ReactorNettyClient implements Client {
             .then();
 
         Mono<Void> request = this.requestProcessor
-            .concatMap(Function.identity())
+            .concatMap(requests -> Flux.defer(() -> this.pendingCancelRequest.thenMany(requests)))
             .flatMap(message -> {
                 if (DEBUG_ENABLED) {
                     logger.debug("Request:  {}", message);
@@ -219,12 +252,24 @@ public final class ReactorNettyClient implements Client {
                     sink.error(new PostgresConnectionClosedException("Cannot exchange messages because the connection is closed"));
                     return;
                 }
+                ReceiveBackpressure backpressure = new ReceiveBackpressure(this::setAutoRead);
+                sink.onRequest(backpressure::onRequest);
+                sink.onDispose(backpressure::reset);
+
+                CancelRequestMessageFlow.Timer timer = sink.currentContext().getOrDefault(CancelRequestMessageFlow.Timer.class, null);
+
                 synchronized (this) {
-                    this.conversations.add(new Conversation(sink, takeUntil));
+                    Conversation conversation = new Conversation(this.conversationCount++, sink, takeUntil, backpressure, timer);
+                    this.conversations.add(conversation);
                     this.requests.next(Flux.from(requests).doOnNext(m -> {
                         if (!isConnected()) {
                             sink.error(new PostgresConnectionClosedException("Cannot exchange messages because the connection is closed"));
                         }
+                    }).doOnComplete(() -> {
+                        conversation.written = true;
+                        if (this.completedConversations.get() == conversation.id) {
+                            conversation.activate();
+                        }
                     }));
                 }
             });
@@ -237,6 +282,23 @@ public final class ReactorNettyClient implements Client {
         this.requests.next(Mono.just(message));
     }
 
+    /**
+     * Suspend ({@code false}) or resume ({@code true}) reading from the transport. Suspensions are counted so that reading resumes only after every party that suspended reading resumed it.
+     */
+    private void setAutoRead(boolean autoRead) {
+
+        synchronized (this.readSuspensionsLock) {
+
+            if (autoRead) {
+                if (--this.readSuspensions == 0) {
+                    this.connection.channel().config().setAutoRead(true);
+                }
+            } else if (this.readSuspensions++ == 0) {
+                this.connection.channel().config().setAutoRead(false);
+            }
+        }
+    }
+
     private Mono<Void> resumeError(Throwable throwable) {
 
         handleConnectionError(throwable);
@@ -297,6 +359,8 @@ public final class ReactorNettyClient implements Client {
 
     private void handleParameterStatus(ParameterStatus message) {
 
+        this.parameterStatus.put(message.getName(), message.getValue());
+
         Version existingVersion = this.version;
 
         String versionString = existingVersion.getVersion();
@@ -353,15 +417,47 @@ public final class ReactorNettyClient implements Client {
      * @throws IllegalArgumentException if {@code host} is {@code null}
      */
     public static Mono<ReactorNettyClient> connect(ConnectionProvider connectionProvider, SocketAddress socketAddress, @Nullable Duration connectTimeout, SSLConfig sslConfig) {
+        return connect(connectionProvider, socketAddress, connectTimeout, sslConfig, BackendMessageFrameDecoder.NO_STREAMING);
+    }
+
+    /**
+     * Creates a new frame processor connected to a given host.
+     *
+     * @param connectionProvider       the connection provider resources
+     * @param socketAddress            the socketAddress to connect to
+     * @param connectTimeout           connect timeout
+     * @param sslConfig                SSL configuration
+     * @param columnStreamingThreshold column length in bytes from which the value of a trailing column is streamed while it is received. {@code 0} to disable streaming.
+     * @throws IllegalArgumentException if {@code host} is {@code null} or {@code columnStreamingThreshold} is negative
+     */
+    public static Mono<ReactorNettyClient> connect(ConnectionProvider connectionProvider, SocketAddress socketAddress, @Nullable Duration connectTimeout, SSLConfig sslConfig,
+                                                   int columnStreamingThreshold) {
+        return connect(connectionProvider, socketAddress, connectTimeout, sslConfig, columnStreamingThreshold, SocketOptions.defaults());
+    }
+
+    /**
+     * Creates a new frame processor connected to a given host.
+     *
+     * @param connectionProvider       the connection provider resources
+     * @param socketAddress            the socketAddress to connect to
+     * @param connectTimeout           connect timeout
+     * @param sslConfig                SSL configuration
+     * @param columnStreamingThreshold column length in bytes from which the value of a trailing column is streamed while it is received. {@code 0} to disable streaming.
+     * @param socketOptions            transport, event loop and socket configuration
+     * @throws IllegalArgumentException if {@code host} or {@code socketOptions} is {@code null} or {@code columnStreamingThreshold} is negative
+     */
+    public static Mono<ReactorNettyClient> connect(ConnectionProvider connectionProvider, SocketAddress socketAddress, @Nullable Duration connectTimeout, SSLConfig sslConfig,
+                                                   int columnStreamingThreshold, SocketOptions socketOptions) {
         Assert.requireNonNull(connectionProvider, "connectionProvider must not be null");
         Assert.requireNonNull(socketAddress, "socketAddress must not be null");
+        Assert.requireNonNull(socketOptions, "socketOptions must not be null");
 
-        TcpClient tcpClient = TcpClient.create(connectionProvider).addressSupplier(() -> socketAddress);
-
-        if (!(socketAddress instanceof InetSocketAddress)) {
-            tcpClient = tcpClient.runOn(new SocketLoopResources(), true);
+        if (columnStreamingThreshold < 0) {
+            throw new IllegalArgumentException("columnStreamingThreshold must be greater or equal to zero");
         }
 
+        TcpClient tcpClient = socketOptions.configure(TcpClient.create(connectionProvider).addressSupplier(() -> socketAddress), socketAddress);
+
         if (connectTimeout != null) {
             tcpClient = tcpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(connectTimeout.toMillis()));
         }
@@ -376,14 +472,14 @@ public final class ReactorNettyClient implements Client {
                     new LoggingHandler(ReactorNettyClient.class, LogLevel.TRACE));
             }
 
-            return registerSslHandler(sslConfig, it).thenReturn(new ReactorNettyClient(it));
+            return registerSslHandler(sslConfig, socketAddress, it).thenReturn(new ReactorNettyClient(it, columnStreamingThreshold, socketOptions));
         });
     }
 
-    private static Mono<? extends Void> registerSslHandler(SSLConfig sslConfig, Connection it) {
+    private static Mono<? extends Void> registerSslHandler(SSLConfig sslConfig, SocketAddress socketAddress, Connection it) {
 
         if (sslConfig.getSslMode().startSsl()) {
-            SSLSessionHandlerAdapter sslSessionHandlerAdapter = new SSLSessionHandlerAdapter(it.outbound().alloc(), sslConfig);
+            SSLSessionHandlerAdapter sslSessionHandlerAdapter = new SSLSessionHandlerAdapter(it.outbound().alloc(), sslConfig, socketAddress);
             it.addHandlerFirst(sslSessionHandlerAdapter);
             return sslSessionHandlerAdapter.getHandshake();
         }
@@ -401,11 +497,45 @@ public final class ReactorNettyClient implements Client {
         return this.notificationProcessor.subscribe(consumer::onNext, consumer::onError, consumer::onComplete, consumer::onSubscribe);
     }
 
+    @Override
+    public Mono<Void> cancelRequest() {
+        return Mono.defer(() -> {
+
+            Integer processId = this.processId;
+            Integer secretKey = this.secretKey;
+
+            if (processId == null || secretKey == null) {
+                return Mono.error(new IllegalStateException("Connection does not yet have a processId and secretKey"));
+            }
+
+            SocketAddress remoteAddress = this.connection.channel().remoteAddress();
+            TcpClient tcpClient = this.socketOptions.configure(TcpClient.create(ConnectionProvider.newConnection()).addressSupplier(() -> remoteAddress), remoteAddress);
+
+            // the server closes the connection once it has signalled the backend, complete only then so that the cancel request cannot reach a later query
+            MonoProcessor<Void> processed = tcpClient.connect()
+                .flatMap(it -> it.outbound()
+                    .send(new CancelRequest(processId, secretKey).encode(it.outbound().alloc()))
+                    .then()
+                    .then(it.inbound().receive().then())
+                    .doFinally(ignore -> it.dispose()))
+                .toProcessor();
+
+            this.pendingCancelRequest = processed.onErrorResume(e -> Mono.empty());
+
+            return processed;
+        });
+    }
+
     @Override
     public ByteBufAllocator getByteBufAllocator() {
         return this.byteBufAllocator;
     }
 
+    @Override
+    public Optional<String> getParameterStatus(String name) {
+        return Optional.ofNullable(this.parameterStatus.get(name));
+    }
+
     @Override
     public Optional<Integer> getProcessId() {
         return Optional.ofNullable(this.processId);
@@ -482,13 +612,43 @@ public final class ReactorNettyClient implements Client {
      */
     private static class Conversation {
 
+        private final long id;
+
         private final FluxSink<BackendMessage> sink;
 
         private final Predicate<BackendMessage> takeUntil;
 
-        private Conversation(FluxSink<BackendMessage> sink, Predicate<BackendMessage> takeUntil) {
+        private final ReceiveBackpressure backpressure;
+
+        @Nullable
+        private final CancelRequestMessageFlow.Timer timer;
+
+        private final AtomicBoolean active = new AtomicBoolean();
+
+        private volatile boolean written;
+
+        private Conversation(long id, FluxSink<BackendMessage> sink, Predicate<BackendMessage> takeUntil, ReceiveBackpressure backpressure, @Nullable CancelRequestMessageFlow.Timer timer) {
+            this.id = id;
             this.sink = sink;
             this.takeUntil = takeUntil;
+            this.backpressure = backpressure;
+            this.timer = timer;
+        }
+
+        /**
+         * Called once the request of this conversation is written and all previous conversations have completed so the server works on this conversation.
+         */
+        private void activate() {
+            if (this.timer != null && this.active.compareAndSet(false, true)) {
+                this.timer.start();
+            }
+        }
+
+        private void complete() {
+            if (this.timer != null) {
+                this.timer.stop();
+            }
+            this.sink.complete();
         }
     }
 
@@ -536,32 +696,12 @@ public final class ReactorNettyClient implements Client {
         @Nullable
         private static final Class<? extends Channel> KQUEUE_SOCKET = findClass("io.netty.channel.kqueue.KQueueDomainSocketChannel");
 
-        private static final boolean kqueue;
+        private final LoopResources delegate;
 
-        static {
-            boolean kqueueCheck = false;
-            try {
-                Class.forName("io.netty.channel.kqueue.KQueue");
-                kqueueCheck = io.netty.channel.kqueue.KQueue.isAvailable();
-            } catch (ClassNotFoundException cnfe) {
-            }
-            kqueue = kqueueCheck;
+        SocketLoopResources(LoopResources delegate) {
+            this.delegate = Assert.requireNonNull(delegate, "delegate must not be null");
         }
 
-        private static final boolean epoll;
-
-        static {
-            boolean epollCheck = false;
-            try {
-                Class.forName("io.netty.channel.epoll.Epoll");
-                epollCheck = Epoll.isAvailable();
-            } catch (ClassNotFoundException cnfe) {
-            }
-            epoll = epollCheck;
-        }
-
-        private final LoopResources delegate = TcpResources.get();
-
         @SuppressWarnings("unchecked")
         private static Class<? extends Channel> findClass(String className) {
             try {
@@ -574,11 +714,11 @@ public final class ReactorNettyClient implements Client {
         @Override
         public Class<? extends Channel> onChannel(EventLoopGroup group) {
 
-            if (epoll && EPOLL_SOCKET != null) {
+            if (Transport.EPOLL.isAvailable() && EPOLL_SOCKET != null) {
                 return EPOLL_SOCKET;
             }
 
-            if (kqueue && KQUEUE_SOCKET != null) {
+            if (Transport.KQUEUE.isAvailable() && KQUEUE_SOCKET != null) {
                 return KQUEUE_SOCKET;
             }
 
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.buffer.ByteBuf;
+import io.r2dbc.postgresql.message.backend.BackendMessage;
+import io.r2dbc.postgresql.message.backend.CopyData;
+import io.r2dbc.postgresql.message.backend.DataRow;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.core.publisher.FluxSink;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Demand-aware flow control for messages received by a single conversation. Messages that are emitted without outstanding demand are buffered by the conversation's {@link FluxSink}. Once the
+ * buffered messages exceed the {@link #HIGH_WATERMARK high watermark}, reading from the transport is suspended. Reading resumes when demand brings the buffered messages below the
+ * {@link #LOW_WATERMARK low watermark} or the conversation terminates.
+ * <p>
+ * Message sizes are estimated from their payload so that memory usage is bounded regardless of result size and consumer speed.
+ */
+final class ReceiveBackpressure {
+
+    /**
+     * Buffered bytes above which reading is suspended.
+     */
+    static final long HIGH_WATERMARK = 1024 * 1024;
+
+    /**
+     * Buffered bytes below which reading is resumed.
+     */
+    static final long LOW_WATERMARK = 256 * 1024;
+
+    /**
+     * Estimated size of a message without payload.
+     */
+    static final int MESSAGE_OVERHEAD = 32;
+
+    private static final Logger logger = Loggers.getLogger(ReceiveBackpressure.class);
+
+    private final Consumer<Boolean> autoRead;
+
+    private final long highWatermark;
+
+    private final long lowWatermark;
+
+    private final Queue<Integer> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong buffered = new AtomicLong();
+
+    private final AtomicBoolean suspended = new AtomicBoolean();
+
+    ReceiveBackpressure(Consumer<Boolean> autoRead) {
+        this(autoRead, HIGH_WATERMARK, LOW_WATERMARK);
+    }
+
+    ReceiveBackpressure(Consumer<Boolean> autoRead, long highWatermark, long lowWatermark) {
+        this.autoRead = Assert.requireNonNull(autoRead, "autoRead must not be null");
+
+        if (lowWatermark > highWatermark) {
+            throw new IllegalArgumentException("lowWatermark must not be greater than highWatermark");
+        }
+
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+    }
+
+    /**
+     * Account for {@code message} before it is emitted to {@code sink}. Must be called from the receiving thread.
+     *
+     * @param sink    the sink the message is emitted to
+     * @param message the message to emit
+     */
+    void onNext(FluxSink<?> sink, BackendMessage message) {
+
+        if (this.pending.isEmpty() && sink.requestedFromDownstream() > 0) {
+            return;
+        }
+
+        int size = sizeOf(message);
+        this.pending.offer(size);
+
+        if (this.buffered.addAndGet(size) > this.highWatermark && this.suspended.compareAndSet(false, true)) {
+            logger.debug("Buffered {} bytes exceeding high watermark, suspending reads", this.buffered.get());
+            this.autoRead.accept(false);
+        }
+    }
+
+    /**
+     * Account for {@code n} requested messages that are delivered from the buffer.
+     *
+     * @param n the requested number of messages
+     */
+    void onRequest(long n) {
+
+        for (long i = 0; i < n; i++) {
+
+            Integer size = this.pending.poll();
+            if (size == null) {
+                break;
+            }
+
+            this.buffered.addAndGet(-size);
+        }
+
+        if (this.buffered.get() <= this.lowWatermark) {
+            resume();
+        }
+    }
+
+    /**
+     * Discard all buffer accounting and resume reading. Called when the conversation terminates.
+     */
+    void reset() {
+        this.pending.clear();
+        this.buffered.set(0);
+        resume();
+    }
+
+    long getBuffered() {
+        return this.buffered.get();
+    }
+
+    boolean isSuspended() {
+        return this.suspended.get();
+    }
+
+    static int sizeOf(BackendMessage message) {
+
+        int size = MESSAGE_OVERHEAD;
+
+        if (message instanceof DataRow) {
+            for (ByteBuf column : ((DataRow) message).getColumns()) {
+                if (column != null) {
+                    size += column.readableBytes();
+                }
+            }
+        }
+
+        if (message instanceof CopyData) {
+            size += ((CopyData) message).getData().readableBytes();
+        }
+
+        return size;
+    }
+
+    private void resume() {
+        if (this.suspended.compareAndSet(true, false)) {
+            logger.debug("Buffered {} bytes below low watermark, resuming reads", this.buffered.get());
+            this.autoRead.accept(true);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReceiveBackpressure{" +
+            "highWatermark=" + this.highWatermark +
+            ", lowWatermark=" + this.lowWatermark +
+            ", buffered=" + this.buffered +
+            ", suspended=" + this.suspended +
+            '}';
+    }
+
+}
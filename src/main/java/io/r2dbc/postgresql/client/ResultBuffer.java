@@ -0,0 +1,614 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import io.r2dbc.postgresql.message.backend.BackendMessage;
+import io.r2dbc.postgresql.message.backend.DataRow;
+import io.r2dbc.postgresql.util.Assert;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers the messages of a query result so that the server response is consumed as fast as the network allows, independent of the pace of the result subscriber. The connection becomes
+ * available for the next exchange as soon as the complete response has been received. {@link DataRow} messages exceeding the in-memory threshold are spilled to a temporary file and read back
+ * when requested by the subscriber. The temporary file is deleted when the buffered result terminates or gets cancelled.
+ * <p>
+ * File I/O never runs on the transport thread. Rows to spill are handed off to a {@link Schedulers#boundedElastic() bounded elastic} worker through a queue of at most
+ * {@link #SPILL_QUEUE_CAPACITY} rows. While the queue is full, no further messages are requested from the source so that the connection stops reading until the worker catches up. Spilled
+ * rows are read back on the same worker, at most {@link #READ_AHEAD} rows ahead of the subscriber.
+ */
+public final class ResultBuffer {
+
+    /**
+     * Number of messages requested from the source at a time.
+     */
+    static final int PREFETCH = 32;
+
+    /**
+     * Number of rows waiting to be spilled above which no further messages are requested from the source.
+     */
+    static final int SPILL_QUEUE_CAPACITY = 32;
+
+    /**
+     * Number of spilled rows read back ahead of the subscriber.
+     */
+    static final int READ_AHEAD = 32;
+
+    private static final Logger logger = Loggers.getLogger(ResultBuffer.class);
+
+    private final FluxSink<BackendMessage> sink;
+
+    private final ByteBufAllocator allocator;
+
+    private final long memoryThreshold;
+
+    private final ArrayDeque<Object> entries = new ArrayDeque<>();
+
+    private final ArrayDeque<DataRow> spillQueue = new ArrayDeque<>();
+
+    private final ArrayDeque<DataRow> readAhead = new ArrayDeque<>();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final AtomicInteger ioWip = new AtomicInteger();
+
+    private final ByteBuffer header = ByteBuffer.allocate(4);
+
+    @Nullable
+    private volatile Subscription upstream;
+
+    @Nullable
+    private Scheduler.Worker worker;
+
+    @Nullable
+    private FileChannel file;
+
+    private long outstanding;
+
+    private long memory;
+
+    private long spilledRows;
+
+    private long readRows;
+
+    private long readPosition;
+
+    private long writePosition;
+
+    private boolean done;
+
+    private boolean disposed;
+
+    @Nullable
+    private Throwable error;
+
+    private ResultBuffer(FluxSink<BackendMessage> sink, ByteBufAllocator allocator, long memoryThreshold) {
+        this.sink = sink;
+        this.allocator = allocator;
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * Buffer {@code messages}. The source is consumed independently of downstream demand and {@link DataRow} messages exceeding {@code memoryThreshold} bytes are spilled to a temporary file.
+     *
+     * @param messages        the messages received in response to a query
+     * @param allocator       the allocator for rows read back from the temporary file
+     * @param memoryThreshold the number of row bytes to keep in memory before spilling rows to disk
+     * @return the buffered messages
+     * @throws IllegalArgumentException if {@code messages} or {@code allocator} is {@code null} or {@code memoryThreshold} is negative
+     */
+    public static Flux<BackendMessage> buffer(Flux<BackendMessage> messages, ByteBufAllocator allocator, long memoryThreshold) {
+        Assert.requireNonNull(messages, "messages must not be null");
+        Assert.requireNonNull(allocator, "allocator must not be null");
+
+        if (memoryThreshold < 0) {
+            throw new IllegalArgumentException("memoryThreshold must be greater or equal to zero");
+        }
+
+        return Flux.create(sink -> {
+
+            ResultBuffer buffer = new ResultBuffer(sink, allocator, memoryThreshold);
+
+            sink.onRequest(ignore -> buffer.drain());
+            sink.onDispose(buffer::dispose);
+
+            messages.subscribe(buffer::offer, buffer::onError, buffer::onComplete, buffer::onSubscribe);
+        });
+    }
+
+    private void onSubscribe(Subscription subscription) {
+        this.upstream = subscription;
+        replenish();
+    }
+
+    private void offer(BackendMessage message) {
+
+        boolean spill = false;
+
+        synchronized (this) {
+
+            this.outstanding--;
+
+            if (this.disposed) {
+                ReferenceCountUtil.release(message);
+            } else {
+
+                int size = sizeOf(message);
+
+                // streamed columns are still being received and cannot be written to disk
+                if (message instanceof DataRow && !((DataRow) message).hasStreamedColumns() && (this.memory + size) > this.memoryThreshold) {
+
+                    this.spillQueue.add((DataRow) message);
+                    spill = true;
+
+                    Object tail = this.entries.peekLast();
+
+                    if (tail instanceof SpilledRows) {
+                        ((SpilledRows) tail).count++;
+                    } else {
+                        this.entries.add(new SpilledRows());
+                    }
+                } else {
+                    this.entries.add(message);
+                    this.memory += size;
+                }
+            }
+        }
+
+        if (spill) {
+            scheduleIo();
+        }
+
+        replenish();
+        drain();
+    }
+
+    private void onError(Throwable throwable) {
+
+        synchronized (this) {
+            this.error = throwable;
+            this.done = true;
+        }
+
+        drain();
+    }
+
+    private void onComplete() {
+
+        synchronized (this) {
+            this.done = true;
+        }
+
+        drain();
+    }
+
+    /**
+     * Request further messages from the source unless the spill queue is full. A disposed buffer keeps requesting to consume the remaining response.
+     */
+    private void replenish() {
+
+        Subscription upstream = this.upstream;
+
+        if (upstream == null) {
+            return;
+        }
+
+        long n;
+
+        synchronized (this) {
+
+            if (this.spillQueue.size() >= SPILL_QUEUE_CAPACITY || this.outstanding > PREFETCH / 2) {
+                return;
+            }
+
+            n = PREFETCH - this.outstanding;
+            this.outstanding = PREFETCH;
+        }
+
+        upstream.request(n);
+    }
+
+    private void drain() {
+
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+
+        for (; ; ) {
+
+            while (this.sink.requestedFromDownstream() > 0 && !this.sink.isCancelled()) {
+
+                BackendMessage message = poll();
+
+                if (message == null) {
+                    break;
+                }
+
+                this.sink.next(message);
+            }
+
+            boolean terminated;
+            Throwable error;
+
+            synchronized (this) {
+                terminated = this.done && this.entries.isEmpty();
+                error = this.error;
+            }
+
+            if (terminated) {
+                dispose();
+
+                if (error != null) {
+                    this.sink.error(error);
+                } else {
+                    this.sink.complete();
+                }
+                return;
+            }
+
+            missed = this.wip.addAndGet(-missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    @Nullable
+    private synchronized BackendMessage poll() {
+
+        Object head = this.entries.peek();
+
+        if (head == null || this.disposed) {
+            return null;
+        }
+
+        if (head instanceof SpilledRows) {
+
+            DataRow row = this.readAhead.poll();
+
+            if (row == null) {
+                scheduleIo();
+                return null;
+            }
+
+            SpilledRows spilled = (SpilledRows) head;
+            if (--spilled.count == 0) {
+                this.entries.poll();
+            }
+
+            return row;
+        }
+
+        this.entries.poll();
+        this.memory -= sizeOf((BackendMessage) head);
+
+        return (BackendMessage) head;
+    }
+
+    private void scheduleIo() {
+
+        if (this.ioWip.getAndIncrement() != 0) {
+            return;
+        }
+
+        synchronized (this) {
+
+            if (this.disposed) {
+                return;
+            }
+
+            if (this.worker == null) {
+                this.worker = Schedulers.boundedElastic().createWorker();
+            }
+
+            this.worker.schedule(this::io);
+        }
+    }
+
+    /**
+     * Spill queued rows and read back spilled rows. Runs on the I/O worker.
+     */
+    private void io() {
+
+        int missed = 1;
+
+        for (; ; ) {
+
+            if (!spillQueued() || !readAhead()) {
+                return;
+            }
+
+            replenish();
+            drain();
+
+            missed = this.ioWip.addAndGet(-missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    private boolean spillQueued() {
+
+        for (; ; ) {
+
+            DataRow row;
+
+            synchronized (this) {
+
+                if (this.disposed) {
+                    return false;
+                }
+
+                row = this.spillQueue.poll();
+            }
+
+            if (row == null) {
+                return true;
+            }
+
+            try {
+                spill(row);
+            } catch (IOException e) {
+                fail(new R2dbcNonTransientResourceException("Cannot spill result to disk", e));
+                return false;
+            } finally {
+                ReferenceCountUtil.release(row);
+            }
+
+            synchronized (this) {
+                this.spilledRows++;
+            }
+        }
+    }
+
+    private boolean readAhead() {
+
+        for (; ; ) {
+
+            synchronized (this) {
+
+                if (this.disposed) {
+                    return false;
+                }
+
+                if (this.readAhead.size() >= READ_AHEAD || this.readRows >= this.spilledRows) {
+                    return true;
+                }
+            }
+
+            DataRow row;
+            try {
+                row = readRow();
+            } catch (IOException e) {
+                fail(new R2dbcNonTransientResourceException("Cannot read spilled result from disk", e));
+                return false;
+            }
+
+            synchronized (this) {
+
+                if (this.disposed) {
+                    ReferenceCountUtil.release(row);
+                    return false;
+                }
+
+                this.readAhead.add(row);
+                this.readRows++;
+            }
+        }
+    }
+
+    private void fail(Throwable error) {
+
+        synchronized (this) {
+            this.error = error;
+            this.done = true;
+        }
+
+        dispose();
+        drain();
+    }
+
+    private void spill(DataRow dataRow) throws IOException {
+
+        FileChannel file = this.file;
+
+        if (file == null) {
+            Path path = Files.createTempFile("r2dbc-postgresql-", ".spill");
+            file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            this.file = file;
+
+            logger.debug("Result exceeds {} bytes, spilling rows to {}", this.memoryThreshold, path);
+        }
+
+        ByteBuf[] columns = dataRow.getColumns();
+        ByteBuf buffer = this.allocator.heapBuffer(sizeOf(dataRow));
+
+        try {
+            buffer.writeInt(columns.length);
+
+            for (ByteBuf column : columns) {
+                if (column == null) {
+                    buffer.writeInt(-1);
+                } else {
+                    buffer.writeInt(column.readableBytes());
+                    buffer.writeBytes(column, column.readerIndex(), column.readableBytes());
+                }
+            }
+
+            while (buffer.isReadable()) {
+                this.writePosition += buffer.readBytes(file, this.writePosition, buffer.readableBytes());
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private DataRow readRow() throws IOException {
+
+        ByteBuf[] columns = new ByteBuf[readInt()];
+
+        try {
+            for (int i = 0; i < columns.length; i++) {
+
+                int length = readInt();
+                if (length == -1) {
+                    continue;
+                }
+
+                ByteBuf column = this.allocator.buffer(length);
+                columns[i] = column;
+
+                while (column.writableBytes() > 0) {
+
+                    int read = column.writeBytes(this.file, this.readPosition, column.writableBytes());
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of spill file");
+                    }
+
+                    this.readPosition += read;
+                }
+            }
+        } catch (IOException e) {
+            for (ByteBuf column : columns) {
+                ReferenceCountUtil.release(column);
+            }
+            throw e;
+        }
+
+        return new DataRow(columns);
+    }
+
+    private int readInt() throws IOException {
+
+        this.header.clear();
+
+        while (this.header.hasRemaining()) {
+
+            int read = this.file.read(this.header, this.readPosition);
+            if (read < 0) {
+                throw new IOException("Unexpected end of spill file");
+            }
+
+            this.readPosition += read;
+        }
+
+        this.header.flip();
+        return this.header.getInt();
+    }
+
+    /**
+     * Release buffered messages. The spill file is closed on the I/O worker after pending I/O has finished.
+     */
+    private synchronized void dispose() {
+
+        if (this.disposed) {
+            return;
+        }
+
+        this.disposed = true;
+
+        release(this.entries);
+        release(this.spillQueue);
+        release(this.readAhead);
+        this.memory = 0;
+
+        Scheduler.Worker worker = this.worker;
+
+        if (worker != null) {
+            worker.schedule(() -> {
+                closeFile();
+                worker.dispose();
+            });
+        }
+    }
+
+    private void closeFile() {
+
+        if (this.file != null) {
+            try {
+                this.file.close();
+            } catch (IOException e) {
+                logger.debug("Cannot close spill file", e);
+            }
+            this.file = null;
+        }
+    }
+
+    private static void release(ArrayDeque<?> entries) {
+
+        for (Object entry : entries) {
+            ReferenceCountUtil.release(entry);
+        }
+
+        entries.clear();
+    }
+
+    private static int sizeOf(BackendMessage message) {
+
+        if (!(message instanceof DataRow)) {
+            return 0;
+        }
+
+        int size = 4;
+        for (ByteBuf column : ((DataRow) message).getColumns()) {
+            size += column != null ? column.readableBytes() + 4 : 4;
+        }
+
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultBuffer{" +
+            "memoryThreshold=" + this.memoryThreshold +
+            ", memory=" + this.memory +
+            ", spilled=" + this.writePosition +
+            '}';
+    }
+
+    /**
+     * A run of consecutive rows that were spilled to the temporary file.
+     */
+    private static final class SpilledRows {
+
+        private int count = 1;
+
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import io.r2dbc.postgresql.message.backend.BackendMessage;
+import io.r2dbc.postgresql.message.backend.DataRow;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks rows that are drained from the server after the consumer of a query result has cancelled its subscription. Rows count as drained if the results were {@link #cancel() cancelled} and
+ * no individual result is consuming rows. Once the {@link DrainLimit} is exceeded, a {@link Client#cancelRequest() cancel request} is sent to the server and all remaining frames are discarded
+ * until the exchange completes with {@code ReadyForQuery}. The messages complete only once the server has processed the cancel request.
+ * <p>
+ * Queries are only cancelled when running outside of a transaction as cancellation aborts an explicit transaction. Callers pass {@link DrainLimit#UNLIMITED} for queries that must run to
+ * completion, such as statements that modify data or multiple statements. A {@link ResultDrain} is stateful and must be created for each execution.
+ */
+public final class ResultDrain {
+
+    private static final Logger logger = Loggers.getLogger(ResultDrain.class);
+
+    private final Client client;
+
+    private final DrainLimit limit;
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    private final AtomicInteger consumers = new AtomicInteger();
+
+    private volatile boolean discarding;
+
+    @Nullable
+    private volatile Mono<Void> cancelRequest;
+
+    private long rows;
+
+    private long bytes;
+
+    private ResultDrain(Client client, DrainLimit limit) {
+        this.client = client;
+        this.limit = limit;
+    }
+
+    /**
+     * Create a new {@link ResultDrain} for a query executed on {@code client}.
+     *
+     * @param client the {@link Client} that executes the query
+     * @param limit  the drain limit
+     * @return the result drain
+     * @throws IllegalArgumentException if {@code client} or {@code limit} is {@code null}
+     */
+    public static ResultDrain create(Client client, DrainLimit limit) {
+        Assert.requireNonNull(client, "client must not be null");
+        Assert.requireNonNull(limit, "limit must not be null");
+
+        return new ResultDrain(client, client.getTransactionStatus() == TransactionStatus.IDLE ? limit : DrainLimit.UNLIMITED);
+    }
+
+    /**
+     * Signal that the subscriber of the results has cancelled its subscription and that the results are being drained.
+     */
+    public void cancel() {
+        this.cancelled.set(true);
+    }
+
+    /**
+     * Apply drain tracking to the messages received in response to the query.
+     *
+     * @param messages the messages received in response to the query
+     * @return {@code messages} with drain tracking applied
+     * @throws IllegalArgumentException if {@code messages} is {@code null}
+     */
+    public Flux<BackendMessage> messages(Flux<BackendMessage> messages) {
+        Assert.requireNonNull(messages, "messages must not be null");
+
+        if (this.limit.isUnlimited()) {
+            return messages;
+        }
+
+        return messages.<BackendMessage>handle((message, sink) -> {
+
+            if (this.discarding) {
+                ReferenceCountUtil.release(message);
+                return;
+            }
+
+            if (message instanceof DataRow && this.cancelled.get() && this.consumers.get() == 0 && isExceeded((DataRow) message)) {
+
+                logger.debug("Drained {} rows ({} bytes) exceeding {}, sending cancel request", this.rows, this.bytes, this.limit);
+
+                this.discarding = true;
+                this.cancelRequest = this.client.cancelRequest()
+                    .onErrorResume(e -> {
+                        logger.debug("Cannot send cancel request", e);
+                        return Mono.empty();
+                    })
+                    .cache();
+                this.cancelRequest.subscribe();
+                ReferenceCountUtil.release(message);
+                return;
+            }
+
+            sink.next(message);
+        }).concatWith(Mono.defer(this::awaitCancelRequest));
+    }
+
+    /**
+     * Apply consumer tracking to the messages of an individual result. Rows received while a result is subscribed do not count as drained.
+     *
+     * @param messages the messages of an individual result
+     * @return {@code messages} with consumer tracking applied
+     * @throws IllegalArgumentException if {@code messages} is {@code null}
+     */
+    public Flux<BackendMessage> result(Flux<BackendMessage> messages) {
+        Assert.requireNonNull(messages, "messages must not be null");
+
+        if (this.limit.isUnlimited()) {
+            return messages;
+        }
+
+        return messages
+            .doOnSubscribe(ignore -> this.consumers.incrementAndGet())
+            .doFinally(ignore -> this.consumers.decrementAndGet());
+    }
+
+    private Mono<BackendMessage> awaitCancelRequest() {
+        Mono<Void> cancelRequest = this.cancelRequest;
+        return cancelRequest == null ? Mono.empty() : cancelRequest.then(Mono.empty());
+    }
+
+    private boolean isExceeded(DataRow dataRow) {
+
+        this.rows++;
+        for (ByteBuf column : dataRow.getColumns()) {
+            if (column != null) {
+                this.bytes += column.readableBytes();
+            }
+        }
+
+        return this.limit.isExceeded(this.rows, this.bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "ResultDrain{" +
+            "limit=" + this.limit +
+            ", cancelled=" + this.cancelled +
+            ", discarding=" + this.discarding +
+            ", rows=" + this.rows +
+            ", bytes=" + this.bytes +
+            '}';
+    }
+
+}
@@ -17,8 +17,12 @@
 package io.r2dbc.postgresql.client;
 
 
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
 import io.r2dbc.postgresql.util.Assert;
 import reactor.netty.tcp.SslProvider;
+import reactor.util.Logger;
+import reactor.util.Loggers;
 import reactor.util.annotation.Nullable;
 
 import javax.net.ssl.HostnameVerifier;
@@ -26,13 +30,15 @@ import java.util.function.Supplier;
 
 public final class SSLConfig {
 
+    private static final Logger LOGGER = Loggers.getLogger(SSLConfig.class);
+
     @Nullable
     private final HostnameVerifier hostnameVerifier;
 
     private final SSLMode sslMode;
 
     @Nullable
-    private final Supplier<SslProvider> sslProvider;
+    private final CachingSslProviderSupplier sslProvider;
 
     public SSLConfig(SSLMode sslMode, @Nullable Supplier<SslProvider> sslProvider, @Nullable HostnameVerifier hostnameVerifier) {
         if (sslMode != SSLMode.DISABLE) {
@@ -42,7 +48,7 @@ public final class SSLConfig {
             Assert.requireNonNull(hostnameVerifier, "Hostname verifier is required for ssl mode verify-full");
         }
         this.sslMode = sslMode;
-        this.sslProvider = sslProvider;
+        this.sslProvider = sslProvider == null ? null : CachingSslProviderSupplier.of(sslProvider);
         this.hostnameVerifier = hostnameVerifier;
     }
 
@@ -65,6 +71,48 @@ public final class SSLConfig {
         return this.sslProvider;
     }
 
+    /**
+     * Returns the {@link SslContext} to create an engine with. The context is retained and must be released once the engine is created.
+     *
+     * @return the retained {@link SslContext}
+     * @throws IllegalStateException if SSL is disabled
+     */
+    SslContext retainSslContext() {
+        if (this.sslProvider == null) {
+            throw new IllegalStateException("SSL Mode disabled. SslProvider not available");
+        }
+        return this.sslProvider.retainSslContext();
+    }
+
+    /**
+     * Discard the cached {@link SslProvider} so that the next connection builds a new {@link io.netty.handler.ssl.SslContext}, re-reading certificates and keys. Intended for certificate
+     * rotation. Connections sharing the same {@link SslProvider} (e.g. through {@link #mutateMode(SSLMode)}) are refreshed as well.
+     */
+    public void refreshSslProvider() {
+        if (this.sslProvider != null) {
+            this.sslProvider.refresh();
+        }
+    }
+
+    /**
+     * Resolve the {@link io.netty.handler.ssl.SslProvider SSL engine implementation} to use. OpenSSL-based implementations require netty-tcnative on the class path and fall back to
+     * {@link io.netty.handler.ssl.SslProvider#JDK} if OpenSSL is not available.
+     *
+     * @param requested the requested SSL engine implementation
+     * @return the SSL engine implementation to use
+     * @throws IllegalArgumentException if {@code requested} is {@code null}
+     */
+    public static io.netty.handler.ssl.SslProvider resolveEngineProvider(io.netty.handler.ssl.SslProvider requested) {
+        Assert.requireNonNull(requested, "requested must not be null");
+
+        if (requested == io.netty.handler.ssl.SslProvider.JDK || OpenSsl.isAvailable()) {
+            return requested;
+        }
+
+        LOGGER.debug("OpenSSL is not available, falling back to JDK SSL engine", OpenSsl.unavailabilityCause());
+        return io.netty.handler.ssl.SslProvider.JDK;
+    }
+
     public SSLConfig mutateMode(SSLMode newMode) {
         return new SSLConfig(
             newMode,
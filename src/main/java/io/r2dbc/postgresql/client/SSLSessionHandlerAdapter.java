@@ -21,15 +21,19 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import io.r2dbc.postgresql.message.frontend.SSLRequest;
 import io.r2dbc.spi.R2dbcPermissionDeniedException;
 import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
 
 import javax.net.ssl.SSLEngine;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.concurrent.CompletableFuture;
 
 // https://www.postgresql.org/docs/current/protocol-flow.html#id-1.10.5.7.11
@@ -45,12 +49,28 @@ final class SSLSessionHandlerAdapter extends ChannelInboundHandlerAdapter implem
 
     private final CompletableFuture<Void> handshakeFuture;
 
-    SSLSessionHandlerAdapter(ByteBufAllocator alloc, SSLConfig sslConfig) {
+    /**
+     * Create the adapter with an {@link SSLEngine} for {@code peerAddress}. Passing the peer host and port allows the engine to resume TLS sessions cached by the shared
+     * {@link io.netty.handler.ssl.SslContext}.
+     */
+    SSLSessionHandlerAdapter(ByteBufAllocator alloc, SSLConfig sslConfig, @Nullable SocketAddress peerAddress) {
         this.alloc = alloc;
         this.sslConfig = sslConfig;
-        this.sslEngine = sslConfig.getSslProvider().get()
-            .getSslContext()
-            .newEngine(alloc);
+
+        // retain the context while creating the engine so that a concurrent refresh cannot release it
+        SslContext sslContext = sslConfig.retainSslContext();
+
+        try {
+            if (peerAddress instanceof InetSocketAddress) {
+                InetSocketAddress inetAddress = (InetSocketAddress) peerAddress;
+                this.sslEngine = sslContext.newEngine(alloc, inetAddress.getHostString(), inetAddress.getPort());
+            } else {
+                this.sslEngine = sslContext.newEngine(alloc);
+            }
+        } finally {
+            ReferenceCountUtil.release(sslContext);
+        }
+
         this.handshakeFuture = new CompletableFuture<>();
         this.sslHandler = new SslHandler(this.sslEngine);
         this.sslHandler.handshakeFuture().addListener(this);
@@ -93,6 +113,10 @@ final class SSLSessionHandlerAdapter extends ChannelInboundHandlerAdapter implem
     }
 
     private void processSslDisabled(ChannelHandlerContext ctx, Object msg) {
+
+        // the engine is not going to be added to the pipeline, release it in case it is reference-counted (OpenSSL)
+        ReferenceCountUtil.release(this.sslEngine);
+
         if (this.sslConfig.getSslMode().requireSsl()) {
             PostgresqlSslException e =
                 new PostgresqlSslException("Server support for SSL connection is disabled, but client was configured with SSL mode " + this.sslConfig.getSslMode());
@@ -105,6 +129,8 @@ final class SSLSessionHandlerAdapter extends ChannelInboundHandlerAdapter implem
     private void processSslEnabled(ChannelHandlerContext ctx, Object msg) {
         if (this.sslConfig.getSslMode() == SSLMode.DISABLE) {
 
+            ReferenceCountUtil.release(this.sslEngine);
+
             PostgresqlSslException e = new PostgresqlSslException("Server requires SSL handshake, but client was configured with SSL mode DISABLE");
             this.handshakeFuture.completeExceptionally(e);
             return;
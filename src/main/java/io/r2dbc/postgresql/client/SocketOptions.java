@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.tcp.TcpClient;
+import reactor.netty.tcp.TcpResources;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * Transport and socket configuration applied to the {@link TcpClient} of a connection.
+ */
+public final class SocketOptions {
+
+    private static final Logger LOGGER = Loggers.getLogger(SocketOptions.class);
+
+    private final Transport transport;
+
+    private final Transport resolvedTransport;
+
+    private final LoopResources loopResources;
+
+    private final boolean tcpNoDelay;
+
+    private final int receiveBufferSize;
+
+    private final int sendBufferSize;
+
+    private final int busyPollMicros;
+
+    /**
+     * Create new {@link SocketOptions}.
+     *
+     * @param transport         the transport to use for TCP connections
+     * @param loopResources     the event loops to run connections on. {@code null} to use the shared {@link TcpResources}
+     * @param tcpNoDelay        whether to enable {@code TCP_NODELAY}
+     * @param receiveBufferSize the {@code SO_RCVBUF} size in bytes. {@code 0} to use the operating system default
+     * @param sendBufferSize    the {@code SO_SNDBUF} size in bytes. {@code 0} to use the operating system default
+     * @param busyPollMicros    the {@code SO_BUSY_POLL} time in microseconds, applies to the epoll transport only. {@code 0} to disable busy polling
+     * @throws IllegalArgumentException if {@code transport} is {@code null} or any of the sizes is negative
+     */
+    public SocketOptions(Transport transport, @Nullable LoopResources loopResources, boolean tcpNoDelay, int receiveBufferSize, int sendBufferSize, int busyPollMicros) {
+        this.transport = Assert.requireNonNull(transport, "transport must not be null");
+
+        if (receiveBufferSize < 0) {
+            throw new IllegalArgumentException("receiveBufferSize must not be negative");
+        }
+
+        if (sendBufferSize < 0) {
+            throw new IllegalArgumentException("sendBufferSize must not be negative");
+        }
+
+        if (busyPollMicros < 0) {
+            throw new IllegalArgumentException("busyPollMicros must not be negative");
+        }
+
+        this.resolvedTransport = transport.resolve();
+        this.loopResources = loopResources != null ? loopResources : TcpResources.get();
+        this.tcpNoDelay = tcpNoDelay;
+        this.receiveBufferSize = receiveBufferSize;
+        this.sendBufferSize = sendBufferSize;
+        this.busyPollMicros = busyPollMicros;
+
+        if (transport.isNative() && this.resolvedTransport != transport) {
+            LOGGER.warn("Transport {} is not available, falling back to {}", transport, this.resolvedTransport);
+        }
+
+        if (busyPollMicros != 0 && this.resolvedTransport != Transport.EPOLL) {
+            LOGGER.warn("Busy polling requires the EPOLL transport and is not applied to {} connections", this.resolvedTransport);
+        }
+    }
+
+    /**
+     * Returns {@link SocketOptions} using {@link Transport#AUTO} on the shared {@link TcpResources} with {@code TCP_NODELAY} enabled.
+     *
+     * @return the default {@link SocketOptions}
+     */
+    public static SocketOptions defaults() {
+        return new SocketOptions(Transport.AUTO, null, true, 0, 0, 0);
+    }
+
+    public LoopResources getLoopResources() {
+        return this.loopResources;
+    }
+
+    /**
+     * Returns the transport used for TCP connections after falling back from an unavailable transport.
+     *
+     * @return the resolved transport
+     */
+    public Transport getTransport() {
+        return this.resolvedTransport;
+    }
+
+    public int getBusyPollMicros() {
+        return this.busyPollMicros;
+    }
+
+    public int getReceiveBufferSize() {
+        return this.receiveBufferSize;
+    }
+
+    public int getSendBufferSize() {
+        return this.sendBufferSize;
+    }
+
+    public boolean isTcpNoDelay() {
+        return this.tcpNoDelay;
+    }
+
+    /**
+     * Apply these options to {@code tcpClient} connecting to {@code socketAddress}. Unix domain socket connections run on the native transport and ignore TCP options.
+     *
+     * @param tcpClient     the client to configure
+     * @param socketAddress the address to connect to
+     * @return the configured {@link TcpClient}
+     */
+    TcpClient configure(TcpClient tcpClient, SocketAddress socketAddress) {
+
+        if (!(socketAddress instanceof InetSocketAddress)) {
+            return tcpClient.runOn(new ReactorNettyClient.SocketLoopResources(this.loopResources), true);
+        }
+
+        TcpClient configured = tcpClient.runOn(this.loopResources, this.resolvedTransport.isNative())
+            .option(ChannelOption.TCP_NODELAY, this.tcpNoDelay);
+
+        if (this.receiveBufferSize != 0) {
+            configured = configured.option(ChannelOption.SO_RCVBUF, this.receiveBufferSize);
+        }
+
+        if (this.sendBufferSize != 0) {
+            configured = configured.option(ChannelOption.SO_SNDBUF, this.sendBufferSize);
+        }
+
+        if (this.busyPollMicros != 0 && this.resolvedTransport == Transport.EPOLL) {
+            configured = configured.option(EpollChannelOption.SO_BUSY_POLL, this.busyPollMicros);
+        }
+
+        return configured;
+    }
+
+    @Override
+    public String toString() {
+        return "SocketOptions{" +
+            "transport=" + this.transport +
+            ", resolvedTransport=" + this.resolvedTransport +
+            ", loopResources=" + this.loopResources +
+            ", tcpNoDelay=" + this.tcpNoDelay +
+            ", receiveBufferSize=" + this.receiveBufferSize +
+            ", sendBufferSize=" + this.sendBufferSize +
+            ", busyPollMicros=" + this.busyPollMicros +
+            '}';
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.kqueue.KQueue;
+
+/**
+ * Channel transport used for TCP connections. Native transports require the corresponding {@code netty-transport-native-*} artifact on the class path.
+ */
+public enum Transport {
+
+    /**
+     * Use the native transport of the operating system if available and NIO otherwise.
+     */
+    AUTO,
+
+    /**
+     * Use the JDK NIO transport.
+     */
+    NIO,
+
+    /**
+     * Use the Linux epoll transport.
+     */
+    EPOLL,
+
+    /**
+     * Use the BSD/macOS kqueue transport.
+     */
+    KQUEUE;
+
+    private static final boolean EPOLL_AVAILABLE;
+
+    private static final boolean KQUEUE_AVAILABLE;
+
+    static {
+        boolean epollCheck = false;
+        try {
+            Class.forName("io.netty.channel.epoll.Epoll");
+            epollCheck = Epoll.isAvailable();
+        } catch (ClassNotFoundException cnfe) {
+        }
+        EPOLL_AVAILABLE = epollCheck;
+
+        boolean kqueueCheck = false;
+        try {
+            Class.forName("io.netty.channel.kqueue.KQueue");
+            kqueueCheck = KQueue.isAvailable();
+        } catch (ClassNotFoundException cnfe) {
+        }
+        KQUEUE_AVAILABLE = kqueueCheck;
+    }
+
+    /**
+     * Returns whether this transport can be used in the current environment.
+     *
+     * @return {@code true} if the transport is available
+     */
+    public boolean isAvailable() {
+        switch (this) {
+            case EPOLL:
+                return EPOLL_AVAILABLE;
+            case KQUEUE:
+                return KQUEUE_AVAILABLE;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Returns whether this transport is a native transport.
+     *
+     * @return {@code true} if the transport is a native transport
+     */
+    public boolean isNative() {
+        return this == EPOLL || this == KQUEUE;
+    }
+
+    /**
+     * Resolve the transport to use. {@link #AUTO} resolves to the available native transport, an unavailable native transport resolves to {@link #NIO}.
+     *
+     * @return the resolved transport, never {@link #AUTO}
+     */
+    Transport resolve() {
+
+        if (this == AUTO) {
+            return EPOLL_AVAILABLE ? EPOLL : KQUEUE_AVAILABLE ? KQUEUE : NIO;
+        }
+
+        return isAvailable() ? this : NIO;
+    }
+
+}
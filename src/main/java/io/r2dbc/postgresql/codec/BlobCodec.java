@@ -18,24 +18,19 @@ package io.r2dbc.postgresql.codec;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
-import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.r2dbc.postgresql.client.Parameter;
 import io.r2dbc.postgresql.message.Format;
 import io.r2dbc.postgresql.type.PostgresqlObjectId;
 import io.r2dbc.postgresql.util.Assert;
-import io.r2dbc.postgresql.util.ByteBufUtils;
 import io.r2dbc.spi.Blob;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.annotation.Nullable;
 
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import static io.r2dbc.postgresql.message.Format.FORMAT_TEXT;
+import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
 import static io.r2dbc.postgresql.type.PostgresqlObjectId.BYTEA;
 
 final class BlobCodec extends AbstractCodec<Blob> {
@@ -49,7 +44,7 @@ final class BlobCodec extends AbstractCodec<Blob> {
 
     @Override
     public Parameter encodeNull() {
-        return createNull(BYTEA, FORMAT_TEXT);
+        return createNull(BYTEA, FORMAT_BINARY);
     }
 
     @Override
@@ -67,73 +62,45 @@ final class BlobCodec extends AbstractCodec<Blob> {
         return new ByteABlob(buffer, format);
     }
 
+    /**
+     * Encode {@code value} in binary format. Each item of {@link Blob#stream()} is sent as a separate buffer. The buffers of a value become the components of a single unbounded composite buffer so they are not copied until the bind message is written.
+     */
     @Override
     Parameter doEncode(Blob value) {
         Assert.requireNonNull(value, "value must not be null");
 
-        return create(BYTEA, FORMAT_TEXT,
+        return create(BYTEA, FORMAT_BINARY,
             Flux.from(value.stream())
-                .reduce(this.byteBufAllocator.compositeBuffer(), (a, b) -> a.addComponent(true, Unpooled.wrappedBuffer(b)))
-                .map(this::toHexFormat)
+                .map(buffer -> this.byteBufAllocator.buffer(buffer.remaining()).writeBytes(buffer))
+                .doOnDiscard(ByteBuf.class, ByteBuf::release)
                 .concatWith(Flux.from(value.discard())
                     .then(Mono.empty()))
         );
     }
 
-    private ByteBuf toHexFormat(ByteBuf b) {
-        int blobSize = b.readableBytes();
-        ByteBuf buf = this.byteBufAllocator.buffer(2 + blobSize * 2);
-        buf.writeByte('\\').writeByte('x');
-
-        int chunkSize = 1024;
-
-        while (b.isReadable()) {
-            chunkSize = Math.min(chunkSize, b.readableBytes());
-            buf.writeCharSequence(ByteBufUtil.hexDump(b, b.readerIndex(), chunkSize), StandardCharsets.US_ASCII);
-            b.skipBytes(chunkSize);
-        }
-        b.release();
-
-        return buf;
-    }
-
+    /**
+     * {@link Blob} backed by a completely received {@code bytea} value. The value is copied to the heap so that the {@link Blob} does not retain the buffer of the row, which would leak
+     * pooled memory if the {@link Blob} is neither streamed nor discarded. The value is streamed in chunks of at most {@link StreamedLobs#CHUNK_SIZE} bytes and can be streamed repeatedly.
+     */
     private static final class ByteABlob implements Blob {
 
-        private static final Pattern BLOB_PATTERN = Pattern.compile("\\\\x([\\p{XDigit}]+)");
-
         private final ByteBuf byteBuf;
 
         private final Format format;
 
-        private ByteABlob(ByteBuf byteBuf, Format format) {
-            this.byteBuf = byteBuf.retain();
-            this.format = format;
+        private ByteABlob(ByteBuf byteBuf, @Nullable Format format) {
+            this.byteBuf = Unpooled.copiedBuffer(byteBuf);
+            this.format = format == null ? Format.FORMAT_TEXT : format;
         }
 
         @Override
         public Mono<Void> discard() {
-            return Mono.fromRunnable(() -> {
-                if (this.byteBuf.refCnt() > 0) {
-                    this.byteBuf.release();
-                }
-            });
+            return Mono.empty();
         }
 
         @Override
-        public Mono<ByteBuffer> stream() {
-            return Mono.fromSupplier(() -> {
-                if (this.format == Format.FORMAT_BINARY) {
-                    return this.byteBuf.nioBuffer();
-                }
-
-                Matcher matcher = BLOB_PATTERN.matcher(ByteBufUtils.decode(this.byteBuf));
-
-                if (!matcher.find()) {
-                    throw new IllegalStateException("ByteBuf does not contain BYTEA hex format");
-                }
-
-                return ByteBuffer.wrap(ByteBufUtil.decodeHexDump(matcher.group(1)));
-            }).doAfterTerminate(this.byteBuf::release);
+        public Flux<ByteBuffer> stream() {
+            return StreamedLobs.toByteBuffers(StreamedLobs.split(this.byteBuf), this.format);
         }
     }
 
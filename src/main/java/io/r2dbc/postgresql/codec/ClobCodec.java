@@ -18,6 +18,7 @@ package io.r2dbc.postgresql.codec;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.r2dbc.postgresql.client.Parameter;
 import io.r2dbc.postgresql.message.Format;
 import io.r2dbc.postgresql.type.PostgresqlObjectId;
@@ -26,6 +27,7 @@ import io.r2dbc.postgresql.util.ByteBufUtils;
 import io.r2dbc.spi.Clob;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
 import reactor.util.annotation.Nullable;
 
 import static io.r2dbc.postgresql.message.Format.FORMAT_TEXT;
@@ -58,20 +60,91 @@ final class ClobCodec extends AbstractCodec<Clob> {
     Clob doDecode(ByteBuf buffer, PostgresqlObjectId dataType, @Nullable Format format, @Nullable Class<? extends Clob> type) {
         Assert.requireNonNull(buffer, "byteBuf must not be null");
 
-        return Clob.from(Mono.just(ByteBufUtils.decode(buffer)));
+        return new TextClob(buffer);
     }
 
+    /**
+     * Encode {@code value} as UTF-8 text. Each item of {@link Clob#stream()} is encoded into a separate buffer. The buffers of a value become the components of a single unbounded composite buffer so they are not copied until the bind message is written.
+     */
     @Override
     Parameter doEncode(Clob value) {
         Assert.requireNonNull(value, "value must not be null");
 
         return create(VARCHAR, FORMAT_TEXT,
-            Flux.from(value.stream())
-                .reduce(new StringBuilder(), StringBuilder::append)
-                .map(sb -> ByteBufUtils.encode(this.byteBufAllocator, sb.toString()))
+            Flux.defer(() -> {
+
+                SurrogateAwareEncoder encoder = new SurrogateAwareEncoder(this.byteBufAllocator);
+
+                return Flux.from(value.stream())
+                    .handle(encoder::encode)
+                    .concatWith(Mono.fromSupplier(encoder::finish))
+                    .filter(ByteBuf::isReadable)
+                    .doOnDiscard(ByteBuf.class, ByteBuf::release);
+            })
                 .concatWith(Flux.from(value.discard())
                     .then(Mono.empty()))
         );
     }
 
+    /**
+     * Encodes {@link CharSequence} chunks to UTF-8 while keeping surrogate pairs that are split across chunks together.
+     */
+    private static final class SurrogateAwareEncoder {
+
+        private final ByteBufAllocator allocator;
+
+        @Nullable
+        private Character highSurrogate;
+
+        SurrogateAwareEncoder(ByteBufAllocator allocator) {
+            this.allocator = allocator;
+        }
+
+        void encode(CharSequence chunk, SynchronousSink<ByteBuf> sink) {
+
+            StringBuilder builder = new StringBuilder(chunk.length() + 1);
+
+            if (this.highSurrogate != null) {
+                builder.append(this.highSurrogate.charValue());
+                this.highSurrogate = null;
+            }
+
+            builder.append(chunk);
+
+            if (builder.length() > 0 && Character.isHighSurrogate(builder.charAt(builder.length() - 1))) {
+                this.highSurrogate = builder.charAt(builder.length() - 1);
+                builder.setLength(builder.length() - 1);
+            }
+
+            sink.next(ByteBufUtils.encode(this.allocator, builder));
+        }
+
+        ByteBuf finish() {
+            return this.highSurrogate == null ? Unpooled.EMPTY_BUFFER : ByteBufUtils.encode(this.allocator, String.valueOf(this.highSurrogate.charValue()));
+        }
+    }
+
+    /**
+     * {@link Clob} backed by a completely received value. The value is copied to the heap so that the {@link Clob} does not retain the buffer of the row, which would leak pooled memory
+     * if the {@link Clob} is neither streamed nor discarded. The value is decoded in chunks of at most {@link StreamedLobs#CHUNK_SIZE} bytes and can be streamed repeatedly.
+     */
+    private static final class TextClob implements Clob {
+
+        private final ByteBuf byteBuf;
+
+        private TextClob(ByteBuf byteBuf) {
+            this.byteBuf = Unpooled.copiedBuffer(byteBuf);
+        }
+
+        @Override
+        public Mono<Void> discard() {
+            return Mono.empty();
+        }
+
+        @Override
+        public Flux<CharSequence> stream() {
+            return StreamedLobs.toCharSequences(StreamedLobs.split(this.byteBuf));
+        }
+    }
+
 }
@@ -58,6 +58,19 @@ public interface Codecs {
      */
     Parameter encodeNull(Class<?> type);
 
+    /**
+     * Returns the {@link Codec} that encodes {@code value}. Callers that encode many values of the same type can hold on to the returned {@link Codec} instead of looking it up for each value.
+     * Implementations that do not expose their codecs return {@code null}; values are then encoded through {@link #encode(Object)}.
+     *
+     * @param value the value to encode
+     * @return the {@link Codec} that encodes {@code value} or {@code null} if the codec cannot be determined
+     * @throws IllegalArgumentException if {@code value} is {@code null}
+     */
+    @Nullable
+    default Codec<?> findEncoder(Object value) {
+        return null;
+    }
+
     /**
      * Returns the preferred Java type for a given data type and format.
      *
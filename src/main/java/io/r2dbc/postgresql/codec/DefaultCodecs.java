@@ -144,6 +144,20 @@ public final class DefaultCodecs implements Codecs, CodecRegistry {
         throw new IllegalArgumentException(String.format("Cannot encode parameter of type %s", value.getClass().getName()));
     }
 
+    @Override
+    @Nullable
+    public Codec<?> findEncoder(Object value) {
+        Assert.requireNonNull(value, "value must not be null");
+
+        for (Codec<?> codec : this.codecs) {
+            if (codec.canEncode(value)) {
+                return codec;
+            }
+        }
+
+        return null;
+    }
+
     @Override
     public Parameter encodeNull(Class<?> type) {
         Assert.requireNonNull(type, "type must not be null");
@@ -24,9 +24,14 @@ import io.r2dbc.postgresql.message.Format;
 import io.r2dbc.postgresql.type.PostgresqlObjectId;
 import io.r2dbc.postgresql.util.Assert;
 import io.r2dbc.postgresql.util.ByteBufUtils;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.annotation.Nullable;
 
+import java.util.function.BiFunction;
+
 import static io.r2dbc.postgresql.type.PostgresqlObjectId.REF_CURSOR;
 
 final class RefCursorCodec extends AbstractCodec<RefCursor> {
@@ -80,6 +85,11 @@ final class RefCursorCodec extends AbstractCodec<RefCursor> {
             throw new UnsupportedOperationException("Stateless RefCursor does not support fetch()");
         }
 
+        @Override
+        public <T> Flux<T> fetch(int batchSize, BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+            throw new UnsupportedOperationException("Stateless RefCursor does not support fetch()");
+        }
+
         @Override
         public Mono<Void> close() {
             throw new UnsupportedOperationException("Stateless RefCursor does not support close()");
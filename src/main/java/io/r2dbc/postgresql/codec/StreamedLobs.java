@@ -0,0 +1,312 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.r2dbc.postgresql.message.Format;
+import io.r2dbc.postgresql.message.backend.StreamedColumn;
+import io.r2dbc.postgresql.type.PostgresqlObjectId;
+import io.r2dbc.postgresql.util.Assert;
+import io.r2dbc.spi.Blob;
+import io.r2dbc.spi.Clob;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Factory for {@link Blob} and {@link Clob} instances backed by a {@link StreamedColumn}. Chunks are decoded as they are received and released after decoding so the value is never held in memory
+ * entirely.
+ */
+public final class StreamedLobs {
+
+    /**
+     * Maximum size of chunks into which completely received values are split.
+     */
+    static final int CHUNK_SIZE = 8192;
+
+    private StreamedLobs() {
+    }
+
+    /**
+     * Create a {@link Blob} for a {@code bytea} {@link StreamedColumn}.
+     *
+     * @param column the column to consume
+     * @param format the format of the column
+     * @return the {@link Blob}
+     * @throws IllegalArgumentException if {@code column} or {@code format} is {@code null}
+     * @throws IllegalStateException    if the column was already consumed
+     */
+    public static Blob blob(StreamedColumn column, Format format) {
+        Assert.requireNonNull(column, "column must not be null");
+        Assert.requireNonNull(format, "format must not be null");
+
+        Flux<ByteBuf> chunks = column.consume();
+
+        return new Blob() {
+
+            @Override
+            public Flux<ByteBuffer> stream() {
+                return toByteBuffers(chunks, format);
+            }
+
+            @Override
+            public Mono<Void> discard() {
+                return chunks.doOnNext(ByteBuf::release).then().onErrorResume(throwable -> Mono.empty());
+            }
+        };
+    }
+
+    /**
+     * Create a {@link Clob} for a textual {@link StreamedColumn}.
+     *
+     * @param column the column to consume
+     * @return the {@link Clob}
+     * @throws IllegalArgumentException if {@code column} is {@code null}
+     * @throws IllegalStateException    if the column was already consumed
+     */
+    public static Clob clob(StreamedColumn column) {
+        Assert.requireNonNull(column, "column must not be null");
+
+        Flux<ByteBuf> chunks = column.consume();
+
+        return new Clob() {
+
+            @Override
+            public Flux<CharSequence> stream() {
+                return toCharSequences(chunks);
+            }
+
+            @Override
+            public Mono<Void> discard() {
+                return chunks.doOnNext(ByteBuf::release).then().onErrorResume(throwable -> Mono.empty());
+            }
+        };
+    }
+
+    /**
+     * Decode a {@link StreamedColumn} of {@code dataType} as {@code type}.
+     *
+     * @param column   the column to consume
+     * @param dataType the data type of the column
+     * @param format   the format of the column
+     * @param type     the requested type
+     * @param <T>      the requested type
+     * @return the {@link Blob} or {@link Clob}
+     * @throws IllegalArgumentException if the column cannot be consumed as {@code type}
+     * @throws IllegalStateException    if the column was already consumed
+     */
+    public static <T> T decode(StreamedColumn column, int dataType, Format format, Class<T> type) {
+        Assert.requireNonNull(type, "type must not be null");
+
+        PostgresqlObjectId objectId = PostgresqlObjectId.isValid(dataType) ? PostgresqlObjectId.valueOf(dataType) : null;
+
+        if (objectId == PostgresqlObjectId.BYTEA && type.isAssignableFrom(Blob.class)) {
+            return type.cast(blob(column, format));
+        }
+
+        if ((objectId == PostgresqlObjectId.TEXT || objectId == PostgresqlObjectId.VARCHAR || objectId == PostgresqlObjectId.BPCHAR) && type.isAssignableFrom(Clob.class)) {
+            return type.cast(clob(column));
+        }
+
+        throw new IllegalArgumentException(String.format("Streamed column of type %d can only be consumed as Blob or Clob, requested type: %s", dataType, type.getName()));
+    }
+
+    /**
+     * Split {@code buffer} into retained slices of at most {@link #CHUNK_SIZE} bytes.
+     *
+     * @param buffer the buffer to split
+     * @return a {@link Flux} of retained slices
+     */
+    static Flux<ByteBuf> split(ByteBuf buffer) {
+        return Flux.generate(() -> buffer.readerIndex(), (index, sink) -> {
+
+            int length = Math.min(CHUNK_SIZE, buffer.writerIndex() - index);
+
+            if (length == 0) {
+                sink.complete();
+            } else {
+                sink.next(buffer.retainedSlice(index, length));
+            }
+
+            return index + length;
+        });
+    }
+
+    /**
+     * Decode {@code bytea} chunks into {@link ByteBuffer}s. Chunks are released after decoding.
+     *
+     * @param chunks the chunks to decode
+     * @param format the format of the value
+     * @return a {@link Flux} of decoded {@link ByteBuffer}s
+     */
+    static Flux<ByteBuffer> toByteBuffers(Flux<ByteBuf> chunks, Format format) {
+        return Flux.defer(() -> {
+
+            if (format == Format.FORMAT_BINARY) {
+                return chunks.handle(StreamedLobs::copy);
+            }
+
+            HexDecoder decoder = new HexDecoder();
+            return chunks.handle(decoder::decode);
+        });
+    }
+
+    /**
+     * Decode UTF-8 encoded chunks into {@link CharSequence}s. Chunks are released after decoding.
+     *
+     * @param chunks the chunks to decode
+     * @return a {@link Flux} of decoded {@link CharSequence}s
+     */
+    static Flux<CharSequence> toCharSequences(Flux<ByteBuf> chunks) {
+        return Flux.defer(() -> {
+
+            Utf8Decoder decoder = new Utf8Decoder();
+            return chunks.<CharSequence>handle(decoder::decode).concatWith(Mono.fromSupplier(decoder::finish).filter(it -> it.length() != 0));
+        });
+    }
+
+    private static void copy(ByteBuf chunk, SynchronousSink<ByteBuffer> sink) {
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(chunk.readableBytes());
+            chunk.readBytes(buffer);
+            buffer.flip();
+            sink.next(buffer);
+        } finally {
+            chunk.release();
+        }
+    }
+
+    /**
+     * Decoder for the {@code bytea} hex format ({@code \x} followed by pairs of hex digits) whose digits can be split across chunks.
+     */
+    static final class HexDecoder {
+
+        private boolean prefix = true;
+
+        private int pending = -1;
+
+        void decode(ByteBuf chunk, SynchronousSink<ByteBuffer> sink) {
+
+            try {
+                while (this.prefix && chunk.isReadable()) {
+
+                    byte b = chunk.readByte();
+                    if (b != '\\' && b != 'x') {
+                        sink.error(new IllegalStateException("ByteBuf does not contain BYTEA hex format"));
+                        return;
+                    }
+
+                    this.prefix = b != 'x';
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocate((chunk.readableBytes() + (this.pending != -1 ? 1 : 0)) / 2);
+
+                while (chunk.isReadable()) {
+
+                    int digit = Character.digit(chunk.readByte(), 16);
+                    if (digit == -1) {
+                        sink.error(new IllegalStateException("ByteBuf does not contain BYTEA hex format"));
+                        return;
+                    }
+
+                    if (this.pending == -1) {
+                        this.pending = digit;
+                    } else {
+                        buffer.put((byte) ((this.pending << 4) | digit));
+                        this.pending = -1;
+                    }
+                }
+
+                buffer.flip();
+                if (buffer.hasRemaining()) {
+                    sink.next(buffer);
+                }
+            } finally {
+                chunk.release();
+            }
+        }
+
+    }
+
+    /**
+     * Decoder for UTF-8 encoded text whose multi-byte sequences can be split across chunks.
+     */
+    static final class Utf8Decoder {
+
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private ByteBuffer remainder = ByteBuffer.allocate(0);
+
+        void decode(ByteBuf chunk, SynchronousSink<CharSequence> sink) {
+
+            try {
+                ByteBuffer in = this.remainder.hasRemaining() ? concat(this.remainder, chunk) : chunk.nioBuffer();
+                CharBuffer out = CharBuffer.allocate((int) (in.remaining() * this.decoder.maxCharsPerByte()));
+
+                this.decoder.decode(in, out, false);
+                this.remainder = copyRemaining(in);
+
+                out.flip();
+                if (out.hasRemaining()) {
+                    sink.next(out);
+                }
+            } finally {
+                chunk.release();
+            }
+        }
+
+        CharSequence finish() {
+
+            CharBuffer out = CharBuffer.allocate(this.remainder.remaining() + 1);
+            this.decoder.decode(this.remainder, out, true);
+            this.decoder.flush(out);
+            out.flip();
+
+            return out;
+        }
+
+        private static ByteBuffer concat(ByteBuffer remainder, ByteBuf chunk) {
+
+            ByteBuffer buffer = ByteBuffer.allocate(remainder.remaining() + chunk.readableBytes());
+            buffer.put(remainder);
+            chunk.readBytes(buffer);
+            buffer.flip();
+
+            return buffer;
+        }
+
+        private static ByteBuffer copyRemaining(ByteBuffer in) {
+
+            ByteBuffer buffer = ByteBuffer.allocate(in.remaining());
+            buffer.put(in);
+            buffer.flip();
+
+            return buffer;
+        }
+
+    }
+
+}
@@ -32,6 +32,9 @@ public final class DataRow extends AbstractReferenceCounted implements BackendMe
 
     private final ByteBuf[] columns;
 
+    @Nullable
+    private final StreamedColumn[] streamedColumns;
+
     /**
      * Creates a new message.
      *
@@ -40,6 +43,23 @@ public final class DataRow extends AbstractReferenceCounted implements BackendMe
      */
     public DataRow(ByteBuf... columns) {
         this.columns = Assert.requireNonNull(columns, "columns must not be null");
+        this.streamedColumns = null;
+    }
+
+    /**
+     * Creates a new message with columns whose values are received incrementally.
+     *
+     * @param columns         the values of the columns. Streamed columns are represented by an empty buffer.
+     * @param streamedColumns the streamed columns indexed by column. Columns that are not streamed are {@code null}.
+     * @throws IllegalArgumentException if {@code columns} or {@code streamedColumns} is {@code null} or if both arrays differ in length
+     */
+    public DataRow(ByteBuf[] columns, StreamedColumn[] streamedColumns) {
+        this.columns = Assert.requireNonNull(columns, "columns must not be null");
+        this.streamedColumns = Assert.requireNonNull(streamedColumns, "streamedColumns must not be null");
+
+        if (columns.length != streamedColumns.length) {
+            throw new IllegalArgumentException("columns and streamedColumns must have the same length");
+        }
     }
 
     @Override
@@ -63,6 +83,26 @@ public final class DataRow extends AbstractReferenceCounted implements BackendMe
         return this.columns;
     }
 
+    /**
+     * Returns the {@link StreamedColumn} at {@code index} or {@code null} if the column value was received completely.
+     *
+     * @param index the column index
+     * @return the {@link StreamedColumn} or {@code null}
+     */
+    @Nullable
+    public StreamedColumn getStreamedColumn(int index) {
+        return this.streamedColumns == null ? null : this.streamedColumns[index];
+    }
+
+    /**
+     * Returns whether this row contains columns whose values are received incrementally.
+     *
+     * @return {@code true} if this row contains streamed columns
+     */
+    public boolean hasStreamedColumns() {
+        return this.streamedColumns != null;
+    }
+
     @Override
     public int hashCode() {
         return Arrays.hashCode(this.columns);
@@ -72,6 +112,7 @@ public final class DataRow extends AbstractReferenceCounted implements BackendMe
     public String toString() {
         return "DataRow{" +
             "columns=" + Arrays.toString(this.columns) +
+            ", streamedColumns=" + Arrays.toString(this.streamedColumns) +
             '}';
     }
 
@@ -83,6 +124,14 @@ public final class DataRow extends AbstractReferenceCounted implements BackendMe
                 column.release();
             }
         }
+
+        if (this.streamedColumns != null) {
+            for (StreamedColumn column : this.streamedColumns) {
+                if (column != null) {
+                    column.discard();
+                }
+            }
+        }
     }
 
     @Override
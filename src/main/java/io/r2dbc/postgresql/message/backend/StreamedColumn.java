@@ -0,0 +1,265 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.message.backend;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import io.r2dbc.postgresql.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.UnicastProcessor;
+import reactor.util.concurrent.Queues;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A column value of a {@link DataRow} that is published as chunks while the remainder of the frame is received. The {@link DataRow} is emitted before the value is complete so consumers can
+ * start processing the value as soon as bytes arrive from the transport. A streamed column can be consumed only once. Chunks that are not consumed are released when the owning {@link DataRow}
+ * is released.
+ * <p>
+ * Chunks that were received but not yet consumed are bounded: once they exceed the {@link #HIGH_WATERMARK high watermark}, reading from the transport is suspended until the consumer brings
+ * them below the {@link #LOW_WATERMARK low watermark} or the column is discarded. A column that is neither consumed nor discarded therefore stalls the connection.
+ */
+public final class StreamedColumn {
+
+    /**
+     * Buffered bytes above which reading is suspended.
+     */
+    static final long HIGH_WATERMARK = 1024 * 1024;
+
+    /**
+     * Buffered bytes below which reading is resumed.
+     */
+    static final long LOW_WATERMARK = 256 * 1024;
+
+    private static final Logger logger = Loggers.getLogger(StreamedColumn.class);
+
+    private final int length;
+
+    private final Consumer<Boolean> autoRead;
+
+    private final UnicastProcessor<ByteBuf> chunks = UnicastProcessor.create(new ReleasingQueue());
+
+    private final AtomicBoolean consumed = new AtomicBoolean();
+
+    private final AtomicLong buffered = new AtomicLong();
+
+    private final AtomicBoolean suspended = new AtomicBoolean();
+
+    private volatile boolean discarded;
+
+    /**
+     * Creates a new streamed column without transport flow control.
+     *
+     * @param length the total length of the column value in bytes
+     * @throws IllegalArgumentException if {@code length} is negative
+     */
+    public StreamedColumn(int length) {
+        this(length, autoRead -> {
+        });
+    }
+
+    /**
+     * Creates a new streamed column.
+     *
+     * @param length   the total length of the column value in bytes
+     * @param autoRead callback to suspend ({@code false}) and resume ({@code true}) reading from the transport
+     * @throws IllegalArgumentException if {@code length} is negative or {@code autoRead} is {@code null}
+     */
+    public StreamedColumn(int length, Consumer<Boolean> autoRead) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length must be greater or equal to zero");
+        }
+
+        this.length = length;
+        this.autoRead = Assert.requireNonNull(autoRead, "autoRead must not be null");
+    }
+
+    /**
+     * Returns the total length of the column value in bytes.
+     *
+     * @return the total length of the column value
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Consume the column value. Emitted chunks must be released by the consumer. Chunks that remain buffered after cancellation are released.
+     *
+     * @return a {@link Flux} of chunks of the column value
+     * @throws IllegalStateException if the column was already consumed or discarded
+     */
+    public Flux<ByteBuf> consume() {
+
+        if (!this.consumed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Streamed column can only be consumed once");
+        }
+
+        return this.chunks
+            .doOnNext(chunk -> onConsumed(chunk.readableBytes()))
+            .doOnCancel(() -> {
+                this.discarded = true;
+                resume();
+            })
+            .doOnDiscard(ByteBuf.class, ReferenceCountUtil::release);
+    }
+
+    /**
+     * Discard the column value if it was not consumed. Chunks that are received afterwards are released.
+     */
+    public void discard() {
+
+        if (this.consumed.compareAndSet(false, true)) {
+            this.discarded = true;
+            this.chunks.subscribe(ReferenceCountUtil::release, throwable -> {
+            });
+            resume();
+        }
+    }
+
+    /**
+     * Returns whether the column value was consumed or discarded.
+     *
+     * @return {@code true} if the column value was consumed or discarded
+     */
+    public boolean isConsumed() {
+        return this.consumed.get();
+    }
+
+    /**
+     * Publish a chunk of the column value. Ownership of {@code chunk} is transferred to the column.
+     *
+     * @param chunk the chunk
+     * @throws IllegalArgumentException if {@code chunk} is {@code null}
+     */
+    public void publish(ByteBuf chunk) {
+        Assert.requireNonNull(chunk, "chunk must not be null");
+
+        if (this.discarded) {
+            chunk.release();
+            return;
+        }
+
+        if (this.buffered.addAndGet(chunk.readableBytes()) > HIGH_WATERMARK && this.suspended.compareAndSet(false, true)) {
+            logger.debug("Buffered {} bytes of streamed column exceeding high watermark, suspending reads", this.buffered.get());
+            this.autoRead.accept(false);
+        }
+
+        this.chunks.onNext(chunk);
+    }
+
+    /**
+     * Signal that the column value was received completely.
+     */
+    public void complete() {
+        this.chunks.onComplete();
+    }
+
+    /**
+     * Signal that the column value cannot be received completely.
+     *
+     * @param throwable the failure
+     * @throws IllegalArgumentException if {@code throwable} is {@code null}
+     */
+    public void fail(Throwable throwable) {
+        Assert.requireNonNull(throwable, "throwable must not be null");
+
+        this.chunks.onError(throwable);
+        resume();
+    }
+
+    long getBuffered() {
+        return this.buffered.get();
+    }
+
+    boolean isSuspended() {
+        return this.suspended.get();
+    }
+
+    private void onConsumed(int size) {
+        if (this.buffered.addAndGet(-size) <= LOW_WATERMARK) {
+            resume();
+        }
+    }
+
+    private void resume() {
+        if (this.suspended.compareAndSet(true, false)) {
+            logger.debug("Buffered {} bytes of streamed column below low watermark, resuming reads", this.buffered.get());
+            this.autoRead.accept(true);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StreamedColumn{" +
+            "length=" + this.length +
+            ", consumed=" + this.consumed +
+            ", buffered=" + this.buffered +
+            '}';
+    }
+
+    /**
+     * Queue of received chunks that releases the remaining chunks when it is cleared upon cancellation or failure.
+     */
+    private static final class ReleasingQueue extends AbstractQueue<ByteBuf> {
+
+        private final Queue<ByteBuf> delegate = Queues.<ByteBuf>unbounded().get();
+
+        @Override
+        public boolean offer(ByteBuf chunk) {
+            return this.delegate.offer(chunk);
+        }
+
+        @Override
+        public ByteBuf poll() {
+            return this.delegate.poll();
+        }
+
+        @Override
+        public ByteBuf peek() {
+            return this.delegate.peek();
+        }
+
+        @Override
+        public int size() {
+            return this.delegate.size();
+        }
+
+        @Override
+        public Iterator<ByteBuf> iterator() {
+            return this.delegate.iterator();
+        }
+
+        @Override
+        public void clear() {
+
+            ByteBuf chunk;
+            while ((chunk = this.delegate.poll()) != null) {
+                ReferenceCountUtil.release(chunk);
+            }
+        }
+
+    }
+
+}
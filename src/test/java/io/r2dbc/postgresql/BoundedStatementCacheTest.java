@@ -22,10 +22,12 @@ import io.r2dbc.postgresql.client.Parameter;
 import io.r2dbc.postgresql.client.TestClient;
 import io.r2dbc.postgresql.message.backend.CloseComplete;
 import io.r2dbc.postgresql.message.backend.ErrorResponse;
+import io.r2dbc.postgresql.message.backend.NoData;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
 import io.r2dbc.postgresql.message.backend.ParseComplete;
 import io.r2dbc.postgresql.message.frontend.Close;
+import io.r2dbc.postgresql.message.frontend.Describe;
 import io.r2dbc.postgresql.message.frontend.ExecutionType;
-import io.r2dbc.postgresql.message.frontend.Flush;
 import io.r2dbc.postgresql.message.frontend.Parse;
 import io.r2dbc.postgresql.message.frontend.Sync;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
@@ -58,89 +60,124 @@ final class BoundedStatementCacheTest {
     }
 
     @Test
-    void getName() {
+    void evict() {
         // @formatter:off
         Client client = TestClient.builder()
-            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query-0"),  Flush.INSTANCE)
-            .thenRespond(ParseComplete.INSTANCE)
-            .expectRequest(new Parse("S_1", Collections.singletonList(200), "test-query-1"), Flush.INSTANCE)
-            .thenRespond(ParseComplete.INSTANCE)
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .expectRequest(new Close("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(CloseComplete.INSTANCE)
+            .expectRequest(new Parse("S_1", Collections.singletonList(100), "test-query"), new Describe("S_1", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .build();
+        // @formatter:on
+
+        BoundedStatementCache statementCache = new BoundedStatementCache(client, 2);
+        Binding binding = new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100))));
+
+        statementCache.getStatement(binding, "test-query")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_0", Collections.singletonList(100)))
+            .verifyComplete();
+
+        statementCache.evict("test-query")
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        statementCache.evict("test-query")
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        statementCache.getStatement(binding, "test-query")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_1", Collections.singletonList(100)))
+            .verifyComplete();
+    }
+
+    @Test
+    void getStatement() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query-0"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .expectRequest(new Parse("S_1", Collections.singletonList(200), "test-query-1"), new Describe("S_1", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(200)), NoData.INSTANCE)
             .expectRequest(new Close("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
             .thenRespond(CloseComplete.INSTANCE)
-            .expectRequest(new Parse("S_2", Collections.singletonList(200), "test-query-2"), Flush.INSTANCE)
-            .thenRespond(ParseComplete.INSTANCE)
+            .expectRequest(new Parse("S_2", Collections.singletonList(200), "test-query-2"), new Describe("S_2", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(200)), NoData.INSTANCE)
             .expectRequest(new Close("S_2", ExecutionType.STATEMENT), Sync.INSTANCE)
             .thenRespond(CloseComplete.INSTANCE)
-            .expectRequest(new Parse("S_3", Collections.singletonList(100), "test-query-0"),  Flush.INSTANCE)
-            .thenRespond(ParseComplete.INSTANCE)
+            .expectRequest(new Parse("S_3", Collections.singletonList(100), "test-query-0"), new Describe("S_3", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
             .build();
         // @formatter:on
 
         BoundedStatementCache statementCache = new BoundedStatementCache(client, 2);
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100)))), "test-query-0")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100)))), "test-query-0")
             .as(StepVerifier::create)
-            .expectNext("S_0")
+            .expectNext(new StatementDescription("S_0", Collections.singletonList(100)))
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query-0")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query-0")
             .as(StepVerifier::create)
-            .expectNext("S_0")
+            .expectNext(new StatementDescription("S_0", Collections.singletonList(100)))
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(2).writeShort(300)))), "test-query-1")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(2).writeShort(300)))), "test-query-1")
             .as(StepVerifier::create)
-            .expectNext("S_1")
+            .expectNext(new StatementDescription("S_1", Collections.singletonList(200)))
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(4).writeShort(300)))), "test-query-2")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(4).writeShort(300)))), "test-query-2")
             .as(StepVerifier::create)
-            .expectNext("S_2")
+            .expectNext(new StatementDescription("S_2", Collections.singletonList(200)))
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(2).writeShort(300)))), "test-query-1")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(2).writeShort(300)))), "test-query-1")
             .as(StepVerifier::create)
-            .expectNext("S_1")
+            .expectNext(new StatementDescription("S_1", Collections.singletonList(200)))
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100)))), "test-query-0")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100)))), "test-query-0")
             .as(StepVerifier::create)
-            .expectNext("S_3")
+            .expectNext(new StatementDescription("S_3", Collections.singletonList(100)))
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100)))), "test-query-0")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100)))), "test-query-0")
             .as(StepVerifier::create)
-            .expectNext("S_3")
+            .expectNext(new StatementDescription("S_3", Collections.singletonList(100)))
             .verifyComplete();
 
         assertThat(statementCache.getCachedStatementNames()).hasSize(2).containsOnly("S_1", "S_3");
     }
 
     @Test
-    void getNameErrorResponse() {
+    void getStatementErrorResponse() {
         // @formatter:off
         Client client = TestClient.builder()
-            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query"),  Flush.INSTANCE)
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
             .thenRespond(new ErrorResponse(Collections.emptyList()))
             .build();
         // @formatter:on
 
         BoundedStatementCache statementCache = new BoundedStatementCache(client, 2);
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query")
             .as(StepVerifier::create)
             .verifyError(R2dbcNonTransientResourceException.class);
     }
 
     @Test
-    void getNameNoBinding() {
-        assertThatIllegalArgumentException().isThrownBy(() -> new BoundedStatementCache(NO_OP, 2).getName(null, "test-query"))
+    void getStatementNoBinding() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new BoundedStatementCache(NO_OP, 2).getStatement(null, "test-query"))
             .withMessage("binding must not be null");
     }
 
     @Test
-    void getNameNoSql() {
-        assertThatIllegalArgumentException().isThrownBy(() -> new BoundedStatementCache(NO_OP, 2).getName(new Binding(0), null))
+    void getStatementNoSql() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new BoundedStatementCache(NO_OP, 2).getStatement(new Binding(0), null))
             .withMessage("sql must not be null");
     }
 
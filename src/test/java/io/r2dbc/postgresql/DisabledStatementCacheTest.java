@@ -21,9 +21,13 @@ import io.r2dbc.postgresql.client.Client;
 import io.r2dbc.postgresql.client.Parameter;
 import io.r2dbc.postgresql.client.TestClient;
 import io.r2dbc.postgresql.message.backend.ErrorResponse;
+import io.r2dbc.postgresql.message.backend.NoData;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
 import io.r2dbc.postgresql.message.backend.ParseComplete;
-import io.r2dbc.postgresql.message.frontend.Flush;
+import io.r2dbc.postgresql.message.frontend.Describe;
+import io.r2dbc.postgresql.message.frontend.ExecutionType;
 import io.r2dbc.postgresql.message.frontend.Parse;
+import io.r2dbc.postgresql.message.frontend.Sync;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
@@ -45,68 +49,68 @@ class DisabledStatementCacheTest {
     }
 
     @Test
-    void getName() {
+    void getStatement() {
         // @formatter:off
         Client client = TestClient.builder()
-            .expectRequest(new Parse("", Collections.singletonList(100), "test-query"),  Flush.INSTANCE)
-            .thenRespond(ParseComplete.INSTANCE)
-            .expectRequest(new Parse("", Collections.singletonList(100), "test-query"),  Flush.INSTANCE)
-            .thenRespond(ParseComplete.INSTANCE)
-            .expectRequest(new Parse("", Collections.singletonList(200), "test-query"),  Flush.INSTANCE)
-            .thenRespond(ParseComplete.INSTANCE)
-            .expectRequest(new Parse("", Collections.singletonList(200), "test-query-2"), Flush.INSTANCE)
-            .thenRespond(ParseComplete.INSTANCE)
+            .expectRequest(new Parse("", Collections.singletonList(100), "test-query"), new Describe("", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .expectRequest(new Parse("", Collections.singletonList(100), "test-query"), new Describe("", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .expectRequest(new Parse("", Collections.singletonList(200), "test-query"), new Describe("", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(200)), NoData.INSTANCE)
+            .expectRequest(new Parse("", Collections.singletonList(200), "test-query-2"), new Describe("", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(200)), NoData.INSTANCE)
             .build();
         // @formatter:on
 
         DisabledStatementCache statementCache = new DisabledStatementCache(client);
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100)))), "test-query")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100)))), "test-query")
             .as(StepVerifier::create)
-            .expectNext("")
+            .expectNext(new StatementDescription("", Collections.singletonList(100)))
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query")
             .as(StepVerifier::create)
-            .expectNext("")
+            .expectNext(new StatementDescription("", Collections.singletonList(100)))
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(2).writeShort(300)))), "test-query")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(2).writeShort(300)))), "test-query")
             .as(StepVerifier::create)
-            .expectNext("")
+            .expectNext(new StatementDescription("", Collections.singletonList(200)))
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(4).writeShort(300)))), "test-query-2")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(4).writeShort(300)))), "test-query-2")
             .as(StepVerifier::create)
-            .expectNext("")
+            .expectNext(new StatementDescription("", Collections.singletonList(200)))
             .verifyComplete();
     }
 
     @Test
-    void getNameErrorResponse() {
+    void getStatementErrorResponse() {
         // @formatter:off
         Client client = TestClient.builder()
-            .expectRequest(new Parse("", Collections.singletonList(100), "test-query"), Flush.INSTANCE)
+            .expectRequest(new Parse("", Collections.singletonList(100), "test-query"), new Describe("", ExecutionType.STATEMENT), Sync.INSTANCE)
             .thenRespond(new ErrorResponse(Collections.emptyList()))
             .build();
         // @formatter:on
 
         DisabledStatementCache statementCache = new DisabledStatementCache(client);
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query")
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query")
             .as(StepVerifier::create)
             .verifyError(R2dbcNonTransientResourceException.class);
     }
 
     @Test
-    void getNameNoBinding() {
-        assertThatIllegalArgumentException().isThrownBy(() -> new DisabledStatementCache(NO_OP).getName(null, "test-query"))
+    void getStatementNoBinding() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new DisabledStatementCache(NO_OP).getStatement(null, "test-query"))
             .withMessage("binding must not be null");
     }
 
     @Test
-    void getNameNoSql() {
-        assertThatIllegalArgumentException().isThrownBy(() -> new DisabledStatementCache(NO_OP).getName(new Binding(0), null))
+    void getStatementNoSql() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new DisabledStatementCache(NO_OP).getStatement(new Binding(0), null))
             .withMessage("sql must not be null");
     }
 
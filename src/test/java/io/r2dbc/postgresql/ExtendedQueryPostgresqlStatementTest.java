@@ -22,18 +22,26 @@ import io.r2dbc.postgresql.client.Client;
 import io.r2dbc.postgresql.client.Parameter;
 import io.r2dbc.postgresql.client.PortalNameSupplier;
 import io.r2dbc.postgresql.client.TestClient;
+import io.r2dbc.postgresql.client.TransactionStatus;
+import io.r2dbc.postgresql.codec.DefaultCodecs;
 import io.r2dbc.postgresql.codec.MockCodecs;
 import io.r2dbc.postgresql.message.backend.BindComplete;
 import io.r2dbc.postgresql.message.backend.CloseComplete;
 import io.r2dbc.postgresql.message.backend.CommandComplete;
 import io.r2dbc.postgresql.message.backend.ErrorResponse;
+import io.r2dbc.postgresql.message.backend.Field;
+import io.r2dbc.postgresql.message.backend.Field.FieldType;
 import io.r2dbc.postgresql.message.backend.NoData;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
+import io.r2dbc.postgresql.message.backend.ParseComplete;
 import io.r2dbc.postgresql.message.backend.RowDescription;
 import io.r2dbc.postgresql.message.frontend.Bind;
 import io.r2dbc.postgresql.message.frontend.Close;
 import io.r2dbc.postgresql.message.frontend.Describe;
 import io.r2dbc.postgresql.message.frontend.Execute;
 import io.r2dbc.postgresql.message.frontend.ExecutionType;
+import io.r2dbc.postgresql.message.frontend.Flush;
+import io.r2dbc.postgresql.message.frontend.Parse;
 import io.r2dbc.postgresql.message.frontend.Sync;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
 import org.junit.jupiter.api.Test;
@@ -49,6 +57,8 @@ import java.util.LinkedList;
 import static io.r2dbc.postgresql.client.Parameter.NULL_VALUE;
 import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
 import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT4;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT8;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.JSONB;
 import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
@@ -56,6 +66,8 @@ import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.RETURNS_SMART_NULLS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 final class ExtendedQueryPostgresqlStatementTest {
@@ -64,6 +76,9 @@ final class ExtendedQueryPostgresqlStatementTest {
 
     private final MockCodecs codecs = MockCodecs.builder().encoding(100, this.parameter).build();
 
+    private static final ErrorResponse STALE_PLAN = new ErrorResponse(Arrays.asList(new Field(FieldType.CODE, "0A000"), new Field(FieldType.MESSAGE, "cached plan must not change result type"),
+        new Field(FieldType.ROUTINE, "RevalidateCachedQuery")));
+
     private final StatementCache statementCache = mock(StatementCache.class, RETURNS_SMART_NULLS);
 
     private final ExtendedQueryPostgresqlStatement statement = new ExtendedQueryPostgresqlStatement(MockContext.builder().codecs(codecs).build(), () -> "", "test-query-$1", this.statementCache,
@@ -153,7 +168,7 @@ final class ExtendedQueryPostgresqlStatementTest {
 
     @Test
     void constructorNoSql() {
-        assertThatIllegalArgumentException().isThrownBy(() -> new ExtendedQueryPostgresqlStatement(MockContext.empty(), () -> "", null, this.statementCache, false))
+        assertThatIllegalArgumentException().isThrownBy(() -> new ExtendedQueryPostgresqlStatement(MockContext.empty(), () -> "", (String) null, this.statementCache, false))
             .withMessage("sql must not be null");
     }
 
@@ -189,7 +204,7 @@ final class ExtendedQueryPostgresqlStatementTest {
 
         PortalNameSupplier portalNameSupplier = new LinkedList<>(Arrays.asList("B_0", "B_1"))::remove;
 
-        when(this.statementCache.getName(any(), any())).thenReturn(Mono.just("test-name"));
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("test-name", Collections.singletonList(INT4.getObjectId()))));
 
         new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(codecs).build(), portalNameSupplier, "test-query-$1-$1", this.statementCache, false)
             .bind("$1", 100)
@@ -202,6 +217,87 @@ final class ExtendedQueryPostgresqlStatementTest {
             .verifyComplete();
     }
 
+    @Test
+    void executeAlignsParametersWithDescribedTypes() {
+        Client client = TestClient.builder()
+            .expectRequest(
+                new Bind("B_0", Collections.singletonList(FORMAT_BINARY), Collections.singletonList(TEST.buffer(8).writeLong(100)), Collections.emptyList(), "test-name"),
+                new Describe("B_0", ExecutionType.PORTAL),
+                new Execute("B_0", 0),
+                new Close("B_0", ExecutionType.PORTAL),
+                Sync.INSTANCE)
+            .thenRespond(BindComplete.INSTANCE, NoData.INSTANCE, new CommandComplete("test", null, null), CloseComplete.INSTANCE)
+            .build();
+
+        PortalNameSupplier portalNameSupplier = new LinkedList<>(Collections.singletonList("B_0"))::remove;
+
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("test-name", Collections.singletonList(INT8.getObjectId()))));
+
+        new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(new DefaultCodecs(TEST)).build(), portalNameSupplier, "test-query-$1", this.statementCache, false)
+            .bind("$1", 100)
+            .execute()
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+
+    @Test
+    void executeDeclaresParameterTypesOfBoundValues() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("S_0", Collections.singletonList(INT4.getObjectId()), "SELECT $1"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(INT4.getObjectId())), NoData.INSTANCE)
+            .expectRequest(
+                new Bind("B_0", Collections.singletonList(FORMAT_BINARY), Collections.singletonList(TEST.buffer(4).writeInt(100)), Collections.emptyList(), "S_0"),
+                new Describe("B_0", ExecutionType.PORTAL),
+                new Execute("B_0", 0),
+                new Close("B_0", ExecutionType.PORTAL),
+                Sync.INSTANCE)
+                .thenRespond(BindComplete.INSTANCE, NoData.INSTANCE, new CommandComplete("SELECT", null, 1), CloseComplete.INSTANCE)
+            .build();
+        // @formatter:on
+
+        PortalNameSupplier portalNameSupplier = new LinkedList<>(Collections.singletonList("B_0"))::remove;
+
+        new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(new DefaultCodecs(TEST)).build(), portalNameSupplier, "SELECT $1", new IndefiniteStatementCache(client),
+            false)
+            .bind("$1", 100)
+            .execute()
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+
+    @Test
+    void executeFallsBackToUnnamedStatement() {
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("", Collections.singletonList(JSONB.getObjectId()), "test-query-$1"), Flush.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE)
+            .expectRequest(
+                new Bind("B_0", Collections.singletonList(FORMAT_BINARY), Collections.singletonList(TEST.buffer(4).writeInt(100)), Collections.emptyList(), ""),
+                new Describe("B_0", ExecutionType.PORTAL),
+                new Execute("B_0", 0),
+                new Close("B_0", ExecutionType.PORTAL),
+                Sync.INSTANCE)
+            .thenRespond(BindComplete.INSTANCE, NoData.INSTANCE, new CommandComplete("test", null, null), CloseComplete.INSTANCE)
+            .build();
+
+        MockCodecs codecs = MockCodecs.builder()
+            .encoding("test-value", new Parameter(FORMAT_BINARY, JSONB.getObjectId(), Flux.just(TEST.buffer(4).writeInt(100))))
+            .build();
+
+        PortalNameSupplier portalNameSupplier = new LinkedList<>(Collections.singletonList("B_0"))::remove;
+
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("test-name", Collections.singletonList(INT4.getObjectId()))));
+
+        new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(codecs).build(), portalNameSupplier, "test-query-$1", this.statementCache, false)
+            .bind("$1", "test-value")
+            .execute()
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+
     @Test
     void executeEmpty() {
         assertThatIllegalStateException().isThrownBy(this.statement::execute)
@@ -226,7 +322,7 @@ final class ExtendedQueryPostgresqlStatementTest {
 
         PortalNameSupplier portalNameSupplier = new LinkedList<>(Arrays.asList("B_0", "B_1"))::remove;
 
-        when(this.statementCache.getName(any(), any())).thenReturn(Mono.just("test-name"));
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("test-name", Collections.singletonList(INT4.getObjectId()))));
 
         new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(codecs).build(), portalNameSupplier, "test-query-$1", this.statementCache, false)
             .bind("$1", 100)
@@ -236,6 +332,75 @@ final class ExtendedQueryPostgresqlStatementTest {
             .verifyError(R2dbcNonTransientResourceException.class);
     }
 
+    @Test
+    void executeRepreparesStalePlan() {
+        Client client = TestClient.builder()
+            .expectRequest(
+                new Bind("B_0", Collections.singletonList(FORMAT_BINARY), Collections.singletonList(TEST.buffer(4).writeInt(100)), Collections.emptyList(), "S_0"),
+                new Describe("B_0", ExecutionType.PORTAL),
+                new Execute("B_0", 0),
+                new Close("B_0", ExecutionType.PORTAL),
+                Sync.INSTANCE)
+            .thenRespond(STALE_PLAN)
+            .expectRequest(
+                new Bind("B_1", Collections.singletonList(FORMAT_BINARY), Collections.singletonList(TEST.buffer(4).writeInt(100)), Collections.emptyList(), "S_1"),
+                new Describe("B_1", ExecutionType.PORTAL),
+                new Execute("B_1", 0),
+                new Close("B_1", ExecutionType.PORTAL),
+                Sync.INSTANCE)
+            .thenRespond(BindComplete.INSTANCE, NoData.INSTANCE, new CommandComplete("UPDATE", null, 1), CloseComplete.INSTANCE)
+            .build();
+
+        PortalNameSupplier portalNameSupplier = new LinkedList<>(Arrays.asList("B_0", "B_1"))::remove;
+        DefaultPostgresqlMetrics metrics = new DefaultPostgresqlMetrics();
+
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("S_0", Collections.singletonList(INT4.getObjectId()))))
+            .thenReturn(Mono.just(new StatementDescription("S_1", Collections.singletonList(INT4.getObjectId()))));
+        when(this.statementCache.evict("test-query-$1")).thenReturn(Mono.empty());
+
+        new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(new DefaultCodecs(TEST)).metrics(metrics).build(), portalNameSupplier, "test-query-$1",
+            this.statementCache, false)
+            .bind("$1", 100)
+            .execute()
+            .flatMap(PostgresqlResult::getRowsUpdated)
+            .as(StepVerifier::create)
+            .expectNext(1)
+            .verifyComplete();
+
+        verify(this.statementCache).evict("test-query-$1");
+        assertThat(metrics.getStatementReprepareCount()).isEqualTo(1);
+    }
+
+    @Test
+    void executeStalePlanInTransaction() {
+        Client client = TestClient.builder()
+            .transactionStatus(TransactionStatus.OPEN)
+            .expectRequest(
+                new Bind("B_0", Collections.singletonList(FORMAT_BINARY), Collections.singletonList(TEST.buffer(4).writeInt(100)), Collections.emptyList(), "S_0"),
+                new Describe("B_0", ExecutionType.PORTAL),
+                new Execute("B_0", 0),
+                new Close("B_0", ExecutionType.PORTAL),
+                Sync.INSTANCE)
+            .thenRespond(STALE_PLAN)
+            .build();
+
+        PortalNameSupplier portalNameSupplier = new LinkedList<>(Arrays.asList("B_0", "B_1"))::remove;
+        DefaultPostgresqlMetrics metrics = new DefaultPostgresqlMetrics();
+
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("S_0", Collections.singletonList(INT4.getObjectId()))));
+
+        new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(new DefaultCodecs(TEST)).metrics(metrics).build(), portalNameSupplier, "test-query-$1",
+            this.statementCache, false)
+            .bind("$1", 100)
+            .execute()
+            .flatMap(PostgresqlResult::getRowsUpdated)
+            .as(StepVerifier::create)
+            .verifyError(R2dbcNonTransientResourceException.class);
+
+        verify(this.statementCache, never()).evict(any());
+        assertThat(metrics.getStatementReprepareCount()).isZero();
+    }
+
     @Test
     void executeErrorResponseRows() {
         Client client = TestClient.builder()
@@ -254,7 +419,7 @@ final class ExtendedQueryPostgresqlStatementTest {
 
         PortalNameSupplier portalNameSupplier = new LinkedList<>(Arrays.asList("B_0", "B_1"))::remove;
 
-        when(this.statementCache.getName(any(), any())).thenReturn(Mono.just("test-name"));
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("test-name", Collections.singletonList(INT4.getObjectId()))));
 
         new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(codecs).build(), portalNameSupplier, "test-query-$1", this.statementCache, false)
             .bind("$1", 100)
@@ -282,7 +447,7 @@ final class ExtendedQueryPostgresqlStatementTest {
 
         PortalNameSupplier portalNameSupplier = new LinkedList<>(Arrays.asList("B_0", "B_1"))::remove;
 
-        when(this.statementCache.getName(any(), any())).thenReturn(Mono.just("test-name"));
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("test-name", Collections.singletonList(INT4.getObjectId()))));
 
         new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(codecs).build(), portalNameSupplier, "test-query-$1", this.statementCache, false)
             .bind("$1", 100)
@@ -310,7 +475,7 @@ final class ExtendedQueryPostgresqlStatementTest {
 
         PortalNameSupplier portalNameSupplier = new LinkedList<>(Arrays.asList("B_0", "B_1"))::remove;
 
-        when(this.statementCache.getName(any(), any())).thenReturn(Mono.just("test-name"));
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("test-name", Collections.singletonList(INT4.getObjectId()))));
 
         new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(codecs).build(), portalNameSupplier, "test-query-$1", this.statementCache, false)
             .bind("$1", 100)
@@ -339,7 +504,7 @@ final class ExtendedQueryPostgresqlStatementTest {
 
         PortalNameSupplier portalNameSupplier = new LinkedList<>(Arrays.asList("B_0", "B_1"))::remove;
 
-        when(this.statementCache.getName(any(), any())).thenReturn(Mono.just("test-name"));
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("test-name", Collections.singletonList(INT4.getObjectId()))));
 
         new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(codecs).build(), portalNameSupplier, "test-query-$1", this.statementCache, false)
             .bind("$1", 100)
@@ -368,7 +533,7 @@ final class ExtendedQueryPostgresqlStatementTest {
 
         PortalNameSupplier portalNameSupplier = new LinkedList<>(Arrays.asList("B_0", "B_1"))::remove;
 
-        when(this.statementCache.getName(any(), any())).thenReturn(Mono.just("test-name"));
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("test-name", Collections.singletonList(INT4.getObjectId()))));
 
         new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(codecs).build(), portalNameSupplier, "test-query-$1", this.statementCache, false)
             .bind("$1", 100)
@@ -399,7 +564,7 @@ final class ExtendedQueryPostgresqlStatementTest {
 
         PortalNameSupplier portalNameSupplier = new LinkedList<>(Arrays.asList("B_0", "B_1"))::remove;
 
-        when(this.statementCache.getName(any(), any())).thenReturn(Mono.just("test-name"));
+        when(this.statementCache.getStatement(any(), any())).thenReturn(Mono.just(new StatementDescription("test-name", Collections.singletonList(INT4.getObjectId()))));
 
         new ExtendedQueryPostgresqlStatement(MockContext.builder().client(client).codecs(codecs).build(), portalNameSupplier, "INSERT test-query-$1", this.statementCache, false)
             .bind("$1", 100)
@@ -430,7 +595,7 @@ final class ExtendedQueryPostgresqlStatementTest {
 
     @Test
     void supportsNoSql() {
-        assertThatIllegalArgumentException().isThrownBy(() -> ExtendedQueryPostgresqlStatement.supports(null))
+        assertThatIllegalArgumentException().isThrownBy(() -> ExtendedQueryPostgresqlStatement.supports((String) null))
             .withMessage("sql must not be null");
     }
 
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+final class HostSelectorTest {
+
+    private static final InetSocketAddress HOST_A = InetSocketAddress.createUnresolved("host-a", 5432);
+
+    private static final InetSocketAddress HOST_B = InetSocketAddress.createUnresolved("host-b", 5432);
+
+    private static final InetSocketAddress HOST_C = InetSocketAddress.createUnresolved("host-c", 5432);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final HostSelector selector = new HostSelector(Arrays.asList(HOST_A, HOST_B, HOST_C), Duration.ofSeconds(10), this.clock::get);
+
+    @Test
+    void constructorNoAddresses() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new HostSelector(Collections.emptyList()))
+            .withMessage("addresses must not be empty");
+    }
+
+    @Test
+    void selectsInConfigurationOrderInitially() {
+        assertThat(this.selector.select(TargetServerType.ANY)).extracting(HostSelector.Host::getAddress).containsExactly(HOST_A, HOST_B, HOST_C);
+    }
+
+    @Test
+    void selectsByLatency() {
+        this.selector.connected(host(HOST_A), 3_000_000);
+        this.selector.connected(host(HOST_B), 1_000_000);
+        this.selector.connected(host(HOST_C), 2_000_000);
+
+        assertThat(this.selector.select(TargetServerType.ANY)).extracting(HostSelector.Host::getAddress).containsExactly(HOST_B, HOST_C, HOST_A);
+    }
+
+    @Test
+    void averagesLatency() {
+        HostSelector.Host host = host(HOST_A);
+
+        this.selector.connected(host, 1_000_000);
+        this.selector.connected(host, 6_000_000);
+
+        assertThat(host.getLatency()).isEqualTo(2_000_000);
+    }
+
+    @Test
+    void ranksFailedHostsLastUntilRetryInterval() {
+        this.selector.failed(host(HOST_A));
+
+        assertThat(this.selector.select(TargetServerType.ANY)).extracting(HostSelector.Host::getAddress).containsExactly(HOST_B, HOST_C, HOST_A);
+
+        this.clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThat(this.selector.select(TargetServerType.ANY)).extracting(HostSelector.Host::getAddress).containsExactly(HOST_A, HOST_B, HOST_C);
+    }
+
+    @Test
+    void ranksByServerType() {
+        host(HOST_A).setStandby(false);
+        host(HOST_C).setStandby(true);
+
+        assertThat(this.selector.select(TargetServerType.STANDBY)).extracting(HostSelector.Host::getAddress).containsExactly(HOST_C, HOST_B, HOST_A);
+        assertThat(this.selector.select(TargetServerType.PRIMARY)).extracting(HostSelector.Host::getAddress).containsExactly(HOST_A, HOST_B, HOST_C);
+    }
+
+    private HostSelector.Host host(InetSocketAddress address) {
+        return this.selector.getHosts().stream().filter(it -> it.getAddress().equals(address)).findFirst().orElseThrow(IllegalStateException::new);
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.client.Binding;
+import io.r2dbc.postgresql.client.Parameter;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static io.r2dbc.postgresql.message.Format.FORMAT_TEXT;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT4;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class HotStatementsTest {
+
+    private final StatementCache statementCache = mock(StatementCache.class);
+
+    @Test
+    void constructorInvalidLimit() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new HotStatements(0))
+            .withMessage("hot statement limit must be greater than zero");
+    }
+
+    @Test
+    void topOrdersByExecutions() {
+        HotStatements hotStatements = new HotStatements();
+
+        hotStatements.record("SELECT 1", Collections.emptyList());
+        hotStatements.record("SELECT $1", Collections.singletonList(INT4.getObjectId()));
+        hotStatements.record("SELECT $1", Collections.singletonList(INT8.getObjectId()));
+
+        assertThat(hotStatements.top(1)).extracting(HotStatements.Entry::getSql).containsExactly("SELECT $1");
+        assertThat(hotStatements.top(1).get(0).getParameterTypes()).containsExactly(INT8.getObjectId());
+        assertThat(hotStatements.top(5)).extracting(HotStatements.Entry::getExecutions).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void recordEvictsLeastExecuted() {
+        HotStatements hotStatements = new HotStatements(2);
+
+        hotStatements.record("SELECT 1", Collections.emptyList());
+        hotStatements.record("SELECT 1", Collections.emptyList());
+        hotStatements.record("SELECT 2", Collections.emptyList());
+        hotStatements.record("SELECT 3", Collections.emptyList());
+
+        assertThat(hotStatements.size()).isEqualTo(2);
+        assertThat(hotStatements.top(2)).extracting(HotStatements.Entry::getSql).containsExactly("SELECT 1", "SELECT 3");
+    }
+
+    @Test
+    void recordEvictsNewStatementOnlyAfterItLeftTheWindow() {
+        HotStatements hotStatements = new HotStatements(2);
+
+        for (int i = 0; i < 5; i++) {
+            hotStatements.record("SELECT 1", Collections.emptyList());
+            hotStatements.record("SELECT 2", Collections.emptyList());
+        }
+        hotStatements.record("SELECT 3", Collections.emptyList());
+
+        assertThat(hotStatements.top(2)).extracting(HotStatements.Entry::getSql).containsExactly("SELECT 2", "SELECT 3");
+
+        hotStatements.record("SELECT 4", Collections.emptyList());
+
+        assertThat(hotStatements.top(2)).extracting(HotStatements.Entry::getSql).containsExactly("SELECT 2", "SELECT 4");
+    }
+
+    @Test
+    void recordAgesExecutions() {
+        HotStatements hotStatements = new HotStatements(2);
+
+        for (int i = 0; i < 19; i++) {
+            hotStatements.record("SELECT 1", Collections.emptyList());
+        }
+
+        assertThat(hotStatements.top(1).get(0).getExecutions()).isEqualTo(19);
+
+        hotStatements.record("SELECT 1", Collections.emptyList());
+
+        assertThat(hotStatements.top(1).get(0).getExecutions()).isEqualTo(10);
+    }
+
+    @Test
+    void trackRecordsStatementLookups() {
+        HotStatements hotStatements = new HotStatements();
+        Binding binding = new Binding(0);
+        when(this.statementCache.getStatement(binding, "SELECT $1")).thenReturn(Mono.just(new StatementDescription("S_0", Collections.singletonList(INT4.getObjectId()))));
+
+        StatementCache tracked = hotStatements.track(this.statementCache);
+        tracked.getStatement(binding, "SELECT $1").as(StepVerifier::create).expectNextCount(1).verifyComplete();
+        tracked.getStatement(binding, "SELECT $1").as(StepVerifier::create).expectNextCount(1).verifyComplete();
+
+        assertThat(hotStatements.top(1)).hasSize(1);
+        assertThat(hotStatements.top(1).get(0).getExecutions()).isEqualTo(2);
+        assertThat(hotStatements.top(1).get(0).getParameterTypes()).containsExactly(INT4.getObjectId());
+    }
+
+    @Test
+    void prewarmPreparesConfiguredAndHotStatements() {
+        HotStatements hotStatements = new HotStatements();
+        hotStatements.record("SELECT $1", Collections.singletonList(INT4.getObjectId()));
+        hotStatements.record("SELECT 1", Collections.emptyList());
+        when(this.statementCache.getStatement(any(), anyString())).thenReturn(Mono.just(new StatementDescription("S_0", Collections.emptyList())));
+
+        hotStatements.prewarm(this.statementCache, Collections.singletonList("SELECT 1"), 5, -1)
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        verify(this.statementCache).getStatement(new Binding(0), "SELECT 1");
+        verify(this.statementCache).getStatement(new Binding(1).add(0, new Parameter(FORMAT_TEXT, INT4.getObjectId(), Mono.empty())), "SELECT $1");
+    }
+
+    @Test
+    void prewarmRespectsCacheLimit() {
+        HotStatements hotStatements = new HotStatements();
+        when(this.statementCache.getStatement(any(), anyString())).thenReturn(Mono.just(new StatementDescription("S_0", Collections.emptyList())));
+
+        hotStatements.prewarm(this.statementCache, Arrays.asList("SELECT 1", "SELECT 2"), 0, 1)
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        verify(this.statementCache).getStatement(any(), eq("SELECT 1"));
+        verify(this.statementCache, never()).getStatement(any(), eq("SELECT 2"));
+    }
+
+    @Test
+    void prewarmSkipsDisabledCache() {
+        new HotStatements().prewarm(this.statementCache, Collections.singletonList("SELECT 1"), 5, 0)
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        verify(this.statementCache, never()).getStatement(any(), anyString());
+    }
+
+    @Test
+    void prewarmEvictsFailedStatement() {
+        HotStatements hotStatements = new HotStatements();
+        when(this.statementCache.getStatement(any(), eq("SELECT nope"))).thenReturn(Mono.error(new IllegalStateException()));
+        when(this.statementCache.getStatement(any(), eq("SELECT 1"))).thenReturn(Mono.just(new StatementDescription("S_0", Collections.emptyList())));
+        when(this.statementCache.evict("SELECT nope")).thenReturn(Mono.empty());
+
+        hotStatements.prewarm(this.statementCache, Arrays.asList("SELECT nope", "SELECT 1"), 0, -1)
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        verify(this.statementCache).evict("SELECT nope");
+        verify(this.statementCache).getStatement(any(), eq("SELECT 1"));
+    }
+
+}
@@ -20,10 +20,18 @@ import io.r2dbc.postgresql.client.Binding;
 import io.r2dbc.postgresql.client.Client;
 import io.r2dbc.postgresql.client.Parameter;
 import io.r2dbc.postgresql.client.TestClient;
+import io.r2dbc.postgresql.message.backend.CloseComplete;
 import io.r2dbc.postgresql.message.backend.ErrorResponse;
+import io.r2dbc.postgresql.message.backend.Field;
+import io.r2dbc.postgresql.message.backend.Field.FieldType;
+import io.r2dbc.postgresql.message.backend.NoData;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
 import io.r2dbc.postgresql.message.backend.ParseComplete;
-import io.r2dbc.postgresql.message.frontend.Flush;
+import io.r2dbc.postgresql.message.frontend.Close;
+import io.r2dbc.postgresql.message.frontend.Describe;
+import io.r2dbc.postgresql.message.frontend.ExecutionType;
 import io.r2dbc.postgresql.message.frontend.Parse;
+import io.r2dbc.postgresql.message.frontend.Sync;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
@@ -33,7 +41,9 @@ import java.util.Collections;
 
 import static io.r2dbc.postgresql.client.TestClient.NO_OP;
 import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
+import static io.r2dbc.postgresql.message.Format.FORMAT_TEXT;
 import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 final class IndefiniteStatementCacheTest {
@@ -45,66 +55,144 @@ final class IndefiniteStatementCacheTest {
     }
 
     @Test
-    void getName() {
+    void evict() {
         // @formatter:off
         Client client = TestClient.builder()
-            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query"), Flush.INSTANCE)
-                .thenRespond(ParseComplete.INSTANCE)
-            .expectRequest(new Parse("S_1", Collections.singletonList(200), "test-query"), Flush.INSTANCE)
-                .thenRespond(ParseComplete.INSTANCE)
-            .expectRequest(new Parse("S_2", Collections.singletonList(200), "test-query-2"), Flush.INSTANCE)
-                .thenRespond(ParseComplete.INSTANCE)
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .expectRequest(new Close("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(CloseComplete.INSTANCE)
+            .expectRequest(new Parse("S_1", Collections.singletonList(100), "test-query"), new Describe("S_1", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
             .build();
         // @formatter:on
 
         IndefiniteStatementCache statementCache = new IndefiniteStatementCache(client);
+        Binding binding = new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100))));
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100)))), "test-query")
+        statementCache.getStatement(binding, "test-query")
             .as(StepVerifier::create)
-            .expectNext("S_0")
+            .expectNext(new StatementDescription("S_0", Collections.singletonList(100)))
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query")
+        statementCache.evict("test-query")
             .as(StepVerifier::create)
-            .expectNext("S_0")
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(2).writeShort(300)))), "test-query")
+        statementCache.evict("test-query")
             .as(StepVerifier::create)
-            .expectNext("S_1")
             .verifyComplete();
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(4).writeShort(300)))), "test-query-2")
+        statementCache.getStatement(binding, "test-query")
             .as(StepVerifier::create)
-            .expectNext("S_2")
+            .expectNext(new StatementDescription("S_1", Collections.singletonList(100)))
             .verifyComplete();
     }
 
     @Test
-    void getNameErrorResponse() {
+    void getStatement() {
         // @formatter:off
         Client client = TestClient.builder()
-            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query"), Flush.INSTANCE)
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .expectRequest(new Parse("S_1", Collections.singletonList(200), "test-query-2"), new Describe("S_1", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(200)), NoData.INSTANCE)
+            .build();
+        // @formatter:on
+
+        IndefiniteStatementCache statementCache = new IndefiniteStatementCache(client);
+
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100)))), "test-query")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_0", Collections.singletonList(100)))
+            .verifyComplete();
+
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_0", Collections.singletonList(100)))
+            .verifyComplete();
+
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(2).writeShort(300)))), "test-query")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_0", Collections.singletonList(100)))
+            .verifyComplete();
+
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 200, Flux.just(TEST.buffer(4).writeShort(300)))), "test-query-2")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_1", Collections.singletonList(200)))
+            .verifyComplete();
+    }
+
+    @Test
+    void getStatementErrorResponse() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(new ErrorResponse(Collections.emptyList()))
+            .build();
+        // @formatter:on
+
+        IndefiniteStatementCache statementCache = new IndefiniteStatementCache(client);
+
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query")
+            .as(StepVerifier::create)
+            .verifyError(R2dbcNonTransientResourceException.class);
+    }
+
+    @Test
+    void getStatementRetriesFailedPrepare() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
                 .thenRespond(new ErrorResponse(Collections.emptyList()))
+            .expectRequest(new Parse("S_1", Collections.singletonList(100), "test-query"), new Describe("S_1", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
             .build();
         // @formatter:on
 
         IndefiniteStatementCache statementCache = new IndefiniteStatementCache(client);
+        Binding binding = new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200))));
 
-        statementCache.getName(new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))), "test-query")
+        statementCache.getStatement(binding, "test-query")
             .as(StepVerifier::create)
             .verifyError(R2dbcNonTransientResourceException.class);
+
+        assertThat(statementCache.contains("test-query")).isFalse();
+
+        statementCache.getStatement(binding, "test-query")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_1", Collections.singletonList(100)))
+            .verifyComplete();
+    }
+
+    @Test
+    void getStatementUsesBindingTypesForIndeterminateParameters() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("S_0", Collections.singletonList(0), "test-query"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(new ErrorResponse(Collections.singletonList(new Field(FieldType.CODE, "42P18"))))
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .build();
+        // @formatter:on
+
+        IndefiniteStatementCache statementCache = new IndefiniteStatementCache(client);
+
+        statementCache.getStatement(new Binding(1).add(0, new Parameter(FORMAT_TEXT, 100, Parameter.NULL_VALUE)), "test-query")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_0", Collections.singletonList(100)))
+            .verifyComplete();
     }
 
     @Test
-    void getNameNoBinding() {
-        assertThatIllegalArgumentException().isThrownBy(() -> new IndefiniteStatementCache(NO_OP).getName(null, "test-query"))
+    void getStatementNoBinding() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new IndefiniteStatementCache(NO_OP).getStatement(null, "test-query"))
             .withMessage("binding must not be null");
     }
 
     @Test
-    void getNameNoSql() {
-        assertThatIllegalArgumentException().isThrownBy(() -> new IndefiniteStatementCache(NO_OP).getName(new Binding(0), null))
+    void getStatementNoSql() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new IndefiniteStatementCache(NO_OP).getStatement(new Binding(0), null))
             .withMessage("sql must not be null");
     }
 
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.client.Binding;
+import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.Parameter;
+import io.r2dbc.postgresql.client.TestClient;
+import io.r2dbc.postgresql.message.backend.CloseComplete;
+import io.r2dbc.postgresql.message.backend.NoData;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
+import io.r2dbc.postgresql.message.backend.ParseComplete;
+import io.r2dbc.postgresql.message.frontend.Close;
+import io.r2dbc.postgresql.message.frontend.Describe;
+import io.r2dbc.postgresql.message.frontend.ExecutionType;
+import io.r2dbc.postgresql.message.frontend.Parse;
+import io.r2dbc.postgresql.message.frontend.Sync;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Collections;
+
+import static io.r2dbc.postgresql.client.TestClient.NO_OP;
+import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+final class MemoryBoundedStatementCacheTest {
+
+    private final Binding binding = new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(100))));
+
+    private final long weight = MemoryBoundedStatementCache.weigh("test-query-0", 1);
+
+    @Test
+    void constructorInvalidLimit() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new MemoryBoundedStatementCache(NO_OP, 0, 1024))
+            .withMessage("statement cache limit must be greater than zero");
+        assertThatIllegalArgumentException().isThrownBy(() -> new MemoryBoundedStatementCache(NO_OP, 1, 0))
+            .withMessage("statement cache size must be greater than zero");
+    }
+
+    @Test
+    void constructorNoClient() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new MemoryBoundedStatementCache(null, 2, 1024))
+            .withMessage("client must not be null");
+    }
+
+    @Test
+    void weigh() {
+        assertThat(MemoryBoundedStatementCache.weigh("SELECT 1", 0)).isEqualTo(MemoryBoundedStatementCache.STATEMENT_OVERHEAD + 16);
+        assertThat(MemoryBoundedStatementCache.weigh("SELECT $1", 1)).isEqualTo(MemoryBoundedStatementCache.STATEMENT_OVERHEAD + 18 + MemoryBoundedStatementCache.PARAMETER_OVERHEAD);
+    }
+
+    @Test
+    void getStatementEvictsToBudget() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query-0"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .expectRequest(new Parse("S_1", Collections.singletonList(100), "test-query-1"), new Describe("S_1", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .expectRequest(new Close("S_1", ExecutionType.STATEMENT), new Parse("S_2", Collections.singletonList(100), "test-query-2"), new Describe("S_2", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(CloseComplete.INSTANCE, ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .build();
+        // @formatter:on
+
+        MemoryBoundedStatementCache statementCache = new MemoryBoundedStatementCache(client, Integer.MAX_VALUE, 2 * this.weight);
+
+        statementCache.getStatement(this.binding, "test-query-0")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_0", Collections.singletonList(100)))
+            .verifyComplete();
+
+        statementCache.getStatement(this.binding, "test-query-1")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_1", Collections.singletonList(100)))
+            .verifyComplete();
+
+        statementCache.getStatement(this.binding, "test-query-0")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_0", Collections.singletonList(100)))
+            .verifyComplete();
+
+        statementCache.getStatement(this.binding, "test-query-2")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_2", Collections.singletonList(100)))
+            .verifyComplete();
+
+        assertThat(statementCache.getCachedStatementNames()).containsExactly("S_0", "S_2");
+        assertThat(statementCache.getSize()).isEqualTo(2 * this.weight);
+    }
+
+    @Test
+    void getStatementExceedingBudget() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("", Collections.singletonList(100), "test-query-0"), new Describe("", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .build();
+        // @formatter:on
+
+        MemoryBoundedStatementCache statementCache = new MemoryBoundedStatementCache(client, Integer.MAX_VALUE, this.weight - 1);
+
+        statementCache.getStatement(this.binding, "test-query-0")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("", Collections.singletonList(100)))
+            .verifyComplete();
+
+        assertThat(statementCache.getCachedStatementNames()).isEmpty();
+        assertThat(statementCache.getSize()).isZero();
+    }
+
+    @Test
+    void getStatementEvictsToLimit() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query-0"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .expectRequest(new Close("S_0", ExecutionType.STATEMENT), new Parse("S_1", Collections.singletonList(100), "test-query-1"), new Describe("S_1", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(CloseComplete.INSTANCE, ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .build();
+        // @formatter:on
+
+        MemoryBoundedStatementCache statementCache = new MemoryBoundedStatementCache(client, 1, 1024 * 1024);
+
+        statementCache.getStatement(this.binding, "test-query-0")
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        statementCache.getStatement(this.binding, "test-query-1")
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertThat(statementCache.getCachedStatementNames()).containsExactly("S_1");
+    }
+
+    @Test
+    void evictClosesWithNextPrepare() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("S_0", Collections.singletonList(100), "test-query-0"), new Describe("S_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .expectRequest(new Close("S_0", ExecutionType.STATEMENT), new Parse("S_1", Collections.singletonList(100), "test-query-0"), new Describe("S_1", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(CloseComplete.INSTANCE, ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(100)), NoData.INSTANCE)
+            .build();
+        // @formatter:on
+
+        MemoryBoundedStatementCache statementCache = new MemoryBoundedStatementCache(client, Integer.MAX_VALUE, 1024 * 1024);
+
+        statementCache.getStatement(this.binding, "test-query-0")
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        statementCache.evict("test-query-0")
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        assertThat(statementCache.getSize()).isZero();
+
+        statementCache.getStatement(this.binding, "test-query-0")
+            .as(StepVerifier::create)
+            .expectNext(new StatementDescription("S_1", Collections.singletonList(100)))
+            .verifyComplete();
+    }
+
+    @Test
+    void getStatementNoBinding() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new MemoryBoundedStatementCache(NO_OP, 2, 1024).getStatement(null, "test-query"))
+            .withMessage("binding must not be null");
+    }
+
+    @Test
+    void getStatementNoSql() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new MemoryBoundedStatementCache(NO_OP, 2, 1024).getStatement(new Binding(0), null))
+            .withMessage("sql must not be null");
+    }
+
+}
@@ -18,6 +18,7 @@ package io.r2dbc.postgresql;
 
 import io.r2dbc.postgresql.api.PostgresqlConnection;
 import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.DrainLimit;
 import io.r2dbc.postgresql.codec.Codecs;
 import io.r2dbc.postgresql.codec.MockCodecs;
 
@@ -39,12 +40,15 @@ final class MockContext {
 
         private PostgresqlConnection connection;
 
+        private DefaultPostgresqlMetrics metrics = new DefaultPostgresqlMetrics();
+
+        private DrainLimit drainLimit = DrainLimit.UNLIMITED;
 
         private Builder() {
         }
 
         public ConnectionContext build() {
-            return new ConnectionContext(this.client, this.codecs, this.connection);
+            return new ConnectionContext(this.client, this.codecs, this.connection, this.metrics, this.drainLimit);
         }
 
         public Builder codecs(Codecs codecs) {
@@ -62,6 +66,16 @@ final class MockContext {
             return this;
         }
 
+        public Builder metrics(DefaultPostgresqlMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder drainLimit(DrainLimit drainLimit) {
+            this.drainLimit = drainLimit;
+            return this;
+        }
+
     }
 
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.client.Parameter;
+import io.r2dbc.postgresql.codec.DefaultCodecs;
+import io.r2dbc.postgresql.codec.Json;
+import io.r2dbc.postgresql.codec.MockCodecs;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
+import static io.r2dbc.postgresql.message.Format.FORMAT_TEXT;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT2;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT4;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT8;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.NUMERIC;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.VARCHAR;
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+final class ParameterEncoderTest {
+
+    private final ParameterEncoder encoder = new ParameterEncoder(new DefaultCodecs(TEST), Arrays.asList(INT2.getObjectId(), INT8.getObjectId(), NUMERIC.getObjectId(), INT4.getObjectId()));
+
+    @Test
+    void encodeMatchingType() {
+        Parameter parameter = this.encoder.encode(3, 100);
+
+        assertThat(parameter.getType()).isEqualTo(INT4.getObjectId());
+        assertThat(parameter.getFormat()).isEqualTo(FORMAT_BINARY);
+    }
+
+    @Test
+    void encodeConvertsNumbers() {
+        assertThat(this.encoder.encode(0, 100L).getType()).isEqualTo(INT2.getObjectId());
+        assertThat(this.encoder.encode(1, 100).getType()).isEqualTo(INT8.getObjectId());
+        assertThat(this.encoder.encode(1, new BigDecimal("100.00")).getType()).isEqualTo(INT8.getObjectId());
+        assertThat(this.encoder.encode(2, 100).getType()).isEqualTo(NUMERIC.getObjectId());
+    }
+
+    @Test
+    void encodeResolvesCodecPerJavaType() {
+        assertThat(this.encoder.encode(3, 100).getType()).isEqualTo(INT4.getObjectId());
+        assertThat(this.encoder.encode(3, "100").getType()).isEqualTo(VARCHAR.getObjectId());
+        assertThat(this.encoder.encode(3, 200).getType()).isEqualTo(INT4.getObjectId());
+    }
+
+    @Test
+    void encodeWithoutCodecLookup() {
+        Parameter parameter = new Parameter(FORMAT_BINARY, INT4.getObjectId(), Flux.just(TEST.buffer(4).writeInt(100)));
+        ParameterEncoder encoder = new ParameterEncoder(MockCodecs.builder().encoding(100, parameter).build(), Collections.singletonList(INT4.getObjectId()));
+
+        assertThat(encoder.encode(0, 100)).isSameAs(parameter);
+    }
+
+    @Test
+    void encodeOutOfRangeAsText() {
+        Parameter parameter = this.encoder.encode(0, 100_000L);
+
+        assertThat(parameter.getType()).isEqualTo(VARCHAR.getObjectId());
+        assertThat(parameter.getFormat()).isEqualTo(FORMAT_TEXT);
+    }
+
+    @Test
+    void encodeNull() {
+        Parameter parameter = this.encoder.encode(1, null);
+
+        assertThat(parameter.getType()).isEqualTo(INT8.getObjectId());
+    }
+
+    @Test
+    void encodeIncompatibleBinary() {
+        assertThatIllegalArgumentException().isThrownBy(() -> this.encoder.encode(3, Json.of("{}")));
+    }
+
+    @Test
+    void encodeInvalidIndex() {
+        assertThat(this.encoder.getParameterCount()).isEqualTo(4);
+        assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> this.encoder.encode(4, 100));
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+final class ParsedSqlCacheTest {
+
+    @Test
+    void constructorInvalidLimit() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new ParsedSqlCache(0))
+            .withMessage("parsed SQL cache limit must be greater than zero");
+    }
+
+    @Test
+    void getNoSql() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new ParsedSqlCache().get(null))
+            .withMessage("sql must not be null");
+    }
+
+    @Test
+    void getReturnsCachedInstance() {
+        ParsedSqlCache cache = new ParsedSqlCache();
+
+        ParsedSql parsedSql = cache.get("SELECT $1");
+
+        assertThat(cache.get("SELECT $1")).isSameAs(parsedSql);
+        assertThat(parsedSql.getParameterCount()).isOne();
+    }
+
+    @Test
+    void getIsBounded() {
+        ParsedSqlCache cache = new ParsedSqlCache(2);
+
+        cache.get("SELECT 1");
+        cache.get("SELECT 2");
+        cache.get("SELECT 3");
+
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void getEvictsLeastRecentlyUsed() {
+        ParsedSqlCache cache = new ParsedSqlCache(2);
+
+        ParsedSql first = cache.get("SELECT 1");
+        ParsedSql second = cache.get("SELECT 2");
+        cache.get("SELECT 1");
+        cache.get("SELECT 3");
+
+        assertThat(cache.get("SELECT 1")).isSameAs(first);
+        assertThat(cache.get("SELECT 2")).isNotSameAs(second);
+    }
+
+}
@@ -16,6 +16,8 @@
 
 package io.r2dbc.postgresql;
 
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.R2dbcTimeoutException;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.RepeatedTest;
@@ -23,6 +25,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -111,4 +115,23 @@ class PostgresCancelIntegrationTests extends AbstractIntegrationTests {
             .thenCancel()
             .verify();
     }
+
+    @Test
+    void shouldCancelQueryOnTimeout() {
+
+        this.connection.createStatement("SELECT pg_sleep(10)")
+            .timeout(Duration.ofMillis(200))
+            .execute()
+            .flatMap(PostgresqlResult::getRowsUpdated)
+            .as(StepVerifier::create)
+            .verifyError(R2dbcTimeoutException.class);
+
+        this.connection.createStatement("SELECT 1")
+            .execute()
+            .flatMap(it -> it.map((row, rowMetadata) -> row.get(0)))
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+
 }
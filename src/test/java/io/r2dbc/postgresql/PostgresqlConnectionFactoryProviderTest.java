@@ -16,12 +16,20 @@
 
 package io.r2dbc.postgresql;
 
+import io.netty.handler.ssl.JdkSslContext;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslContext;
+import io.netty.handler.ssl.SslContext;
 import io.r2dbc.postgresql.client.SSLConfig;
 import io.r2dbc.postgresql.client.SSLMode;
+import io.r2dbc.postgresql.client.SocketOptions;
+import io.r2dbc.postgresql.client.Transport;
 import io.r2dbc.spi.ConnectionFactoryOptions;
 import io.r2dbc.spi.Option;
 import org.junit.jupiter.api.Test;
 
+import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -37,6 +45,7 @@ import static io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider.SSL_MODE;
 import static io.r2dbc.spi.ConnectionFactoryOptions.DRIVER;
 import static io.r2dbc.spi.ConnectionFactoryOptions.HOST;
 import static io.r2dbc.spi.ConnectionFactoryOptions.PASSWORD;
+import static io.r2dbc.spi.ConnectionFactoryOptions.PORT;
 import static io.r2dbc.spi.ConnectionFactoryOptions.SSL;
 import static io.r2dbc.spi.ConnectionFactoryOptions.USER;
 import static io.r2dbc.spi.ConnectionFactoryOptions.builder;
@@ -204,6 +213,73 @@ final class PostgresqlConnectionFactoryProviderTest {
         assertThat(factory.getConfiguration().getPreparedStatementCacheQueries()).isEqualTo(5);
     }
 
+    @Test
+    void providerShouldConsiderPreparedStatementCacheSizeMiB() {
+        PostgresqlConnectionFactory factory = this.provider.create(builder()
+            .option(DRIVER, LEGACY_POSTGRESQL_DRIVER)
+            .option(HOST, "test-host")
+            .option(PASSWORD, "test-password")
+            .option(USER, "test-user")
+            .option(Option.valueOf("preparedStatementCacheSizeMiB"), "5")
+            .build());
+
+        assertThat(factory.getConfiguration().getPreparedStatementCacheSizeMiB()).isEqualTo(5);
+    }
+
+    @Test
+    void providerShouldConsiderPrewarmHotStatements() {
+        PostgresqlConnectionFactory factory = this.provider.create(builder()
+            .option(DRIVER, LEGACY_POSTGRESQL_DRIVER)
+            .option(HOST, "test-host")
+            .option(PASSWORD, "test-password")
+            .option(USER, "test-user")
+            .option(Option.valueOf("prewarmHotStatements"), "10")
+            .build());
+
+        assertThat(factory.getConfiguration().getPrewarmHotStatements()).isEqualTo(10);
+    }
+
+    @Test
+    void providerShouldConsiderDrainLimits() {
+        PostgresqlConnectionFactory factory = this.provider.create(builder()
+            .option(DRIVER, LEGACY_POSTGRESQL_DRIVER)
+            .option(HOST, "test-host")
+            .option(PASSWORD, "test-password")
+            .option(USER, "test-user")
+            .option(Option.valueOf("cancelAfterDrainedRows"), "1000")
+            .option(Option.valueOf("cancelAfterDrainedBytes"), 1048576)
+            .build());
+
+        assertThat(factory.getConfiguration().getCancelAfterDrainedRows()).isEqualTo(1000);
+        assertThat(factory.getConfiguration().getCancelAfterDrainedBytes()).isEqualTo(1048576);
+    }
+
+    @Test
+    void providerShouldConsiderColumnStreamingThreshold() {
+        PostgresqlConnectionFactory factory = this.provider.create(builder()
+            .option(DRIVER, LEGACY_POSTGRESQL_DRIVER)
+            .option(HOST, "test-host")
+            .option(PASSWORD, "test-password")
+            .option(USER, "test-user")
+            .option(Option.valueOf("columnStreamingThreshold"), "16777216")
+            .build());
+
+        assertThat(factory.getConfiguration().getColumnStreamingThreshold()).isEqualTo(16777216);
+    }
+
+    @Test
+    void providerShouldConsiderStatementTimeout() {
+        PostgresqlConnectionFactory factory = this.provider.create(builder()
+            .option(DRIVER, LEGACY_POSTGRESQL_DRIVER)
+            .option(HOST, "test-host")
+            .option(PASSWORD, "test-password")
+            .option(USER, "test-user")
+            .option(Option.valueOf("statementTimeout"), "PT5S")
+            .build());
+
+        assertThat(factory.getConfiguration().getStatementTimeout()).isEqualTo(Duration.ofSeconds(5));
+    }
+
     @Test
     void providerShouldParseAndHandleConnectionParameters() {
         Map<String, String> expectedOptions = new HashMap<>();
@@ -263,6 +339,61 @@ final class PostgresqlConnectionFactoryProviderTest {
         assertThatIllegalStateException().isThrownBy(() -> factory.getConfiguration().getSslConfig().getSslProvider().get()).withMessageContaining("Works!");
     }
 
+    @Test
+    void shouldConsiderSslProvider() {
+
+        PostgresqlConnectionFactory factory = this.provider.create(builder()
+            .option(DRIVER, POSTGRESQL_DRIVER)
+            .option(HOST, "test-host")
+            .option(PASSWORD, "test-password")
+            .option(USER, "test-user")
+            .option(SSL_MODE, SSLMode.REQUIRE)
+            .option(Option.valueOf("sslProvider"), "openssl")
+            .build());
+
+        SslContext sslContext = factory.getConfiguration().getSslConfig().getSslProvider().get().getSslContext();
+
+        assertThat(sslContext).isInstanceOf(OpenSsl.isAvailable() ? OpenSslContext.class : JdkSslContext.class);
+    }
+
+    @Test
+    void shouldConsiderSocketOptions() {
+
+        PostgresqlConnectionFactory factory = this.provider.create(builder()
+            .option(DRIVER, POSTGRESQL_DRIVER)
+            .option(HOST, "test-host")
+            .option(PASSWORD, "test-password")
+            .option(USER, "test-user")
+            .option(Option.valueOf("transport"), "nio")
+            .option(Option.valueOf("tcpNoDelay"), "false")
+            .option(Option.valueOf("receiveBufferSize"), "65536")
+            .option(Option.valueOf("sendBufferSize"), 32768)
+            .build());
+
+        SocketOptions socketOptions = factory.getConfiguration().getSocketOptions();
+
+        assertThat(socketOptions.getTransport()).isEqualTo(Transport.NIO);
+        assertThat(socketOptions.isTcpNoDelay()).isFalse();
+        assertThat(socketOptions.getReceiveBufferSize()).isEqualTo(65536);
+        assertThat(socketOptions.getSendBufferSize()).isEqualTo(32768);
+    }
+
+    @Test
+    void shouldConfigureMultipleHosts() {
+
+        PostgresqlConnectionFactory factory = this.provider.create(builder()
+            .option(DRIVER, POSTGRESQL_DRIVER)
+            .option(HOST, "host-a:5433, host-b,[::1]:5434")
+            .option(PORT, 5435)
+            .option(USER, "test-user")
+            .option(Option.valueOf("targetServerType"), "preferStandby")
+            .build());
+
+        assertThat(factory.getConfiguration().getHosts()).containsExactly(InetSocketAddress.createUnresolved("host-a", 5433), InetSocketAddress.createUnresolved("host-b", 5435),
+            InetSocketAddress.createUnresolved("::1", 5434));
+        assertThat(factory.getConfiguration().getTargetServerType()).isEqualTo(TargetServerType.PREFER_STANDBY);
+    }
+
     @Test
     void shouldConnectUsingUnixDomainSocket() {
 
@@ -32,7 +32,11 @@ import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static com.ongres.scram.client.ScramClient.ChannelBinding.NO;
 import static com.ongres.scram.common.stringprep.StringPreparations.NO_PREPARATION;
@@ -110,6 +114,32 @@ final class PostgresqlConnectionFactoryTest {
             .build();
     }
 
+    @Test
+    void createWithSchemaAsStartupOption() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .window()
+                .expectRequest(new StartupMessage("test-application-name", "test-database", "test-username", Collections.singletonMap("search_path", "\"Test-Schema\""))).thenRespond(AuthenticationOk.INSTANCE)
+                .done()
+            .build();
+        // @formatter:on
+
+        PostgresqlConnectionConfiguration configuration = PostgresqlConnectionConfiguration.builder()
+            .applicationName("test-application-name")
+            .database("test-database")
+            .host("test-host")
+            .username("test-username")
+            .password("test-password")
+            .schema("Test-Schema")
+            .build();
+
+        new PostgresqlConnectionFactory(c -> Mono.just(client), configuration)
+            .create()
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+
     @Test
     void createError() {
         // @formatter:off
@@ -133,6 +163,93 @@ final class PostgresqlConnectionFactoryTest {
             .verifyErrorMatches(R2dbcNonTransientResourceException.class::isInstance);
     }
 
+    @Test
+    void createFailsOverToNextHost() {
+        PostgresqlConnectionConfiguration configuration = multiHostConfiguration(TargetServerType.ANY);
+        List<String> attempts = new ArrayList<>();
+
+        new PostgresqlConnectionFactory(configuration, (endpoint, sslConfig) -> {
+
+            String host = ((InetSocketAddress) endpoint).getHostString();
+            attempts.add(host);
+
+            return host.equals("host-a") ? Mono.error(new IOException("Connection refused")) : Mono.just(authenticatingClient(false));
+        })
+            .create()
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertThat(attempts).containsExactly("host-a", "host-b");
+    }
+
+    @Test
+    void createConnectsToTargetServerType() {
+        PostgresqlConnectionConfiguration configuration = multiHostConfiguration(TargetServerType.STANDBY);
+        TestClient standby = authenticatingClient(true);
+
+        new PostgresqlConnectionFactory(configuration, (endpoint, sslConfig) -> Mono.just(((InetSocketAddress) endpoint).getHostString().equals("host-a") ? authenticatingClient(false) : standby))
+            .create()
+            .as(StepVerifier::create)
+            .assertNext(connection -> assertThat(((PostgresqlConnection) connection).getClient()).isSameAs(standby))
+            .verifyComplete();
+    }
+
+    @Test
+    void createPreferStandbyFallsBackToPrimary() {
+        PostgresqlConnectionConfiguration configuration = multiHostConfiguration(TargetServerType.PREFER_STANDBY);
+        List<String> attempts = new ArrayList<>();
+
+        new PostgresqlConnectionFactory(configuration, (endpoint, sslConfig) -> {
+            attempts.add(((InetSocketAddress) endpoint).getHostString());
+            return Mono.just(authenticatingClient(false));
+        })
+            .create()
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertThat(attempts).hasSize(3).startsWith("host-a", "host-b");
+    }
+
+    @Test
+    void createPreferStandbySkipsKnownPrimaries() {
+        PostgresqlConnectionConfiguration configuration = multiHostConfiguration(TargetServerType.PREFER_STANDBY);
+        List<String> attempts = new ArrayList<>();
+
+        PostgresqlConnectionFactory connectionFactory = new PostgresqlConnectionFactory(configuration, (endpoint, sslConfig) -> {
+            attempts.add(((InetSocketAddress) endpoint).getHostString());
+            return Mono.just(authenticatingClient(false));
+        });
+
+        connectionFactory.create()
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        attempts.clear();
+
+        connectionFactory.create()
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertThat(attempts).hasSize(1);
+    }
+
+    @Test
+    void createFailsWithoutMatchingServer() {
+        PostgresqlConnectionConfiguration configuration = multiHostConfiguration(TargetServerType.PRIMARY);
+
+        new PostgresqlConnectionFactory(configuration, (endpoint, sslConfig) -> Mono.just(authenticatingClient(true)))
+            .create()
+            .as(StepVerifier::create)
+            .verifyErrorSatisfies(e -> assertThat(e).isInstanceOf(R2dbcNonTransientResourceException.class)
+                .hasMessage("Cannot connect to a primary server at any of [host-a:5432, host-b:5433]")
+                .hasCauseInstanceOf(R2dbcNonTransientResourceException.class)
+                .satisfies(it -> assertThat(it.getCause()).hasMessageMatching("Server at host-[ab]:543[23] is not a primary server")));
+    }
+
     @Test
     void getMetadata() {
         // @formatter:off
@@ -155,4 +272,28 @@ final class PostgresqlConnectionFactoryTest {
         assertThat(new PostgresqlConnectionFactory(c -> Mono.just(client), configuration).getMetadata()).isNotNull();
     }
 
+    private static PostgresqlConnectionConfiguration multiHostConfiguration(TargetServerType targetServerType) {
+        return PostgresqlConnectionConfiguration.builder()
+            .applicationName("test-application-name")
+            .database("test-database")
+            .addHost("host-a", 5432)
+            .addHost("host-b", 5433)
+            .username("test-username")
+            .password("test-password")
+            .targetServerType(targetServerType)
+            .build();
+    }
+
+    private static TestClient authenticatingClient(boolean standby) {
+        // @formatter:off
+        return TestClient.builder()
+            .expectClose()
+            .parameterStatus("in_hot_standby", standby ? "on" : "off")
+            .window()
+                .expectRequest(new StartupMessage("test-application-name", "test-database", "test-username", null)).thenRespond(AuthenticationOk.INSTANCE)
+                .done()
+            .build();
+        // @formatter:on
+    }
+
 }
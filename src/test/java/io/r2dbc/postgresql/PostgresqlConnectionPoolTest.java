@@ -0,0 +1,327 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.DrainLimit;
+import io.r2dbc.postgresql.client.TestClient;
+import io.r2dbc.postgresql.codec.MockCodecs;
+import io.r2dbc.postgresql.message.backend.CloseComplete;
+import io.r2dbc.postgresql.message.backend.CommandComplete;
+import io.r2dbc.postgresql.message.backend.ErrorResponse;
+import io.r2dbc.postgresql.message.backend.NoData;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
+import io.r2dbc.postgresql.message.backend.ParseComplete;
+import io.r2dbc.postgresql.message.frontend.Close;
+import io.r2dbc.postgresql.message.frontend.Describe;
+import io.r2dbc.postgresql.message.frontend.ExecutionType;
+import io.r2dbc.postgresql.message.frontend.Parse;
+import io.r2dbc.postgresql.message.frontend.Query;
+import io.r2dbc.postgresql.message.frontend.Sync;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import reactor.util.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static io.r2dbc.postgresql.client.TransactionStatus.IDLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class PostgresqlConnectionPoolTest {
+
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+    @Test
+    void borrowAndReturn() {
+        io.r2dbc.postgresql.PostgresqlConnection connection = createConnection(TestClient.NO_OP, mock(StatementCache.class));
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(connection), 1, 0);
+
+        PostgresqlConnection borrowed = pool.create().block();
+
+        assertThat(pool.getAllocatedSize()).isEqualTo(1);
+        assertThat(pool.getIdleSize()).isZero();
+
+        borrowed.close()
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        assertThat(pool.getIdleSize()).isEqualTo(1);
+
+        pool.create()
+            .as(StepVerifier::create)
+            .assertNext(actual -> assertThat(((PooledPostgresqlConnection) actual).getDelegate()).isSameAs(connection))
+            .verifyComplete();
+
+        assertThat(pool.getAllocatedSize()).isEqualTo(1);
+    }
+
+    @Test
+    void closeReturnsOnce() {
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(createConnection(TestClient.NO_OP, mock(StatementCache.class))), 1, 0);
+
+        PostgresqlConnection borrowed = pool.create().block();
+
+        borrowed.close().then(borrowed.close())
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        assertThat(pool.getIdleSize()).isEqualTo(1);
+    }
+
+    @Test
+    void returnedConnectionRejectsCalls() {
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(createConnection(TestClient.NO_OP, mock(StatementCache.class))), 1, 0);
+
+        PostgresqlConnection borrowed = pool.create().block();
+        borrowed.close().block();
+
+        assertThatIllegalStateException().isThrownBy(() -> borrowed.createStatement("SELECT 1"))
+            .withMessage("Connection was returned to the pool");
+
+        borrowed.beginTransaction()
+            .as(StepVerifier::create)
+            .verifyError(IllegalStateException.class);
+    }
+
+    @Test
+    void resetsIsolationLevelOnReturn() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .transactionStatus(IDLE)
+            .expectRequest(new Query("SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL SERIALIZABLE")).thenRespond(new CommandComplete("SET", null, null))
+            .expectRequest(new Query("SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL READ COMMITTED")).thenRespond(new CommandComplete("SET", null, null))
+            .build();
+        // @formatter:on
+
+        io.r2dbc.postgresql.PostgresqlConnection connection = createConnection(client, mock(StatementCache.class));
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(connection), 1, 0);
+
+        PostgresqlConnection borrowed = pool.create().block();
+
+        borrowed.setTransactionIsolationLevel(IsolationLevel.SERIALIZABLE)
+            .then(borrowed.close())
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        assertThat(connection.getTransactionIsolationLevel()).isEqualTo(IsolationLevel.READ_COMMITTED);
+        assertThat(pool.getIdleSize()).isEqualTo(1);
+    }
+
+    @Test
+    void closesPreparedStatementsOnReturn() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("P_0", Collections.emptyList(), "SELECT 1"), new Describe("P_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+                .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.emptyList()), NoData.INSTANCE)
+            .expectRequest(new Close("P_0", ExecutionType.STATEMENT), Sync.INSTANCE).thenRespond(CloseComplete.INSTANCE)
+            .expectRequest(new Query("UNLISTEN *")).thenRespond(new CommandComplete("UNLISTEN", null, null))
+            .build();
+        // @formatter:on
+
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(createConnection(client, mock(StatementCache.class))), 1, 0, Duration.ZERO, "UNLISTEN *");
+
+        PostgresqlConnection borrowed = pool.create().block();
+
+        borrowed.prepare("SELECT 1")
+            .then(borrowed.close())
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        assertThat(pool.getIdleSize()).isEqualTo(1);
+    }
+
+    @Test
+    void runsResetQueryOnReturn() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Query("UNLISTEN *")).thenRespond(new CommandComplete("UNLISTEN", null, null))
+            .build();
+        // @formatter:on
+
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(createConnection(client, mock(StatementCache.class))), 1, 0, Duration.ZERO, "UNLISTEN *");
+
+        pool.create()
+            .flatMap(PostgresqlConnection::close)
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        assertThat(pool.getIdleSize()).isEqualTo(1);
+    }
+
+    @Test
+    void discardsConnectionWhenResetQueryFails() {
+        // @formatter:off
+        Client client = TestClient.builder()
+            .expectRequest(new Query("UNLISTEN *")).thenRespond(new ErrorResponse(Collections.emptyList()))
+            .expectClose()
+            .build();
+        // @formatter:on
+
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(createConnection(client, mock(StatementCache.class))), 1, 0, Duration.ZERO, "UNLISTEN *");
+
+        pool.create()
+            .flatMap(PostgresqlConnection::close)
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        assertThat(pool.getIdleSize()).isZero();
+        assertThat(pool.getAllocatedSize()).isZero();
+    }
+
+    @Test
+    void failsBorrowAfterAcquireTimeout() {
+        io.r2dbc.postgresql.PostgresqlConnection connection = createConnection(TestClient.NO_OP, mock(StatementCache.class));
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(connection), 1, 0, Duration.ofSeconds(5), null);
+
+        PostgresqlConnection borrowed = pool.create().block();
+
+        pool.create()
+            .as(StepVerifier::create)
+            .then(() -> this.scheduler.advanceTimeBy(Duration.ofSeconds(4)))
+            .expectNoEvent(Duration.ZERO)
+            .then(() -> this.scheduler.advanceTimeBy(Duration.ofSeconds(1)))
+            .verifyError(R2dbcTimeoutException.class);
+
+        borrowed.close().block();
+
+        assertThat(pool.getIdleSize()).isEqualTo(1);
+    }
+
+    @Test
+    void prefersConnectionWithPreparedStatement() {
+        StatementCache cold = mock(StatementCache.class);
+        StatementCache hot = mock(StatementCache.class);
+        when(hot.contains("SELECT * FROM test WHERE id = $1")).thenReturn(true);
+
+        io.r2dbc.postgresql.PostgresqlConnection coldConnection = createConnection(TestClient.NO_OP, cold);
+        io.r2dbc.postgresql.PostgresqlConnection hotConnection = createConnection(TestClient.NO_OP, hot);
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(hotConnection, coldConnection), 2, 0);
+
+        PostgresqlConnection first = pool.create().block();
+        PostgresqlConnection second = pool.create().block();
+        first.close().then(second.close()).block();
+
+        pool.create("SELECT * FROM test WHERE id = $1")
+            .as(StepVerifier::create)
+            .assertNext(actual -> assertThat(((PooledPostgresqlConnection) actual).getDelegate()).isSameAs(hotConnection))
+            .verifyComplete();
+
+        pool.create("SELECT * FROM test WHERE id = $1")
+            .as(StepVerifier::create)
+            .assertNext(actual -> assertThat(((PooledPostgresqlConnection) actual).getDelegate()).isSameAs(coldConnection))
+            .verifyComplete();
+    }
+
+    @Test
+    void waitsForReturnWhenExhausted() {
+        io.r2dbc.postgresql.PostgresqlConnection connection = createConnection(TestClient.NO_OP, mock(StatementCache.class));
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(connection), 1, 0);
+
+        PostgresqlConnection borrowed = pool.create().block();
+
+        pool.create()
+            .as(StepVerifier::create)
+            .then(() -> borrowed.close().subscribe())
+            .assertNext(actual -> assertThat(((PooledPostgresqlConnection) actual).getDelegate()).isSameAs(connection))
+            .verifyComplete();
+
+        assertThat(pool.getAllocatedSize()).isEqualTo(1);
+    }
+
+    @Test
+    void discardsBrokenConnection() {
+        Client disconnected = TestClient.builder().withConnected(false).expectClose().build();
+        io.r2dbc.postgresql.PostgresqlConnection broken = createConnection(disconnected, mock(StatementCache.class));
+        io.r2dbc.postgresql.PostgresqlConnection replacement = createConnection(TestClient.NO_OP, mock(StatementCache.class));
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(broken, replacement), 1, 0);
+
+        pool.create().flatMap(PostgresqlConnection::close).block();
+
+        assertThat(pool.getAllocatedSize()).isZero();
+        assertThat(pool.getIdleSize()).isZero();
+
+        pool.create()
+            .as(StepVerifier::create)
+            .assertNext(actual -> assertThat(((PooledPostgresqlConnection) actual).getDelegate()).isSameAs(replacement))
+            .verifyComplete();
+    }
+
+    @Test
+    void replenishesMinIdle() {
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(createConnection(TestClient.NO_OP, mock(StatementCache.class)),
+            createConnection(TestClient.NO_OP, mock(StatementCache.class))), 4, 2);
+
+        this.scheduler.advanceTime();
+
+        assertThat(pool.getIdleSize()).isEqualTo(2);
+        assertThat(pool.getAllocatedSize()).isEqualTo(2);
+    }
+
+    @Test
+    void closedPoolRejectsBorrow() {
+        PostgresqlConnectionPool pool = createPool(Arrays.asList(createConnection(TestClient.NO_OP, mock(StatementCache.class))), 1, 0);
+
+        pool.close()
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        pool.create()
+            .as(StepVerifier::create)
+            .verifyError(IllegalStateException.class);
+    }
+
+    @Test
+    void builderRejectsInvalidSizes() {
+        PostgresqlConnectionFactory connectionFactory = new PostgresqlConnectionFactory(PostgresqlConnectionConfiguration.builder().host("localhost").username("postgres").build());
+
+        assertThatIllegalArgumentException().isThrownBy(() -> PostgresqlConnectionPool.builder(connectionFactory).maxSize(0))
+            .withMessage("maxSize must be greater than zero");
+        assertThatIllegalArgumentException().isThrownBy(() -> PostgresqlConnectionPool.builder(connectionFactory).maxSize(1).minIdle(2).build())
+            .withMessage("minIdle must not be greater than maxSize");
+        assertThatIllegalArgumentException().isThrownBy(() -> PostgresqlConnectionPool.builder(connectionFactory).acquireTimeout(Duration.ofSeconds(-1)))
+            .withMessage("acquireTimeout must not be negative");
+    }
+
+    private PostgresqlConnectionPool createPool(List<io.r2dbc.postgresql.PostgresqlConnection> connections, int maxSize, int minIdle) {
+        return createPool(connections, maxSize, minIdle, Duration.ZERO, null);
+    }
+
+    private PostgresqlConnectionPool createPool(List<io.r2dbc.postgresql.PostgresqlConnection> connections, int maxSize, int minIdle, Duration acquireTimeout, @Nullable String resetQuery) {
+        Iterator<io.r2dbc.postgresql.PostgresqlConnection> iterator = connections.iterator();
+
+        return new PostgresqlConnectionPool(() -> Mono.fromSupplier(iterator::next), maxSize, minIdle, Duration.ofMinutes(1), acquireTimeout, resetQuery, this.scheduler);
+    }
+
+    private static io.r2dbc.postgresql.PostgresqlConnection createConnection(Client client, StatementCache cache) {
+        return new io.r2dbc.postgresql.PostgresqlConnection(client, MockCodecs.empty(), () -> "", cache, new ParsedSqlCache(), new DefaultPostgresqlMetrics(), DrainLimit.UNLIMITED,
+            IsolationLevel.READ_COMMITTED, false);
+    }
+
+}
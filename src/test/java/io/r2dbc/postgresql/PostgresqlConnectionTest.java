@@ -17,6 +17,7 @@
 package io.r2dbc.postgresql;
 
 import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.DrainLimit;
 import io.r2dbc.postgresql.client.TestClient;
 import io.r2dbc.postgresql.client.Version;
 import io.r2dbc.postgresql.codec.MockCodecs;
@@ -150,7 +151,7 @@ final class PostgresqlConnectionTest {
 
     @Test
     void constructorNoPortalNameSupplier() {
-        assertThatIllegalArgumentException().isThrownBy(() -> new PostgresqlConnection(NO_OP, MockCodecs.empty(), null, this.statementCache, IsolationLevel.READ_COMMITTED, false))
+        assertThatIllegalArgumentException().isThrownBy(() -> new PostgresqlConnection(NO_OP, MockCodecs.empty(), null, this.statementCache, new ParsedSqlCache(), new DefaultPostgresqlMetrics(), DrainLimit.UNLIMITED, IsolationLevel.READ_COMMITTED, false))
             .withMessage("portalNameSupplier must not be null");
     }
 
@@ -473,6 +474,6 @@ final class PostgresqlConnectionTest {
     }
 
     private PostgresqlConnection createConnection(Client client, MockCodecs codecs, StatementCache cache) {
-        return new PostgresqlConnection(client, codecs, () -> "", cache, IsolationLevel.READ_COMMITTED, false);
+        return new PostgresqlConnection(client, codecs, () -> "", cache, new ParsedSqlCache(), new DefaultPostgresqlMetrics(), DrainLimit.UNLIMITED, IsolationLevel.READ_COMMITTED, false);
     }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.r2dbc.postgresql.api.LargeObject;
+import io.r2dbc.postgresql.api.LargeObjectManager;
+import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.TestClient;
+import io.r2dbc.postgresql.message.backend.CommandComplete;
+import io.r2dbc.postgresql.message.backend.DataRow;
+import io.r2dbc.postgresql.message.backend.ErrorResponse;
+import io.r2dbc.postgresql.message.backend.Field;
+import io.r2dbc.postgresql.message.backend.FunctionCallResponse;
+import io.r2dbc.postgresql.message.frontend.FunctionCall;
+import io.r2dbc.postgresql.message.frontend.Query;
+import io.r2dbc.spi.R2dbcBadGrammarException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
+import static io.r2dbc.postgresql.util.ByteBufUtils.encode;
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+final class PostgresqlLargeObjectManagerTest {
+
+    @Test
+    void constructorNoClient() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new PostgresqlLargeObjectManager(null))
+            .withMessage("client must not be null");
+    }
+
+    @Test
+    void createAndUnlinkResolvesFunctionsOnce() {
+        Client client = TestClient.builder()
+            .expectRequest(new Query(PostgresqlLargeObjectManager.FUNCTION_QUERY))
+            .thenRespond(function("lo_create", 715), function("lo_unlink", 964), new CommandComplete("SELECT", null, 2))
+            .expectRequest(call(715, Unpooled.copyInt(0))).thenRespond(new FunctionCallResponse(Unpooled.copyInt(-2)))
+            .expectRequest(call(964, Unpooled.copyInt(-2))).thenRespond(new FunctionCallResponse(Unpooled.copyInt(1)))
+            .build();
+
+        LargeObjectManager manager = new PostgresqlLargeObjectManager(client);
+
+        manager.create()
+            .as(StepVerifier::create)
+            .expectNext(4294967294L)
+            .verifyComplete();
+
+        manager.unlink(4294967294L)
+            .as(StepVerifier::create)
+            .verifyComplete();
+    }
+
+    @Test
+    void readInChunks() {
+        Client client = TestClient.builder()
+            .expectRequest(new Query(PostgresqlLargeObjectManager.FUNCTION_QUERY))
+            .thenRespond(function("lo_open", 952), function("loread", 954), new CommandComplete("SELECT", null, 2))
+            .expectRequest(call(952, Unpooled.copyInt(100), Unpooled.copyInt(LargeObjectManager.Mode.READ.getFlags()))).thenRespond(new FunctionCallResponse(Unpooled.copyInt(0)))
+            .expectRequest(call(954, Unpooled.copyInt(0), Unpooled.copyInt(4))).thenRespond(new FunctionCallResponse(Unpooled.wrappedBuffer(new byte[]{1, 2, 3, 4})))
+            .expectRequest(call(954, Unpooled.copyInt(0), Unpooled.copyInt(4))).thenRespond(new FunctionCallResponse(Unpooled.wrappedBuffer(new byte[]{5, 6})))
+            .build();
+
+        new PostgresqlLargeObjectManager(client).open(100, LargeObjectManager.Mode.READ)
+            .flatMapMany(largeObject -> largeObject.read(4))
+            .map(ByteBuf::readableBytes)
+            .as(StepVerifier::create)
+            .expectNext(4, 2)
+            .verifyComplete();
+    }
+
+    @Test
+    void readInvalidChunkSize() {
+        LargeObject largeObject = new PostgresqlLargeObjectManager(TestClient.NO_OP).new PostgresqlLargeObject(100, 0);
+
+        assertThatIllegalArgumentException().isThrownBy(() -> largeObject.read(0))
+            .withMessage("chunkSize must be greater than zero");
+    }
+
+    @Test
+    void writeChunksAndSeek() {
+        ByteBuf first = TEST.buffer().writeInt(1);
+        ByteBuf second = TEST.buffer().writeShort(2);
+
+        Client client = TestClient.builder()
+            .expectRequest(new Query(PostgresqlLargeObjectManager.FUNCTION_QUERY))
+            .thenRespond(function("lowrite", 955), function("lo_lseek64", 3170), function("lo_close", 953), new CommandComplete("SELECT", null, 3))
+            .expectRequest(call(955, Unpooled.copyInt(0), Unpooled.copyInt(1))).thenRespond(new FunctionCallResponse(Unpooled.copyInt(4)))
+            .expectRequest(call(955, Unpooled.copyInt(0), Unpooled.copyShort(2))).thenRespond(new FunctionCallResponse(Unpooled.copyInt(2)))
+            .expectRequest(call(3170, Unpooled.copyInt(0), Unpooled.copyLong(2), Unpooled.copyInt(0))).thenRespond(new FunctionCallResponse(Unpooled.copyLong(2)))
+            .expectRequest(call(953, Unpooled.copyInt(0))).thenRespond(new FunctionCallResponse(Unpooled.copyInt(0)))
+            .build();
+
+        LargeObject largeObject = new PostgresqlLargeObjectManager(client).new PostgresqlLargeObject(100, 0);
+
+        largeObject.write(Flux.just(first, second))
+            .as(StepVerifier::create)
+            .expectNext(6L)
+            .verifyComplete();
+
+        assertThat(first.refCnt()).isZero();
+        assertThat(second.refCnt()).isZero();
+
+        largeObject.seek(2, LargeObject.Whence.SET)
+            .as(StepVerifier::create)
+            .expectNext(2L)
+            .verifyComplete();
+
+        largeObject.close()
+            .as(StepVerifier::create)
+            .verifyComplete();
+    }
+
+    @Test
+    void missingFunction() {
+        Client client = TestClient.builder()
+            .expectRequest(new Query(PostgresqlLargeObjectManager.FUNCTION_QUERY))
+            .thenRespond(new CommandComplete("SELECT", null, 0))
+            .build();
+
+        new PostgresqlLargeObjectManager(client).create()
+            .as(StepVerifier::create)
+            .verifyErrorMessage("Function lo_create does not exist");
+    }
+
+    @Test
+    void callError() {
+        Client client = TestClient.builder()
+            .expectRequest(new Query(PostgresqlLargeObjectManager.FUNCTION_QUERY))
+            .thenRespond(function("lo_unlink", 964), new CommandComplete("SELECT", null, 1))
+            .expectRequest(call(964, Unpooled.copyInt(100))).thenRespond(new ErrorResponse(Collections.singletonList(new Field(Field.FieldType.CODE, "42704"))))
+            .build();
+
+        new PostgresqlLargeObjectManager(client).unlink(100)
+            .as(StepVerifier::create)
+            .verifyError(R2dbcBadGrammarException.class);
+    }
+
+    private static DataRow function(String name, int oid) {
+        return new DataRow(encode(TEST, name), encode(TEST, Integer.toString(oid)));
+    }
+
+    private static FunctionCall call(int functionId, ByteBuf... arguments) {
+        return new FunctionCall(Collections.singletonList(FORMAT_BINARY), Arrays.asList(arguments), functionId, FORMAT_BINARY);
+    }
+
+}
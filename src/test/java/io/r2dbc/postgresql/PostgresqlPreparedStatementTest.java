@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.TestClient;
+import io.r2dbc.postgresql.codec.DefaultCodecs;
+import io.r2dbc.postgresql.message.backend.BindComplete;
+import io.r2dbc.postgresql.message.backend.CloseComplete;
+import io.r2dbc.postgresql.message.backend.CommandComplete;
+import io.r2dbc.postgresql.message.backend.ErrorResponse;
+import io.r2dbc.postgresql.message.backend.Field;
+import io.r2dbc.postgresql.message.backend.Field.FieldType;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
+import io.r2dbc.postgresql.message.backend.ParseComplete;
+import io.r2dbc.postgresql.message.backend.RowDescription;
+import io.r2dbc.postgresql.message.frontend.Bind;
+import io.r2dbc.postgresql.message.frontend.Close;
+import io.r2dbc.postgresql.message.frontend.Describe;
+import io.r2dbc.postgresql.message.frontend.Execute;
+import io.r2dbc.postgresql.message.frontend.ExecutionType;
+import io.r2dbc.postgresql.message.frontend.Parse;
+import io.r2dbc.postgresql.message.frontend.Sync;
+import io.r2dbc.spi.R2dbcBadGrammarException;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
+import static io.r2dbc.postgresql.message.Format.FORMAT_TEXT;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT4;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT8;
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+final class PostgresqlPreparedStatementTest {
+
+    private final DefaultCodecs codecs = new DefaultCodecs(TEST);
+
+    @Test
+    void prepare() {
+        RowDescription.Field field = new RowDescription.Field((short) 1, INT4.getObjectId(), 0, (short) 4, FORMAT_TEXT, "id", 0);
+
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("P_0", Collections.emptyList(), "SELECT id FROM test WHERE id = $1"), new Describe("P_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(INT8.getObjectId())), new RowDescription(Collections.singletonList(field)))
+            .build();
+
+        PostgresqlPreparedStatement.prepare(MockContext.builder().client(client).codecs(this.codecs).build(), "P_0", PostgresqlSqlParser.parse("SELECT id FROM test WHERE id = $1"), true)
+            .as(StepVerifier::create)
+            .assertNext(statement -> {
+                assertThat(statement.getName()).isEqualTo("P_0");
+                assertThat(statement.getSql()).isEqualTo("SELECT id FROM test WHERE id = $1");
+                assertThat(statement.getParameterTypes()).containsExactly(INT8.getObjectId());
+                assertThat(statement.getRowDescription()).isNotNull();
+                assertThat(statement.getRowDescription().getFields()).extracting(RowDescription.Field::getFormat).containsExactly(FORMAT_BINARY);
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void prepareError() {
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("P_0", Collections.emptyList(), "SELECT"), new Describe("P_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(new ErrorResponse(Collections.singletonList(new Field(FieldType.CODE, "42601"))))
+            .build();
+
+        PostgresqlPreparedStatement.prepare(MockContext.builder().client(client).codecs(this.codecs).build(), "P_0", PostgresqlSqlParser.parse("SELECT"), false)
+            .as(StepVerifier::create)
+            .verifyError(R2dbcBadGrammarException.class);
+    }
+
+    @Test
+    void bindConvertsToServerType() {
+        Client client = TestClient.builder()
+            .expectRequest(
+                new Bind("", Collections.singletonList(FORMAT_BINARY), Collections.singletonList(TEST.buffer(8).writeLong(100)), Collections.emptyList(), "P_0"),
+                new Execute("", 0),
+                Sync.INSTANCE)
+            .thenRespond(BindComplete.INSTANCE, new CommandComplete("DELETE", null, 1))
+            .build();
+
+        PostgresqlPreparedStatement statement = new PostgresqlPreparedStatement(MockContext.builder().client(client).codecs(this.codecs).build(), "P_0",
+            PostgresqlSqlParser.parse("DELETE FROM test WHERE id = $1"), Collections.singletonList(INT8.getObjectId()), null, false);
+
+        statement.bind(100)
+            .execute()
+            .flatMap(PostgresqlResult::getRowsUpdated)
+            .as(StepVerifier::create)
+            .expectNext(1)
+            .verifyComplete();
+    }
+
+    @Test
+    void bindMultiple() {
+        Client client = TestClient.builder()
+            .expectRequest(
+                new Bind("", Arrays.asList(FORMAT_BINARY, FORMAT_TEXT), Arrays.asList(TEST.buffer(4).writeInt(100), Bind.NULL_VALUE), Collections.emptyList(), "P_0"),
+                new Execute("", 0),
+                new Bind("", Arrays.asList(FORMAT_BINARY, FORMAT_TEXT), Arrays.asList(TEST.buffer(4).writeInt(200), Bind.NULL_VALUE), Collections.emptyList(), "P_0"),
+                new Execute("", 0),
+                Sync.INSTANCE)
+            .thenRespond(BindComplete.INSTANCE, new CommandComplete("UPDATE", null, 1), BindComplete.INSTANCE, new CommandComplete("UPDATE", null, 2))
+            .build();
+
+        PostgresqlPreparedStatement statement = new PostgresqlPreparedStatement(MockContext.builder().client(client).codecs(this.codecs).build(), "P_0",
+            PostgresqlSqlParser.parse("UPDATE test SET a = $1, b = $2"), Arrays.asList(INT4.getObjectId(), INT4.getObjectId()), null, false);
+
+        statement.createStatement()
+            .bind("$1", 100)
+            .bindNull("$2", Integer.class)
+            .add()
+            .bind(0, 200)
+            .bindNull(1, Integer.class)
+            .execute()
+            .flatMap(PostgresqlResult::getRowsUpdated)
+            .as(StepVerifier::create)
+            .expectNext(1, 2)
+            .verifyComplete();
+    }
+
+    @Test
+    void bindWrongNumberOfValues() {
+        PostgresqlPreparedStatement statement = new PostgresqlPreparedStatement(MockContext.builder().codecs(this.codecs).build(), "P_0",
+            PostgresqlSqlParser.parse("SELECT $1"), Collections.singletonList(INT4.getObjectId()), null, false);
+
+        assertThatIllegalArgumentException().isThrownBy(() -> statement.bind(1, 2))
+            .withMessage("Statement expects 1 parameters but 2 values were given");
+    }
+
+    @Test
+    void close() {
+        Client client = TestClient.builder()
+            .expectRequest(new Close("P_0", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(CloseComplete.INSTANCE)
+            .build();
+
+        PostgresqlPreparedStatement statement = new PostgresqlPreparedStatement(MockContext.builder().client(client).codecs(this.codecs).build(), "P_0",
+            PostgresqlSqlParser.parse("SELECT 1"), Collections.emptyList(), null, false);
+
+        statement.close()
+            .as(StepVerifier::create)
+            .verifyComplete();
+    }
+
+    @Test
+    void executeWithoutParameters() {
+        Client client = TestClient.builder()
+            .expectRequest(new Bind("", Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), "P_0"), new Execute("", 0), Sync.INSTANCE)
+            .thenRespond(BindComplete.INSTANCE, new CommandComplete("DELETE", null, 3))
+            .build();
+
+        PostgresqlPreparedStatement statement = new PostgresqlPreparedStatement(MockContext.builder().client(client).codecs(this.codecs).build(), "P_0",
+            PostgresqlSqlParser.parse("DELETE FROM test"), Collections.emptyList(), null, false);
+
+        statement.createStatement()
+            .execute()
+            .flatMap(PostgresqlResult::getRowsUpdated)
+            .as(StepVerifier::create)
+            .expectNext(3)
+            .verifyComplete();
+    }
+
+    @Test
+    void executeNoBindings() {
+        PostgresqlPreparedStatement statement = new PostgresqlPreparedStatement(MockContext.builder().codecs(this.codecs).build(), "P_0",
+            PostgresqlSqlParser.parse("SELECT $1"), Collections.singletonList(INT4.getObjectId()), null, false);
+
+        assertThatIllegalStateException().isThrownBy(() -> statement.createStatement().execute())
+            .withMessage("No parameters have been bound");
+    }
+
+    @Test
+    void returnGeneratedValues() {
+        PostgresqlPreparedStatement statement = new PostgresqlPreparedStatement(MockContext.builder().codecs(this.codecs).build(), "P_0",
+            PostgresqlSqlParser.parse("INSERT INTO test VALUES ($1)"), Collections.singletonList(INT4.getObjectId()), null, false);
+
+        assertThatIllegalStateException().isThrownBy(() -> statement.createStatement().returnGeneratedValues());
+    }
+
+}
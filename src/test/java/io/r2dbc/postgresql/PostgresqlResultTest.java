@@ -16,16 +16,27 @@
 
 package io.r2dbc.postgresql;
 
+import io.r2dbc.postgresql.message.backend.BackendMessage;
 import io.r2dbc.postgresql.message.backend.CommandComplete;
 import io.r2dbc.postgresql.message.backend.DataRow;
 import io.r2dbc.postgresql.message.backend.EmptyQueryResponse;
 import io.r2dbc.postgresql.message.backend.RowDescription;
+import io.r2dbc.postgresql.codec.DefaultCodecs;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import java.util.ArrayList;
 import java.util.Collections;
-
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT4;
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 final class PostgresqlResultTest {
@@ -96,4 +107,56 @@ final class PostgresqlResultTest {
             .verifyComplete();
     }
 
+    @Test
+    void mapOnSchedulerRetainsOrder() {
+        List<DataRow> rows = createRows(PostgresqlResult.BATCH_SIZE * 4 + 3);
+        PostgresqlResult result = PostgresqlResult.toResult(MockContext.builder().codecs(new DefaultCodecs(TEST)).build(), createMessages(rows), ExceptionFactory.INSTANCE);
+
+        result.map((row, rowMetadata) -> row.get(0, Integer.class), Schedulers.parallel())
+            .collectList()
+            .as(StepVerifier::create)
+            .assertNext(actual -> assertThat(actual).containsExactlyElementsOf(IntStream.range(0, rows.size()).boxed().collect(Collectors.toList())))
+            .verifyComplete();
+
+        assertThat(rows).allSatisfy(row -> assertThat(row.refCnt()).isZero());
+    }
+
+    @Test
+    void mapOnSchedulerReleasesRowsOnError() {
+        List<DataRow> rows = createRows(PostgresqlResult.BATCH_SIZE - 1);
+        PostgresqlResult result = PostgresqlResult.toResult(MockContext.builder().codecs(new DefaultCodecs(TEST)).build(), createMessages(rows), ExceptionFactory.INSTANCE);
+
+        result.map((row, rowMetadata) -> {
+            throw new IllegalStateException("mapping failed");
+        }, Schedulers.parallel())
+            .as(StepVerifier::create)
+            .verifyErrorMessage("mapping failed");
+
+        assertThat(rows).allSatisfy(row -> assertThat(row.refCnt()).isZero());
+    }
+
+    @Test
+    void mapOnSchedulerNoScheduler() {
+        assertThatIllegalArgumentException().isThrownBy(() -> PostgresqlResult.toResult(MockContext.empty(), Flux.empty(), ExceptionFactory.INSTANCE).map((row, rowMetadata) -> row, null))
+            .withMessage("scheduler must not be null");
+    }
+
+    private static List<DataRow> createRows(int count) {
+        List<DataRow> rows = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            rows.add(new DataRow(TEST.buffer(4).writeInt(i)));
+        }
+
+        return rows;
+    }
+
+    private static Flux<BackendMessage> createMessages(List<DataRow> rows) {
+        RowDescription rowDescription = new RowDescription(Collections.singletonList(new RowDescription.Field((short) 1, INT4.getObjectId(), 0, (short) 4, FORMAT_BINARY, "id", 0)));
+
+        return Flux.<BackendMessage>just(rowDescription)
+            .concatWith(Flux.fromIterable(rows))
+            .concatWith(Flux.just(new CommandComplete("SELECT", null, rows.size())));
+    }
+
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.postgresql.api.PostgresqlStatement;
+import io.r2dbc.postgresql.replication.LogSequenceNumber;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static io.r2dbc.postgresql.PostgresqlRoutingConnectionFactory.UNKNOWN_LAG;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class PostgresqlRoutingConnectionFactoryTest {
+
+    private static final String STANDBY_POSITION = "SELECT CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn()::text END";
+
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+    private final PostgresqlConnection primaryConnection = mock(PostgresqlConnection.class);
+
+    private final PostgresqlConnection standbyConnectionA = mock(PostgresqlConnection.class);
+
+    private final PostgresqlConnection standbyConnectionB = mock(PostgresqlConnection.class);
+
+    private final PostgresqlRoutingConnectionFactory.Node primary = node("primary", Mono.just(this.primaryConnection), 1000);
+
+    @Test
+    void builderRequiresMultipleHosts() {
+        PostgresqlConnectionConfiguration configuration = PostgresqlConnectionConfiguration.builder().host("test-host").username("test-username").build();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> PostgresqlRoutingConnectionFactory.builder(configuration).build())
+            .withMessage("Routing requires a configuration with at least two hosts");
+    }
+
+    @Test
+    void createRoutesToPrimary() {
+        PostgresqlRoutingConnectionFactory factory = createFactory(node("standby-a", Mono.just(this.standbyConnectionA), 1000));
+
+        factory.create()
+            .as(StepVerifier::create)
+            .expectNext(this.primaryConnection)
+            .verifyComplete();
+    }
+
+    @Test
+    void createReadOnlyRoutesToStandbyWithinLag() {
+        PostgresqlRoutingConnectionFactory factory = createFactory(node("standby-a", Mono.just(this.standbyConnectionA), 900), node("standby-b", Mono.just(this.standbyConnectionB), 0));
+
+        assertThat(factory.getReplayLags()).containsEntry("standby-a", 100L).containsEntry("standby-b", 1000L);
+
+        for (int i = 0; i < 3; i++) {
+            factory.createReadOnly()
+                .as(StepVerifier::create)
+                .expectNext(this.standbyConnectionA)
+                .verifyComplete();
+        }
+    }
+
+    @Test
+    void createReadOnlyDistributesAcrossStandbys() {
+        PostgresqlRoutingConnectionFactory factory = createFactory(node("standby-a", Mono.just(this.standbyConnectionA), 950), node("standby-b", Mono.just(this.standbyConnectionB), 900));
+
+        factory.createReadOnly().concatWith(factory.createReadOnly())
+            .as(StepVerifier::create)
+            .expectNext(this.standbyConnectionA, this.standbyConnectionB)
+            .verifyComplete();
+    }
+
+    @Test
+    void createRoutesToStandbyWithReadOnlyContext() {
+        PostgresqlRoutingConnectionFactory factory = createFactory(node("standby-a", Mono.just(this.standbyConnectionA), 1000));
+
+        factory.create()
+            .subscriberContext(Context.of(PostgresqlRoutingConnectionFactory.READ_ONLY, true))
+            .as(StepVerifier::create)
+            .expectNext(this.standbyConnectionA)
+            .verifyComplete();
+    }
+
+    @Test
+    void createReadOnlyFallsBackToPrimary() {
+        PostgresqlRoutingConnectionFactory.Node standby = new PostgresqlRoutingConnectionFactory.Node("standby-a", () -> Mono.just(this.standbyConnectionA), Mono::empty, Mono.empty());
+        PostgresqlRoutingConnectionFactory factory = createFactory(standby);
+
+        assertThat(factory.getReplayLags()).containsEntry("standby-a", UNKNOWN_LAG);
+
+        factory.createReadOnly()
+            .as(StepVerifier::create)
+            .expectNext(this.primaryConnection)
+            .verifyComplete();
+    }
+
+    @Test
+    void createReadOnlySkipsUnreachableStandby() {
+        PostgresqlRoutingConnectionFactory factory = createFactory(node("standby-a", Mono.error(new IllegalStateException()), 1000), node("standby-b", Mono.just(this.standbyConnectionB), 1000));
+
+        factory.createReadOnly()
+            .as(StepVerifier::create)
+            .expectNext(this.standbyConnectionB)
+            .verifyComplete();
+
+        assertThat(factory.getReplayLags()).containsEntry("standby-a", UNKNOWN_LAG).containsEntry("standby-b", 0L);
+    }
+
+    @Test
+    void retainsLagWhenPrimaryIsUnreachable() {
+        PostgresqlRoutingConnectionFactory.Node primary = new PostgresqlRoutingConnectionFactory.Node("primary", () -> Mono.just(this.primaryConnection),
+            () -> Mono.error(new IllegalStateException()), Mono.empty());
+        PostgresqlRoutingConnectionFactory.Node standby = node("standby-a", Mono.just(this.standbyConnectionA), 1000);
+        standby.setLag(10);
+
+        PostgresqlRoutingConnectionFactory factory = new PostgresqlRoutingConnectionFactory(primary, Arrays.asList(standby), 500, Duration.ofSeconds(5), Duration.ofSeconds(1), this.scheduler);
+        this.scheduler.advanceTime();
+
+        assertThat(factory.getReplayLags()).containsEntry("standby-a", 10L);
+    }
+
+    @Test
+    void getWritePosition() {
+        PostgresqlConnection connection = mock(PostgresqlConnection.class);
+        mockPositions(connection, "SELECT pg_current_wal_insert_lsn()::text", "0/3E8");
+
+        PostgresqlRoutingConnectionFactory.getWritePosition(connection)
+            .as(StepVerifier::create)
+            .expectNext(LogSequenceNumber.valueOf(1000))
+            .verifyComplete();
+    }
+
+    @Test
+    void createReadOnlyWaitsForReplayPosition() {
+        mockPositions(this.standbyConnectionA, STANDBY_POSITION, "0/384", "0/3E8");
+        PostgresqlRoutingConnectionFactory factory = createFactory(node("standby-a", Mono.just(this.standbyConnectionA), 900));
+
+        StepVerifier.create(factory.createReadOnly(LogSequenceNumber.valueOf(1000)))
+            .then(() -> this.scheduler.advanceTimeBy(PostgresqlRoutingConnectionFactory.REPLAY_POLL_INTERVAL))
+            .expectNext(this.standbyConnectionA)
+            .verifyComplete();
+
+        verify(this.standbyConnectionA, never()).close();
+    }
+
+    @Test
+    void createReadOnlyPrefersStandbyWithReplayedPosition() {
+        mockPositions(this.standbyConnectionB, STANDBY_POSITION, "0/3E8");
+        PostgresqlRoutingConnectionFactory factory = createFactory(node("standby-a", Mono.just(this.standbyConnectionA), 900), node("standby-b", Mono.just(this.standbyConnectionB), 1000));
+
+        factory.createReadOnly(LogSequenceNumber.valueOf(1000))
+            .as(StepVerifier::create)
+            .expectNext(this.standbyConnectionB)
+            .verifyComplete();
+    }
+
+    @Test
+    void createReadOnlyFallsBackToPrimaryIfReplayTimesOut() {
+        mockPositions(this.standbyConnectionA, STANDBY_POSITION, "0/384");
+        when(this.standbyConnectionA.close()).thenReturn(Mono.empty());
+        PostgresqlRoutingConnectionFactory factory = createFactory(node("standby-a", Mono.just(this.standbyConnectionA), 900));
+
+        StepVerifier.create(factory.createReadOnly(LogSequenceNumber.valueOf(1000)))
+            .then(() -> this.scheduler.advanceTimeBy(Duration.ofSeconds(1)))
+            .expectNext(this.primaryConnection)
+            .verifyComplete();
+
+        verify(this.standbyConnectionA).close();
+    }
+
+    @Test
+    void createConsidersReplayPositionFromContext() {
+        mockPositions(this.standbyConnectionA, STANDBY_POSITION, "0/3E8");
+        PostgresqlRoutingConnectionFactory factory = createFactory(node("standby-a", Mono.just(this.standbyConnectionA), 1000));
+
+        factory.create()
+            .subscriberContext(Context.of(PostgresqlRoutingConnectionFactory.READ_ONLY, true, PostgresqlRoutingConnectionFactory.MIN_REPLAY_POSITION, LogSequenceNumber.valueOf(1000)))
+            .as(StepVerifier::create)
+            .expectNext(this.standbyConnectionA)
+            .verifyComplete();
+    }
+
+    private PostgresqlRoutingConnectionFactory createFactory(PostgresqlRoutingConnectionFactory.Node... standbys) {
+        PostgresqlRoutingConnectionFactory factory = new PostgresqlRoutingConnectionFactory(this.primary, Arrays.asList(standbys), 500, Duration.ofSeconds(5), Duration.ofSeconds(1), this.scheduler);
+        this.scheduler.advanceTime();
+        return factory;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void mockPositions(PostgresqlConnection connection, String sql, String... positions) {
+
+        PostgresqlStatement statement = mock(PostgresqlStatement.class);
+        PostgresqlResult result = mock(PostgresqlResult.class);
+        when(connection.createStatement(sql)).thenReturn(statement);
+        when(statement.execute()).thenReturn(Flux.just(result));
+
+        Flux<Object>[] values = Arrays.stream(positions).map(position -> Flux.just((Object) Optional.of(position))).toArray(Flux[]::new);
+        when(result.map(any())).thenReturn(values[0], Arrays.copyOfRange(values, 1, values.length));
+    }
+
+    private static PostgresqlRoutingConnectionFactory.Node node(String name, Mono<PostgresqlConnection> connection, long position) {
+        return new PostgresqlRoutingConnectionFactory.Node(name, () -> connection, () -> Mono.just(LogSequenceNumber.valueOf(position)), Mono.empty());
+    }
+
+}
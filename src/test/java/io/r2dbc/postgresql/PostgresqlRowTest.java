@@ -17,14 +17,20 @@
 package io.r2dbc.postgresql;
 
 import io.netty.buffer.ByteBuf;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.postgresql.api.PostgresqlStatement;
 import io.r2dbc.postgresql.codec.MockCodecs;
 import io.r2dbc.postgresql.message.backend.DataRow;
 import io.r2dbc.postgresql.message.backend.RowDescription;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
 import static io.r2dbc.postgresql.message.Format.FORMAT_TEXT;
@@ -32,6 +38,12 @@ import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 final class PostgresqlRowTest {
 
@@ -162,4 +174,99 @@ final class PostgresqlRowTest {
             .withMessage("rowDescription must not be null");
     }
 
+    @Test
+    void fetchRefCursorInBatches() {
+        io.r2dbc.postgresql.api.PostgresqlConnection connection = mock(io.r2dbc.postgresql.api.PostgresqlConnection.class);
+        io.r2dbc.postgresql.api.PostgresqlPreparedStatement fetch = mock(io.r2dbc.postgresql.api.PostgresqlPreparedStatement.class);
+        PostgresqlStatement fetchStatement = mock(PostgresqlStatement.class);
+        PostgresqlStatement closeStatement = mock(PostgresqlStatement.class);
+        PostgresqlResult fullBatch = mock(PostgresqlResult.class);
+        PostgresqlResult lastBatch = mock(PostgresqlResult.class);
+        PostgresqlResult closed = mock(PostgresqlResult.class);
+
+        when(connection.prepare("FETCH 2 IN \"test-cursor\"")).thenReturn(Mono.just(fetch));
+        when(connection.createStatement("CLOSE \"test-cursor\"")).thenReturn(closeStatement);
+        when(fetch.createStatement()).thenReturn(fetchStatement);
+        when(fetch.close()).thenReturn(Mono.empty());
+        doReturn(Flux.just(fullBatch), Flux.just(lastBatch)).when(fetchStatement).execute();
+        doReturn(Flux.just("a", "b")).when(fullBatch).map(any());
+        doReturn(Flux.just("c")).when(lastBatch).map(any());
+        when(closeStatement.execute()).thenReturn(Flux.just(closed));
+        when(closed.getRowsUpdated()).thenReturn(Mono.empty());
+
+        new PostgresqlRow.AttachedRefCursor(MockContext.builder().connection(connection).build(), "test-cursor")
+            .<Object>fetch(2, (row, rowMetadata) -> row)
+            .as(StepVerifier::create)
+            .expectNext("a", "b", "c")
+            .verifyComplete();
+
+        verify(fetchStatement, times(2)).execute();
+        verify(closeStatement).execute();
+        verify(fetch).close();
+    }
+
+    @Test
+    void fetchRefCursorOnDemand() {
+        io.r2dbc.postgresql.api.PostgresqlConnection connection = mock(io.r2dbc.postgresql.api.PostgresqlConnection.class);
+        io.r2dbc.postgresql.api.PostgresqlPreparedStatement fetch = mock(io.r2dbc.postgresql.api.PostgresqlPreparedStatement.class);
+        PostgresqlStatement fetchStatement = mock(PostgresqlStatement.class);
+        PostgresqlStatement closeStatement = mock(PostgresqlStatement.class);
+        PostgresqlResult fullBatch = mock(PostgresqlResult.class);
+        PostgresqlResult lastBatch = mock(PostgresqlResult.class);
+        PostgresqlResult closed = mock(PostgresqlResult.class);
+
+        when(connection.prepare("FETCH 2 IN \"test-cursor\"")).thenReturn(Mono.just(fetch));
+        when(connection.createStatement("CLOSE \"test-cursor\"")).thenReturn(closeStatement);
+        when(fetch.createStatement()).thenReturn(fetchStatement);
+        when(fetch.close()).thenReturn(Mono.empty());
+        doReturn(Flux.just(fullBatch), Flux.just(lastBatch)).when(fetchStatement).execute();
+        doReturn(Flux.just("a", "b")).when(fullBatch).map(any());
+        doReturn(Flux.just("c")).when(lastBatch).map(any());
+        when(closeStatement.execute()).thenReturn(Flux.just(closed));
+        when(closed.getRowsUpdated()).thenReturn(Mono.empty());
+
+        new PostgresqlRow.AttachedRefCursor(MockContext.builder().connection(connection).build(), "test-cursor")
+            .<Object>fetch(2, (row, rowMetadata) -> row)
+            .as(it -> StepVerifier.create(it, 2))
+            .expectNext("a", "b")
+            .then(() -> verify(fetchStatement, times(1)).execute())
+            .thenRequest(1)
+            .expectNext("c")
+            .verifyComplete();
+
+        verify(fetchStatement, times(2)).execute();
+    }
+
+    @Test
+    void fetchRefCursorDeallocatesWhenCloseFails() {
+        io.r2dbc.postgresql.api.PostgresqlConnection connection = mock(io.r2dbc.postgresql.api.PostgresqlConnection.class);
+        io.r2dbc.postgresql.api.PostgresqlPreparedStatement fetch = mock(io.r2dbc.postgresql.api.PostgresqlPreparedStatement.class);
+        PostgresqlStatement fetchStatement = mock(PostgresqlStatement.class);
+        PostgresqlStatement closeStatement = mock(PostgresqlStatement.class);
+        PostgresqlResult lastBatch = mock(PostgresqlResult.class);
+        AtomicBoolean deallocated = new AtomicBoolean();
+
+        when(connection.prepare("FETCH 2 IN \"test-cursor\"")).thenReturn(Mono.just(fetch));
+        when(connection.createStatement("CLOSE \"test-cursor\"")).thenReturn(closeStatement);
+        when(fetch.createStatement()).thenReturn(fetchStatement);
+        when(fetch.close()).thenReturn(Mono.fromRunnable(() -> deallocated.set(true)));
+        doReturn(Flux.just(lastBatch)).when(fetchStatement).execute();
+        doReturn(Flux.just("a")).when(lastBatch).map(any());
+        when(closeStatement.execute()).thenReturn(Flux.error(new IllegalStateException("close failed")));
+
+        new PostgresqlRow.AttachedRefCursor(MockContext.builder().connection(connection).build(), "test-cursor")
+            .<Object>fetch(2, (row, rowMetadata) -> row)
+            .as(StepVerifier::create)
+            .expectNext("a")
+            .verifyError();
+
+        assertThat(deallocated).isTrue();
+    }
+
+    @Test
+    void fetchRefCursorInvalidBatchSize() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new PostgresqlRow.AttachedRefCursor(MockContext.empty(), "test-cursor").fetch(0, (row, rowMetadata) -> row))
+            .withMessage("batchSize must be greater than zero");
+    }
+
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+final class PostgresqlSqlParserTest {
+
+    @Test
+    void parseNoSql() {
+        assertThatIllegalArgumentException().isThrownBy(() -> PostgresqlSqlParser.parse(null))
+            .withMessage("sql must not be null");
+    }
+
+    @Test
+    void parseEmpty() {
+        ParsedSql parsedSql = PostgresqlSqlParser.parse("  -- comment\n /* block */ ; ");
+
+        assertThat(parsedSql.isEmpty()).isTrue();
+        assertThat(parsedSql.getStatementCount()).isZero();
+        assertThat(parsedSql.getParameterCount()).isZero();
+        assertThat(parsedSql.getCommand()).isEmpty();
+    }
+
+    @Test
+    void parseParameters() {
+        ParsedSql parsedSql = PostgresqlSqlParser.parse("SELECT * FROM test WHERE a = $1 AND b = $2 OR c = $1");
+
+        assertThat(parsedSql.getStatementCount()).isOne();
+        assertThat(parsedSql.getParameterCount()).isEqualTo(2);
+        assertThat(parsedSql.getCommand()).isEqualTo("SELECT");
+    }
+
+    @Test
+    void parseIgnoresParametersInStringsCommentsAndIdentifiers() {
+        ParsedSql parsedSql = PostgresqlSqlParser.parse("SELECT '$1', E'\\'$2', \"$3\", foo$4 -- $5\n /* $6 /* $7 */ */ FROM test WHERE a = $8");
+
+        assertThat(parsedSql.getParameterCount()).isOne();
+    }
+
+    @Test
+    void parseDollarQuotedStrings() {
+        ParsedSql parsedSql = PostgresqlSqlParser.parse("SELECT $$ $1; RETURNING $$, $tag$ $2 $$ ; $tag$ FROM test WHERE a = $1");
+
+        assertThat(parsedSql.getStatementCount()).isOne();
+        assertThat(parsedSql.getParameterCount()).isOne();
+        assertThat(parsedSql.hasReturningClause()).isFalse();
+    }
+
+    @Test
+    void parseMultipleStatements() {
+        ParsedSql parsedSql = PostgresqlSqlParser.parse("SELECT ';'; UPDATE test SET a = 1;;");
+
+        assertThat(parsedSql.getStatementCount()).isEqualTo(2);
+        assertThat(parsedSql.getCommand()).isEqualTo("SELECT");
+        assertThat(parsedSql.isModifyingCommand()).isTrue();
+    }
+
+    @Test
+    void parseTrailingSemicolon() {
+        assertThat(PostgresqlSqlParser.parse("SELECT $1;").getStatementCount()).isOne();
+    }
+
+    @Test
+    void parseReturningClause() {
+        assertThat(PostgresqlSqlParser.parse("INSERT INTO test VALUES ($1) returning id").hasReturningClause()).isTrue();
+        assertThat(PostgresqlSqlParser.parse("INSERT INTO test (returning_id) VALUES ($1)").hasReturningClause()).isFalse();
+        assertThat(PostgresqlSqlParser.parse("INSERT INTO test VALUES ('RETURNING')").hasReturningClause()).isFalse();
+    }
+
+    @Test
+    void parseModifyingCommand() {
+        assertThat(PostgresqlSqlParser.parse("WITH x AS (SELECT 1) delete FROM test").isModifyingCommand()).isTrue();
+        assertThat(PostgresqlSqlParser.parse("SELECT 'INSERT'").isModifyingCommand()).isFalse();
+    }
+
+    @Test
+    void parseSingleReadOnlyStatement() {
+        assertThat(PostgresqlSqlParser.parse("SELECT * FROM test;").isSingleReadOnlyStatement()).isTrue();
+        assertThat(PostgresqlSqlParser.parse("SELECT 1; SELECT 2").isSingleReadOnlyStatement()).isFalse();
+        assertThat(PostgresqlSqlParser.parse("UPDATE test SET a = 1 RETURNING a").isSingleReadOnlyStatement()).isFalse();
+    }
+
+    @Test
+    void parseParameterIndex() {
+        assertThat(PostgresqlSqlParser.parseParameterIndex("$1")).isZero();
+        assertThat(PostgresqlSqlParser.parseParameterIndex("$12")).isEqualTo(11);
+        assertThat(PostgresqlSqlParser.parseParameterIndex("$0")).isEqualTo(-1);
+        assertThat(PostgresqlSqlParser.parseParameterIndex("$")).isEqualTo(-1);
+        assertThat(PostgresqlSqlParser.parseParameterIndex("foo")).isEqualTo(-1);
+        assertThat(PostgresqlSqlParser.parseParameterIndex("$1a")).isEqualTo(-1);
+        assertThat(PostgresqlSqlParser.parseParameterIndex("$65535")).isEqualTo(65534);
+        assertThat(PostgresqlSqlParser.parseParameterIndex("$65536")).isEqualTo(-1);
+        assertThat(PostgresqlSqlParser.parseParameterIndex("$99999999999")).isEqualTo(-1);
+    }
+
+    @Test
+    void parseParameterBeyondMaximum() {
+        assertThat(PostgresqlSqlParser.parse("SELECT $65535").getParameterCount()).isOne();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> PostgresqlSqlParser.parse("SELECT $65536"))
+            .withMessage("Bind parameter $65536 exceeds the maximum of 65535 parameters");
+        assertThatIllegalArgumentException().isThrownBy(() -> PostgresqlSqlParser.parse("SELECT $99999999999"))
+            .withMessage("Bind parameter $99999999999 exceeds the maximum of 65535 parameters");
+    }
+
+}
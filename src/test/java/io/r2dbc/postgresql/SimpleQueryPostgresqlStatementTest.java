@@ -19,18 +19,23 @@ package io.r2dbc.postgresql;
 import io.netty.buffer.ByteBuf;
 import io.r2dbc.postgresql.api.PostgresqlResult;
 import io.r2dbc.postgresql.client.Client;
+import io.r2dbc.postgresql.client.DrainLimit;
 import io.r2dbc.postgresql.client.TestClient;
 import io.r2dbc.postgresql.codec.MockCodecs;
 import io.r2dbc.postgresql.message.backend.CommandComplete;
 import io.r2dbc.postgresql.message.backend.DataRow;
 import io.r2dbc.postgresql.message.backend.EmptyQueryResponse;
 import io.r2dbc.postgresql.message.backend.ErrorResponse;
+import io.r2dbc.postgresql.message.backend.Field;
+import io.r2dbc.postgresql.message.backend.Field.FieldType;
 import io.r2dbc.postgresql.message.backend.RowDescription;
 import io.r2dbc.postgresql.message.frontend.Query;
 import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import io.r2dbc.spi.R2dbcTimeoutException;
 import org.junit.jupiter.api.Test;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.Collections;
 
 import static io.r2dbc.postgresql.message.Format.FORMAT_TEXT;
@@ -76,7 +81,7 @@ final class SimpleQueryPostgresqlStatementTest {
 
     @Test
     void constructorNoSql() {
-        assertThatIllegalArgumentException().isThrownBy(() -> new SimpleQueryPostgresqlStatement(MockContext.empty(), null))
+        assertThatIllegalArgumentException().isThrownBy(() -> new SimpleQueryPostgresqlStatement(MockContext.empty(), (String) null))
             .withMessage("sql must not be null");
     }
 
@@ -133,6 +138,20 @@ final class SimpleQueryPostgresqlStatementTest {
             .verifyComplete();
     }
 
+    @Test
+    void executeQueryCanceledWithoutTimeout() {
+        Client client = TestClient.builder()
+            .expectRequest(new Query("test-query")).thenRespond(new ErrorResponse(Collections.singletonList(new Field(FieldType.CODE, "57014"))))
+            .build();
+
+        new SimpleQueryPostgresqlStatement(MockContext.builder().client(client).build(), "test-query")
+            .timeout(Duration.ofSeconds(10))
+            .execute()
+            .flatMap(PostgresqlResult::getRowsUpdated)
+            .as(StepVerifier::create)
+            .verifyErrorSatisfies(e -> assertThat(e).isInstanceOf(R2dbcNonTransientResourceException.class).isNotInstanceOf(R2dbcTimeoutException.class));
+    }
+
     @Test
     void executeErrorResponseRows() {
         Client client = TestClient.builder()
@@ -198,6 +217,95 @@ final class SimpleQueryPostgresqlStatementTest {
             .verifyComplete();
     }
 
+    @Test
+    void executeCancelsDrainedResult() {
+        RowDescription.Field field = new RowDescription.Field((short) 100, 200, 300, (short) 400, FORMAT_TEXT, "test-name", 500);
+        TestClient client = TestClient.builder()
+            .expectRequest(new Query("test-query"))
+            .thenRespond(
+                new RowDescription(Collections.singletonList(field)),
+                new DataRow(TEST.buffer(4).writeInt(100)),
+                new DataRow(TEST.buffer(4).writeInt(200)),
+                new DataRow(TEST.buffer(4).writeInt(300)),
+                new DataRow(TEST.buffer(4).writeInt(400)),
+                new CommandComplete("test", null, null))
+            .build();
+
+        MockCodecs codecs = MockCodecs.builder()
+            .preferredType(200, FORMAT_TEXT, String.class)
+            .build();
+
+        ConnectionContext context = MockContext.builder().client(client).codecs(codecs).drainLimit(DrainLimit.of(1, 0)).build();
+
+        new SimpleQueryPostgresqlStatement(context, "test-query")
+            .execute()
+            .flatMap(result -> result.map((row, rowMetadata) -> row))
+            .take(1)
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertThat(client.getCancelRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void executeDrainsModifyingStatement() {
+        RowDescription.Field field = new RowDescription.Field((short) 100, 200, 300, (short) 400, FORMAT_TEXT, "test-name", 500);
+        TestClient client = TestClient.builder()
+            .expectRequest(new Query("UPDATE test SET value = 1 RETURNING value"))
+            .thenRespond(
+                new RowDescription(Collections.singletonList(field)),
+                new DataRow(TEST.buffer(4).writeInt(100)),
+                new DataRow(TEST.buffer(4).writeInt(200)),
+                new DataRow(TEST.buffer(4).writeInt(300)),
+                new CommandComplete("UPDATE", null, 3))
+            .build();
+
+        MockCodecs codecs = MockCodecs.builder()
+            .preferredType(200, FORMAT_TEXT, String.class)
+            .build();
+
+        ConnectionContext context = MockContext.builder().client(client).codecs(codecs).drainLimit(DrainLimit.of(1, 0)).build();
+
+        new SimpleQueryPostgresqlStatement(context, "UPDATE test SET value = 1 RETURNING value")
+            .execute()
+            .flatMap(result -> result.map((row, rowMetadata) -> row))
+            .take(1)
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertThat(client.getCancelRequestCount()).isZero();
+    }
+
+    @Test
+    void executeBufferedResult() {
+        RowDescription.Field field = new RowDescription.Field((short) 100, 200, 300, (short) 400, FORMAT_TEXT, "test-name", 500);
+        Client client = TestClient.builder()
+            .expectRequest(new Query("test-query"))
+            .thenRespond(
+                new RowDescription(Collections.singletonList(field)),
+                new DataRow(TEST.buffer(4).writeInt(100)),
+                new DataRow(TEST.buffer(4).writeInt(200)),
+                new CommandComplete("test", null, null))
+            .build();
+
+        MockCodecs codecs = MockCodecs.builder()
+            .preferredType(200, FORMAT_TEXT, String.class)
+            .build();
+
+        ConnectionContext context = MockContext.builder().client(client).codecs(codecs).build();
+
+        new SimpleQueryPostgresqlStatement(context, "test-query")
+            .bufferResult(0)
+            .execute()
+            .flatMap(result -> result.map((row, rowMetadata) -> row))
+            .as(StepVerifier::create)
+            .expectNext(new PostgresqlRow(context, Collections.singletonList(field), new ByteBuf[]{TEST.buffer(4).writeInt(100)}))
+            .expectNext(new PostgresqlRow(context, Collections.singletonList(field), new ByteBuf[]{TEST.buffer(4).writeInt(200)}))
+            .verifyComplete();
+    }
+
     @Test
     void executeRowDescriptionRowsUpdated() {
         Client client = TestClient.builder()
@@ -248,7 +356,7 @@ final class SimpleQueryPostgresqlStatementTest {
 
     @Test
     void supportsNoSql() {
-        assertThatIllegalArgumentException().isThrownBy(() -> SimpleQueryPostgresqlStatement.supports(null))
+        assertThatIllegalArgumentException().isThrownBy(() -> SimpleQueryPostgresqlStatement.supports((String) null))
             .withMessage("sql must not be null");
     }
 
@@ -272,4 +380,22 @@ final class SimpleQueryPostgresqlStatementTest {
         assertThat(SimpleQueryPostgresqlStatement.supports("test-query")).isTrue();
     }
 
+    @Test
+    void timeoutNegative() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new SimpleQueryPostgresqlStatement(MockContext.empty(), "test-query").timeout(Duration.ofSeconds(-1)))
+            .withMessage("timeout must not be negative");
+    }
+
+    @Test
+    void timeoutNoTimeout() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new SimpleQueryPostgresqlStatement(MockContext.empty(), "test-query").timeout(null))
+            .withMessage("timeout must not be null");
+    }
+
+    @Test
+    void bufferResultNegative() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new SimpleQueryPostgresqlStatement(MockContext.empty(), "test-query").bufferResult(-1))
+            .withMessage("memoryThreshold must be greater or equal to zero");
+    }
+
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.authentication;
+
+import com.ongres.scram.common.ScramFunctions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static com.ongres.scram.common.ScramMechanisms.SCRAM_SHA_256;
+import static com.ongres.scram.common.stringprep.StringPreparations.NO_PREPARATION;
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class ScramKeyCacheTest {
+
+    private static final String SALT = Base64.getEncoder().encodeToString("test-salt".getBytes());
+
+    @Test
+    void derivesKeys() {
+        ScramKeyCache.ScramKeys keys = new ScramKeyCache().getKeys(SCRAM_SHA_256, "test-username", "test-password", SALT, 4096);
+
+        byte[] saltedPassword = ScramFunctions.saltedPassword(SCRAM_SHA_256, NO_PREPARATION, "test-password", "test-salt".getBytes(), 4096);
+
+        assertThat(keys.getClientKey()).isEqualTo(ScramFunctions.clientKey(SCRAM_SHA_256, saltedPassword));
+        assertThat(keys.getServerKey()).isEqualTo(ScramFunctions.serverKey(SCRAM_SHA_256, saltedPassword));
+    }
+
+    @Test
+    void cachesKeys() {
+        ScramKeyCache cache = new ScramKeyCache();
+
+        ScramKeyCache.ScramKeys first = cache.getKeys(SCRAM_SHA_256, "test-username", "test-password", SALT, 4096);
+        ScramKeyCache.ScramKeys second = cache.getKeys(SCRAM_SHA_256, "test-username", new StringBuilder("test-password"), SALT, 4096);
+
+        assertThat(second).isSameAs(first);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void distinguishesPasswordAndIterations() {
+        ScramKeyCache cache = new ScramKeyCache();
+
+        ScramKeyCache.ScramKeys keys = cache.getKeys(SCRAM_SHA_256, "test-username", "test-password", SALT, 4096);
+
+        assertThat(cache.getKeys(SCRAM_SHA_256, "test-username", "other-password", SALT, 4096).getClientKey()).isNotEqualTo(keys.getClientKey());
+        assertThat(cache.getKeys(SCRAM_SHA_256, "test-username", "test-password", SALT, 8192).getClientKey()).isNotEqualTo(keys.getClientKey());
+        assertThat(cache.size()).isEqualTo(3);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        ScramKeyCache cache = new ScramKeyCache(1);
+
+        ScramKeyCache.ScramKeys first = cache.getKeys(SCRAM_SHA_256, "test-username", "test-password", SALT, 4096);
+        cache.getKeys(SCRAM_SHA_256, "other-username", "test-password", SALT, 4096);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getKeys(SCRAM_SHA_256, "test-username", "test-password", SALT, 4096)).isNotSameAs(first);
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.r2dbc.postgresql.message.backend.CommandComplete;
+import io.r2dbc.postgresql.message.backend.CopyData;
+import io.r2dbc.postgresql.message.backend.DataRow;
+import io.r2dbc.postgresql.message.backend.ReadyForQuery;
+import io.r2dbc.postgresql.message.backend.ReadyForQuery.TransactionStatus;
+import io.r2dbc.postgresql.message.backend.StreamedColumn;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.netty.util.CharsetUtil.UTF_8;
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+final class BackendMessageFrameDecoderTest {
+
+    private final BackendMessageFrameDecoder decoder = new BackendMessageFrameDecoder();
+
+    private final EmbeddedChannel channel = new EmbeddedChannel(this.decoder);
+
+    @Test
+    void decodesMultipleFrames() {
+        ByteBuf buffer = TEST.buffer();
+        writeDataRow(buffer, 100);
+        writeCommandComplete(buffer);
+        writeReadyForQuery(buffer);
+
+        this.channel.writeInbound(buffer);
+
+        DataRow dataRow = this.channel.readInbound();
+        assertThat(dataRow).isEqualTo(new DataRow(TEST.buffer(4).writeInt(100)));
+        assertThat(this.channel.<Object>readInbound()).isEqualTo(new CommandComplete("SELECT", null, 1));
+        assertThat(this.channel.<Object>readInbound()).isEqualTo(new ReadyForQuery(TransactionStatus.IDLE));
+        assertThat(this.channel.<Object>readInbound()).isNull();
+
+        dataRow.release();
+    }
+
+    @Test
+    void decodesFragmentedFrames() {
+        ByteBuf buffer = TEST.buffer();
+        writeDataRow(buffer, 100);
+        writeReadyForQuery(buffer);
+
+        while (buffer.isReadable()) {
+            this.channel.writeInbound(buffer.readRetainedSlice(Math.min(3, buffer.readableBytes())));
+        }
+        buffer.release();
+
+        DataRow dataRow = this.channel.readInbound();
+        assertThat(dataRow).isEqualTo(new DataRow(TEST.buffer(4).writeInt(100)));
+        assertThat(this.channel.<Object>readInbound()).isEqualTo(new ReadyForQuery(TransactionStatus.IDLE));
+
+        dataRow.release();
+    }
+
+    @Test
+    void cumulatesLargeFramesIntoComposite() {
+        int size = BackendMessageFrameDecoder.COMPOSITE_THRESHOLD;
+        ByteBuf buffer = TEST.buffer();
+        buffer.writeByte('d').writeInt(4 + size).writeZero(size);
+
+        this.channel.writeInbound(buffer.readRetainedSlice(1024));
+        assertThat(this.decoder.isComposite()).isTrue();
+
+        this.channel.writeInbound(buffer.readRetainedSlice(buffer.readableBytes()));
+        buffer.release();
+
+        CopyData copyData = this.channel.readInbound();
+        assertThat(copyData.getData().readableBytes()).isEqualTo(size);
+        assertThat(this.decoder.isComposite()).isFalse();
+
+        copyData.release();
+    }
+
+    @Test
+    void decodesLargeDataRowIncrementally() {
+        int size = BackendMessageFrameDecoder.COMPOSITE_THRESHOLD;
+        ByteBuf buffer = TEST.buffer();
+        buffer.writeByte('D').writeInt(4 + 2 + 4 + size + 4 + 4 + 4).writeShort(3).writeInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.writeByte(i);
+        }
+        buffer.writeInt(-1).writeInt(4).writeInt(100);
+        writeReadyForQuery(buffer);
+
+        this.channel.writeInbound(buffer.readRetainedSlice(1024));
+        assertThat(this.decoder.isIncremental()).isTrue();
+        assertThat(this.decoder.isComposite()).isFalse();
+
+        while (buffer.isReadable()) {
+            assertThat(this.channel.<Object>readInbound()).isNull();
+            this.channel.writeInbound(buffer.readRetainedSlice(Math.min(64 * 1024 + 3, buffer.readableBytes())));
+        }
+        buffer.release();
+
+        DataRow dataRow = this.channel.readInbound();
+        assertThat(this.decoder.isIncremental()).isFalse();
+        assertThat(dataRow.hasStreamedColumns()).isFalse();
+        assertThat(dataRow.getColumns()[0].readableBytes()).isEqualTo(size);
+        assertThat(dataRow.getColumns()[0].getByte(size - 1)).isEqualTo((byte) (size - 1));
+        assertThat(dataRow.getColumns()[1]).isNull();
+        assertThat(dataRow.getColumns()[2]).isEqualTo(TEST.buffer(4).writeInt(100));
+        assertThat(this.channel.<Object>readInbound()).isEqualTo(new ReadyForQuery(TransactionStatus.IDLE));
+
+        dataRow.release();
+    }
+
+    @Test
+    void streamsTrailingColumn() {
+        BackendMessageFrameDecoder decoder = new BackendMessageFrameDecoder(1024);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+
+        int size = BackendMessageFrameDecoder.COMPOSITE_THRESHOLD;
+        ByteBuf buffer = TEST.buffer();
+        buffer.writeByte('D').writeInt(4 + 2 + 4 + 4 + 4 + size).writeShort(2).writeInt(4).writeInt(100).writeInt(size).writeZero(size);
+        writeReadyForQuery(buffer);
+
+        channel.writeInbound(buffer.readRetainedSlice(1024));
+
+        DataRow dataRow = channel.readInbound();
+        assertThat(dataRow.getColumns()[0]).isEqualTo(TEST.buffer(4).writeInt(100));
+        assertThat(dataRow.getStreamedColumn(0)).isNull();
+
+        StreamedColumn column = dataRow.getStreamedColumn(1);
+        assertThat(column).isNotNull();
+        assertThat(column.getLength()).isEqualTo(size);
+
+        AtomicLong received = new AtomicLong();
+        AtomicBoolean completed = new AtomicBoolean();
+        column.consume().subscribe(chunk -> {
+            received.addAndGet(chunk.readableBytes());
+            chunk.release();
+        }, null, () -> completed.set(true));
+        dataRow.release();
+
+        assertThat(received.get()).isEqualTo(1024 - 5 - 2 - 4 - 4 - 4);
+
+        while (buffer.isReadable()) {
+            channel.writeInbound(buffer.readRetainedSlice(Math.min(64 * 1024, buffer.readableBytes())));
+        }
+        buffer.release();
+
+        assertThat(received.get()).isEqualTo(size);
+        assertThat(completed).isTrue();
+        assertThat(channel.<Object>readInbound()).isEqualTo(new ReadyForQuery(TransactionStatus.IDLE));
+    }
+
+    @Test
+    void releasesUnconsumedStreamedColumn() {
+        BackendMessageFrameDecoder decoder = new BackendMessageFrameDecoder(1024);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+
+        int size = BackendMessageFrameDecoder.COMPOSITE_THRESHOLD;
+        ByteBuf buffer = TEST.buffer();
+        buffer.writeByte('D').writeInt(4 + 2 + 4 + size).writeShort(1).writeInt(size).writeZero(size);
+
+        channel.writeInbound(buffer.readRetainedSlice(2048));
+
+        DataRow dataRow = channel.readInbound();
+        StreamedColumn column = dataRow.getStreamedColumn(0);
+        dataRow.release();
+
+        assertThat(column.isConsumed()).isTrue();
+
+        channel.writeInbound(buffer.readRetainedSlice(buffer.readableBytes()));
+
+        assertThat(buffer.refCnt()).isEqualTo(1);
+        buffer.release();
+    }
+
+    @Test
+    void failsStreamedColumnOnClose() {
+        BackendMessageFrameDecoder decoder = new BackendMessageFrameDecoder(1024);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+
+        int size = BackendMessageFrameDecoder.COMPOSITE_THRESHOLD;
+        ByteBuf buffer = TEST.buffer();
+        buffer.writeByte('D').writeInt(4 + 2 + 4 + size).writeShort(1).writeInt(size).writeZero(size);
+
+        channel.writeInbound(buffer.readRetainedSlice(2048));
+        buffer.release();
+
+        DataRow dataRow = channel.readInbound();
+        StreamedColumn column = dataRow.getStreamedColumn(0);
+
+        channel.finish();
+
+        column.consume()
+            .doOnNext(ByteBuf::release)
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyError(ReactorNettyClient.PostgresConnectionClosedException.class);
+
+        dataRow.release();
+    }
+
+    @Test
+    void rejectsInvalidFrameLength() {
+        assertThatExceptionOfType(CorruptedFrameException.class).isThrownBy(() -> this.channel.writeInbound(TEST.buffer().writeByte('Z').writeInt(2)))
+            .withMessage("Invalid frame length 3");
+    }
+
+    private static void writeDataRow(ByteBuf buffer, int value) {
+        buffer.writeByte('D').writeInt(4 + 2 + 4 + 4).writeShort(1).writeInt(4).writeInt(value);
+    }
+
+    private static void writeCommandComplete(ByteBuf buffer) {
+        buffer.writeByte('C').writeInt(4 + 9).writeCharSequence("SELECT 1", UTF_8);
+        buffer.writeByte(0);
+    }
+
+    private static void writeReadyForQuery(ByteBuf buffer) {
+        buffer.writeByte('Z').writeInt(5).writeByte('I');
+    }
+
+}
@@ -18,8 +18,14 @@ package io.r2dbc.postgresql.client;
 
 import io.r2dbc.postgresql.message.frontend.CancelRequest;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 
@@ -64,4 +70,93 @@ final class CancelRequestMessageFlowTest {
             .withMessage("Connection does not yet have a secretKey");
     }
 
+    @Test
+    void timeoutSendsCancelRequest() {
+        TestClient client = TestClient.builder().build();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        CancelRequestMessageFlow
+            .timeout(client, active(Mono.delay(Duration.ofMillis(500)).thenMany(Flux.just("done"))), Duration.ofMillis(10), () -> cancelled.set(true))
+            .as(StepVerifier::create)
+            .expectNext("done")
+            .verifyComplete();
+
+        assertThat(client.getCancelRequestCount()).isEqualTo(1);
+        assertThat(cancelled).isTrue();
+    }
+
+    @Test
+    void timeoutIgnoresQueuedTime() {
+        TestClient client = TestClient.builder().build();
+
+        CancelRequestMessageFlow
+            .timeout(client, Mono.delay(Duration.ofMillis(200)).thenMany(Flux.just("done")), Duration.ofMillis(10))
+            .as(StepVerifier::create)
+            .expectNext("done")
+            .verifyComplete();
+
+        assertThat(client.getCancelRequestCount()).isZero();
+    }
+
+    @Test
+    void timeoutStoppedOnExchangeCompletion() {
+        TestClient client = TestClient.builder().build();
+
+        Flux<String> messages = Mono.subscriberContext()
+            .flatMapMany(context -> {
+                CancelRequestMessageFlow.Timer timer = context.get(CancelRequestMessageFlow.Timer.class);
+                timer.start();
+                timer.stop();
+                return Mono.delay(Duration.ofMillis(200)).thenMany(Flux.just("done"));
+            });
+
+        CancelRequestMessageFlow
+            .timeout(client, messages, Duration.ofMillis(10))
+            .as(StepVerifier::create)
+            .expectNext("done")
+            .verifyComplete();
+
+        assertThat(client.getCancelRequestCount()).isZero();
+    }
+
+    @Test
+    void timeoutNotExpired() {
+        TestClient client = TestClient.builder().build();
+
+        CancelRequestMessageFlow
+            .timeout(client, active(Flux.just("done")), Duration.ofMillis(10))
+            .as(StepVerifier::create)
+            .expectNext("done")
+            .verifyComplete();
+
+        Mono.delay(Duration.ofMillis(50)).block();
+
+        assertThat(client.getCancelRequestCount()).isZero();
+    }
+
+    @Test
+    void timeoutZero() {
+        Flux<String> messages = Flux.just("done");
+
+        assertThat(CancelRequestMessageFlow.timeout(TestClient.NO_OP, messages, Duration.ZERO)).isSameAs(messages);
+        assertThat(CancelRequestMessageFlow.timeout(TestClient.NO_OP, messages, null)).isSameAs(messages);
+    }
+
+    @Test
+    void timeoutNoClient() {
+        assertThatIllegalArgumentException().isThrownBy(() -> CancelRequestMessageFlow.timeout(null, Flux.empty(), Duration.ZERO))
+            .withMessage("client must not be null");
+    }
+
+    /**
+     * Emulate the {@link Client} that starts the timer once the exchange becomes active.
+     */
+    private static <T> Flux<T> active(Flux<T> messages) {
+        return Mono.subscriberContext()
+            .flatMapMany(context -> {
+                context.get(CancelRequestMessageFlow.Timer.class).start();
+                return messages;
+            });
+    }
+
 }
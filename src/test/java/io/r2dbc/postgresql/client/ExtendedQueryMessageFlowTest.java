@@ -16,11 +16,13 @@
 
 package io.r2dbc.postgresql.client;
 
+import io.netty.buffer.ByteBuf;
 import io.r2dbc.postgresql.message.backend.BindComplete;
 import io.r2dbc.postgresql.message.backend.CloseComplete;
 import io.r2dbc.postgresql.message.backend.CommandComplete;
 import io.r2dbc.postgresql.message.backend.ErrorResponse;
 import io.r2dbc.postgresql.message.backend.NoData;
+import io.r2dbc.postgresql.message.backend.ParameterDescription;
 import io.r2dbc.postgresql.message.backend.ParseComplete;
 import io.r2dbc.postgresql.message.backend.ReadyForQuery;
 import io.r2dbc.postgresql.message.frontend.Bind;
@@ -35,6 +37,7 @@ import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -80,6 +83,34 @@ final class ExtendedQueryMessageFlowTest {
             .verifyComplete();
     }
 
+    @Test
+    void executeAggregatesStreamedValuesInOrder() {
+        ByteBuf streamed = TEST.buffer();
+        for (int i = 0; i < 20; i++) {
+            streamed.writeByte(i);
+        }
+
+        Flux<Binding> bindings = Flux.just(new Binding(2)
+            .add(0, new Parameter(FORMAT_BINARY, 100, Flux.range(0, 20).delayElements(Duration.ofMillis(1)).map(i -> TEST.buffer(1).writeByte(i))))
+            .add(1, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(300)))));
+
+        Client client = TestClient.builder()
+            .expectRequest(
+                new Bind("B_0", Arrays.asList(FORMAT_BINARY, FORMAT_BINARY), Arrays.asList(streamed, TEST.buffer(4).writeInt(300)), Collections.emptyList(), "test-name"),
+                new Describe("B_0", ExecutionType.PORTAL),
+                new Execute("B_0", 0),
+                new Close("B_0", ExecutionType.PORTAL),
+                Sync.INSTANCE)
+            .thenRespond(BindComplete.INSTANCE, NoData.INSTANCE, new CommandComplete("test", null, null))
+            .build();
+
+        ExtendedQueryMessageFlow
+            .execute(bindings, client, () -> "B_0", "test-name", "", false)
+            .as(StepVerifier::create)
+            .expectNext(BindComplete.INSTANCE, NoData.INSTANCE, new CommandComplete("test", null, null))
+            .verifyComplete();
+    }
+
     @Test
     void executeNoBindings() {
         assertThatIllegalArgumentException().isThrownBy(() -> ExtendedQueryMessageFlow.execute(null, NO_OP, () -> "", "test-statement", "", false))
@@ -104,6 +135,81 @@ final class ExtendedQueryMessageFlowTest {
             .withMessage("statementName must not be null");
     }
 
+    @Test
+    void executePrepared() {
+        Flux<Binding> bindings = Flux.just(
+            new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(200)))),
+            new Binding(1).add(0, new Parameter(FORMAT_BINARY, 100, Flux.just(TEST.buffer(4).writeInt(300))))
+        );
+
+        Client client = TestClient.builder()
+            .expectRequest(
+                new Bind("", Collections.singletonList(FORMAT_BINARY), Collections.singletonList(TEST.buffer(4).writeInt(200)), Collections.emptyList(), "test-name"),
+                new Execute("", 0),
+                new Bind("", Collections.singletonList(FORMAT_BINARY), Collections.singletonList(TEST.buffer(4).writeInt(300)), Collections.emptyList(), "test-name"),
+                new Execute("", 0),
+                Sync.INSTANCE)
+            .thenRespond(
+                BindComplete.INSTANCE, new CommandComplete("test", null, null),
+                BindComplete.INSTANCE, new CommandComplete("test", null, null)
+            )
+            .build();
+
+        ExtendedQueryMessageFlow
+            .executePrepared(bindings, client, "test-name", "", false)
+            .as(StepVerifier::create)
+            .expectNext(BindComplete.INSTANCE, new CommandComplete("test", null, null))
+            .expectNext(BindComplete.INSTANCE, new CommandComplete("test", null, null))
+            .verifyComplete();
+    }
+
+    @Test
+    void executePreparedNoStatement() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ExtendedQueryMessageFlow.executePrepared(Flux.empty(), NO_OP, null, "", false))
+            .withMessage("statementName must not be null");
+    }
+
+    @Test
+    void prepare() {
+        Client client = TestClient.builder()
+            .expectRequest(new Parse("test-name", Collections.emptyList(), "test-query"), new Describe("test-name", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(23)), NoData.INSTANCE)
+            .build();
+
+        ExtendedQueryMessageFlow
+            .prepare(client, "test-name", "test-query", Collections.emptyList())
+            .as(StepVerifier::create)
+            .expectNext(ParseComplete.INSTANCE, new ParameterDescription(Collections.singletonList(23)), NoData.INSTANCE)
+            .verifyComplete();
+    }
+
+    @Test
+    void prepareClosesStatements() {
+        Client client = TestClient.builder()
+            .expectRequest(new Close("S_0", ExecutionType.STATEMENT), new Close("S_1", ExecutionType.STATEMENT), new Parse("test-name", Collections.emptyList(), "test-query"),
+                new Describe("test-name", ExecutionType.STATEMENT), Sync.INSTANCE)
+            .thenRespond(CloseComplete.INSTANCE, CloseComplete.INSTANCE, ParseComplete.INSTANCE, new ParameterDescription(Collections.emptyList()), NoData.INSTANCE)
+            .build();
+
+        ExtendedQueryMessageFlow
+            .prepare(client, "test-name", "test-query", Collections.emptyList(), Arrays.asList("S_0", "S_1"))
+            .as(StepVerifier::create)
+            .expectNext(CloseComplete.INSTANCE, CloseComplete.INSTANCE, ParseComplete.INSTANCE, new ParameterDescription(Collections.emptyList()), NoData.INSTANCE)
+            .verifyComplete();
+    }
+
+    @Test
+    void prepareNoCloseStatements() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ExtendedQueryMessageFlow.prepare(NO_OP, "test-name", "test-query", Collections.emptyList(), null))
+            .withMessage("closeStatements must not be null");
+    }
+
+    @Test
+    void prepareNoName() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ExtendedQueryMessageFlow.prepare(NO_OP, null, "test-query", Collections.emptyList()))
+            .withMessage("name must not be null");
+    }
+
     @Test
     void parse() {
         Client client = TestClient.builder()
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.r2dbc.postgresql.message.backend.CommandComplete;
+import io.r2dbc.postgresql.message.backend.DataRow;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.r2dbc.postgresql.client.ReceiveBackpressure.MESSAGE_OVERHEAD;
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class ReceiveBackpressureTest {
+
+    private final List<Boolean> autoRead = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private final FluxSink<Object> sink = mock(FluxSink.class, RETURNS_SMART_NULLS);
+
+    private final ReceiveBackpressure backpressure = new ReceiveBackpressure(this.autoRead::add, 200, 100);
+
+    @Test
+    void emitsWithDemand() {
+        when(this.sink.requestedFromDownstream()).thenReturn(1L);
+
+        this.backpressure.onNext(this.sink, dataRow(1000));
+
+        assertThat(this.backpressure.getBuffered()).isZero();
+        assertThat(this.autoRead).isEmpty();
+    }
+
+    @Test
+    void suspendsAboveHighWatermark() {
+        when(this.sink.requestedFromDownstream()).thenReturn(0L);
+
+        this.backpressure.onNext(this.sink, dataRow(64));
+        assertThat(this.autoRead).isEmpty();
+
+        this.backpressure.onNext(this.sink, dataRow(64));
+        this.backpressure.onNext(this.sink, dataRow(64));
+
+        assertThat(this.backpressure.getBuffered()).isEqualTo(3 * (64 + MESSAGE_OVERHEAD));
+        assertThat(this.backpressure.isSuspended()).isTrue();
+        assertThat(this.autoRead).containsExactly(false);
+    }
+
+    @Test
+    void resumesBelowLowWatermark() {
+        when(this.sink.requestedFromDownstream()).thenReturn(0L);
+
+        this.backpressure.onNext(this.sink, dataRow(64));
+        this.backpressure.onNext(this.sink, dataRow(64));
+        this.backpressure.onNext(this.sink, dataRow(64));
+
+        this.backpressure.onRequest(1);
+        assertThat(this.backpressure.isSuspended()).isTrue();
+
+        this.backpressure.onRequest(1);
+        assertThat(this.backpressure.isSuspended()).isFalse();
+        assertThat(this.backpressure.getBuffered()).isEqualTo(64 + MESSAGE_OVERHEAD);
+        assertThat(this.autoRead).containsExactly(false, true);
+    }
+
+    @Test
+    void buffersWhilePendingMessages() {
+        when(this.sink.requestedFromDownstream()).thenReturn(0L).thenReturn(1L);
+
+        this.backpressure.onNext(this.sink, dataRow(8));
+        this.backpressure.onNext(this.sink, dataRow(8));
+
+        assertThat(this.backpressure.getBuffered()).isEqualTo(2 * (8 + MESSAGE_OVERHEAD));
+    }
+
+    @Test
+    void resetResumes() {
+        when(this.sink.requestedFromDownstream()).thenReturn(0L);
+
+        this.backpressure.onNext(this.sink, dataRow(512));
+        this.backpressure.reset();
+
+        assertThat(this.backpressure.getBuffered()).isZero();
+        assertThat(this.autoRead).containsExactly(false, true);
+    }
+
+    @Test
+    void sizeOf() {
+        assertThat(ReceiveBackpressure.sizeOf(new CommandComplete("SELECT", null, 1))).isEqualTo(MESSAGE_OVERHEAD);
+        assertThat(ReceiveBackpressure.sizeOf(new DataRow(TEST.buffer(4).writeInt(100), null))).isEqualTo(MESSAGE_OVERHEAD + 4);
+    }
+
+    @Test
+    void constructorInvalidWatermarks() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new ReceiveBackpressure(it -> {
+        }, 100, 200)).withMessage("lowWatermark must not be greater than highWatermark");
+    }
+
+    @Test
+    void constructorNoAutoRead() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new ReceiveBackpressure(null)).withMessage("autoRead must not be null");
+    }
+
+    private static DataRow dataRow(int size) {
+        return new DataRow(TEST.buffer(size).writeZero(size));
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.r2dbc.postgresql.message.backend.BackendMessage;
+import io.r2dbc.postgresql.message.backend.CommandComplete;
+import io.r2dbc.postgresql.message.backend.DataRow;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+final class ResultBufferTest {
+
+    @Test
+    void consumesSourceWithoutDemand() {
+        AtomicBoolean completed = new AtomicBoolean();
+        Flux<BackendMessage> messages = Flux.<BackendMessage>just(dataRow(1), dataRow(2), new CommandComplete("SELECT", null, 2))
+            .doOnComplete(() -> completed.set(true));
+
+        ResultBuffer.buffer(messages, TEST, Long.MAX_VALUE)
+            .as(it -> StepVerifier.create(it, 0))
+            .then(() -> assertThat(completed).isTrue())
+            .thenRequest(1)
+            .expectNext(dataRow(1))
+            .thenRequest(2)
+            .expectNext(dataRow(2), new CommandComplete("SELECT", null, 2))
+            .verifyComplete();
+    }
+
+    @Test
+    void spillsRowsExceedingThreshold() {
+        DataRow withNull = new DataRow(TEST.buffer(4).writeInt(3), null);
+        Flux<BackendMessage> messages = Flux.just(dataRow(1), dataRow(2), new CommandComplete("SELECT", null, 2), withNull, new CommandComplete("SELECT", null, 1));
+
+        ResultBuffer.buffer(messages, TEST, 10)
+            .as(it -> StepVerifier.create(it, 0))
+            .thenRequest(1)
+            .expectNext(dataRow(1))
+            .thenRequest(Long.MAX_VALUE)
+            .expectNext(dataRow(2), new CommandComplete("SELECT", null, 2), new DataRow(TEST.buffer(4).writeInt(3), null), new CommandComplete("SELECT", null, 1))
+            .verifyComplete();
+    }
+
+    @Test
+    void spillsAllRows() {
+        Flux<BackendMessage> messages = Flux.range(0, 100).map(ResultBufferTest::dataRow);
+
+        ResultBuffer.buffer(messages, TEST, 0)
+            .as(StepVerifier::create)
+            .expectNextSequence(Flux.range(0, 100).map(ResultBufferTest::dataRow).toIterable())
+            .verifyComplete();
+    }
+
+    @Test
+    void requestsSourceInBoundedBatches() {
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        Flux<BackendMessage> messages = Flux.range(0, 1000).<BackendMessage>map(ResultBufferTest::dataRow).doOnRequest(requests::add);
+
+        ResultBuffer.buffer(messages, TEST, 0)
+            .as(StepVerifier::create)
+            .expectNextSequence(Flux.range(0, 1000).map(ResultBufferTest::dataRow).toIterable())
+            .verifyComplete();
+
+        assertThat(requests).isNotEmpty().allMatch(n -> n <= ResultBuffer.PREFETCH);
+    }
+
+    @Test
+    void cancelReleasesBufferedRows() {
+        DataRow first = dataRow(1);
+        DataRow second = dataRow(2);
+
+        ResultBuffer.buffer(Flux.just(first, second), TEST, Long.MAX_VALUE)
+            .as(it -> StepVerifier.create(it, 0))
+            .thenCancel()
+            .verify();
+
+        assertThat(first.refCnt()).isZero();
+        assertThat(second.refCnt()).isZero();
+    }
+
+    @Test
+    void propagatesError() {
+        ResultBuffer.buffer(Flux.concat(Flux.just(dataRow(1)), Flux.error(new R2dbcNonTransientResourceException())), TEST, 0)
+            .as(StepVerifier::create)
+            .expectNext(dataRow(1))
+            .verifyError(R2dbcNonTransientResourceException.class);
+    }
+
+    @Test
+    void bufferNegativeThreshold() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ResultBuffer.buffer(Flux.empty(), TEST, -1))
+            .withMessage("memoryThreshold must be greater or equal to zero");
+    }
+
+    @Test
+    void bufferNoMessages() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ResultBuffer.buffer(null, TEST, 0))
+            .withMessage("messages must not be null");
+    }
+
+    private static DataRow dataRow(int value) {
+        return new DataRow(TEST.buffer(4).writeInt(value));
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.r2dbc.postgresql.message.backend.BackendMessage;
+import io.r2dbc.postgresql.message.backend.CommandComplete;
+import io.r2dbc.postgresql.message.backend.DataRow;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class ResultDrainTest {
+
+    @Test
+    void cancelsAfterDrainedRows() {
+        TestClient client = TestClient.builder().build();
+        ResultDrain drain = ResultDrain.create(client, DrainLimit.of(2, 0));
+        DataRow last = dataRow(4);
+
+        drain.cancel();
+
+        drain.messages(Flux.just(dataRow(4), dataRow(4), dataRow(4), last, new CommandComplete("SELECT", null, 4)))
+            .as(StepVerifier::create)
+            .expectNextCount(2)
+            .verifyComplete();
+
+        assertThat(client.getCancelRequestCount()).isEqualTo(1);
+        assertThat(last.refCnt()).isZero();
+    }
+
+    @Test
+    void cancelsAfterDrainedBytes() {
+        TestClient client = TestClient.builder().build();
+        ResultDrain drain = ResultDrain.create(client, DrainLimit.of(0, 10));
+
+        drain.cancel();
+
+        drain.messages(Flux.just(dataRow(8), dataRow(8), dataRow(8)))
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .verifyComplete();
+
+        assertThat(client.getCancelRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void completesOnceCancelRequestIsProcessed() {
+        MonoProcessor<Void> cancelRequest = MonoProcessor.create();
+        Client client = mock(Client.class);
+        when(client.getTransactionStatus()).thenReturn(TransactionStatus.IDLE);
+        when(client.cancelRequest()).thenReturn(cancelRequest);
+
+        ResultDrain drain = ResultDrain.create(client, DrainLimit.of(1, 0));
+
+        drain.cancel();
+
+        drain.messages(Flux.just(dataRow(4), dataRow(4), new CommandComplete("SELECT", null, 2)))
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectNoEvent(Duration.ofMillis(50))
+            .then(cancelRequest::onComplete)
+            .verifyComplete();
+    }
+
+    @Test
+    void drainsBeforeCancel() {
+        TestClient client = TestClient.builder().build();
+        ResultDrain drain = ResultDrain.create(client, DrainLimit.of(1, 0));
+
+        drain.messages(Flux.just(dataRow(4), dataRow(4), dataRow(4)))
+            .as(StepVerifier::create)
+            .expectNextCount(3)
+            .verifyComplete();
+
+        assertThat(client.getCancelRequestCount()).isZero();
+    }
+
+    @Test
+    void drainsWhileResultIsConsumed() {
+        TestClient client = TestClient.builder().build();
+        ResultDrain drain = ResultDrain.create(client, DrainLimit.of(1, 0));
+
+        drain.cancel();
+
+        Flux<BackendMessage> messages = drain.messages(Flux.just(dataRow(4), dataRow(4), dataRow(4)));
+
+        drain.result(messages)
+            .as(StepVerifier::create)
+            .expectNextCount(3)
+            .verifyComplete();
+
+        assertThat(client.getCancelRequestCount()).isZero();
+    }
+
+    @Test
+    void drainsInTransaction() {
+        TestClient client = TestClient.builder().transactionStatus(TransactionStatus.OPEN).build();
+        ResultDrain drain = ResultDrain.create(client, DrainLimit.of(1, 0));
+
+        drain.cancel();
+
+        drain.messages(Flux.just(dataRow(4), dataRow(4), dataRow(4)))
+            .as(StepVerifier::create)
+            .expectNextCount(3)
+            .verifyComplete();
+
+        assertThat(client.getCancelRequestCount()).isZero();
+    }
+
+    @Test
+    void createNoClient() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ResultDrain.create(null, DrainLimit.UNLIMITED))
+            .withMessage("client must not be null");
+    }
+
+    @Test
+    void createNoLimit() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ResultDrain.create(TestClient.NO_OP, null))
+            .withMessage("limit must not be null");
+    }
+
+    @Test
+    void limitNegative() {
+        assertThatIllegalArgumentException().isThrownBy(() -> DrainLimit.of(-1, 0))
+            .withMessage("rows must be greater or equal to zero");
+        assertThatIllegalArgumentException().isThrownBy(() -> DrainLimit.of(0, -1))
+            .withMessage("bytes must be greater or equal to zero");
+    }
+
+    @Test
+    void limitUnlimited() {
+        assertThat(DrainLimit.of(0, 0)).isSameAs(DrainLimit.UNLIMITED);
+        assertThat(DrainLimit.of(1, 0).isUnlimited()).isFalse();
+        assertThat(DrainLimit.of(1, 0).isExceeded(2, Long.MAX_VALUE)).isTrue();
+        assertThat(DrainLimit.of(0, 10).isExceeded(Long.MAX_VALUE, 10)).isFalse();
+    }
+
+    private static DataRow dataRow(int size) {
+        return new DataRow(TEST.buffer(size).writeZero(size));
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+import org.junit.jupiter.api.Test;
+import reactor.netty.tcp.SslProvider;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSessionContext;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static reactor.netty.tcp.SslProvider.DefaultConfigurationType.TCP;
+
+final class SSLConfigTest {
+
+    private final AtomicInteger builds = new AtomicInteger();
+
+    private final Supplier<SslProvider> supplier = () -> {
+        this.builds.incrementAndGet();
+        return SslProvider.builder().sslContext(SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE)).defaultConfiguration(TCP).build();
+    };
+
+    @Test
+    void cachesSslProvider() {
+        SSLConfig sslConfig = new SSLConfig(SSLMode.REQUIRE, this.supplier, null);
+
+        SslProvider sslProvider = sslConfig.getSslProvider().get();
+
+        assertThat(sslConfig.getSslProvider().get()).isSameAs(sslProvider);
+        assertThat(sslConfig.mutateMode(SSLMode.PREFER).getSslProvider().get()).isSameAs(sslProvider);
+        assertThat(this.builds).hasValue(1);
+    }
+
+    @Test
+    void refreshSslProvider() {
+        SSLConfig sslConfig = new SSLConfig(SSLMode.REQUIRE, this.supplier, null);
+        SSLConfig mutated = sslConfig.mutateMode(SSLMode.PREFER);
+
+        SslProvider sslProvider = sslConfig.getSslProvider().get();
+        sslConfig.refreshSslProvider();
+
+        assertThat(mutated.getSslProvider().get()).isNotSameAs(sslProvider);
+        assertThat(this.builds).hasValue(2);
+    }
+
+    @Test
+    void retainedSslContextSurvivesRefresh() {
+        ReferenceCountedSslContext sslContext = new ReferenceCountedSslContext();
+        SSLConfig sslConfig = new SSLConfig(SSLMode.REQUIRE, () -> SslProvider.builder().sslContext(sslContext).build(), null);
+
+        SslContext retained = sslConfig.retainSslContext();
+        sslConfig.refreshSslProvider();
+
+        assertThat(sslContext.refCnt()).isEqualTo(1);
+
+        ReferenceCountUtil.release(retained);
+
+        assertThat(sslContext.refCnt()).isZero();
+    }
+
+    @Test
+    void doesNotCacheFailure() {
+        SSLConfig sslConfig = new SSLConfig(SSLMode.REQUIRE, () -> {
+            if (this.builds.incrementAndGet() == 1) {
+                throw new IllegalStateException("cannot read certificate");
+            }
+            return this.supplier.get();
+        }, null);
+
+        assertThatIllegalStateException().isThrownBy(() -> sslConfig.getSslProvider().get());
+        assertThat(sslConfig.getSslProvider().get()).isNotNull();
+    }
+
+    @Test
+    void resolveEngineProvider() {
+        assertThat(SSLConfig.resolveEngineProvider(io.netty.handler.ssl.SslProvider.JDK)).isEqualTo(io.netty.handler.ssl.SslProvider.JDK);
+        assertThat(SSLConfig.resolveEngineProvider(io.netty.handler.ssl.SslProvider.OPENSSL_REFCNT))
+            .isEqualTo(OpenSsl.isAvailable() ? io.netty.handler.ssl.SslProvider.OPENSSL_REFCNT : io.netty.handler.ssl.SslProvider.JDK);
+    }
+
+    /**
+     * Reference-counted {@link SslContext} standing in for an OpenSSL context.
+     */
+    static final class ReferenceCountedSslContext extends SslContext implements ReferenceCounted {
+
+        private final AbstractReferenceCounted refCnt = new AbstractReferenceCounted() {
+
+            @Override
+            protected void deallocate() {
+            }
+
+            @Override
+            public ReferenceCounted touch(Object hint) {
+                return this;
+            }
+        };
+
+        @Override
+        public boolean isClient() {
+            return true;
+        }
+
+        @Override
+        public List<String> cipherSuites() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public io.netty.handler.ssl.ApplicationProtocolNegotiator applicationProtocolNegotiator() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SSLEngine newEngine(ByteBufAllocator alloc) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SSLEngine newEngine(ByteBufAllocator alloc, String peerHost, int peerPort) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SSLSessionContext sessionContext() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long sessionCacheSize() {
+            return 0;
+        }
+
+        @Override
+        public long sessionTimeout() {
+            return 0;
+        }
+
+        @Override
+        public int refCnt() {
+            return this.refCnt.refCnt();
+        }
+
+        @Override
+        public ReferenceCounted retain() {
+            this.refCnt.retain();
+            return this;
+        }
+
+        @Override
+        public ReferenceCounted retain(int increment) {
+            this.refCnt.retain(increment);
+            return this;
+        }
+
+        @Override
+        public ReferenceCounted touch() {
+            return this;
+        }
+
+        @Override
+        public ReferenceCounted touch(Object hint) {
+            return this;
+        }
+
+        @Override
+        public boolean release() {
+            return this.refCnt.release();
+        }
+
+        @Override
+        public boolean release(int decrement) {
+            return this.refCnt.release(decrement);
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelOption;
+import org.junit.jupiter.api.Test;
+import reactor.netty.tcp.TcpClient;
+
+import java.net.InetSocketAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+final class SocketOptionsTest {
+
+    @Test
+    void constructorNoTransport() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new SocketOptions(null, null, true, 0, 0, 0))
+            .withMessage("transport must not be null");
+    }
+
+    @Test
+    void constructorNegativeSizes() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new SocketOptions(Transport.AUTO, null, true, -1, 0, 0));
+        assertThatIllegalArgumentException().isThrownBy(() -> new SocketOptions(Transport.AUTO, null, true, 0, -1, 0));
+        assertThatIllegalArgumentException().isThrownBy(() -> new SocketOptions(Transport.AUTO, null, true, 0, 0, -1));
+    }
+
+    @Test
+    void resolveTransport() {
+        assertThat(Transport.NIO.resolve()).isEqualTo(Transport.NIO);
+        assertThat(Transport.AUTO.resolve()).isNotEqualTo(Transport.AUTO);
+        assertThat(Transport.EPOLL.resolve()).isEqualTo(Transport.EPOLL.isAvailable() ? Transport.EPOLL : Transport.NIO);
+        assertThat(Transport.KQUEUE.resolve()).isEqualTo(Transport.KQUEUE.isAvailable() ? Transport.KQUEUE : Transport.NIO);
+    }
+
+    @Test
+    void configureTcpOptions() {
+        SocketOptions socketOptions = new SocketOptions(Transport.NIO, null, true, 65536, 32768, 0);
+
+        Bootstrap bootstrap = socketOptions.configure(TcpClient.create(), InetSocketAddress.createUnresolved("localhost", 5432)).configure();
+
+        assertThat(bootstrap.config().options()).containsEntry(ChannelOption.TCP_NODELAY, true)
+            .containsEntry(ChannelOption.SO_RCVBUF, 65536)
+            .containsEntry(ChannelOption.SO_SNDBUF, 32768);
+    }
+
+    @Test
+    void configureOmitsDefaultBufferSizes() {
+        Bootstrap bootstrap = SocketOptions.defaults().configure(TcpClient.create(), InetSocketAddress.createUnresolved("localhost", 5432)).configure();
+
+        assertThat(bootstrap.config().options()).doesNotContainKeys(ChannelOption.SO_RCVBUF, ChannelOption.SO_SNDBUF);
+    }
+
+}
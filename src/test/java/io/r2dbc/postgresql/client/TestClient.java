@@ -32,8 +32,12 @@ import reactor.core.publisher.Mono;
 import reactor.util.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -42,7 +46,9 @@ import static io.r2dbc.postgresql.client.TransactionStatus.IDLE;
 
 public final class TestClient implements Client {
 
-    public static final TestClient NO_OP = new TestClient(false, true, null, null, Flux.empty(), IDLE, new Version("9.4"));
+    public static final TestClient NO_OP = new TestClient(false, true, null, null, Flux.empty(), IDLE, new Version("9.4"), Collections.emptyMap());
+
+    private final AtomicInteger cancelRequests = new AtomicInteger();
 
     private final boolean expectClose;
 
@@ -64,13 +70,17 @@ public final class TestClient implements Client {
 
     private final Version version;
 
-    private TestClient(boolean expectClose, boolean connected, @Nullable Integer processId, @Nullable Integer secretKey, Flux<Window> windows, TransactionStatus transactionStatus, Version version) {
+    private final Map<String, String> parameterStatus;
+
+    private TestClient(boolean expectClose, boolean connected, @Nullable Integer processId, @Nullable Integer secretKey, Flux<Window> windows, TransactionStatus transactionStatus, Version version,
+                       Map<String, String> parameterStatus) {
         this.expectClose = expectClose;
         this.connected = connected;
         this.processId = processId;
         this.secretKey = secretKey;
         this.transactionStatus = Assert.requireNonNull(transactionStatus, "transactionStatus must not be null");
         this.version = version;
+        this.parameterStatus = parameterStatus;
 
         FluxSink<Flux<BackendMessage>> responses = this.responseProcessor.sink();
 
@@ -101,6 +111,15 @@ public final class TestClient implements Client {
         return this.expectClose ? Mono.empty() : Mono.error(new AssertionError("close called unexpectedly"));
     }
 
+    @Override
+    public Mono<Void> cancelRequest() {
+        return Mono.fromRunnable(this.cancelRequests::incrementAndGet);
+    }
+
+    public int getCancelRequestCount() {
+        return this.cancelRequests.get();
+    }
+
     @Override
     public Flux<BackendMessage> exchange(Publisher<FrontendMessage> requests) {
         Assert.requireNonNull(requests, "requests must not be null");
@@ -129,6 +148,11 @@ public final class TestClient implements Client {
         return TestByteBufAllocator.TEST;
     }
 
+    @Override
+    public Optional<String> getParameterStatus(String name) {
+        return Optional.ofNullable(this.parameterStatus.get(name));
+    }
+
     @Override
     public Optional<Integer> getProcessId() {
         return Optional.ofNullable(this.processId);
@@ -189,11 +213,14 @@ public final class TestClient implements Client {
 
         private Version version = new Version("9.4beta1");
 
+        private final Map<String, String> parameterStatus = new HashMap<>();
+
         private Builder() {
         }
 
         public TestClient build() {
-            return new TestClient(this.expectClose, this.connected, this.processId, this.secretKey, Flux.fromIterable(this.windows).map(Window.Builder::build), this.transactionStatus, this.version);
+            return new TestClient(this.expectClose, this.connected, this.processId, this.secretKey, Flux.fromIterable(this.windows).map(Window.Builder::build), this.transactionStatus, this.version,
+                this.parameterStatus);
         }
 
         public Builder expectClose() {
@@ -218,6 +245,11 @@ public final class TestClient implements Client {
             return exchange;
         }
 
+        public Builder parameterStatus(String name, String value) {
+            this.parameterStatus.put(Assert.requireNonNull(name, "name must not be null"), Assert.requireNonNull(value, "value must not be null"));
+            return this;
+        }
+
         public Builder processId(Integer processId) {
             this.processId = Assert.requireNonNull(processId, "processId must not be null");
             return this;
@@ -16,6 +16,7 @@
 
 package io.r2dbc.postgresql.codec;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.r2dbc.postgresql.client.Parameter;
 import io.r2dbc.postgresql.client.ParameterAssert;
@@ -59,6 +60,50 @@ final class BlobCodecTest {
             .verifyComplete();
     }
 
+    @Test
+    void decodeBinaryInChunks() {
+        ByteBuf buffer = TEST.buffer();
+        for (int i = 0; i < StreamedLobs.CHUNK_SIZE * 2 + 10; i++) {
+            buffer.writeByte(i);
+        }
+
+        Flux.from(new BlobCodec(TEST).decode(buffer, dataType, FORMAT_BINARY, Blob.class).stream())
+            .as(StepVerifier::create)
+            .assertNext(chunk -> assertThat(chunk.remaining()).isEqualTo(StreamedLobs.CHUNK_SIZE))
+            .assertNext(chunk -> {
+                assertThat(chunk.remaining()).isEqualTo(StreamedLobs.CHUNK_SIZE);
+                assertThat(chunk.get(1)).isEqualTo((byte) (StreamedLobs.CHUNK_SIZE + 1));
+            })
+            .assertNext(chunk -> assertThat(chunk.remaining()).isEqualTo(10))
+            .verifyComplete();
+
+        assertThat(buffer.refCnt()).isOne();
+        buffer.release();
+    }
+
+    @Test
+    void decodeDoesNotRetainBuffer() {
+        ByteBuf buffer = TEST.buffer(4).writeInt(100);
+        Blob blob = new BlobCodec(TEST).decode(buffer, dataType, FORMAT_BINARY, Blob.class);
+
+        assertThat(buffer.refCnt()).isOne();
+        buffer.release();
+
+        for (int i = 0; i < 2; i++) {
+            Flux.from(blob.stream())
+                .as(StepVerifier::create)
+                .assertNext(chunk -> assertThat(chunk.getInt()).isEqualTo(100))
+                .verifyComplete();
+        }
+    }
+
+    @Test
+    void decodeInvalidHex() {
+        Flux.from(new BlobCodec(TEST).decode(encode(TEST, "test-value"), dataType, FORMAT_TEXT, Blob.class).stream())
+            .as(StepVerifier::create)
+            .verifyError(IllegalStateException.class);
+    }
+
     @Test
     void decodeNoByteBuf() {
         assertThat(new BlobCodec(TEST).decode(null, dataType, FORMAT_TEXT, Blob.class)).isNull();
@@ -94,9 +139,9 @@ final class BlobCodecTest {
             .build();
 
         ParameterAssert.assertThat(new BlobCodec(TEST).doEncode(Blob))
-            .hasFormat(FORMAT_TEXT)
+            .hasFormat(FORMAT_BINARY)
             .hasType(BYTEA.getObjectId())
-            .hasValue(encode(TEST, "\\x746573742d76616c7565"));
+            .hasValue(encode(TEST, "test"), encode(TEST, "-"), encode(TEST, "value"));
 
         assertThat(Blob.isDiscardCalled()).isTrue();
     }
@@ -110,7 +155,7 @@ final class BlobCodecTest {
     @Test
     void encodeNull() {
         ParameterAssert.assertThat(new BlobCodec(TEST).encodeNull())
-            .isEqualTo(new Parameter(FORMAT_TEXT, BYTEA.getObjectId(), NULL_VALUE));
+            .isEqualTo(new Parameter(FORMAT_BINARY, BYTEA.getObjectId(), NULL_VALUE));
     }
 
 }
@@ -16,6 +16,7 @@
 
 package io.r2dbc.postgresql.codec;
 
+import io.netty.buffer.ByteBuf;
 import io.r2dbc.postgresql.client.Parameter;
 import io.r2dbc.postgresql.client.ParameterAssert;
 import io.r2dbc.spi.Clob;
@@ -56,6 +57,38 @@ final class ClobCodecTest {
             .verifyComplete();
     }
 
+    @Test
+    void decodeInChunks() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < StreamedLobs.CHUNK_SIZE; i++) {
+            value.append('\u00e4');
+        }
+
+        Flux.from(new ClobCodec(TEST).decode(encode(TEST, value), dataType, FORMAT_TEXT, Clob.class).stream())
+            .as(StepVerifier::create)
+            .assertNext(chunk -> assertThat(chunk.length()).isEqualTo(StreamedLobs.CHUNK_SIZE / 2))
+            .assertNext(chunk -> assertThat(chunk.length()).isEqualTo(StreamedLobs.CHUNK_SIZE / 2))
+            .verifyComplete();
+    }
+
+    @Test
+    void decodeDoesNotRetainBuffer() {
+        ByteBuf buffer = encode(TEST, "test");
+        Clob clob = new ClobCodec(TEST).decode(buffer, dataType, FORMAT_TEXT, Clob.class);
+
+        assertThat(buffer.refCnt()).isOne();
+        buffer.release();
+
+        for (int i = 0; i < 2; i++) {
+            Flux.from(clob.stream())
+                .reduce(new StringBuilder(), StringBuilder::append)
+                .map(StringBuilder::toString)
+                .as(StepVerifier::create)
+                .expectNext("test")
+                .verifyComplete();
+        }
+    }
+
     @Test
     void decodeNoByteBuf() {
         assertThat(new ClobCodec(TEST).decode(null, dataType, FORMAT_TEXT, Clob.class)).isNull();
@@ -91,11 +124,22 @@ final class ClobCodecTest {
         ParameterAssert.assertThat(new ClobCodec(TEST).doEncode(clob))
             .hasFormat(FORMAT_TEXT)
             .hasType(VARCHAR.getObjectId())
-            .hasValue(encode(TEST, "test-value"));
+            .hasValue(encode(TEST, "test"), encode(TEST, "-"), encode(TEST, "value"));
 
         assertThat(clob.isDiscardCalled()).isTrue();
     }
 
+    @Test
+    void doEncodeSplitSurrogatePair() {
+        String value = "a\uD83D\uDE00b";
+        MockClob clob = MockClob.builder()
+            .item(value.substring(0, 2), value.substring(2))
+            .build();
+
+        ParameterAssert.assertThat(new ClobCodec(TEST).doEncode(clob))
+            .hasValue(encode(TEST, "a"), encode(TEST, value.substring(1)));
+    }
+
     @Test
     void doEncodeNoValue() {
         assertThatIllegalArgumentException().isThrownBy(() -> new ClobCodec(TEST).doEncode(null))
@@ -117,6 +117,12 @@ final class DefaultCodecsTest {
             .withMessage("value must not be null");
     }
 
+    @Test
+    void findEncoder() {
+        assertThat(new DefaultCodecs(TEST).findEncoder(100)).isInstanceOf(IntegerCodec.class);
+        assertThat(new DefaultCodecs(TEST).findEncoder(new Object())).isNull();
+    }
+
     @Test
     void encodeNull() {
         Parameter parameter = new DefaultCodecs(TEST).encodeNull(Integer.class);
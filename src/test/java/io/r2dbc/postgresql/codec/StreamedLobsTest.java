@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.r2dbc.postgresql.message.backend.StreamedColumn;
+import io.r2dbc.postgresql.util.ByteBufUtils;
+import io.r2dbc.spi.Blob;
+import io.r2dbc.spi.Clob;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+
+import static io.r2dbc.postgresql.message.Format.FORMAT_BINARY;
+import static io.r2dbc.postgresql.message.Format.FORMAT_TEXT;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.BYTEA;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.INT4;
+import static io.r2dbc.postgresql.type.PostgresqlObjectId.TEXT;
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+final class StreamedLobsTest {
+
+    @Test
+    void decodeBinaryBlob() {
+        StreamedColumn column = column("test-".getBytes(StandardCharsets.UTF_8), "value".getBytes(StandardCharsets.UTF_8));
+
+        Flux.from(StreamedLobs.decode(column, BYTEA.getObjectId(), FORMAT_BINARY, Blob.class).stream())
+            .reduce(TEST.compositeBuffer(), (a, b) -> a.addComponent(true, Unpooled.wrappedBuffer(b)))
+            .map(ByteBufUtils::decode)
+            .as(StepVerifier::create)
+            .expectNext("test-value")
+            .verifyComplete();
+    }
+
+    @Test
+    void decodeHexBlobAcrossChunks() {
+        StreamedColumn column = column(bytes("\\"), bytes("x7465737"), bytes("42d76616c7565"));
+
+        Object blob = StreamedLobs.decode(column, BYTEA.getObjectId(), FORMAT_TEXT, Object.class);
+
+        assertThat(blob).isInstanceOf(Blob.class);
+        Flux.from(((Blob) blob).stream())
+            .reduce(TEST.compositeBuffer(), (a, b) -> a.addComponent(true, Unpooled.wrappedBuffer(b)))
+            .map(ByteBufUtils::decode)
+            .as(StepVerifier::create)
+            .expectNext("test-value")
+            .verifyComplete();
+    }
+
+    @Test
+    void decodeClobAcrossChunks() {
+        byte[] bytes = "täst-€".getBytes(StandardCharsets.UTF_8);
+        byte[] first = new byte[2];
+        byte[] second = new byte[bytes.length - 3];
+        byte[] third = new byte[1];
+        System.arraycopy(bytes, 0, first, 0, 2);
+        System.arraycopy(bytes, 2, second, 0, second.length);
+        System.arraycopy(bytes, bytes.length - 1, third, 0, 1);
+
+        Flux.from(StreamedLobs.decode(column(first, second, third), TEXT.getObjectId(), FORMAT_TEXT, Clob.class).stream())
+            .reduce(new StringBuilder(), StringBuilder::append)
+            .map(StringBuilder::toString)
+            .as(StepVerifier::create)
+            .expectNext("täst-€")
+            .verifyComplete();
+    }
+
+    @Test
+    void decodeUnsupportedType() {
+        StreamedColumn column = column();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> StreamedLobs.decode(column, TEXT.getObjectId(), FORMAT_TEXT, String.class));
+        assertThatIllegalArgumentException().isThrownBy(() -> StreamedLobs.decode(column, INT4.getObjectId(), FORMAT_TEXT, Blob.class));
+    }
+
+    @Test
+    void decodeTwice() {
+        StreamedColumn column = column();
+        StreamedLobs.decode(column, BYTEA.getObjectId(), FORMAT_BINARY, Blob.class);
+
+        assertThatIllegalStateException().isThrownBy(() -> StreamedLobs.decode(column, BYTEA.getObjectId(), FORMAT_BINARY, Blob.class));
+    }
+
+    @Test
+    void discard() {
+        ByteBuf chunk = TEST.buffer().writeInt(100);
+        StreamedColumn column = new StreamedColumn(4);
+        column.publish(chunk);
+        column.complete();
+
+        StepVerifier.create(StreamedLobs.decode(column, BYTEA.getObjectId(), FORMAT_BINARY, Blob.class).discard())
+            .verifyComplete();
+
+        assertThat(chunk.refCnt()).isZero();
+    }
+
+    private static StreamedColumn column(byte[]... chunks) {
+        int length = 0;
+        for (byte[] chunk : chunks) {
+            length += chunk.length;
+        }
+
+        StreamedColumn column = new StreamedColumn(length);
+        for (byte[] chunk : chunks) {
+            column.publish(TEST.buffer().writeBytes(chunk));
+        }
+        column.complete();
+
+        return column;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
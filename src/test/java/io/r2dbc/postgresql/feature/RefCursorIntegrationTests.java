@@ -117,6 +117,17 @@ final class RefCursorIntegrationTests extends AbstractIntegrationTests {
         assertThat(results).contains("Weinheim", "Frankfurt");
     }
 
+    @Test
+    void shouldFetchRefCursorInBatches() {
+
+        connection.createStatement("SELECT show_cities()").execute()
+            .flatMap(result -> result.map((row, rowMetadata) -> row.get(0, RefCursor.class)))
+            .flatMap(rc -> rc.fetch(1, (row, rowMetadata) -> row.get(0, String.class)))
+            .as(StepVerifier::create)
+            .expectNext("Weinheim", "Frankfurt")
+            .verifyComplete();
+    }
+
     @Test
     void shouldReturnRefCursor() {
 
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.postgresql.message.backend;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.r2dbc.postgresql.util.TestByteBufAllocator.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+final class StreamedColumnTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @Test
+    void suspendsReadsAboveHighWatermark() {
+        List<Boolean> autoRead = new ArrayList<>();
+        StreamedColumn column = new StreamedColumn(Integer.MAX_VALUE, autoRead::add);
+
+        publish(column, (int) (StreamedColumn.HIGH_WATERMARK / CHUNK_SIZE));
+        assertThat(column.isSuspended()).isFalse();
+
+        publish(column, 1);
+        assertThat(column.isSuspended()).isTrue();
+        assertThat(autoRead).containsExactly(false);
+
+        column.consume()
+            .doOnNext(ByteBuf::release)
+            .as(it -> StepVerifier.create(it, 0))
+            .thenRequest(10)
+            .expectNextCount(10)
+            .then(() -> assertThat(column.isSuspended()).isTrue())
+            .thenRequest(3)
+            .expectNextCount(3)
+            .then(() -> {
+                assertThat(column.isSuspended()).isFalse();
+                assertThat(autoRead).containsExactly(false, true);
+            })
+            .thenCancel()
+            .verify();
+
+        assertThat(autoRead).containsExactly(false, true);
+    }
+
+    @Test
+    void discardResumesReads() {
+        List<Boolean> autoRead = new ArrayList<>();
+        StreamedColumn column = new StreamedColumn(Integer.MAX_VALUE, autoRead::add);
+        List<ByteBuf> chunks = publish(column, (int) (StreamedColumn.HIGH_WATERMARK / CHUNK_SIZE) + 1);
+
+        column.discard();
+
+        assertThat(column.isSuspended()).isFalse();
+        assertThat(autoRead).containsExactly(false, true);
+        assertThat(chunks).allMatch(chunk -> chunk.refCnt() == 0);
+    }
+
+    @Test
+    void cancelResumesReads() {
+        List<Boolean> autoRead = new ArrayList<>();
+        StreamedColumn column = new StreamedColumn(Integer.MAX_VALUE, autoRead::add);
+        List<ByteBuf> chunks = publish(column, (int) (StreamedColumn.HIGH_WATERMARK / CHUNK_SIZE) + 1);
+
+        column.consume()
+            .as(it -> StepVerifier.create(it, 0))
+            .thenCancel()
+            .verify();
+
+        assertThat(autoRead).containsExactly(false, true);
+        assertThat(chunks).allMatch(chunk -> chunk.refCnt() == 0);
+    }
+
+    @Test
+    void constructorNegativeLength() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new StreamedColumn(-1))
+            .withMessage("length must be greater or equal to zero");
+    }
+
+    @Test
+    void constructorNoAutoRead() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new StreamedColumn(0, null))
+            .withMessage("autoRead must not be null");
+    }
+
+    private static List<ByteBuf> publish(StreamedColumn column, int count) {
+
+        List<ByteBuf> chunks = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            ByteBuf chunk = TEST.buffer(CHUNK_SIZE).writeZero(CHUNK_SIZE);
+            chunks.add(chunk);
+            column.publish(chunk);
+        }
+
+        return chunks;
+    }
+
+}